@@ -1,7 +1,9 @@
 package com.github.juliusd.ueberboeseapi;
 
 import com.github.juliusd.ueberboeseapi.bmx.BmxService;
+import com.github.juliusd.ueberboeseapi.bmx.PrecomputedResponse;
 import com.github.juliusd.ueberboeseapi.generated.BmxApi;
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxNowPlayingResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxPlaybackResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxReportRequestApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxReportResponseApiDto;
@@ -9,8 +11,11 @@ import com.github.juliusd.ueberboeseapi.generated.dtos.BmxServicesAvailabilityRe
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxServicesResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxTokenRequestApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxTokenResponseApiDto;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -25,6 +30,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 public class BmxController implements BmxApi {
 
   private final BmxService bmxService;
+  private final HttpServletRequest request;
 
   @Override
   public ResponseEntity<BmxServicesResponseApiDto> getBmxServices() {
@@ -32,15 +38,18 @@ public class BmxController implements BmxApi {
 
     try {
       String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
-      BmxServicesResponseApiDto response = bmxService.getBmxServices(baseUrl);
-      return ResponseEntity.ok()
+      PrecomputedResponse<BmxServicesResponseApiDto> response = bmxService.getBmxServices(baseUrl);
+      // Speakers fetch the registry often, unchanged registries are answered without a body
+      boolean notModified = response.notModifiedFor(request.getHeader(HttpHeaders.IF_NONE_MATCH));
+      return ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+          .eTag(response.eTag())
           .header("Content-Type", "application/json")
           .header("Access-Control-Allow-Origin", "*")
           .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
           .header(
               "Access-Control-Allow-Headers",
               "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Authorization")
-          .body(response);
+          .body(notModified ? null : response.body());
     } catch (Exception e) {
       log.error("Failed to get BMX services", e);
       return ResponseEntity.internalServerError().build();
@@ -49,11 +58,14 @@ public class BmxController implements BmxApi {
 
   @Override
   public ResponseEntity<BmxServicesAvailabilityResponseApiDto> getBmxServicesAvailability() {
-    BmxServicesAvailabilityResponseApiDto response = bmxService.getBmxServicesAvailability();
-    return ResponseEntity.ok()
+    PrecomputedResponse<BmxServicesAvailabilityResponseApiDto> response =
+        bmxService.getBmxServicesAvailability();
+    boolean notModified = response.notModifiedFor(request.getHeader(HttpHeaders.IF_NONE_MATCH));
+    return ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+        .eTag(response.eTag())
         .header("Content-Type", "application/json")
         .header("X-Bmx-Adapter-Version", "master.4.40")
-        .body(response);
+        .body(notModified ? null : response.body());
   }
 
   @Override
@@ -61,7 +73,8 @@ public class BmxController implements BmxApi {
     log.info("Getting TuneIn playback for station: {}", stationId);
 
     try {
-      BmxPlaybackResponseApiDto response = bmxService.getTuneInPlayback(stationId);
+      BmxPlaybackResponseApiDto response =
+          bmxService.getTuneInPlayback(stationId, request.getRemoteAddr());
       return ResponseEntity.ok()
           .header("Content-Type", "application/json")
           .header("Access-Control-Allow-Origin", "*")
@@ -77,23 +90,54 @@ public class BmxController implements BmxApi {
   }
 
   @Override
-  public ResponseEntity<BmxPlaybackResponseApiDto> getCustomStreamPlayback(String data) {
+  public ResponseEntity<BmxNowPlayingResponseApiDto> getTuneInNowPlaying(String stationId) {
+    log.debug("Getting TuneIn now playing for station: {}", stationId);
+
+    try {
+      BmxNowPlayingResponseApiDto response = bmxService.getTuneInNowPlaying(stationId);
+      return ResponseEntity.ok()
+          .header("Content-Type", "application/json")
+          .header("Access-Control-Allow-Origin", "*")
+          .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
+          .header(
+              "Access-Control-Allow-Headers",
+              "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Authorization")
+          .body(response);
+    } catch (Exception e) {
+      log.error("Failed to get TuneIn now playing for station: {}", stationId, e);
+      return ResponseEntity.internalServerError().build();
+    }
+  }
+
+  @Override
+  public ResponseEntity<BmxPlaybackResponseApiDto> getCustomStreamPlayback(String data, String id) {
     log.info("Getting custom stream playback");
 
     try {
-      if (data == null || data.isEmpty()) {
+      PrecomputedResponse<BmxPlaybackResponseApiDto> response;
+      if (id != null && !id.isEmpty()) {
+        var station = bmxService.getCustomStationPlayback(id);
+        if (station.isEmpty()) {
+          log.warn("Unknown custom station: {}", id);
+          return ResponseEntity.notFound().build();
+        }
+        response = station.get();
+      } else if (data != null && !data.isEmpty()) {
+        response = bmxService.getCustomStreamPlayback(data);
+      } else {
         return ResponseEntity.badRequest().build();
       }
 
-      BmxPlaybackResponseApiDto response = bmxService.getCustomStreamPlayback(data);
-      return ResponseEntity.ok()
+      boolean notModified = response.notModifiedFor(request.getHeader(HttpHeaders.IF_NONE_MATCH));
+      return ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+          .eTag(response.eTag())
           .header("Content-Type", "application/json")
           .header("Access-Control-Allow-Origin", "*")
           .header("Access-Control-Allow-Methods", "GET, POST, OPTIONS")
           .header(
               "Access-Control-Allow-Headers",
               "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Authorization")
-          .body(response);
+          .body(notModified ? null : response.body());
     } catch (IllegalArgumentException e) {
       log.warn("Invalid custom stream data: {}", e.getMessage());
       return ResponseEntity.badRequest().build();
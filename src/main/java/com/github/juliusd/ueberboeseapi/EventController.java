@@ -2,9 +2,11 @@ package com.github.juliusd.ueberboeseapi;
 
 import com.github.juliusd.ueberboeseapi.generated.EventsApi;
 import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventsRequestApiDto;
-import com.github.juliusd.ueberboeseapi.service.EventStorageService;
+import com.github.juliusd.ueberboeseapi.service.EventIngestionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -13,18 +15,21 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class EventController implements EventsApi {
 
-  private final EventStorageService eventStorageService;
+  private final EventIngestionService eventIngestionService;
 
   @Override
   public ResponseEntity<Void> submitDeviceEvents(
       String deviceId, DeviceEventsRequestApiDto deviceEventsRequestApiDto) {
-    eventStorageService.storeEvent(deviceId, deviceEventsRequestApiDto);
-
-    log.debug(
-        "Stored event for device: {}. Total events for this device: {}",
-        deviceId,
-        eventStorageService.getEventCount(deviceId));
+    var events = deviceEventsRequestApiDto.getPayload().getEvents();
+    if (!eventIngestionService.submit(deviceId, events)) {
+      log.debug("Rejected {} event(s) for device: {}, queue is full", events.size(), deviceId);
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(
+              HttpHeaders.RETRY_AFTER, String.valueOf(eventIngestionService.getRetryAfterSeconds()))
+          .build();
+    }
 
+    log.debug("Accepted {} event(s) for device: {}", events.size(), deviceId);
     return ResponseEntity.ok().build();
   }
 }
@@ -1,7 +1,6 @@
 package com.github.juliusd.ueberboeseapi;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
@@ -17,21 +16,18 @@ import org.springframework.stereotype.Component;
 public class LocationHeaderRewriter {
 
   /**
-   * Rewrites the Location header in the response if it's a redirect response with an absolute URL.
+   * Rewrites the Location header in place if it's a redirect response with an absolute URL.
    *
-   * @param originalHeaders the original response headers from the backend
+   * @param headers the mutable response headers about to be sent to the client
    * @param request the incoming HTTP request
    * @param statusCode the HTTP status code of the response
-   * @return modified headers with rewritten Location, or original headers if no rewriting needed
    */
-  public HttpHeaders rewriteIfRedirect(
-      HttpHeaders originalHeaders, HttpServletRequest request, HttpStatusCode statusCode) {
+  public void rewriteIfRedirect(
+      HttpHeaders headers, HttpServletRequest request, HttpStatusCode statusCode) {
 
-    if (!isRedirect(statusCode)) {
-      return originalHeaders;
+    if (isRedirect(statusCode)) {
+      rewriteLocationHeader(headers, request);
     }
-
-    return rewriteLocationHeader(originalHeaders, request);
   }
 
   private boolean isRedirect(HttpStatusCode statusCode) {
@@ -39,21 +35,19 @@ public class LocationHeaderRewriter {
     return code >= 300 && code < 400;
   }
 
-  private HttpHeaders rewriteLocationHeader(
-      HttpHeaders originalHeaders, HttpServletRequest request) {
+  private void rewriteLocationHeader(HttpHeaders headers, HttpServletRequest request) {
 
-    List<String> locationHeaders = originalHeaders.get(HttpHeaders.LOCATION);
-    if (locationHeaders == null || locationHeaders.isEmpty()) {
-      return originalHeaders;
+    String originalLocation = headers.getFirst(HttpHeaders.LOCATION);
+    if (originalLocation == null) {
+      return;
     }
 
-    String originalLocation = locationHeaders.get(0);
     try {
       java.net.URI locationUri = java.net.URI.create(originalLocation);
 
       // Only rewrite if Location has a host (absolute URL)
       if (locationUri.getHost() == null) {
-        return originalHeaders;
+        return;
       }
 
       // Build new Location with request's host
@@ -77,18 +71,12 @@ public class LocationHeaderRewriter {
               locationUri.getQuery(),
               locationUri.getFragment());
 
-      // Create new headers with rewritten Location
-      HttpHeaders modifiedHeaders = new HttpHeaders();
-      modifiedHeaders.putAll(originalHeaders);
-      modifiedHeaders.set(HttpHeaders.LOCATION, rewrittenUri.toString());
-
-      log.debug("Rewrote Location header from {} to {}", originalLocation, rewrittenUri.toString());
+      headers.set(HttpHeaders.LOCATION, rewrittenUri.toString());
 
-      return modifiedHeaders;
+      log.debug("Rewrote Location header from {} to {}", originalLocation, rewrittenUri);
 
     } catch (java.net.URISyntaxException e) {
       log.warn("Failed to parse Location header: {}", originalLocation, e);
-      return originalHeaders;
     }
   }
 }
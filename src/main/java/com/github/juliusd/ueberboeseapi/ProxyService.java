@@ -1,6 +1,15 @@
 package com.github.juliusd.ueberboeseapi;
 
+import com.github.juliusd.ueberboeseapi.proxy.HopByHopHeaders;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyCaptureStore;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyResponseCache;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyTrafficCapture;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,16 +25,36 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import reactor.core.publisher.Mono;
 
 /**
- * Service responsible for forwarding unknown requests to the configured target host. Logs all
- * request and response details to a dedicated log file.
+ * Service responsible for forwarding unknown requests to the configured target host. Request and
+ * response details are captured to a dedicated log file by {@link ProxyTrafficCapture}. In replay
+ * mode, responses are served from the {@link ProxyCaptureStore} instead of the upstream hosts.
  */
 @Service
 @Slf4j
 public class ProxyService implements CommandLineRunner {
 
+  /** Request headers that describe the incoming connection and are not sent upstream. */
+  private static final Set<String> UNFORWARDED_REQUEST_HEADERS =
+      new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  static {
+    UNFORWARDED_REQUEST_HEADERS.addAll(HopByHopHeaders.names());
+    Collections.addAll(
+        UNFORWARDED_REQUEST_HEADERS,
+        "Host",
+        "Content-Length",
+        "X-Forwarded-Scheme",
+        "X-Forwarded-Proto",
+        "X-Forwarded-For",
+        "X-Real-IP");
+  }
+
   private final WebClient webClient;
   private final ProxyProperties proxyProperties;
   private final LocationHeaderRewriter locationHeaderRewriter;
+  private final ProxyResponseCache responseCache;
+  private final ProxyTrafficCapture trafficCapture;
+  private final ProxyCaptureStore captureStore;
   private final AtomicLong requestCounter = new AtomicLong(0);
 
   // Directly bind the property to bypass record configuration binding mismatches
@@ -33,9 +62,16 @@ public class ProxyService implements CommandLineRunner {
   private boolean isProxyEnabled;
 
   public ProxyService(
-      ProxyProperties proxyProperties, LocationHeaderRewriter locationHeaderRewriter) {
+      ProxyProperties proxyProperties,
+      LocationHeaderRewriter locationHeaderRewriter,
+      ProxyResponseCache responseCache,
+      ProxyTrafficCapture trafficCapture,
+      ProxyCaptureStore captureStore) {
     this.proxyProperties = proxyProperties;
     this.locationHeaderRewriter = locationHeaderRewriter;
+    this.responseCache = responseCache;
+    this.trafficCapture = trafficCapture;
+    this.captureStore = captureStore;
     this.webClient =
         WebClient.builder()
             .codecs(
@@ -77,24 +113,21 @@ public class ProxyService implements CommandLineRunner {
     HttpMethod method = HttpMethod.valueOf(request.getMethod());
     boolean isSoftwareUpdate = isSoftwareUpdateRequest(request);
 
-    // Build consolidated request log message
-    StringBuilder requestLog = new StringBuilder("\n=== PROXY REQUEST START ===");
-    requestLog.append("\n  requestId: ").append(requestId);
-    requestLog.append("\n  Original URL: ").append(request.getRequestURL());
-    requestLog.append("\n  Target URL: ").append(targetUrl);
-    requestLog.append("\n  Method: ").append(method);
-    if (request.getQueryString() != null) {
-      requestLog.append("\n  Content-Type: ").append(request.getContentType());
+    if (captureStore.isReplayEnabled()) {
+      return replay(request, requestId, method, targetUrl, isSoftwareUpdate);
     }
-    if (request.getContentLength() != -1) {
-      requestLog.append("\n  Content-Length: ").append(request.getContentLength());
-    }
-    requestLog.append("\n  Request Headers:").append(buildHeadersString(request));
-    if (requestBody != null && !requestBody.isEmpty()) {
-      requestLog.append("\n  Request Body: ").append(requestBody);
+
+    Optional<ProxyResponseCache.CachedResponse> cached =
+        responseCache.lookup(method, targetUrl, request);
+    if (cached.isPresent() && cached.get().fresh()) {
+      // Not captured: the capture only records real upstream exchanges, which replay relies on
+      log.info(
+          "Serving fresh cached response for requestId {} {} {}", requestId, method, targetUrl);
+      return buildClientResponse(request, isSoftwareUpdate, toResponseData(cached.get()));
     }
 
-    log.info(requestLog.toString());
+    var capture = trafficCapture.begin(requestId, request, method, targetUrl, requestBody);
+    log.debug("Forwarding request {} {} {}", requestId, method, targetUrl);
 
     try {
       // Build the WebClient request
@@ -135,53 +168,34 @@ public class ProxyService implements CommandLineRunner {
                 });
       }
 
-      // Execute request and get response
+      // Execute request and get response. Requests are served on virtual threads
+      // (spring.threads.virtual.enabled), so waiting here does not hold a platform thread.
       ResponseData responseData = responseMono.block();
 
       if (responseData == null) {
         log.error("Received null response from target");
+        trafficCapture.fail(capture, "No response from target");
         return ResponseEntity.status(502).body("Bad Gateway - No response from target".getBytes());
       }
 
-      // Extract response components
-      byte[] responseBodyBytes = responseData.body();
-      String responseBodyString = responseBodyBytes != null ? new String(responseBodyBytes) : null;
-
-      // Build consolidated response log message
-      StringBuilder responseLog = new StringBuilder("\n=== PROXY RESPONSE ===");
-      responseLog
-          .append("\n  requestId: ")
-          .append(requestId)
-          .append(" ")
-          .append(method)
-          .append(" ")
-          .append(targetUrl);
-      responseLog.append("\n  Status: ").append(responseData.statusCode().value());
-      responseLog
-          .append("\n  Response Headers:")
-          .append(buildResponseHeadersString(responseData.headers()));
-      if (responseBodyString != null) {
-        responseLog.append("\n  Response Body: ").append(responseBodyString);
-      }
-      responseLog.append("\n=== PROXY REQUEST END ===");
-
-      log.info(responseLog.toString());
+      trafficCapture.complete(
+          capture, responseData.statusCode(), responseData.headers(), responseData.body());
 
-      // For software update requests, return 404 instead of forwarding the response
-      if (isSoftwareUpdate) {
-        log.info("Returning 404 for software update request");
-        return ResponseEntity.notFound().build();
+      if (responseData.statusCode().is5xxServerError()
+          && cached.filter(ProxyResponseCache.CachedResponse::usableOnError).isPresent()) {
+        log.info("Serving stale cached response for requestId {} after upstream error", requestId);
+        return buildClientResponse(request, isSoftwareUpdate, toResponseData(cached.get()));
       }
 
-      // Rewrite Location header for redirect responses
-      HttpHeaders headers =
-          locationHeaderRewriter.rewriteIfRedirect(
-              responseData.headers(), request, responseData.statusCode());
+      responseCache.store(
+          method,
+          targetUrl,
+          request,
+          responseData.statusCode(),
+          responseData.headers(),
+          responseData.body());
 
-      // Build response entity
-      return ResponseEntity.status(responseData.statusCode())
-          .headers(headers)
-          .body(responseBodyBytes);
+      return buildClientResponse(request, isSoftwareUpdate, responseData);
 
     } catch (WebClientResponseException e) {
       String errorLog =
@@ -200,6 +214,7 @@ public class ProxyService implements CommandLineRunner {
                   e.getStatusText(),
                   e.getResponseBodyAsString());
       log.error(errorLog);
+      trafficCapture.fail(capture, e.getStatusCode() + " " + e.getStatusText());
 
       return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString().getBytes());
 
@@ -214,11 +229,64 @@ public class ProxyService implements CommandLineRunner {
               """
               .formatted(requestId, targetUrl);
       log.error(errorLog, e);
+      trafficCapture.fail(capture, "Unexpected error: " + e);
+
+      if (cached.filter(ProxyResponseCache.CachedResponse::usableWhenUnreachable).isPresent()) {
+        log.info("Serving last known good response for requestId {} {}", requestId, targetUrl);
+        return buildClientResponse(request, isSoftwareUpdate, toResponseData(cached.get()));
+      }
 
       return ResponseEntity.status(502).body("Bad Gateway - Error forwarding request".getBytes());
     }
   }
 
+  private ResponseEntity<byte[]> replay(
+      HttpServletRequest request,
+      long requestId,
+      HttpMethod method,
+      String targetUrl,
+      boolean isSoftwareUpdate) {
+    Optional<ProxyCaptureStore.StoredExchange> stored = captureStore.replay(method, targetUrl);
+    if (stored.isEmpty()) {
+      log.info(
+          "No captured response to replay for requestId {} {} {}", requestId, method, targetUrl);
+      return ResponseEntity.status(502)
+          .body("Bad Gateway - No captured response to replay".getBytes());
+    }
+
+    log.debug("Replaying captured response for requestId {} {} {}", requestId, method, targetUrl);
+    return buildClientResponse(
+        request,
+        isSoftwareUpdate,
+        new ResponseData(
+            HttpStatusCode.valueOf(stored.get().entry().status()),
+            stored.get().responseHeaders(),
+            stored.get().responseBody()));
+  }
+
+  private ResponseEntity<byte[]> buildClientResponse(
+      HttpServletRequest request, boolean isSoftwareUpdate, ResponseData responseData) {
+    // For software update requests, return 404 instead of forwarding the response
+    if (isSoftwareUpdate) {
+      log.info("Returning 404 for software update request");
+      return ResponseEntity.notFound().build();
+    }
+
+    // Copy the upstream headers once into the response and rewrite Location there in place
+    return ResponseEntity.status(responseData.statusCode())
+        .headers(
+            headers -> {
+              copyResponseHeaders(responseData.headers(), headers);
+              locationHeaderRewriter.rewriteIfRedirect(headers, request, responseData.statusCode());
+            })
+        .body(responseData.body());
+  }
+
+  private static ResponseData toResponseData(ProxyResponseCache.CachedResponse cachedResponse) {
+    return new ResponseData(
+        cachedResponse.statusCode(), cachedResponse.headers(), cachedResponse.body());
+  }
+
   private String buildTargetUrl(HttpServletRequest request) {
     String targetHost = determineTargetHost(request);
     if (targetHost.endsWith("/")) {
@@ -305,62 +373,56 @@ public class ProxyService implements CommandLineRunner {
     return hostHeader.toLowerCase().contains("bmx");
   }
 
-  private void copyHeaders(HttpServletRequest request, HttpHeaders targetHeaders) {
-    request
-        .getHeaderNames()
-        .asIterator()
-        .forEachRemaining(
-            headerName -> {
-              // Skip certain headers that shouldn't be forwarded
-              if (shouldForwardHeader(headerName)) {
-                var headerValues = request.getHeaders(headerName);
-                headerValues
-                    .asIterator()
-                    .forEachRemaining(headerValue -> targetHeaders.add(headerName, headerValue));
-              }
-            });
-  }
-
-  private static boolean shouldForwardHeader(String headerName) {
-    String lowerHeaderName = headerName.toLowerCase();
-    // Skip host and connection-related headers
-    return !lowerHeaderName.equals("host")
-        && !lowerHeaderName.equals("connection")
-        && !lowerHeaderName.equals("x-forwarded-scheme")
-        && !lowerHeaderName.equals("x-forwarded-proto")
-        && !lowerHeaderName.equals("x-forwarded-for")
-        && !lowerHeaderName.equals("x-real-ip")
-        && !lowerHeaderName.equals("content-length")
-        && !lowerHeaderName.equals("transfer-encoding");
+  private static void copyHeaders(HttpServletRequest request, HttpHeaders targetHeaders) {
+    String connection = request.getHeader(HttpHeaders.CONNECTION);
+    Enumeration<String> headerNames = request.getHeaderNames();
+    while (headerNames.hasMoreElements()) {
+      String headerName = headerNames.nextElement();
+      if (UNFORWARDED_REQUEST_HEADERS.contains(headerName)
+          || (connection != null && isListedInConnection(connection, headerName))) {
+        continue;
+      }
+      Enumeration<String> headerValues = request.getHeaders(headerName);
+      while (headerValues.hasMoreElements()) {
+        targetHeaders.add(headerName, headerValues.nextElement());
+      }
+    }
   }
 
-  private static String buildHeadersString(HttpServletRequest request) {
-    StringBuilder headers = new StringBuilder();
-    request
-        .getHeaderNames()
-        .asIterator()
-        .forEachRemaining(
-            headerName -> {
-              var headerValues = request.getHeaders(headerName);
-              headerValues
-                  .asIterator()
-                  .forEachRemaining(
-                      headerValue ->
-                          headers
-                              .append("\n    ")
-                              .append(headerName)
-                              .append(": ")
-                              .append(headerValue));
-            });
-    return headers.toString();
+  private static void copyResponseHeaders(HttpHeaders source, HttpHeaders targetHeaders) {
+    String connection = source.getFirst(HttpHeaders.CONNECTION);
+    source.forEach(
+        (headerName, headerValues) -> {
+          if (!HopByHopHeaders.contains(headerName)
+              && (connection == null || !isListedInConnection(connection, headerName))) {
+            targetHeaders.addAll(headerName, headerValues);
+          }
+        });
   }
 
-  private static String buildResponseHeadersString(HttpHeaders headers) {
-    StringBuilder result = new StringBuilder();
-    headers.forEach(
-        (name, values) ->
-            result.append("\n    ").append(name).append(": ").append(String.join(", ", values)));
-    return result.toString();
+  /** Checks whether a header is named as a connection option (RFC 7230, section 6.1). */
+  private static boolean isListedInConnection(String connection, String headerName) {
+    int start = 0;
+    while (start < connection.length()) {
+      int end = connection.indexOf(',', start);
+      if (end < 0) {
+        end = connection.length();
+      }
+      int tokenStart = start;
+      int tokenEnd = end;
+      while (tokenStart < tokenEnd && connection.charAt(tokenStart) == ' ') {
+        tokenStart++;
+      }
+      while (tokenEnd > tokenStart && connection.charAt(tokenEnd - 1) == ' ') {
+        tokenEnd--;
+      }
+      if (tokenEnd - tokenStart == headerName.length()
+          && connection.regionMatches(true, tokenStart, headerName, 0, headerName.length())) {
+        return true;
+      }
+      start = end + 1;
+    }
+    return false;
   }
 
   /** Record to hold response data from WebClient exchangeToMono */
@@ -1,6 +1,14 @@
 package com.github.juliusd.ueberboeseapi.bmx;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
 @ConfigurationProperties(prefix = "ueberboese.bmx")
-public record BmxProperties(int maxReports) {}
+public record BmxProperties(
+    int maxReports,
+
+    /**
+     * Number of report events kept in the preallocated report buffer, shared by all sessions.
+     * Defaults to 4096.
+     */
+    @DefaultValue("4096") int reportBufferSize) {}
@@ -1,13 +1,19 @@
 package com.github.juliusd.ueberboeseapi.bmx;
 
+import static org.slf4j.LoggerFactory.getLogger;
 import static tools.jackson.databind.json.JsonMapper.builder;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.github.juliusd.ueberboeseapi.bmx.history.ListeningHistoryService;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportStorageService;
+import com.github.juliusd.ueberboeseapi.bmx.report.ReportTimestamps;
+import com.github.juliusd.ueberboeseapi.bmx.station.CustomStationCatalog;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxAudioApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxLinkApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxLinkWithClientApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxLinksApiDto;
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxNowPlayingResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxPlaybackResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxReportRequestApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxReportResponseApiDto;
@@ -20,21 +26,24 @@ import com.github.juliusd.ueberboeseapi.generated.dtos.BmxServicesAvailabilityRe
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxServicesResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxStreamApiDto;
 import com.github.juliusd.ueberboeseapi.generated.dtos.BmxTokenResponseApiDto;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import tools.jackson.core.JacksonException;
 import tools.jackson.databind.json.JsonMapper;
 
 /** Service for handling BMX operations including TuneIn integration and custom streams. */
@@ -44,24 +53,83 @@ import tools.jackson.databind.json.JsonMapper;
 public class BmxService {
 
   private final TuneInClient tuneInClient;
+  private final TuneInPlaylistResolver tuneInPlaylistResolver;
+  private final StreamHealthProber streamHealthProber;
+  private final NowPlayingAggregator nowPlayingAggregator;
   private final RadioReportStorageService radioReportStorageService;
+  private final ListeningHistoryService listeningHistoryService;
+  private final CustomStationCatalog customStationCatalog;
 
-  private static final DateTimeFormatter REPORT_TS_FORMATTER =
-      new DateTimeFormatterBuilder()
-          .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-          .appendOffset("+HHmm", "+0000")
-          .toFormatter();
+  private static final Logger EVENT_LOG = getLogger("com.github.juliusd.ueberboeseapi.EventLog");
+
+  /** Report event types indexed by the ordinal of the generated enum. */
+  private static final RadioReportEvent.EventType[] REPORT_EVENT_TYPES =
+      new RadioReportEvent.EventType[BmxReportRequestApiDto.EventTypeEnum.values().length];
+
+  static {
+    for (var eventType : BmxReportRequestApiDto.EventTypeEnum.values()) {
+      REPORT_EVENT_TYPES[eventType.ordinal()] =
+          RadioReportEvent.EventType.valueOf(eventType.getValue());
+    }
+  }
 
   private final JsonMapper jsonMapper = builder().findAndAddModules().build();
 
+  /** Number of distinct base URLs the services registry is kept for. */
+  private static final int MAX_REGISTRY_BASE_URLS = 16;
+
+  // Access-ordered, so the least recently used base URL is evicted first
+  private final Map<String, PrecomputedResponse<BmxServicesResponseApiDto>> servicesByBaseUrl =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<String, PrecomputedResponse<BmxServicesResponseApiDto>> eldest) {
+          return size() > MAX_REGISTRY_BASE_URLS;
+        }
+      };
+
+  private volatile PrecomputedResponse<BmxServicesAvailabilityResponseApiDto> servicesAvailability;
+
+  /** Number of distinct base64 custom stream payloads whose responses are kept. */
+  private static final int MAX_CUSTOM_STREAMS = 256;
+
+  // Access-ordered, so the least recently played custom stream is evicted first
+  private final Map<String, PrecomputedResponse<BmxPlaybackResponseApiDto>> customStreamsByData =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<String, PrecomputedResponse<BmxPlaybackResponseApiDto>> eldest) {
+          return size() > MAX_CUSTOM_STREAMS;
+        }
+      };
+
   /**
-   * Creates and returns the BMX services registry.
+   * Returns the BMX services registry. The registry only depends on the base URL, so it is built
+   * once per base URL and then shared.
    *
    * @param baseUrl the base URL of this server as seen by the client (e.g. http://192.168.1.1:8080)
-   * @return BMX services response with all service definitions
+   * @return BMX services response with all service definitions, must not be modified
    */
-  public BmxServicesResponseApiDto getBmxServices(String baseUrl) {
-    log.debug("Building BMX services registry");
+  public PrecomputedResponse<BmxServicesResponseApiDto> getBmxServices(String baseUrl) {
+    synchronized (servicesByBaseUrl) {
+      PrecomputedResponse<BmxServicesResponseApiDto> cached = servicesByBaseUrl.get(baseUrl);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    BmxServicesResponseApiDto services = buildBmxServices(baseUrl);
+    PrecomputedResponse<BmxServicesResponseApiDto> precomputed =
+        PrecomputedResponse.of(services, jsonMapper.writeValueAsBytes(services));
+    synchronized (servicesByBaseUrl) {
+      // Another request may have built the same registry in the meantime, keep the first one
+      PrecomputedResponse<BmxServicesResponseApiDto> existing =
+          servicesByBaseUrl.putIfAbsent(baseUrl, precomputed);
+      return existing != null ? existing : precomputed;
+    }
+  }
+
+  private BmxServicesResponseApiDto buildBmxServices(String baseUrl) {
+    log.debug("Building BMX services registry for {}", baseUrl);
 
     // Create top-level links
     BmxLinksApiDto topLinks = new BmxLinksApiDto();
@@ -86,11 +154,23 @@ public class BmxService {
   }
 
   /**
-   * Returns the availability status of BMX services.
+   * Returns the availability status of BMX services. The response never changes, so it is built
+   * once and then shared.
    *
-   * @return BMX services availability response
+   * @return BMX services availability response, must not be modified
    */
-  public BmxServicesAvailabilityResponseApiDto getBmxServicesAvailability() {
+  public PrecomputedResponse<BmxServicesAvailabilityResponseApiDto> getBmxServicesAvailability() {
+    PrecomputedResponse<BmxServicesAvailabilityResponseApiDto> precomputed = servicesAvailability;
+    if (precomputed == null) {
+      BmxServicesAvailabilityResponseApiDto availability = buildBmxServicesAvailability();
+      precomputed =
+          PrecomputedResponse.of(availability, jsonMapper.writeValueAsBytes(availability));
+      servicesAvailability = precomputed;
+    }
+    return precomputed;
+  }
+
+  private BmxServicesAvailabilityResponseApiDto buildBmxServicesAvailability() {
     log.debug("Building BMX services availability");
 
     var services =
@@ -311,19 +391,45 @@ public class BmxService {
    * Fetches TuneIn station playback information.
    *
    * @param stationId TuneIn station ID (e.g., "s80044")
+   * @param clientAddress IP address of the requesting device, used for the listening history
    * @return Playback response with stream URLs and metadata
    */
-  public BmxPlaybackResponseApiDto getTuneInPlayback(String stationId) {
-    log.debug("Getting TuneIn playback for stationId: {}", stationId);
-
-    // Fetch metadata and stream URLs from TuneIn
-    TuneInClient.StationMetadata metadata = tuneInClient.getStationMetadata(stationId);
-    List<String> streamUrls = tuneInClient.getStreamUrls(stationId);
+  public BmxPlaybackResponseApiDto getTuneInPlayback(String stationId, String clientAddress) {
+    return tuneInPlayback(stationId, clientAddress).block();
+  }
 
-    if (streamUrls.isEmpty()) {
-      throw new RuntimeException("No stream URLs available for station: " + stationId);
-    }
+  /**
+   * Fetches TuneIn station playback information without blocking. Metadata and stream URLs are
+   * requested concurrently, then playlists among the stream URLs are resolved, see {@link
+   * TuneInPlaylistResolver}, and the streams are ordered by their health, see {@link
+   * StreamHealthProber}.
+   *
+   * @param stationId TuneIn station ID (e.g., "s80044")
+   * @param clientAddress IP address of the requesting device, used for the listening history
+   * @return Playback response with stream URLs and metadata
+   */
+  public Mono<BmxPlaybackResponseApiDto> tuneInPlayback(String stationId, String clientAddress) {
+    log.debug("Getting TuneIn playback for stationId: {}", stationId);
+    return tuneInClient
+        .station(stationId)
+        .flatMap(
+            station ->
+                tuneInPlaylistResolver
+                    .resolve(station.streamUrls())
+                    .map(
+                        streams ->
+                            buildTuneInPlayback(
+                                stationId,
+                                station.metadata(),
+                                streamHealthProber.rank(streams),
+                                clientAddress)));
+  }
 
+  private BmxPlaybackResponseApiDto buildTuneInPlayback(
+      String stationId,
+      TuneInClient.StationMetadata metadata,
+      List<TuneInPlaylistResolver.ResolvedStream> resolvedStreams,
+      String clientAddress) {
     // Build response
     BmxPlaybackResponseApiDto response = new BmxPlaybackResponseApiDto();
 
@@ -339,9 +445,13 @@ public class BmxService {
     links.setBmxNowplaying(nowPlayingLink);
 
     String streamId = UUID.randomUUID().toString();
-    String listenId = String.valueOf(System.currentTimeMillis());
+    // Primary key of the persisted session, so it must not collide between speakers
+    String listenId = UUID.randomUUID().toString();
+    OffsetDateTime startedAt = OffsetDateTime.now();
     radioReportStorageService.startSession(
-        listenId, stationId, metadata.getName(), metadata.getLogo(), OffsetDateTime.now());
+        listenId, stationId, metadata.getName(), metadata.getLogo(), startedAt);
+    listeningHistoryService.recordSessionStart(
+        listenId, stationId, metadata.getName(), metadata.getLogo(), startedAt, clientAddress);
 
     String reportingHref =
         String.format(
@@ -355,25 +465,25 @@ public class BmxService {
 
     // Set audio with streams
     BmxAudioApiDto audio = new BmxAudioApiDto();
-    audio.setHasPlaylist(true);
+    audio.setHasPlaylist(resolvedStreams.getFirst().playlist());
     audio.setIsRealtime(true);
     audio.setMaxTimeout(60);
-    audio.setStreamUrl(streamUrls.getFirst()); // Primary stream URL
+    audio.setStreamUrl(resolvedStreams.getFirst().url()); // Primary stream URL
 
     // Create stream objects for each URL
     List<BmxStreamApiDto> streams =
-        streamUrls.stream()
+        resolvedStreams.stream()
             .map(
-                url -> {
+                resolvedStream -> {
                   BmxStreamApiDto stream = new BmxStreamApiDto();
                   BmxLinksApiDto streamLinks = new BmxLinksApiDto();
                   streamLinks.setBmxReporting(reportingLink);
                   stream.setLinks(streamLinks);
                   stream.setBufferingTimeout(20);
                   stream.setConnectingTimeout(10);
-                  stream.setHasPlaylist(true);
+                  stream.setHasPlaylist(resolvedStream.playlist());
                   stream.setIsRealtime(true);
-                  stream.setStreamUrl(url);
+                  stream.setStreamUrl(resolvedStream.url());
                   return stream;
                 })
             .toList();
@@ -392,63 +502,81 @@ public class BmxService {
   }
 
   /**
-   * Decodes and processes custom stream data.
+   * Returns what a TuneIn station is playing now, shared between all speakers listening to it, see
+   * {@link NowPlayingAggregator}.
+   *
+   * @param stationId TuneIn station ID (e.g., "s80044")
+   * @return Now-playing response with the current song and artist
+   */
+  public BmxNowPlayingResponseApiDto getTuneInNowPlaying(String stationId) {
+    NowPlayingAggregator.NowPlaying nowPlaying = nowPlayingAggregator.nowPlaying(stationId);
+
+    BmxNowPlayingResponseApiDto response = new BmxNowPlayingResponseApiDto();
+    response.setName(nowPlaying.name());
+    response.setImageUrl(nowPlaying.logo());
+    response.setTrack(nowPlaying.currentSong());
+    response.setArtist(nowPlaying.currentArtist());
+    long secondsUntilPoll = Duration.between(Instant.now(), nowPlaying.nextPollAt()).toSeconds();
+    response.setNextRefresh((int) Math.max(1, secondsUntilPoll));
+    return response;
+  }
+
+  /**
+   * Decodes and processes custom stream data. Presets replay the same data over and over, so the
+   * response of each distinct payload is built once and then shared.
    *
    * @param base64Data Base64-encoded JSON containing streamUrl, imageUrl, and name
-   * @return Playback response for custom stream
+   * @return Playback response for custom stream, must not be modified
+   * @throws IllegalArgumentException if the data cannot be decoded or has no streamUrl
    */
-  public BmxPlaybackResponseApiDto getCustomStreamPlayback(String base64Data) {
+  public PrecomputedResponse<BmxPlaybackResponseApiDto> getCustomStreamPlayback(String base64Data) {
+    synchronized (customStreamsByData) {
+      PrecomputedResponse<BmxPlaybackResponseApiDto> cached = customStreamsByData.get(base64Data);
+      if (cached != null) {
+        return cached;
+      }
+    }
     log.debug("Processing custom stream data");
 
+    CustomStreamData streamData;
     try {
-      // Decode base64
       byte[] decodedBytes = Base64.getDecoder().decode(base64Data);
-      String jsonString = new String(decodedBytes, StandardCharsets.UTF_8);
-
-      // Parse JSON
-      @SuppressWarnings("unchecked")
-      Map<String, String> streamData = jsonMapper.readValue(jsonString, Map.class);
-
-      String streamUrl = streamData.get("streamUrl");
-      String imageUrl = streamData.get("imageUrl");
-      String name = streamData.get("name");
-
-      if (streamUrl == null || streamUrl.isEmpty()) {
-        throw new IllegalArgumentException("streamUrl is required in custom stream data");
-      }
-
-      // Build response
-      BmxPlaybackResponseApiDto response = new BmxPlaybackResponseApiDto();
-
-      // Set audio
-      BmxAudioApiDto audio = new BmxAudioApiDto();
-      audio.setHasPlaylist(true);
-      audio.setIsRealtime(true);
-      audio.setStreamUrl(streamUrl);
-
-      // Create single stream
-      BmxStreamApiDto stream = new BmxStreamApiDto();
-      stream.setHasPlaylist(true);
-      stream.setIsRealtime(true);
-      stream.setStreamUrl(streamUrl);
-      audio.setStreams(List.of(stream));
-
-      response.setAudio(audio);
-
-      // Set metadata
-      response.setImageUrl(imageUrl != null ? imageUrl : "");
-      response.setName(name != null ? name : "Custom Stream");
-      response.setStreamType(BmxPlaybackResponseApiDto.StreamTypeEnum.LIVE_RADIO);
+      streamData = jsonMapper.readValue(decodedBytes, CustomStreamData.class);
+    } catch (JacksonException e) {
+      throw new IllegalArgumentException("custom stream data is not valid JSON", e);
+    }
 
-      log.debug("Built custom stream playback response for: {}", name);
-      return response;
+    if (streamData.streamUrl() == null || streamData.streamUrl().isEmpty()) {
+      throw new IllegalArgumentException("streamUrl is required in custom stream data");
+    }
 
-    } catch (Exception e) {
-      log.error("Failed to process custom stream data", e);
-      throw new RuntimeException("Failed to process custom stream data", e);
+    BmxPlaybackResponseApiDto response =
+        CustomStreamPlayback.create(
+            streamData.streamUrl(), streamData.imageUrl(), streamData.name());
+    PrecomputedResponse<BmxPlaybackResponseApiDto> precomputed =
+        PrecomputedResponse.of(response, jsonMapper.writeValueAsBytes(response));
+    log.debug("Built custom stream playback response for: {}", streamData.name());
+    synchronized (customStreamsByData) {
+      PrecomputedResponse<BmxPlaybackResponseApiDto> existing =
+          customStreamsByData.putIfAbsent(base64Data, precomputed);
+      return existing != null ? existing : precomputed;
     }
   }
 
+  /**
+   * Returns the playback response of a station from the custom station catalog.
+   *
+   * @param stationId short ID of the custom station
+   * @return Playback response, must not be modified, or empty if the station is unknown
+   */
+  public Optional<PrecomputedResponse<BmxPlaybackResponseApiDto>> getCustomStationPlayback(
+      String stationId) {
+    return customStationCatalog.getPlayback(stationId);
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  private record CustomStreamData(String streamUrl, String imageUrl, String name) {}
+
   /**
    * Refreshes TuneIn authentication token. This is a stub implementation that returns the same
    * token.
@@ -471,10 +599,8 @@ public class BmxService {
     log.debug(
         "Received analytics report: listenId={}, timeStamp={}", listenId, report.getTimeStamp());
     RadioReportEvent.EventType eventType =
-        report.getEventType() != null
-            ? RadioReportEvent.EventType.valueOf(report.getEventType().getValue())
-            : null;
-    var timeStamp = OffsetDateTime.parse(report.getTimeStamp(), REPORT_TS_FORMATTER);
+        report.getEventType() != null ? REPORT_EVENT_TYPES[report.getEventType().ordinal()] : null;
+    var timeStamp = ReportTimestamps.parse(report.getTimeStamp());
     RadioReportEvent event =
         new RadioReportEvent(
             timeStamp,
@@ -483,7 +609,15 @@ public class BmxService {
             report.getReasonSubCode(),
             report.getTimeIntoTrack(),
             report.getPlaybackDelay());
-    radioReportStorageService.store(listenId, event);
+    long sequence = radioReportStorageService.store(listenId, event);
+    if (EVENT_LOG.isDebugEnabled()) {
+      EVENT_LOG.debug(
+          "bmx-report: {}",
+          sequence != RadioReportStorageService.NOT_STORED
+              ? radioReportStorageService.formatReport(sequence)
+              : radioReportStorageService.formatReport(listenId, event));
+    }
+    listeningHistoryService.recordReport(listenId, event);
 
     BmxReportResponseApiDto response = new BmxReportResponseApiDto();
     response.setNextReportIn(1800); // Report again in 30 minutes
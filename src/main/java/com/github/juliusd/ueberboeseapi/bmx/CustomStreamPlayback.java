@@ -0,0 +1,45 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxAudioApiDto;
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxPlaybackResponseApiDto;
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxStreamApiDto;
+import java.util.List;
+
+/** Builds playback responses for user-defined radio streams. */
+public final class CustomStreamPlayback {
+
+  private CustomStreamPlayback() {}
+
+  /**
+   * Creates the playback response of a custom stream.
+   *
+   * @param streamUrl URL of the stream or its playlist
+   * @param imageUrl logo URL, may be null
+   * @param name station name, may be null
+   * @return Playback response for the custom stream
+   */
+  public static BmxPlaybackResponseApiDto create(String streamUrl, String imageUrl, String name) {
+    BmxPlaybackResponseApiDto response = new BmxPlaybackResponseApiDto();
+
+    // Set audio
+    BmxAudioApiDto audio = new BmxAudioApiDto();
+    audio.setHasPlaylist(true);
+    audio.setIsRealtime(true);
+    audio.setStreamUrl(streamUrl);
+
+    // Create single stream
+    BmxStreamApiDto stream = new BmxStreamApiDto();
+    stream.setHasPlaylist(true);
+    stream.setIsRealtime(true);
+    stream.setStreamUrl(streamUrl);
+    audio.setStreams(List.of(stream));
+
+    response.setAudio(audio);
+
+    // Set metadata
+    response.setImageUrl(imageUrl != null ? imageUrl : "");
+    response.setName(name != null ? name : "Custom Stream");
+    response.setStreamType(BmxPlaybackResponseApiDto.StreamTypeEnum.LIVE_RADIO);
+    return response;
+  }
+}
@@ -0,0 +1,254 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shares what TuneIn stations are playing now between all speakers listening to them.
+ *
+ * <p>The first request for a station waits for TuneIn. From then on the station is polled in the
+ * background at a fixed rate of {@code pollInterval} and requests are answered with the latest
+ * result, so TuneIn is asked at most once per interval and station. At most {@code maxConcurrency}
+ * background polls run at the same time. If a poll fails the previous result is kept, and a station
+ * without any result fails fast until the next poll. Stations no speaker asked for within {@code
+ * idleTimeout} are no longer polled and forgotten.
+ */
+@Component
+@Slf4j
+public class NowPlayingAggregator implements DisposableBean {
+
+  private final TuneInClient tuneInClient;
+  private final NowPlayingProperties properties;
+  private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+  private final Semaphore permits;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService pollExecutor;
+  private final Counter polledCounter;
+  private final Counter failedCounter;
+  private final Counter evictedCounter;
+
+  public NowPlayingAggregator(
+      TuneInClient tuneInClient, NowPlayingProperties properties, MeterRegistry meterRegistry) {
+    this.tuneInClient = tuneInClient;
+    this.properties = properties;
+    this.permits = new Semaphore(properties.maxConcurrency());
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("now-playing-poller").daemon().factory());
+    this.pollExecutor =
+        Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("now-playing-poll-", 0).factory());
+    this.polledCounter = meterRegistry.counter("tunein.now-playing.polled");
+    this.failedCounter = meterRegistry.counter("tunein.now-playing.failed");
+    this.evictedCounter = meterRegistry.counter("tunein.now-playing.evicted");
+    meterRegistry.gaugeMapSize("tunein.now-playing.stations", Tags.empty(), feeds);
+  }
+
+  /**
+   * Returns what a station is playing now. Only waits for TuneIn if the station has not been asked
+   * for recently.
+   *
+   * @param stationId TuneIn station ID (e.g., "s80044")
+   * @return the latest now-playing data of the station
+   * @throws RuntimeException if the station has no now-playing data and TuneIn cannot be reached
+   */
+  public NowPlaying nowPlaying(String stationId) {
+    long now = System.nanoTime();
+    Feed feed = feeds.get(stationId);
+    if (feed == null) {
+      if (feeds.size() >= properties.maxStations()) {
+        log.debug("Too many stations polled, fetching now playing of {} directly", stationId);
+        return join(new Feed(stationId, now).poll());
+      }
+      Feed created = new Feed(stationId, now);
+      feed = feeds.putIfAbsent(stationId, created);
+      if (feed == null) {
+        feed = created;
+        schedule(created);
+      }
+    }
+    feed.lastRequestedAt = now;
+
+    NowPlaying current = feed.current;
+    if (current != null) {
+      return current;
+    }
+    if (feed.polledAt != 0 && now - feed.polledAt < properties.pollInterval().toNanos()) {
+      throw new RuntimeException("TuneIn now playing lookup for " + stationId + " failed recently");
+    }
+    return join(feed.poll());
+  }
+
+  /** Stops polling all stations. */
+  public void clear() {
+    feeds.values().forEach(Feed::cancel);
+    feeds.clear();
+  }
+
+  int getStationCount() {
+    return feeds.size();
+  }
+
+  public long getPolledCount() {
+    return (long) polledCounter.count();
+  }
+
+  private void schedule(Feed feed) {
+    long pollIntervalNanos = properties.pollInterval().toNanos();
+    try {
+      feed.scheduled =
+          scheduler.scheduleAtFixedRate(
+              () -> tick(feed), pollIntervalNanos, pollIntervalNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      log.debug("Not polling now playing of {}, the aggregator is shut down", feed.stationId);
+    }
+  }
+
+  /** Runs on the scheduler thread once per poll interval of a station. */
+  private void tick(Feed feed) {
+    if (feeds.get(feed.stationId) != feed) {
+      feed.cancel();
+      return;
+    }
+    if (System.nanoTime() - feed.lastRequestedAt > properties.idleTimeout().toNanos()) {
+      feed.cancel();
+      if (feeds.remove(feed.stationId, feed)) {
+        evictedCounter.increment();
+        log.debug("Stopped polling now playing of idle station {}", feed.stationId);
+      }
+      return;
+    }
+    // Skip stations whose first poll or previous background poll has not completed yet
+    if (feed.polledAt == 0 || feed.pollQueued) {
+      return;
+    }
+    feed.pollQueued = true;
+    try {
+      pollExecutor.execute(() -> pollLimited(feed));
+    } catch (RejectedExecutionException e) {
+      feed.pollQueued = false;
+    }
+  }
+
+  private void pollLimited(Feed feed) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      feed.pollQueued = false;
+      return;
+    }
+    try {
+      feed.poll().join();
+    } catch (RuntimeException e) {
+      // Counted and logged by the poll itself
+    } finally {
+      permits.release();
+      feed.pollQueued = false;
+    }
+  }
+
+  private static NowPlaying join(CompletableFuture<NowPlaying> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+    pollExecutor.shutdownNow();
+  }
+
+  /**
+   * What a station is playing.
+   *
+   * @param name station name
+   * @param logo station logo URL
+   * @param currentSong current song, empty if unknown
+   * @param currentArtist current artist, empty if unknown
+   * @param nextPollAt when the station is polled next
+   */
+  public record NowPlaying(
+      String name, String logo, String currentSong, String currentArtist, Instant nextPollAt) {}
+
+  /** Polling state of one station. */
+  private final class Feed {
+
+    private final String stationId;
+    private volatile long lastRequestedAt;
+    // 0 until the first poll has completed
+    private volatile long polledAt;
+    private volatile NowPlaying current;
+    private volatile ScheduledFuture<?> scheduled;
+    // Whether a background poll waits for a permit or runs
+    private volatile boolean pollQueued;
+    private CompletableFuture<NowPlaying> inFlight;
+
+    Feed(String stationId, long now) {
+      this.stationId = stationId;
+      this.lastRequestedAt = now;
+    }
+
+    void cancel() {
+      ScheduledFuture<?> future = scheduled;
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+
+    /** Starts a poll unless one is already running, sharing the running one otherwise. */
+    synchronized CompletableFuture<NowPlaying> poll() {
+      if (inFlight != null) {
+        return inFlight;
+      }
+      CompletableFuture<NowPlaying> poll =
+          tuneInClient
+              .currentStationMetadata(stationId)
+              .map(
+                  metadata ->
+                      new NowPlaying(
+                          metadata.getName(),
+                          metadata.getLogo(),
+                          metadata.getCurrentSong(),
+                          metadata.getCurrentArtist(),
+                          Instant.now().plus(properties.pollInterval())))
+              .toFuture();
+      inFlight = poll;
+      poll.whenComplete(
+          (nowPlaying, error) -> {
+            polledCounter.increment();
+            if (error != null) {
+              failedCounter.increment();
+              log.debug("Failed to poll now playing of station {}", stationId, error);
+            } else {
+              current = nowPlaying;
+            }
+            // A failed poll is retried after the interval as well
+            polledAt = System.nanoTime();
+            synchronized (this) {
+              inFlight = null;
+            }
+          });
+      return poll;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the now-playing data of TuneIn stations.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.now-playing.poll-interval=30s
+ * tunein.now-playing.idle-timeout=5m
+ * tunein.now-playing.max-stations=1000
+ * tunein.now-playing.max-concurrency=4
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.now-playing")
+public record NowPlayingProperties(
+    /** How often TuneIn is asked what a station is playing. Defaults to 30 seconds. */
+    @DefaultValue("30s") Duration pollInterval,
+
+    /** How long a station is polled after the last speaker asked for it. Defaults to 5 minutes. */
+    @DefaultValue("5m") Duration idleTimeout,
+
+    /**
+     * Maximum number of stations polled at the same time. Further stations are fetched on every
+     * request instead. Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxStations,
+
+    /** Maximum number of stations polled in the background at the same time. Defaults to 4. */
+    @DefaultValue("4") int maxConcurrency) {}
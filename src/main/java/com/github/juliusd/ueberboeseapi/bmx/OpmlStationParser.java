@@ -0,0 +1,140 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.io.StringReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming parser for the station of a TuneIn describe response.
+ *
+ * <p>Reads {@code opml > body > outline > station} in a single pass and stops at the end of the
+ * station element, so the rest of the document is never parsed. The factory is shared between
+ * threads and configured once with DTDs and external entities disabled.
+ *
+ * <p>Example XML: {@code <opml version="1"> <head> <title>...</title> </head> <body> <outline
+ * type="audio"> <station> <name>Radio TEDDY</name> <logo>http://...</logo>
+ * <current_song>...</current_song> <current_artist>...</current_artist> </station> </outline>
+ * </body> </opml>}
+ */
+final class OpmlStationParser {
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createFactory();
+
+  private static final int NAME = 0;
+  private static final int LOGO = 1;
+  private static final int CURRENT_SONG = 2;
+  private static final int CURRENT_ARTIST = 3;
+
+  private OpmlStationParser() {}
+
+  /**
+   * Parses the first station of a describe response. Missing fields are returned as empty strings.
+   *
+   * @param xml the describe response
+   * @return the station metadata
+   * @throws XMLStreamException if the response is not well-formed or has no station
+   */
+  static TuneInClient.StationMetadata parse(String xml) throws XMLStreamException {
+    XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+    try {
+      String[] fields = readStation(reader);
+      TuneInClient.StationMetadata metadata = new TuneInClient.StationMetadata();
+      metadata.setName(orEmpty(fields[NAME]));
+      metadata.setLogo(orEmpty(fields[LOGO]));
+      metadata.setCurrentSong(orEmpty(fields[CURRENT_SONG]));
+      metadata.setCurrentArtist(orEmpty(fields[CURRENT_ARTIST]));
+      return metadata;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String[] readStation(XMLStreamReader reader) throws XMLStreamException {
+    String[] fields = new String[4];
+    // Depth of the body, outline and station elements once found, 0 while still searching
+    int bodyDepth = 0;
+    int outlineDepth = 0;
+    int stationDepth = 0;
+    int depth = 0;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        String name = reader.getLocalName();
+        if (stationDepth > 0) {
+          int field = fieldIndex(name);
+          if (field >= 0 && fields[field] == null) {
+            fields[field] = readText(reader);
+            depth--;
+          }
+        } else if (outlineDepth > 0) {
+          if (name.equals("station")) {
+            stationDepth = depth;
+          }
+        } else if (bodyDepth > 0) {
+          if (name.equals("outline")) {
+            outlineDepth = depth;
+          }
+        } else if (name.equals("body")) {
+          bodyDepth = depth;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (depth == stationDepth) {
+          return fields;
+        }
+        if (depth == outlineDepth) {
+          throw new XMLStreamException("No station element in TuneIn response");
+        }
+        if (depth == bodyDepth) {
+          throw new XMLStreamException("No outline element in TuneIn response");
+        }
+        depth--;
+      }
+    }
+    throw new XMLStreamException("No body element in TuneIn response");
+  }
+
+  /** Reads the text of the current element including nested elements, up to its end tag. */
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int nesting = 1;
+    while (nesting > 0) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT -> nesting++;
+        case XMLStreamConstants.END_ELEMENT -> nesting--;
+        case XMLStreamConstants.CHARACTERS,
+            XMLStreamConstants.CDATA,
+            XMLStreamConstants.SPACE,
+            XMLStreamConstants.ENTITY_REFERENCE ->
+            text.append(reader.getText());
+        default -> {}
+      }
+    }
+    return text.toString();
+  }
+
+  private static int fieldIndex(String name) {
+    return switch (name) {
+      case "name" -> NAME;
+      case "logo" -> LOGO;
+      case "current_song" -> CURRENT_SONG;
+      case "current_artist" -> CURRENT_ARTIST;
+      default -> -1;
+    };
+  }
+
+  private static String orEmpty(String value) {
+    return value != null ? value : "";
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A response body that is built once and then shared between requests, together with the ETag of
+ * its serialized form.
+ *
+ * <p>The body must not be modified after it was handed out.
+ *
+ * @param body the response body
+ * @param eTag strong ETag derived from the serialized body, including the quotes
+ * @param <T> the response body type
+ */
+public record PrecomputedResponse<T>(T body, String eTag) {
+
+  /**
+   * Creates a precomputed response with an ETag derived from the serialized body.
+   *
+   * @param body the response body
+   * @param json the body serialized as JSON
+   * @return the precomputed response
+   */
+  public static <T> PrecomputedResponse<T> of(T body, byte[] json) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+      return new PrecomputedResponse<>(body, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Returns whether the client already has this response, according to its {@code If-None-Match}
+   * header. Weak ETags are compared by their value.
+   *
+   * @param ifNoneMatch the {@code If-None-Match} header, may be null
+   * @return true if the response has not changed for the client
+   */
+  public boolean notModifiedFor(String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.strip();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
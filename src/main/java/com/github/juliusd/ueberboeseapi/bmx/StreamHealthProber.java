@@ -0,0 +1,297 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPlaylistResolver.ResolvedStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Probes the stream URLs handed out in TuneIn playback responses in the background and orders
+ * streams by their health, so the speaker connects to a working stream first instead of waiting for
+ * a dead one to time out.
+ *
+ * <p>Every stream URL passed to {@link #rank(List)} is tracked and probed right away and then every
+ * {@code probeInterval}, until it has not been ranked for {@code idleTimeout}. A probe only waits
+ * for the response headers and closes the connection without reading the stream. Healthy streams
+ * come first, fastest first, followed by streams not probed yet and streams whose last probes
+ * failed, both in their original order. Streams that failed {@code failureThreshold} probes in a
+ * row are left out, unless no other stream is left.
+ */
+@Component
+@Slf4j
+public class StreamHealthProber implements DisposableBean {
+
+  private final StreamHealthProperties properties;
+  private final HttpClient httpClient;
+  private final Semaphore permits;
+  private final ExecutorService probeExecutor;
+  private final ScheduledExecutorService scheduler;
+  private final Counter probedCounter;
+  private final Counter failedCounter;
+
+  // Access-ordered, so iteration starts with the least recently played stream URL. Probes update
+  // the health through the tracked URL, so they do not count as an access.
+  private final LinkedHashMap<String, TrackedUrl> trackedByUrl;
+
+  public StreamHealthProber(StreamHealthProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(properties.probeTimeout())
+            .build();
+    this.permits = new Semaphore(properties.maxConcurrency());
+    this.probeExecutor =
+        Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("stream-health-probe-", 0).factory());
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("stream-health-prober").daemon().factory());
+    this.probedCounter = meterRegistry.counter("tunein.stream-health.probed");
+    this.failedCounter = meterRegistry.counter("tunein.stream-health.failed");
+    this.trackedByUrl =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, TrackedUrl> eldest) {
+            if (size() > properties.maxTrackedUrls()) {
+              eldest.getValue().forgotten = true;
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Orders streams healthy and fastest first and leaves out dead streams. Stream URLs seen for the
+   * first time are tracked and probed in the background, so they keep their position for now.
+   *
+   * @param streams streams in the order returned by TuneIn
+   * @return the ordered streams, never empty if {@code streams} is not empty
+   */
+  public List<ResolvedStream> rank(List<ResolvedStream> streams) {
+    if (!properties.enabled() || streams.isEmpty()) {
+      return streams;
+    }
+
+    long now = System.nanoTime();
+    List<TrackedUrl> newlyTracked = new ArrayList<>();
+    List<Ranked> ranked = new ArrayList<>(streams.size());
+    synchronized (this) {
+      for (ResolvedStream stream : streams) {
+        TrackedUrl tracked = trackedByUrl.get(stream.url());
+        if (tracked == null) {
+          tracked = new TrackedUrl(stream.url());
+          trackedByUrl.put(stream.url(), tracked);
+          newlyTracked.add(tracked);
+        }
+        tracked.lastRankedAt = now;
+        ranked.add(new Ranked(stream, tracked.health.get()));
+      }
+    }
+    newlyTracked.forEach(this::startProbe);
+
+    List<ResolvedStream> alive =
+        ranked.stream()
+            .filter(entry -> entry.state(properties.failureThreshold()) != State.DEAD)
+            .sorted(
+                Comparator.comparing((Ranked entry) -> entry.state(properties.failureThreshold()))
+                    .thenComparingLong(Ranked::latencyNanos))
+            .map(Ranked::stream)
+            .toList();
+    // Better to let the speaker try dead streams than to have nothing to play
+    return alive.isEmpty() ? streams : alive;
+  }
+
+  public long getProbedCount() {
+    return (long) probedCounter.count();
+  }
+
+  public long getFailedCount() {
+    return (long) failedCounter.count();
+  }
+
+  private void startProbe(TrackedUrl tracked) {
+    try {
+      probeExecutor.execute(() -> probeAndReschedule(tracked));
+    } catch (RejectedExecutionException e) {
+      log.debug("Not probing {}, the prober is shut down", tracked.url);
+    }
+  }
+
+  private void probeAndReschedule(TrackedUrl tracked) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    try {
+      probe(tracked.url, tracked.health);
+    } finally {
+      permits.release();
+    }
+
+    if (keepProbing(tracked, System.nanoTime())) {
+      try {
+        scheduler.schedule(
+            () -> startProbe(tracked), properties.probeInterval().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        log.debug("Not rescheduling probe of {}, the prober is shut down", tracked.url);
+      }
+    }
+  }
+
+  /** Forgets stream URLs that have not been played within the idle timeout. */
+  private synchronized boolean keepProbing(TrackedUrl tracked, long now) {
+    if (tracked.forgotten) {
+      return false;
+    }
+    if (now - tracked.lastRankedAt >= properties.idleTimeout().toNanos()) {
+      trackedByUrl.remove(tracked.url);
+      tracked.forgotten = true;
+      log.debug("Stopped probing idle stream {}", tracked.url);
+      return false;
+    }
+    return true;
+  }
+
+  private void probe(String url, AtomicReference<Health> health) {
+    long started = System.nanoTime();
+    boolean healthy;
+    try {
+      healthy = isHealthy(url);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    long latencyNanos = System.nanoTime() - started;
+
+    probedCounter.increment();
+    if (healthy) {
+      health.updateAndGet(current -> current.succeeded(latencyNanos));
+    } else {
+      failedCounter.increment();
+      health.updateAndGet(Health::failed);
+    }
+  }
+
+  private boolean isHealthy(String url) throws InterruptedException {
+    try {
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(url)).timeout(properties.probeTimeout()).GET().build();
+      HttpResponse<InputStream> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+      // Closing the body without reading it cancels the stream
+      try (InputStream ignored = response.body()) {
+        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+          return true;
+        }
+      }
+      log.debug("Stream {} answered probe with status {}", url, response.statusCode());
+      return false;
+    } catch (ProtocolException e) {
+      // SHOUTcast v1 servers answer with "ICY 200 OK", which is a working stream
+      if (e.getMessage() != null && e.getMessage().contains("ICY 200")) {
+        return true;
+      }
+      log.debug("Stream {} failed probe: {}", url, e.getMessage());
+      return false;
+    } catch (IOException | IllegalArgumentException e) {
+      log.debug("Stream {} failed probe: {}", url, e.toString());
+      return false;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+    probeExecutor.shutdownNow();
+    httpClient.shutdownNow();
+  }
+
+  /** Health categories in playback order. */
+  private enum State {
+    HEALTHY,
+    UNPROBED,
+    FAILING,
+    DEAD
+  }
+
+  /** A stream URL being probed. Its fields outside of the health are guarded by the prober. */
+  private static final class TrackedUrl {
+    final String url;
+    final AtomicReference<Health> health = new AtomicReference<>(Health.UNPROBED);
+    long lastRankedAt;
+    boolean forgotten;
+
+    TrackedUrl(String url) {
+      this.url = url;
+    }
+  }
+
+  /**
+   * Probe results of one stream URL.
+   *
+   * @param probed whether the URL has been probed at least once
+   * @param latencyNanos smoothed time until the response headers arrived, of successful probes
+   * @param consecutiveFailures failed probes since the last successful one
+   */
+  private record Health(boolean probed, long latencyNanos, int consecutiveFailures) {
+
+    static final Health UNPROBED = new Health(false, 0, 0);
+
+    Health succeeded(long latency) {
+      long smoothed = probed && consecutiveFailures == 0 ? (latencyNanos + latency) / 2 : latency;
+      return new Health(true, smoothed, 0);
+    }
+
+    Health failed() {
+      return new Health(true, latencyNanos, consecutiveFailures + 1);
+    }
+
+    State state(int failureThreshold) {
+      if (!probed) {
+        return State.UNPROBED;
+      }
+      if (consecutiveFailures == 0) {
+        return State.HEALTHY;
+      }
+      return consecutiveFailures >= failureThreshold ? State.DEAD : State.FAILING;
+    }
+  }
+
+  private record Ranked(ResolvedStream stream, Health health) {
+
+    State state(int failureThreshold) {
+      return health.state(failureThreshold);
+    }
+
+    /** Only healthy streams are ordered by latency, the others keep their original order. */
+    long latencyNanos() {
+      return health.consecutiveFailures() == 0 && health.probed() ? health.latencyNanos() : 0;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for probing the health of TuneIn stream URLs in the background.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.stream-health.enabled=true
+ * tunein.stream-health.probe-interval=5m
+ * tunein.stream-health.probe-timeout=3s
+ * tunein.stream-health.failure-threshold=3
+ * tunein.stream-health.max-concurrency=4
+ * tunein.stream-health.max-tracked-urls=1000
+ * tunein.stream-health.idle-timeout=1h
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.stream-health")
+public record StreamHealthProperties(
+    /**
+     * Whether stream URLs are probed and TuneIn streams ordered by their health. Defaults to true.
+     */
+    @DefaultValue("true") boolean enabled,
+
+    /** How often each tracked stream URL is probed. Defaults to 5 minutes. */
+    @DefaultValue("5m") Duration probeInterval,
+
+    /** Time allowed until the response headers of a stream arrive. Defaults to 3 seconds. */
+    @DefaultValue("3s") Duration probeTimeout,
+
+    /**
+     * Number of failed probes in a row after which a stream URL is left out of playback responses.
+     * Defaults to 3.
+     */
+    @DefaultValue("3") int failureThreshold,
+
+    /** Maximum number of stream URLs probed at the same time. Defaults to 4. */
+    @DefaultValue("4") int maxConcurrency,
+
+    /**
+     * Maximum number of tracked stream URLs. The least recently played URLs are forgotten first.
+     * Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxTrackedUrls,
+
+    /**
+     * Stream URLs not played for this long are no longer probed and forgotten. Defaults to 1 hour.
+     */
+    @DefaultValue("1h") Duration idleTimeout) {}
@@ -1,6 +1,16 @@
 package com.github.juliusd.ueberboeseapi.bmx;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
 @ConfigurationProperties(prefix = "tunein.api")
-public record TuneInApiUrlProperties(String describeUrl, String streamUrl) {}
+public record TuneInApiUrlProperties(
+    String describeUrl,
+    String streamUrl,
+
+    /** Timeout of a describe request for station metadata. Defaults to 5 seconds. */
+    @DefaultValue("5s") Duration describeTimeout,
+
+    /** Timeout of a tune request for stream URLs. Defaults to 5 seconds. */
+    @DefaultValue("5s") Duration streamTimeout) {}
@@ -0,0 +1,241 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded in-memory cache for one kind of TuneIn lookup, keyed by station ID.
+ *
+ * <p>Fresh entries are served directly. Entries older than {@code ttl} but younger than {@code ttl
+ * + staleTtl} are served as well while a single background refresh per station fetches a new value;
+ * if that refresh fails the stale value is kept and retried after {@code negativeTtl}. Lookups
+ * without a usable value wait for a load, with concurrent callers for the same station sharing one
+ * request. Failed loads are remembered for {@code negativeTtl}, so an unreachable TuneIn is not
+ * asked again on every preset press. The least recently used stations are evicted beyond {@code
+ * maxEntries}.
+ *
+ * @param <V> the cached value
+ */
+@Slf4j
+final class TuneInCache<V> {
+
+  private static final Executor EXECUTOR =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tunein-cache-", 0).factory());
+
+  private final String name;
+  private final TuneInCacheProperties properties;
+  private final Persistence<V> persistence;
+  private final LongSupplier clock;
+
+  // Access-ordered, so iteration starts with the least recently used entry
+  private final LinkedHashMap<String, Entry<V>> entries;
+  private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  TuneInCache(String name, TuneInCacheProperties properties, Persistence<V> persistence) {
+    this(name, properties, persistence, System::currentTimeMillis);
+  }
+
+  TuneInCache(
+      String name,
+      TuneInCacheProperties properties,
+      Persistence<V> persistence,
+      LongSupplier clock) {
+    this.name = name;
+    this.properties = properties;
+    this.persistence = persistence;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+            return size() > properties.maxEntries();
+          }
+        };
+  }
+
+  /**
+   * Returns the value for a station, loading it if there is no usable cached value. Only the
+   * persistence lookup runs on the calling thread.
+   *
+   * @param key the station ID
+   * @param loader starts fetching the value from TuneIn
+   * @return the cached value, or a future completed by the load
+   */
+  CompletableFuture<V> getAsync(String key, Function<String, CompletableFuture<V>> loader) {
+    if (!properties.enabled()) {
+      return start(key, loader);
+    }
+
+    long now = clock.getAsLong();
+    Entry<V> entry = lookup(key, now);
+    if (entry != null) {
+      if (entry.failure() != null) {
+        if (now < entry.freshUntil()) {
+          return CompletableFuture.failedFuture(
+              new RuntimeException(
+                  "TuneIn " + name + " lookup for " + key + " failed recently", entry.failure()));
+        }
+      } else if (now < entry.freshUntil()) {
+        return CompletableFuture.completedFuture(entry.value());
+      } else if (now < entry.staleUntil()) {
+        load(key, loader, true);
+        return CompletableFuture.completedFuture(entry.value());
+      }
+    }
+    return load(key, loader, false);
+  }
+
+  /** Removes all cached values. Persisted values are not touched. */
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private Entry<V> lookup(String key, long now) {
+    Entry<V> entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry != null || persistence == null) {
+      return entry;
+    }
+
+    Optional<Persisted<V>> persisted;
+    try {
+      persisted = persistence.find(key);
+    } catch (RuntimeException e) {
+      log.warn("Failed to read persisted TuneIn {} for {}", name, key, e);
+      return null;
+    }
+    if (persisted.isEmpty()) {
+      return null;
+    }
+    long fetchedAt = persisted.get().fetchedAt().toEpochMilli();
+    Entry<V> restored = successEntry(persisted.get().value(), fetchedAt);
+    if (now >= restored.staleUntil()) {
+      return null;
+    }
+    synchronized (this) {
+      entries.putIfAbsent(key, restored);
+      return entries.get(key);
+    }
+  }
+
+  /**
+   * Loads a value, sharing a load that is already running for the station. Results are handled on a
+   * virtual thread, so a loader completing on an I/O thread never waits on the persistence.
+   */
+  private CompletableFuture<V> load(
+      String key, Function<String, CompletableFuture<V>> loader, boolean background) {
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      return existing;
+    }
+
+    start(key, loader)
+        .whenCompleteAsync(
+            (value, error) -> {
+              try {
+                if (error == null) {
+                  store(key, value);
+                  own.complete(value);
+                } else {
+                  Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                  if (background) {
+                    log.debug("Background refresh of TuneIn {} for {} failed", name, key, cause);
+                    retryStaleLater(key);
+                  } else {
+                    long now = clock.getAsLong();
+                    RuntimeException failure =
+                        cause instanceof RuntimeException runtime
+                            ? runtime
+                            : new RuntimeException(cause);
+                    put(
+                        key,
+                        new Entry<>(null, failure, now + properties.negativeTtl().toMillis(), 0));
+                  }
+                  own.completeExceptionally(cause);
+                }
+              } finally {
+                inFlight.remove(key, own);
+              }
+            },
+            EXECUTOR);
+    return own;
+  }
+
+  private static <V> CompletableFuture<V> start(
+      String key, Function<String, CompletableFuture<V>> loader) {
+    try {
+      return loader.apply(key);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void store(String key, V value) {
+    long fetchedAt = clock.getAsLong();
+    put(key, successEntry(value, fetchedAt));
+    if (persistence != null) {
+      try {
+        persistence.save(key, value, Instant.ofEpochMilli(fetchedAt));
+      } catch (RuntimeException e) {
+        log.warn("Failed to persist TuneIn {} for {}", name, key, e);
+      }
+    }
+  }
+
+  private synchronized void retryStaleLater(String key) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null && entry.failure() == null) {
+      long retryAt = clock.getAsLong() + properties.negativeTtl().toMillis();
+      entries.put(
+          key,
+          new Entry<>(
+              entry.value(), null, Math.min(retryAt, entry.staleUntil()), entry.staleUntil()));
+    }
+  }
+
+  private synchronized void put(String key, Entry<V> entry) {
+    entries.put(key, entry);
+  }
+
+  private Entry<V> successEntry(V value, long fetchedAt) {
+    long freshUntil = fetchedAt + properties.ttl().toMillis();
+    return new Entry<>(value, null, freshUntil, freshUntil + properties.staleTtl().toMillis());
+  }
+
+  /** Optional second level below the in-memory cache that survives restarts. */
+  interface Persistence<V> {
+    Optional<Persisted<V>> find(String key);
+
+    void save(String key, V value, Instant fetchedAt);
+  }
+
+  /** A value read from the {@link Persistence}. */
+  record Persisted<V>(V value, Instant fetchedAt) {}
+
+  /**
+   * A cached value or a remembered failure.
+   *
+   * @param value the cached value, null for failures
+   * @param failure the failure of the last load, null for values
+   * @param freshUntil until when the value is served without refresh, or the failure is rethrown
+   * @param staleUntil until when the value is served while being refreshed
+   */
+  private record Entry<V>(V value, RuntimeException failure, long freshUntil, long staleUntil) {}
+}
@@ -0,0 +1,50 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the cache of TuneIn station metadata and stream URLs.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.cache.enabled=true
+ * tunein.cache.max-entries=1000
+ * tunein.cache.ttl=1h
+ * tunein.cache.stale-ttl=7d
+ * tunein.cache.negative-ttl=30s
+ * tunein.cache.persistent=false
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.cache")
+public record TuneInCacheProperties(
+    /** Whether TuneIn responses are cached. Defaults to true. */
+    @DefaultValue("true") boolean enabled,
+
+    /**
+     * Maximum number of cached stations per lookup type. The least recently used stations are
+     * evicted first. Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxEntries,
+
+    /** How long a cached response is served without asking TuneIn again. Defaults to 1 hour. */
+    @DefaultValue("1h") Duration ttl,
+
+    /**
+     * How long after {@code ttl} a cached response is still served while it is refreshed in the
+     * background. Defaults to 7 days.
+     */
+    @DefaultValue("7d") Duration staleTtl,
+
+    /**
+     * How long a failed lookup is remembered before TuneIn is asked again. Defaults to 30 seconds.
+     */
+    @DefaultValue("30s") Duration negativeTtl,
+
+    /**
+     * Whether cached responses are also stored in the database, so they survive restarts. Defaults
+     * to false.
+     */
+    @DefaultValue("false") boolean persistent) {}
@@ -0,0 +1,53 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Stores the last known TuneIn responses, so the cache survives restarts. */
+@Repository
+@RequiredArgsConstructor
+public class TuneInCacheRepository {
+
+  private static final String MERGE_ENTRY =
+      """
+      MERGE INTO TUNEIN_CACHE_ENTRY t
+      USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP WITH TIME ZONE)))
+        s(CACHE_KEY, CACHE_VALUE, FETCHED_AT)
+      ON t.CACHE_KEY = s.CACHE_KEY
+      WHEN MATCHED THEN UPDATE SET CACHE_VALUE = s.CACHE_VALUE, FETCHED_AT = s.FETCHED_AT
+      WHEN NOT MATCHED THEN INSERT (CACHE_KEY, CACHE_VALUE, FETCHED_AT)
+        VALUES (s.CACHE_KEY, s.CACHE_VALUE, s.FETCHED_AT)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** A stored response. */
+  public record StoredEntry(String value, Instant fetchedAt) {}
+
+  public Optional<StoredEntry> find(String key) {
+    return jdbcTemplate
+        .query(
+            "SELECT CACHE_VALUE, FETCHED_AT FROM TUNEIN_CACHE_ENTRY WHERE CACHE_KEY = ?",
+            (rs, rowNum) ->
+                new StoredEntry(
+                    rs.getString("CACHE_VALUE"),
+                    rs.getObject("FETCHED_AT", OffsetDateTime.class).toInstant()),
+            key)
+        .stream()
+        .findFirst();
+  }
+
+  public void save(String key, String value, Instant fetchedAt) {
+    jdbcTemplate.update(
+        MERGE_ENTRY, key, value, OffsetDateTime.ofInstant(fetchedAt, ZoneOffset.UTC));
+  }
+
+  public void deleteAll() {
+    jdbcTemplate.update("DELETE FROM TUNEIN_CACHE_ENTRY");
+  }
+}
@@ -1,146 +1,218 @@
 package com.github.juliusd.ueberboeseapi.bmx;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
-import java.io.StringReader;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.xml.stream.XMLStreamException;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Client for interacting with TuneIn APIs to fetch station metadata and stream URLs. Uses TuneIn's
  * public OPML API.
+ *
+ * <p>Both lookups are cached per station, see {@link TuneInCache}. With {@code
+ * tunein.cache.persistent} enabled the last known responses are also kept in the database. Requests
+ * to TuneIn adapt their timeouts to recent latencies and are hedged when slow, see {@link
+ * TuneInHedger}.
  */
 @Component
 @Slf4j
 public class TuneInClient {
 
+  private static final String METADATA_KEY_PREFIX = "describe:";
+  private static final String STREAM_URLS_KEY_PREFIX = "tune:";
+
   private final WebClient webClient;
   private final TuneInApiUrlProperties urlProperties;
-
-  public TuneInClient(TuneInApiUrlProperties urlProperties) {
+  private final TuneInCacheRepository cacheRepository;
+  private final TuneInCache<StationMetadata> metadataCache;
+  private final TuneInCache<List<String>> streamUrlCache;
+  private final TuneInHedger describeHedger;
+  private final TuneInHedger tuneHedger;
+
+  public TuneInClient(
+      TuneInApiUrlProperties urlProperties,
+      TuneInCacheProperties cacheProperties,
+      TuneInHedgingProperties hedgingProperties,
+      TuneInCacheRepository cacheRepository,
+      JsonMapper jsonMapper,
+      MeterRegistry meterRegistry) {
     this.webClient = WebClient.builder().build();
+    this.describeHedger =
+        new TuneInHedger(
+            "describe", hedgingProperties, urlProperties.describeTimeout(), meterRegistry);
+    this.tuneHedger =
+        new TuneInHedger("tune", hedgingProperties, urlProperties.streamTimeout(), meterRegistry);
     this.urlProperties = urlProperties;
+    this.cacheRepository = cacheProperties.persistent() ? cacheRepository : null;
+    this.metadataCache =
+        new TuneInCache<>(
+            "station metadata",
+            cacheProperties,
+            persistence(
+                METADATA_KEY_PREFIX,
+                jsonMapper::writeValueAsString,
+                value -> jsonMapper.readValue(value, StationMetadata.class)));
+    this.streamUrlCache =
+        new TuneInCache<>(
+            "stream URLs",
+            cacheProperties,
+            persistence(
+                STREAM_URLS_KEY_PREFIX,
+                urls -> String.join("\n", urls),
+                value -> Arrays.stream(value.split("\n")).toList()));
   }
 
   /**
-   * Fetches station metadata from TuneIn.
+   * Returns station metadata and stream URLs. Both are requested concurrently, so a lookup that
+   * misses the cache takes as long as the slower of the two TuneIn requests.
    *
    * @param stationId TuneIn station ID (e.g., "s80044")
-   * @return Station metadata
+   * @return the station, failing if either lookup fails
    */
-  public StationMetadata getStationMetadata(String stationId) {
-    try {
-      String url = String.format(urlProperties.describeUrl(), stationId);
-      log.debug("Fetching TuneIn station metadata from: {}", url);
-
-      String xmlResponse = webClient.get().uri(url).retrieve().bodyToMono(String.class).block();
-
-      return parseStationMetadata(xmlResponse);
-    } catch (Exception e) {
-      log.error("Failed to fetch station metadata for stationId: {}", stationId, e);
-      throw new RuntimeException("Failed to fetch TuneIn station metadata", e);
-    }
+  public Mono<Station> station(String stationId) {
+    return Mono.zip(stationMetadata(stationId), streamUrls(stationId))
+        .map(result -> new Station(result.getT1(), result.getT2()));
   }
 
   /**
-   * Fetches stream URLs for a station from TuneIn.
+   * Returns station metadata from TuneIn without blocking, served from the cache if possible.
    *
    * @param stationId TuneIn station ID (e.g., "s80044")
-   * @return List of stream URLs
+   * @return Station metadata
    */
-  public java.util.List<String> getStreamUrls(String stationId) {
-    try {
-      String url = String.format(urlProperties.streamUrl(), stationId);
-      log.debug("Fetching TuneIn stream URLs from: {}", url);
-
-      String response = webClient.get().uri(url).retrieve().bodyToMono(String.class).block();
-
-      // TuneIn returns stream URLs as plain text, one per line
-      if (response == null || response.isEmpty()) {
-        log.warn("Empty response from TuneIn stream URL endpoint");
-        return java.util.Collections.emptyList();
-      }
-
-      return java.util.Arrays.stream(response.split("\n"))
-          .filter(line -> !line.trim().isEmpty())
-          .map(String::trim)
-          .toList();
+  public Mono<StationMetadata> stationMetadata(String stationId) {
+    return Mono.fromFuture(
+        () -> metadataCache.getAsync(stationId, id -> fetchStationMetadata(id).toFuture()));
+  }
 
-    } catch (Exception e) {
-      log.error("Failed to fetch stream URLs for stationId: {}", stationId, e);
-      throw new RuntimeException("Failed to fetch TuneIn stream URLs", e);
-    }
+  /**
+   * Fetches station metadata from TuneIn without blocking and without the cache, so the current
+   * song and artist are up to date.
+   *
+   * @param stationId TuneIn station ID (e.g., "s80044")
+   * @return Station metadata
+   */
+  public Mono<StationMetadata> currentStationMetadata(String stationId) {
+    return fetchStationMetadata(stationId);
   }
 
   /**
-   * Parses XML response from TuneIn describe endpoint.
+   * Returns the stream URLs of a station from TuneIn without blocking, served from the cache if
+   * possible.
    *
-   * <p>Example XML: <opml version="1"> <head> <title>...</title> </head> <body> <outline
-   * type="audio"> <station> <name>Radio TEDDY</name> <logo>http://...</logo>
-   * <current_song>...</current_song> <current_artist>...</current_artist> </station> </outline>
-   * </body> </opml>
+   * @param stationId TuneIn station ID (e.g., "s80044")
+   * @return List of stream URLs, never empty
    */
-  private StationMetadata parseStationMetadata(String xmlResponse) {
-    try {
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      Document doc = builder.parse(new InputSource(new StringReader(xmlResponse)));
-
-      // Navigate to station element: opml > body > outline > station
-      NodeList bodyNodes = doc.getElementsByTagName("body");
-      if (bodyNodes.getLength() == 0) {
-        throw new RuntimeException("No body element in TuneIn response");
-      }
+  public Mono<List<String>> streamUrls(String stationId) {
+    return Mono.fromFuture(
+        () -> streamUrlCache.getAsync(stationId, id -> fetchStreamUrls(id).toFuture()));
+  }
 
-      Element body = (Element) bodyNodes.item(0);
-      NodeList outlineNodes = body.getElementsByTagName("outline");
-      if (outlineNodes.getLength() == 0) {
-        throw new RuntimeException("No outline element in TuneIn response");
+  /** Removes all cached TuneIn responses, including persisted ones. */
+  public void clearCache() {
+    metadataCache.clear();
+    streamUrlCache.clear();
+    if (cacheRepository != null) {
+      cacheRepository.deleteAll();
+    }
+  }
+
+  private <V> TuneInCache.Persistence<V> persistence(
+      String keyPrefix, Function<V, String> encoder, Function<String, V> decoder) {
+    if (cacheRepository == null) {
+      return null;
+    }
+    return new TuneInCache.Persistence<>() {
+      @Override
+      public Optional<TuneInCache.Persisted<V>> find(String key) {
+        return cacheRepository
+            .find(keyPrefix + key)
+            .map(
+                entry ->
+                    new TuneInCache.Persisted<>(decoder.apply(entry.value()), entry.fetchedAt()));
       }
 
-      Element outline = (Element) outlineNodes.item(0);
-      NodeList stationNodes = outline.getElementsByTagName("station");
-      if (stationNodes.getLength() == 0) {
-        throw new RuntimeException("No station element in TuneIn response");
+      @Override
+      public void save(String key, V value, Instant fetchedAt) {
+        cacheRepository.save(keyPrefix + key, encoder.apply(value), fetchedAt);
       }
+    };
+  }
 
-      Element station = (Element) stationNodes.item(0);
+  private Mono<StationMetadata> fetchStationMetadata(String stationId) {
+    String url = String.format(urlProperties.describeUrl(), stationId);
+    log.debug("Fetching TuneIn station metadata from: {}", url);
+
+    return describeHedger
+        .execute(() -> webClient.get().uri(url).retrieve().bodyToMono(String.class))
+        .switchIfEmpty(
+            Mono.error(() -> new RuntimeException("Empty response from TuneIn describe endpoint")))
+        .map(this::parseStationMetadata)
+        .onErrorMap(
+            e -> {
+              log.error("Failed to fetch station metadata for stationId: {}", stationId, e);
+              return new RuntimeException("Failed to fetch TuneIn station metadata", e);
+            });
+  }
 
-      StationMetadata metadata = new StationMetadata();
-      metadata.setName(getElementText(station, "name"));
-      metadata.setLogo(getElementText(station, "logo"));
-      metadata.setCurrentSong(getElementText(station, "current_song"));
-      metadata.setCurrentArtist(getElementText(station, "current_artist"));
+  private Mono<List<String>> fetchStreamUrls(String stationId) {
+    String url = String.format(urlProperties.streamUrl(), stationId);
+    log.debug("Fetching TuneIn stream URLs from: {}", url);
+
+    return tuneHedger
+        .execute(() -> webClient.get().uri(url).retrieve().bodyToMono(String.class))
+        .onErrorMap(
+            e -> {
+              log.error("Failed to fetch stream URLs for stationId: {}", stationId, e);
+              return new RuntimeException("Failed to fetch TuneIn stream URLs", e);
+            })
+        // TuneIn returns stream URLs as plain text, one per line
+        .map(
+            response ->
+                Arrays.stream(response.split("\n"))
+                    .filter(line -> !line.trim().isEmpty())
+                    .map(String::trim)
+                    .toList())
+        .filter(streamUrls -> !streamUrls.isEmpty())
+        // Failed rather than cached, so the station is asked again after the negative TTL
+        .switchIfEmpty(
+            Mono.error(
+                () -> new RuntimeException("No stream URLs available for station: " + stationId)));
+  }
 
+  /** Parses XML response from TuneIn describe endpoint, see {@link OpmlStationParser}. */
+  private StationMetadata parseStationMetadata(String xmlResponse) {
+    try {
+      StationMetadata metadata = OpmlStationParser.parse(xmlResponse);
       log.debug(
           "Parsed station metadata: name={}, logo={}", metadata.getName(), metadata.getLogo());
       return metadata;
-
-    } catch (Exception e) {
+    } catch (XMLStreamException e) {
       log.error("Failed to parse TuneIn XML response", e);
       throw new RuntimeException("Failed to parse TuneIn XML", e);
     }
   }
 
-  private String getElementText(Element parent, String tagName) {
-    NodeList nodes = parent.getElementsByTagName(tagName);
-    if (nodes.getLength() > 0) {
-      Node node = nodes.item(0);
-      return node.getTextContent();
-    }
-    return "";
-  }
+  /**
+   * Metadata and stream URLs of a station.
+   *
+   * @param metadata the station metadata
+   * @param streamUrls the stream URLs, never empty
+   */
+  public record Station(StationMetadata metadata, List<String> streamUrls) {}
 
   /** Station metadata DTO */
   @Data
@@ -0,0 +1,174 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Adaptive timeout and hedging for the requests to one TuneIn endpoint.
+ *
+ * <p>The latencies of the last {@code windowSize} requests are kept. Once there are {@code
+ * minSamples} of them, a request that is still running after their 95th percentile is sent a second
+ * time and whichever response arrives first is used. The timeout becomes {@code timeoutMultiplier}
+ * times the percentile, between {@code minTimeout} and the configured maximum. Every request earns
+ * {@code budgetRatio} hedges up to {@code budgetBurst}, so hedging never more than adds that share
+ * of requests, even when TuneIn is slow for everyone.
+ */
+@Slf4j
+final class TuneInHedger {
+
+  private static final double PERCENTILE = 0.95;
+
+  private final String endpoint;
+  private final TuneInHedgingProperties properties;
+  private final Duration maxTimeout;
+
+  // Ring of the most recent latencies in nanoseconds, guarded by this
+  private final long[] latencies;
+  private int nextLatency;
+  private int latencyCount;
+  private double budget;
+
+  private volatile long percentileNanos = -1;
+
+  private final Counter firedCounter;
+  private final Counter wonCounter;
+  private final Counter deniedCounter;
+
+  TuneInHedger(
+      String endpoint,
+      TuneInHedgingProperties properties,
+      Duration maxTimeout,
+      MeterRegistry meterRegistry) {
+    this.endpoint = endpoint;
+    this.properties = properties;
+    this.maxTimeout = maxTimeout;
+    this.latencies = new long[properties.windowSize()];
+    this.firedCounter = meterRegistry.counter("tunein.hedge.fired", "endpoint", endpoint);
+    this.wonCounter = meterRegistry.counter("tunein.hedge.won", "endpoint", endpoint);
+    this.deniedCounter = meterRegistry.counter("tunein.hedge.denied", "endpoint", endpoint);
+  }
+
+  /**
+   * Runs a request with the current timeout, hedging it if it is slow.
+   *
+   * @param request creates a new request on every call, so it can be sent twice
+   * @return the first response, failing with a {@link java.util.concurrent.TimeoutException} if
+   *     none arrives within the timeout
+   */
+  <T> Mono<T> execute(Supplier<Mono<T>> request) {
+    if (!properties.enabled()) {
+      return Mono.defer(request).timeout(maxTimeout);
+    }
+    long percentile = percentileNanos;
+    if (percentile < 0) {
+      return timed(request).timeout(maxTimeout);
+    }
+    earnBudget();
+
+    Sinks.One<Boolean> primaryDone = Sinks.one();
+    Mono<Attempt<T>> primary =
+        timed(request)
+            .map(value -> new Attempt<>(value, false))
+            .doFinally(signal -> primaryDone.tryEmitValue(true));
+    // Only fired while the primary is still running, a failed primary is not retried
+    Mono<Attempt<T>> hedge =
+        Mono.delay(Duration.ofNanos(percentile))
+            .takeUntilOther(primaryDone.asMono())
+            .filter(tick -> spendBudget())
+            .flatMap(
+                tick -> {
+                  log.debug(
+                      "Hedging TuneIn {} request after {} ms", endpoint, percentile / 1000000);
+                  firedCounter.increment();
+                  return timed(request).map(value -> new Attempt<>(value, true));
+                });
+
+    return Mono.firstWithValue(primary, hedge)
+        .timeout(timeout(percentile))
+        .onErrorMap(NoSuchElementException.class, TuneInHedger::firstFailure)
+        .doOnNext(
+            attempt -> {
+              if (attempt.hedge()) {
+                wonCounter.increment();
+              }
+            })
+        .map(Attempt::value);
+  }
+
+  /** Returns the current timeout of a request. */
+  Duration timeout() {
+    long percentile = percentileNanos;
+    return properties.enabled() && percentile >= 0 ? timeout(percentile) : maxTimeout;
+  }
+
+  long getHedgesFired() {
+    return (long) firedCounter.count();
+  }
+
+  long getHedgesWon() {
+    return (long) wonCounter.count();
+  }
+
+  private Duration timeout(long percentile) {
+    long nanos = (long) (percentile * properties.timeoutMultiplier());
+    nanos = Math.max(nanos, properties.minTimeout().toNanos());
+    return Duration.ofNanos(Math.min(nanos, maxTimeout.toNanos()));
+  }
+
+  private <T> Mono<T> timed(Supplier<Mono<T>> request) {
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          // A cancelled request took at least this long, which keeps timeouts from shrinking while
+          // requests are slow
+          return request
+              .get()
+              .doOnSuccess(value -> recordLatency(System.nanoTime() - started))
+              .doOnCancel(() -> recordLatency(System.nanoTime() - started));
+        });
+  }
+
+  private synchronized void recordLatency(long nanos) {
+    latencies[nextLatency] = nanos;
+    nextLatency = (nextLatency + 1) % latencies.length;
+    latencyCount = Math.min(latencyCount + 1, latencies.length);
+    if (latencyCount >= properties.minSamples()) {
+      long[] sorted = Arrays.copyOf(latencies, latencyCount);
+      Arrays.sort(sorted);
+      percentileNanos = sorted[(int) Math.ceil(PERCENTILE * latencyCount) - 1];
+    }
+  }
+
+  private synchronized void earnBudget() {
+    budget = Math.min(budget + properties.budgetRatio(), properties.budgetBurst());
+  }
+
+  private synchronized boolean spendBudget() {
+    if (budget < 1) {
+      deniedCounter.increment();
+      return false;
+    }
+    budget--;
+    return true;
+  }
+
+  /** Unwraps the error of the primary request when neither request produced a response. */
+  private static Throwable firstFailure(NoSuchElementException e) {
+    if (e.getCause() == null) {
+      return e;
+    }
+    List<Throwable> failures = Exceptions.unwrapMultiple(e.getCause());
+    return failures.isEmpty() ? e : failures.getFirst();
+  }
+
+  private record Attempt<T>(T value, boolean hedge) {}
+}
@@ -0,0 +1,51 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for adaptive timeouts and hedged requests to TuneIn.
+ *
+ * <p>Once enough latencies of an endpoint are known, a request that takes longer than their 95th
+ * percentile gets a duplicate, and whichever response arrives first is used. The timeout of a
+ * request follows the 95th percentile as well, capped by {@code tunein.api.describe-timeout} and
+ * {@code tunein.api.stream-timeout}.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.hedging.enabled=true
+ * tunein.hedging.window-size=100
+ * tunein.hedging.min-samples=20
+ * tunein.hedging.timeout-multiplier=3
+ * tunein.hedging.min-timeout=1s
+ * tunein.hedging.budget-ratio=0.1
+ * tunein.hedging.budget-burst=10
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.hedging")
+public record TuneInHedgingProperties(
+    /**
+     * Whether timeouts adapt to TuneIn latencies and slow requests are hedged. Without it the
+     * configured timeouts apply as they are. Defaults to true.
+     */
+    @DefaultValue("true") boolean enabled,
+
+    /** Number of recent latencies per endpoint the percentile is taken from. Defaults to 100. */
+    @DefaultValue("100") int windowSize,
+
+    /** Number of latencies needed before timeouts adapt and requests are hedged. Defaults to 20. */
+    @DefaultValue("20") int minSamples,
+
+    /** Timeout of a request as a multiple of the 95th percentile latency. Defaults to 3. */
+    @DefaultValue("3") double timeoutMultiplier,
+
+    /** Lower bound of the adaptive timeout. Defaults to 1 second. */
+    @DefaultValue("1s") Duration minTimeout,
+
+    /** Hedges allowed per request, so a slow TuneIn is not sent twice the load. Defaults to 0.1. */
+    @DefaultValue("0.1") double budgetRatio,
+
+    /** Maximum number of hedges that can be saved up for a burst. Defaults to 10. */
+    @DefaultValue("10") int budgetBurst) {}
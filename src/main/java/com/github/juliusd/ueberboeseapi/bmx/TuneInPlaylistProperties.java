@@ -0,0 +1,44 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for resolving the PLS and M3U playlists among TuneIn stream URLs.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.playlist.enabled=true
+ * tunein.playlist.timeout=3s
+ * tunein.playlist.ttl=10m
+ * tunein.playlist.stale-ttl=1d
+ * tunein.playlist.max-entries=1000
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.playlist")
+public record TuneInPlaylistProperties(
+    /**
+     * Whether playlists are fetched and flattened into direct stream URLs. When disabled, stream
+     * URLs are passed to the speaker as they are. Defaults to true.
+     */
+    @DefaultValue("true") boolean enabled,
+
+    /** Timeout of a playlist request, including redirects. Defaults to 3 seconds. */
+    @DefaultValue("3s") Duration timeout,
+
+    /**
+     * How long the entries of a resolved playlist are served without fetching it again. Defaults to
+     * 10 minutes.
+     */
+    @DefaultValue("10m") Duration ttl,
+
+    /**
+     * How long after {@code ttl} a resolved playlist is still served while it is fetched again in
+     * the background, so an expired playlist does not delay a preset press. Defaults to 1 day.
+     */
+    @DefaultValue("1d") Duration staleTtl,
+
+    /** Maximum number of cached playlists. Defaults to 1000. */
+    @DefaultValue("1000") int maxEntries) {}
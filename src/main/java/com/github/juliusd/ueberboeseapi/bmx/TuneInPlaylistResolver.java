@@ -0,0 +1,204 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Resolves the PLS and M3U playlists among TuneIn stream URLs into the stream URLs they point to,
+ * so the speaker can connect to the audio stream right away instead of fetching the playlist first.
+ *
+ * <p>All playlists of a station are fetched in parallel, following redirects, and nested playlists
+ * are resolved up to {@value #MAX_DEPTH} levels deep. The entries of each playlist are cached for
+ * {@code tunein.playlist.ttl} and served for another {@code tunein.playlist.stale-ttl} while they
+ * are fetched again in the background, see {@link TuneInCache}. URLs that are not recognised as
+ * playlists, HLS playlists and playlists that cannot be fetched are passed on unchanged and still
+ * marked as playlists, leaving it to the speaker to handle them as before.
+ */
+@Component
+@Slf4j
+public class TuneInPlaylistResolver {
+
+  private static final int MAX_DEPTH = 3;
+  private static final int MAX_PLAYLIST_BYTES = 64 * 1024;
+
+  private static final Pattern PLS_FILE_ENTRY =
+      Pattern.compile("^File\\d+\\s*=\\s*(.+)$", Pattern.CASE_INSENSITIVE);
+
+  private final WebClient webClient;
+  private final TuneInPlaylistProperties properties;
+  private final TuneInCache<List<String>> cache;
+
+  public TuneInPlaylistResolver(
+      TuneInPlaylistProperties properties, TuneInCacheProperties cacheProperties) {
+    this.webClient =
+        WebClient.builder()
+            .clientConnector(
+                new ReactorClientHttpConnector(HttpClient.create().followRedirect(true)))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_PLAYLIST_BYTES))
+            .build();
+    this.properties = properties;
+    this.cache =
+        new TuneInCache<>(
+            "playlist",
+            new TuneInCacheProperties(
+                cacheProperties.enabled(),
+                properties.maxEntries(),
+                properties.ttl(),
+                properties.staleTtl(),
+                cacheProperties.negativeTtl(),
+                false),
+            null);
+  }
+
+  /**
+   * Resolves the playlists among the given stream URLs. The order of the URLs is kept, with the
+   * entries of a playlist taking its place, and duplicates are removed.
+   *
+   * @param streamUrls stream URLs as returned by TuneIn
+   * @return the resolved streams, never empty if {@code streamUrls} is not empty
+   */
+  public Mono<List<ResolvedStream>> resolve(List<String> streamUrls) {
+    if (!properties.enabled()) {
+      return Mono.just(streamUrls.stream().map(ResolvedStream::unresolved).toList());
+    }
+    return Flux.fromIterable(streamUrls)
+        .flatMapSequential(url -> resolve(url, 0))
+        .distinct(ResolvedStream::url)
+        .collectList();
+  }
+
+  /** Clears the cached playlists. */
+  public void clearCache() {
+    cache.clear();
+  }
+
+  private Flux<ResolvedStream> resolve(String url, int depth) {
+    if (depth >= MAX_DEPTH || !isResolvablePlaylist(url)) {
+      return Flux.just(ResolvedStream.unresolved(url));
+    }
+    return Mono.fromFuture(() -> cache.getAsync(url, key -> fetchPlaylist(key).toFuture()))
+        .flatMapMany(
+            entries ->
+                Flux.fromIterable(entries)
+                    .flatMapSequential(
+                        entry ->
+                            isResolvablePlaylist(entry)
+                                ? resolve(entry, depth + 1)
+                                : Flux.just(
+                                    isHlsPlaylist(entry)
+                                        ? ResolvedStream.unresolved(entry)
+                                        : ResolvedStream.direct(entry))))
+        .onErrorResume(
+            e -> {
+              log.debug("Passing on unresolved playlist {}: {}", url, e.getMessage());
+              return Flux.just(ResolvedStream.unresolved(url));
+            });
+  }
+
+  private Mono<List<String>> fetchPlaylist(String url) {
+    log.debug("Fetching playlist from: {}", url);
+    return webClient
+        .get()
+        .uri(URI.create(url))
+        .retrieve()
+        .bodyToMono(String.class)
+        .timeout(properties.timeout())
+        .map(body -> parsePlaylist(body, url))
+        .filter(entries -> !entries.isEmpty())
+        .switchIfEmpty(Mono.error(() -> new RuntimeException("No entries in playlist " + url)));
+  }
+
+  /**
+   * Parses the entries of a PLS or M3U playlist. PLS playlists are recognised by their {@code
+   * [playlist]} header, everything else is read as M3U. Relative entries are resolved against the
+   * playlist URL and entries that are not HTTP(S) URLs are skipped.
+   *
+   * @param body the playlist
+   * @param playlistUrl URL the playlist was fetched from
+   * @return the entries in playlist order
+   */
+  static List<String> parsePlaylist(String body, String playlistUrl) {
+    String[] lines = body.strip().split("\\R");
+    boolean pls = lines.length > 0 && lines[0].strip().equalsIgnoreCase("[playlist]");
+
+    List<String> entries = new ArrayList<>();
+    for (String line : lines) {
+      String entry = line.strip();
+      if (pls) {
+        Matcher matcher = PLS_FILE_ENTRY.matcher(entry);
+        entry = matcher.matches() ? matcher.group(1).strip() : "";
+      } else if (entry.startsWith("#")) {
+        continue;
+      }
+      String url = toHttpUrl(entry, playlistUrl);
+      if (url != null && !entries.contains(url)) {
+        entries.add(url);
+      }
+    }
+    return entries;
+  }
+
+  /** Returns whether the URL points to a PLS or M3U playlist that is resolved on the server. */
+  static boolean isResolvablePlaylist(String url) {
+    String path = pathOf(url);
+    return path.endsWith(".pls") || path.endsWith(".m3u");
+  }
+
+  /** HLS playlists change while they are played and are therefore left to the speaker. */
+  private static boolean isHlsPlaylist(String url) {
+    return pathOf(url).endsWith(".m3u8");
+  }
+
+  private static String pathOf(String url) {
+    try {
+      String path = new URI(url).getPath();
+      return path != null ? path.toLowerCase(Locale.ROOT) : "";
+    } catch (URISyntaxException e) {
+      return "";
+    }
+  }
+
+  private static String toHttpUrl(String entry, String playlistUrl) {
+    if (entry.isEmpty()) {
+      return null;
+    }
+    try {
+      URI uri = new URI(playlistUrl).resolve(entry);
+      String scheme = uri.getScheme();
+      return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)
+          ? uri.toString()
+          : null;
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A stream URL for the speaker.
+   *
+   * @param url the stream URL
+   * @param playlist whether the URL may still point to a playlist the speaker has to fetch
+   */
+  public record ResolvedStream(String url, boolean playlist) {
+
+    static ResolvedStream direct(String url) {
+      return new ResolvedStream(url, false);
+    }
+
+    static ResolvedStream unresolved(String url) {
+      return new ResolvedStream(url, true);
+    }
+  }
+}
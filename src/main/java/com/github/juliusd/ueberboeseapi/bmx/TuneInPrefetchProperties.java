@@ -0,0 +1,29 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for warming the TuneIn cache with the stations on presets and recents.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * tunein.prefetch.enabled=true
+ * tunein.prefetch.max-concurrency=4
+ * tunein.prefetch.queue-capacity=1000
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "tunein.prefetch")
+public record TuneInPrefetchProperties(
+    /** Whether stations are prefetched when a full account is fetched. Defaults to true. */
+    @DefaultValue("true") boolean enabled,
+
+    /** Maximum number of stations fetched from TuneIn at the same time. Defaults to 4. */
+    @DefaultValue("4") int maxConcurrency,
+
+    /**
+     * Maximum number of stations waiting to be prefetched. Further stations are dropped and
+     * counted. Defaults to 1000.
+     */
+    @DefaultValue("1000") int queueCapacity) {}
@@ -0,0 +1,158 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the {@link TuneInClient} cache with the TuneIn stations on the presets and recents of an
+ * account, and the {@link TuneInPlaylistResolver} cache with their playlists, so pressing a preset
+ * is served from memory.
+ *
+ * <p>Stations are handed to a bounded queue and deduplicated while they wait. Lookups are
+ * non-blocking and started by whichever thread queues a station or completes a lookup, with at most
+ * {@code maxConcurrency} of them running at the same time across all accounts, so no thread waits
+ * for work. Stations arriving while the queue is full are dropped and counted.
+ */
+@Component
+@Slf4j
+public class TuneInPrefetcher implements DisposableBean {
+
+  /** Location of TuneIn presets and recents, e.g. {@code /v1/playback/station/s80044}. */
+  private static final Pattern STATION_LOCATION =
+      Pattern.compile("^/v1/playback/station/([A-Za-z0-9]+)$");
+
+  private final TuneInClient tuneInClient;
+  private final TuneInPlaylistResolver playlistResolver;
+  private final TuneInPrefetchProperties properties;
+  private final LinkedBlockingQueue<String> queue;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+  private final Semaphore permits;
+  // Serializes starting lookups without recursing when a lookup completes synchronously
+  private final AtomicInteger startRequests = new AtomicInteger();
+  private final Counter prefetchedCounter;
+  private final Counter failedCounter;
+  private final Counter droppedCounter;
+  private volatile boolean running = true;
+
+  public TuneInPrefetcher(
+      TuneInClient tuneInClient,
+      TuneInPlaylistResolver playlistResolver,
+      TuneInPrefetchProperties properties,
+      MeterRegistry meterRegistry) {
+    this.tuneInClient = tuneInClient;
+    this.playlistResolver = playlistResolver;
+    this.properties = properties;
+    this.queue = new LinkedBlockingQueue<>(properties.queueCapacity());
+    this.permits = new Semaphore(properties.maxConcurrency());
+    this.prefetchedCounter = meterRegistry.counter("tunein.prefetch.prefetched");
+    this.failedCounter = meterRegistry.counter("tunein.prefetch.failed");
+    this.droppedCounter = meterRegistry.counter("tunein.prefetch.dropped");
+  }
+
+  /**
+   * Queues the TuneIn stations among the given preset or recent locations for prefetching. Other
+   * locations are ignored. Never blocks.
+   *
+   * @param locations locations of presets and recents
+   * @return the number of stations queued
+   */
+  public int prefetchLocations(Collection<String> locations) {
+    if (!properties.enabled()) {
+      return 0;
+    }
+    int queued = 0;
+    for (String location : locations) {
+      String stationId = stationIdOf(location);
+      if (stationId == null || !pending.add(stationId)) {
+        continue;
+      }
+      if (queue.offer(stationId)) {
+        queued++;
+      } else {
+        pending.remove(stationId);
+        droppedCounter.increment();
+      }
+    }
+    if (queued > 0) {
+      log.debug("Queued {} TuneIn station(s) for prefetching", queued);
+      startLookups();
+    }
+    return queued;
+  }
+
+  public long getPrefetchedCount() {
+    return (long) prefetchedCounter.count();
+  }
+
+  public long getFailedCount() {
+    return (long) failedCounter.count();
+  }
+
+  /**
+   * Returns the TuneIn station ID of a preset or recent location.
+   *
+   * @param location the location, may be null
+   * @return the station ID, or null if the location is not a TuneIn station
+   */
+  static String stationIdOf(String location) {
+    if (location == null) {
+      return null;
+    }
+    Matcher matcher = STATION_LOCATION.matcher(location);
+    return matcher.matches() ? matcher.group(1) : null;
+  }
+
+  private void startLookups() {
+    if (startRequests.getAndIncrement() != 0) {
+      // The thread already starting lookups picks this request up
+      return;
+    }
+    int missed = 1;
+    do {
+      while (running && !queue.isEmpty() && permits.tryAcquire()) {
+        String stationId = queue.poll();
+        if (stationId == null) {
+          permits.release();
+          break;
+        }
+        lookup(stationId);
+      }
+      missed = startRequests.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void lookup(String stationId) {
+    tuneInClient
+        .station(stationId)
+        .flatMap(station -> playlistResolver.resolve(station.streamUrls()).thenReturn(station))
+        .doFinally(
+            signal -> {
+              pending.remove(stationId);
+              permits.release();
+              startLookups();
+            })
+        .subscribe(
+            station -> prefetchedCounter.increment(),
+            error -> {
+              failedCounter.increment();
+              log.debug("Failed to prefetch TuneIn station {}", stationId, error);
+            });
+  }
+
+  @Override
+  public void destroy() {
+    running = false;
+    queue.clear();
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.juliusd.ueberboeseapi.bmx.history;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the persistent listening history of radio sessions.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.bmx.history.enabled=true
+ * ueberboese.bmx.history.queue-capacity=10000
+ * ueberboese.bmx.history.batch-size=500
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.bmx.history")
+public record ListeningHistoryProperties(
+    /** Whether radio sessions and reports are written to the database. Defaults to true. */
+    @DefaultValue("true") boolean enabled,
+
+    /**
+     * Maximum number of sessions and reports waiting to be written. Further entries are dropped and
+     * counted. Defaults to 10000.
+     */
+    @DefaultValue("10000") int queueCapacity,
+
+    /** Maximum number of entries written in one transaction. Defaults to 500. */
+    @DefaultValue("500") int batchSize) {}
@@ -0,0 +1,214 @@
+package com.github.juliusd.ueberboeseapi.bmx.history;
+
+import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes radio sessions and reports in JDBC batches and keeps the per-station aggregates up to date
+ * in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ListeningHistoryRepository {
+
+  /** Device ID of the aggregate rows summing up all devices. */
+  public static final String ALL_DEVICES = "*";
+
+  /** Column length of RADIO_SESSION.LISTEN_ID and RADIO_REPORT_EVENT.LISTEN_ID. */
+  static final int MAX_LISTEN_ID_LENGTH = 64;
+
+  /** Column length of RADIO_REPORT_EVENT.REASON and REASON_SUB_CODE. */
+  static final int MAX_REASON_LENGTH = 255;
+
+  private static final String MERGE_SESSION =
+      """
+      MERGE INTO RADIO_SESSION t
+      USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR),
+                     CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP WITH TIME ZONE)))
+        s(LISTEN_ID, STATION_ID, STATION_NAME, LOGO_URL, DEVICE_ID, STARTED_AT)
+      ON t.LISTEN_ID = s.LISTEN_ID
+      WHEN MATCHED THEN UPDATE SET STATION_ID = s.STATION_ID, STATION_NAME = s.STATION_NAME,
+        LOGO_URL = s.LOGO_URL, DEVICE_ID = s.DEVICE_ID, STARTED_AT = s.STARTED_AT
+      WHEN NOT MATCHED THEN INSERT (LISTEN_ID, STATION_ID, STATION_NAME, LOGO_URL, DEVICE_ID,
+        STARTED_AT, LISTENED_SECONDS)
+        VALUES (s.LISTEN_ID, s.STATION_ID, s.STATION_NAME, s.LOGO_URL, s.DEVICE_ID, s.STARTED_AT, 0)
+      """;
+
+  private static final String MERGE_PLAY =
+      """
+      MERGE INTO STATION_LISTENING_STATS t
+      USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR),
+                     CAST(? AS VARCHAR), CAST(? AS TIMESTAMP WITH TIME ZONE)))
+        s(STATION_ID, DEVICE_ID, STATION_NAME, LOGO_URL, PLAYED_AT)
+      ON t.STATION_ID = s.STATION_ID AND t.DEVICE_ID = s.DEVICE_ID
+      WHEN MATCHED THEN UPDATE SET PLAY_COUNT = t.PLAY_COUNT + 1, STATION_NAME = s.STATION_NAME,
+        LOGO_URL = s.LOGO_URL, LAST_PLAYED_AT = GREATEST(t.LAST_PLAYED_AT, s.PLAYED_AT)
+      WHEN NOT MATCHED THEN INSERT (STATION_ID, DEVICE_ID, STATION_NAME, LOGO_URL, PLAY_COUNT,
+        LISTENING_SECONDS, LAST_PLAYED_AT)
+        VALUES (s.STATION_ID, s.DEVICE_ID, s.STATION_NAME, s.LOGO_URL, 1, 0, s.PLAYED_AT)
+      """;
+
+  /** Reports of unknown sessions are dropped, so the unauthenticated endpoint cannot fill it. */
+  private static final String INSERT_EVENT =
+      """
+      INSERT INTO RADIO_REPORT_EVENT (LISTEN_ID, TIME_STAMP, EVENT_TYPE, REASON, REASON_SUB_CODE,
+        TIME_INTO_TRACK, PLAYBACK_DELAY)
+      SELECT s.LISTEN_ID, CAST(? AS TIMESTAMP WITH TIME ZONE), CAST(? AS VARCHAR),
+        CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS INTEGER), CAST(? AS INTEGER)
+      FROM RADIO_SESSION s
+      WHERE s.LISTEN_ID = ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  /** A started radio session. */
+  public record SessionStart(
+      String listenId,
+      String stationId,
+      String stationName,
+      String logoUrl,
+      String deviceId,
+      OffsetDateTime startedAt) {}
+
+  /** A report received for a radio session. */
+  public record Report(String listenId, RadioReportEvent event) {}
+
+  /**
+   * Writes a batch of sessions and reports and updates the aggregates.
+   *
+   * @param sessions the started sessions, in order
+   * @param reports the received reports, in order
+   */
+  @Transactional
+  public void writeBatch(List<SessionStart> sessions, List<Report> reports) {
+    if (!sessions.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          MERGE_SESSION,
+          sessions.stream()
+              .map(
+                  s ->
+                      new Object[] {
+                        s.listenId(),
+                        s.stationId(),
+                        s.stationName(),
+                        s.logoUrl(),
+                        s.deviceId(),
+                        s.startedAt()
+                      })
+              .toList());
+      List<Object[]> plays = new ArrayList<>(sessions.size() * 2);
+      for (SessionStart s : sessions) {
+        for (String deviceId : List.of(s.deviceId(), ALL_DEVICES)) {
+          plays.add(
+              new Object[] {s.stationId(), deviceId, s.stationName(), s.logoUrl(), s.startedAt()});
+        }
+      }
+      jdbcTemplate.batchUpdate(MERGE_PLAY, plays);
+    }
+
+    if (!reports.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          INSERT_EVENT,
+          reports.stream()
+              .map(
+                  r ->
+                      new Object[] {
+                        r.event().timeStamp(),
+                        r.event().eventType() != null ? r.event().eventType().name() : null,
+                        r.event().reason(),
+                        r.event().reasonSubCode(),
+                        r.event().timeIntoTrack(),
+                        r.event().playbackDelay(),
+                        r.listenId()
+                      })
+              .toList());
+      addListeningTime(reports);
+    }
+  }
+
+  /**
+   * Adds the listening time reported since the previous batch. Each session remembers the highest
+   * timeIntoTrack seen, so only the growth is added to the aggregates.
+   */
+  private void addListeningTime(List<Report> reports) {
+    Map<String, Integer> maxTimeIntoTrack = new HashMap<>();
+    for (Report report : reports) {
+      if (report.event().timeIntoTrack() != null) {
+        maxTimeIntoTrack.merge(report.listenId(), report.event().timeIntoTrack(), Math::max);
+      }
+    }
+    if (maxTimeIntoTrack.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> statsUpdates = new ArrayList<>();
+    List<Object[]> sessionUpdates = new ArrayList<>();
+    namedParameterJdbcTemplate.query(
+        "SELECT LISTEN_ID, STATION_ID, DEVICE_ID, LISTENED_SECONDS FROM RADIO_SESSION"
+            + " WHERE LISTEN_ID IN (:listenIds)",
+        Map.of("listenIds", maxTimeIntoTrack.keySet()),
+        rs -> {
+          String listenId = rs.getString("LISTEN_ID");
+          long listened = rs.getLong("LISTENED_SECONDS");
+          long delta = maxTimeIntoTrack.get(listenId) - listened;
+          if (delta > 0) {
+            String stationId = rs.getString("STATION_ID");
+            statsUpdates.add(new Object[] {delta, stationId, rs.getString("DEVICE_ID")});
+            statsUpdates.add(new Object[] {delta, stationId, ALL_DEVICES});
+            sessionUpdates.add(new Object[] {listened + delta, listenId});
+          }
+        });
+    jdbcTemplate.batchUpdate(
+        "UPDATE STATION_LISTENING_STATS SET LISTENING_SECONDS = LISTENING_SECONDS + ?"
+            + " WHERE STATION_ID = ? AND DEVICE_ID = ?",
+        statsUpdates);
+    jdbcTemplate.batchUpdate(
+        "UPDATE RADIO_SESSION SET LISTENED_SECONDS = ? WHERE LISTEN_ID = ?", sessionUpdates);
+  }
+
+  /**
+   * Returns the most played stations, read from the play count index.
+   *
+   * @param deviceId the device ID, or {@link #ALL_DEVICES}
+   * @param limit maximum number of stations
+   * @return the stations, most played first
+   */
+  public List<StationListeningStats> findMostPlayed(String deviceId, int limit) {
+    return jdbcTemplate.query(
+        "SELECT * FROM STATION_LISTENING_STATS WHERE DEVICE_ID = ?"
+            + " ORDER BY PLAY_COUNT DESC, LAST_PLAYED_AT DESC LIMIT ?",
+        (rs, rowNum) ->
+            new StationListeningStats(
+                rs.getString("STATION_ID"),
+                rs.getString("DEVICE_ID"),
+                rs.getString("STATION_NAME"),
+                rs.getString("LOGO_URL"),
+                rs.getLong("PLAY_COUNT"),
+                rs.getLong("LISTENING_SECONDS"),
+                toOffsetDateTime(rs.getObject("LAST_PLAYED_AT", OffsetDateTime.class))),
+        deviceId,
+        limit);
+  }
+
+  @Transactional
+  public void deleteAll() {
+    jdbcTemplate.update("DELETE FROM RADIO_REPORT_EVENT");
+    jdbcTemplate.update("DELETE FROM RADIO_SESSION");
+    jdbcTemplate.update("DELETE FROM STATION_LISTENING_STATS");
+  }
+
+  private static OffsetDateTime toOffsetDateTime(OffsetDateTime value) {
+    return value != null ? value.withOffsetSameInstant(ZoneOffset.UTC) : null;
+  }
+}
@@ -0,0 +1,200 @@
+package com.github.juliusd.ueberboeseapi.bmx.history;
+
+import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
+import com.github.juliusd.ueberboeseapi.concurrent.BatchingWriter;
+import com.github.juliusd.ueberboeseapi.device.Device;
+import com.github.juliusd.ueberboeseapi.device.DeviceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persists radio sessions and their analytics reports to the database.
+ *
+ * <p>Sessions and reports are queued by the request thread and written by a {@link BatchingWriter}
+ * in JDBC batches. The station aggregates (play count, listening time and last played) are updated
+ * in the same transaction, so the most played stations are read from an index instead of being
+ * computed from the raw history.
+ */
+@Service
+@Slf4j
+public class ListeningHistoryService implements DisposableBean {
+
+  private static final String UNKNOWN_DEVICE = "unknown";
+
+  private final ListeningHistoryProperties properties;
+  private final ListeningHistoryRepository repository;
+  private final DeviceRepository deviceRepository;
+  private final BatchingWriter<Object> writer;
+  private final Counter droppedCounter;
+
+  public ListeningHistoryService(
+      ListeningHistoryProperties properties,
+      ListeningHistoryRepository repository,
+      DeviceRepository deviceRepository,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.repository = repository;
+    this.deviceRepository = deviceRepository;
+    this.writer =
+        new BatchingWriter<>(
+            "listening-history-writer",
+            properties.queueCapacity(),
+            properties.batchSize(),
+            this::write);
+    this.droppedCounter = meterRegistry.counter("bmx.history.dropped");
+    if (properties.enabled()) {
+      writer.start();
+    }
+  }
+
+  /**
+   * Records the start of a radio session.
+   *
+   * @param listenId the listen ID handed to the device
+   * @param stationId the TuneIn station ID
+   * @param stationName the station name
+   * @param logoUrl the station logo
+   * @param startedAt the start of the session
+   * @param clientAddress IP address of the requesting device, used to find the device ID
+   */
+  public void recordSessionStart(
+      String listenId,
+      String stationId,
+      String stationName,
+      String logoUrl,
+      OffsetDateTime startedAt,
+      String clientAddress) {
+    enqueue(
+        new PendingSession(listenId, stationId, stationName, logoUrl, startedAt, clientAddress));
+  }
+
+  /**
+   * Records an analytics report of a radio session.
+   *
+   * @param listenId the listen ID
+   * @param event the report
+   */
+  public void recordReport(String listenId, RadioReportEvent event) {
+    // Reports come from an unauthenticated endpoint. A value that does not fit its column would
+    // fail the whole batch and discard the history of other speakers with it.
+    if (listenId == null || listenId.length() > ListeningHistoryRepository.MAX_LISTEN_ID_LENGTH) {
+      // No session has such a listen ID, so the report would not be stored anyway
+      return;
+    }
+    enqueue(new ListeningHistoryRepository.Report(listenId, fitColumns(event)));
+  }
+
+  /**
+   * Returns the most played stations.
+   *
+   * @param deviceId the device ID, or null for all devices
+   * @param limit maximum number of stations
+   * @return the stations, most played first
+   */
+  public List<StationListeningStats> getMostPlayedStations(String deviceId, int limit) {
+    return repository.findMostPlayed(
+        deviceId != null ? deviceId : ListeningHistoryRepository.ALL_DEVICES, limit);
+  }
+
+  /**
+   * Waits until everything recorded before this call has been written.
+   *
+   * @param timeout maximum time to wait
+   * @return true if everything was written within the timeout
+   */
+  public boolean flush(Duration timeout) {
+    return writer.flush(timeout);
+  }
+
+  private void enqueue(Object entry) {
+    if (!properties.enabled()) {
+      return;
+    }
+    if (!writer.offer(entry)) {
+      droppedCounter.increment();
+      long dropped = (long) droppedCounter.count();
+      if (dropped == 1 || dropped % 1000 == 0) {
+        log.warn("Listening history queue is full, {} entries dropped so far", dropped);
+      }
+    }
+  }
+
+  private void write(List<Object> batch) {
+    List<ListeningHistoryRepository.SessionStart> sessions = new ArrayList<>();
+    List<ListeningHistoryRepository.Report> reports = new ArrayList<>();
+    for (Object entry : batch) {
+      if (entry instanceof PendingSession session) {
+        sessions.add(
+            new ListeningHistoryRepository.SessionStart(
+                session.listenId(),
+                session.stationId(),
+                session.stationName(),
+                session.logoUrl(),
+                resolveDeviceId(session.clientAddress()),
+                session.startedAt()));
+      } else if (entry instanceof ListeningHistoryRepository.Report report) {
+        reports.add(report);
+      }
+    }
+    try {
+      repository.writeBatch(sessions, reports);
+    } catch (RuntimeException e) {
+      log.warn(
+          "Failed to write {} session(s) and {} report(s) to the listening history",
+          sessions.size(),
+          reports.size(),
+          e);
+    }
+  }
+
+  private static RadioReportEvent fitColumns(RadioReportEvent event) {
+    int max = ListeningHistoryRepository.MAX_REASON_LENGTH;
+    if (event.reason().length() <= max
+        && (event.reasonSubCode() == null || event.reasonSubCode().length() <= max)) {
+      return event;
+    }
+    return event.toBuilder()
+        .reason(truncate(event.reason(), max))
+        .reasonSubCode(truncate(event.reasonSubCode(), max))
+        .build();
+  }
+
+  private static String truncate(String value, int maxLength) {
+    return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+  }
+
+  private String resolveDeviceId(String clientAddress) {
+    if (clientAddress == null) {
+      return UNKNOWN_DEVICE;
+    }
+    try {
+      return deviceRepository
+          .findFirstByIpAddress(clientAddress)
+          .map(Device::deviceId)
+          .orElse(UNKNOWN_DEVICE);
+    } catch (RuntimeException e) {
+      log.debug("Failed to resolve device for {}", clientAddress, e);
+      return UNKNOWN_DEVICE;
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    writer.close(Duration.ofSeconds(5));
+  }
+
+  private record PendingSession(
+      String listenId,
+      String stationId,
+      String stationName,
+      String logoUrl,
+      OffsetDateTime startedAt,
+      String clientAddress) {}
+}
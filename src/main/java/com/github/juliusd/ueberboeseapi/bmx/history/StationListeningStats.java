@@ -0,0 +1,23 @@
+package com.github.juliusd.ueberboeseapi.bmx.history;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Listening aggregates of a station, for one device or for all devices.
+ *
+ * @param stationId the TuneIn station ID
+ * @param deviceId the device ID, or {@link ListeningHistoryRepository#ALL_DEVICES}
+ * @param stationName the station name of the most recent session
+ * @param logoUrl the station logo of the most recent session
+ * @param playCount number of sessions started
+ * @param listeningSeconds cumulative listening time reported through timeIntoTrack
+ * @param lastPlayedAt start of the most recent session
+ */
+public record StationListeningStats(
+    String stationId,
+    String deviceId,
+    String stationName,
+    String logoUrl,
+    long playCount,
+    long listeningSeconds,
+    OffsetDateTime lastPlayedAt) {}
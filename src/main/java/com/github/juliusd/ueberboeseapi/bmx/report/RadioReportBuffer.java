@@ -0,0 +1,278 @@
+package com.github.juliusd.ueberboeseapi.bmx.report;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring of radio report events, stored column-wise in primitive arrays that are allocated
+ * once up front.
+ *
+ * <p>Every appended report gets a sequence number. Once more than {@code capacity} reports have
+ * been appended the oldest slots are overwritten and their sequence numbers no longer resolve.
+ * Reason codes are interned because speakers only send a handful of distinct values.
+ *
+ * <p>Like {@link com.github.juliusd.ueberboeseapi.concurrent.SnapshotRingBuffer}, every slot is
+ * stamped with the sequence number of the report it holds. A writer claims its slot with a single
+ * CAS on the stamp, fills in the columns and publishes the stamp again. Readers never lock: they
+ * read the stamp, copy the columns and re-check the stamp, treating a changed stamp as an
+ * overwritten report. Only {@link #clear()} takes a lock.
+ */
+final class RadioReportBuffer {
+
+  private static final RadioReportEvent.EventType[] EVENT_TYPES =
+      RadioReportEvent.EventType.values();
+  private static final int MAX_INTERNED_STRINGS = 256;
+  private static final long EMPTY = -1;
+  // Stamp of a slot whose columns are being written
+  private static final long WRITING = -2;
+
+  private final int capacity;
+  private final AtomicLongArray sequences;
+  private final String[] listenIds;
+  private final long[] epochSeconds;
+  private final int[] nanos;
+  private final int[] offsetSeconds;
+  private final byte[] eventTypes;
+  private final String[] reasons;
+  private final String[] reasonSubCodes;
+  private final int[] timeIntoTrack;
+  private final int[] playbackDelay;
+  private final Map<String, String> internedStrings = new ConcurrentHashMap<>();
+  private final AtomicLong nextSequence = new AtomicLong();
+
+  RadioReportBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.sequences = new AtomicLongArray(capacity);
+    this.listenIds = new String[capacity];
+    this.epochSeconds = new long[capacity];
+    this.nanos = new int[capacity];
+    this.offsetSeconds = new int[capacity];
+    this.eventTypes = new byte[capacity];
+    this.reasons = new String[capacity];
+    this.reasonSubCodes = new String[capacity];
+    this.timeIntoTrack = new int[capacity];
+    this.playbackDelay = new int[capacity];
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, EMPTY);
+    }
+  }
+
+  /**
+   * Appends a report, overwriting the oldest one if the buffer is full.
+   *
+   * @param listenId the session the report belongs to
+   * @param event the report
+   * @return the sequence number of the report
+   */
+  long append(String listenId, RadioReportEvent event) {
+    long sequence = nextSequence.getAndIncrement();
+    int slot = (int) (sequence % capacity);
+    if (!claim(slot, sequence)) {
+      // A newer report already took the slot, so this one counts as overwritten
+      return sequence;
+    }
+    OffsetDateTime timeStamp = event.timeStamp();
+    listenIds[slot] = listenId;
+    epochSeconds[slot] = timeStamp.toEpochSecond();
+    nanos[slot] = timeStamp.getNano();
+    offsetSeconds[slot] = timeStamp.getOffset().getTotalSeconds();
+    eventTypes[slot] = (byte) event.eventType().ordinal();
+    reasons[slot] = intern(event.reason());
+    reasonSubCodes[slot] = intern(event.reasonSubCode());
+    timeIntoTrack[slot] = event.timeIntoTrack();
+    playbackDelay[slot] = event.playbackDelay();
+    sequences.set(slot, sequence);
+    return sequence;
+  }
+
+  /**
+   * Returns the report with the given sequence number.
+   *
+   * @param sequence the sequence number returned by {@link #append}
+   * @return the report, or null if it has been overwritten
+   */
+  RadioReportEvent read(long sequence) {
+    if (sequence < 0) {
+      return null;
+    }
+    int slot = (int) (sequence % capacity);
+    while (true) {
+      long stamp = sequences.get(slot);
+      if (stamp == WRITING) {
+        Thread.onSpinWait();
+        continue;
+      }
+      if (stamp != sequence) {
+        return null;
+      }
+      long seconds = epochSeconds[slot];
+      int nano = nanos[slot];
+      int offset = offsetSeconds[slot];
+      byte type = eventTypes[slot];
+      String reason = reasons[slot];
+      String reasonSubCode = reasonSubCodes[slot];
+      int track = timeIntoTrack[slot];
+      int delay = playbackDelay[slot];
+      if (isStable(slot, sequence)) {
+        return new RadioReportEvent(
+            OffsetDateTime.ofInstant(
+                Instant.ofEpochSecond(seconds, nano), ZoneOffset.ofTotalSeconds(offset)),
+            EVENT_TYPES[type],
+            reason,
+            reasonSubCode,
+            track,
+            delay);
+      }
+    }
+  }
+
+  /**
+   * Formats the report with the given sequence number as a single log line.
+   *
+   * @param sequence the sequence number returned by {@link #append}
+   * @return the formatted report, or null if it has been overwritten
+   */
+  String format(long sequence) {
+    if (sequence < 0) {
+      return null;
+    }
+    int slot = (int) (sequence % capacity);
+    while (true) {
+      long stamp = sequences.get(slot);
+      if (stamp == WRITING) {
+        Thread.onSpinWait();
+        continue;
+      }
+      if (stamp != sequence) {
+        return null;
+      }
+      String formatted = formatSlot(slot);
+      if (isStable(slot, sequence)) {
+        return formatted;
+      }
+    }
+  }
+
+  private String formatSlot(int slot) {
+    return format(
+        listenIds[slot],
+        EVENT_TYPES[eventTypes[slot]],
+        epochSeconds[slot],
+        offsetSeconds[slot],
+        reasons[slot],
+        reasonSubCodes[slot],
+        timeIntoTrack[slot],
+        playbackDelay[slot]);
+  }
+
+  /**
+   * Formats a report that is not stored in a buffer in the same way as {@link #format(long)}.
+   *
+   * @param listenId the session the report belongs to
+   * @param event the report
+   * @return the formatted report
+   */
+  static String format(String listenId, RadioReportEvent event) {
+    return format(
+        listenId,
+        event.eventType(),
+        event.timeStamp().toEpochSecond(),
+        event.timeStamp().getOffset().getTotalSeconds(),
+        event.reason(),
+        event.reasonSubCode(),
+        event.timeIntoTrack(),
+        event.playbackDelay());
+  }
+
+  private static String format(
+      String listenId,
+      RadioReportEvent.EventType eventType,
+      long epochSecond,
+      int offset,
+      String reason,
+      String reasonSubCode,
+      int track,
+      int delay) {
+    StringBuilder out = new StringBuilder(128);
+    out.append("listenId=")
+        .append(listenId)
+        .append(" eventType=")
+        .append(eventType)
+        .append(" epochSecond=")
+        .append(epochSecond)
+        .append(" offset=")
+        .append(offset)
+        .append(" reason=")
+        .append(reason);
+    if (reasonSubCode != null) {
+      out.append(" reasonSubCode=").append(reasonSubCode);
+    }
+    out.append(" timeIntoTrack=").append(track).append(" playbackDelay=").append(delay);
+    return out.toString();
+  }
+
+  synchronized void clear() {
+    for (int slot = 0; slot < capacity; slot++) {
+      long stamp;
+      do {
+        stamp = sequences.get(slot);
+        if (stamp == WRITING) {
+          Thread.onSpinWait();
+        }
+      } while (stamp == WRITING || !sequences.compareAndSet(slot, stamp, WRITING));
+      listenIds[slot] = null;
+      reasons[slot] = null;
+      reasonSubCodes[slot] = null;
+      sequences.set(slot, EMPTY);
+    }
+  }
+
+  /**
+   * Takes the slot for writing the report with the given sequence number.
+   *
+   * @return false if the slot already holds a newer report
+   */
+  private boolean claim(int slot, long sequence) {
+    while (true) {
+      long stamp = sequences.get(slot);
+      if (stamp == WRITING) {
+        // Either the previous lap's writer or a clear is still busy with the slot
+        Thread.onSpinWait();
+      } else if (stamp > sequence) {
+        return false;
+      } else if (sequences.compareAndSet(slot, stamp, WRITING)) {
+        return true;
+      }
+    }
+  }
+
+  /** Returns whether the slot still holds the given report after its columns were copied. */
+  private boolean isStable(int slot, long sequence) {
+    // Keep the column reads above from being reordered after the second stamp read
+    VarHandle.acquireFence();
+    return sequences.get(slot) == sequence;
+  }
+
+  private String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    String interned = internedStrings.get(value);
+    if (interned != null) {
+      return interned;
+    }
+    if (internedStrings.size() < MAX_INTERNED_STRINGS) {
+      internedStrings.putIfAbsent(value, value);
+    }
+    return value;
+  }
+}
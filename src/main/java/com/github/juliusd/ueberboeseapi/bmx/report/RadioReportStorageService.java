@@ -3,68 +3,189 @@ package com.github.juliusd.ueberboeseapi.bmx.report;
 import com.github.juliusd.ueberboeseapi.bmx.BmxProperties;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import lombok.RequiredArgsConstructor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.stereotype.Service;
 
+/**
+ * Keeps the most recent radio sessions and the reports received for them.
+ *
+ * <p>Sessions live in a concurrent map and, in start order, in a lock-free queue. Reads never lock,
+ * each session appends its reports to its own queue, and evicting the oldest session once more than
+ * {@code maxReports} are stored is a constant-time poll of the queue.
+ *
+ * <p>The reports themselves live in a preallocated {@link RadioReportBuffer} of {@code
+ * reportBufferSize} entries; sessions only keep the sequence numbers of their reports. Reports that
+ * have been overwritten in the buffer and reports of evicted sessions are no longer listed; reports
+ * for unknown sessions are not stored at all.
+ */
 @Service
-@RequiredArgsConstructor
 public class RadioReportStorageService {
 
+  /** Returned by {@link #store} for reports that were dropped. */
+  public static final long NOT_STORED = -1;
+
   private final BmxProperties properties;
+  private final RadioReportBuffer reportBuffer;
+
+  private final Map<String, SessionEntry> sessionsByListenId = new ConcurrentHashMap<>();
+  private final Queue<SessionEntry> sessionsInStartOrder = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger sessionCount = new AtomicInteger();
 
-  private final LinkedHashMap<String, RadioSession> sessionsByListenId = new LinkedHashMap<>();
-  private final LinkedHashMap<String, List<RadioReportEvent>> reportsByListenId =
-      new LinkedHashMap<>();
+  public RadioReportStorageService(BmxProperties properties) {
+    this.properties = properties;
+    this.reportBuffer = new RadioReportBuffer(properties.reportBufferSize());
+  }
 
-  public synchronized void startSession(
+  public void startSession(
       String listenId,
       String stationId,
       String stationName,
       String logoUrl,
       OffsetDateTime startedAt) {
-    sessionsByListenId.put(
-        listenId, new RadioSession(listenId, stationId, stationName, logoUrl, startedAt));
-    evictOldestIfNeeded();
+    var session = new RadioSession(listenId, stationId, stationName, logoUrl, startedAt);
+    var entry = new SessionEntry(listenId, session);
+    var existing = sessionsByListenId.putIfAbsent(listenId, entry);
+    if (existing != null) {
+      // A restarted session keeps its position and its reports
+      existing.session = session;
+      return;
+    }
+    sessionsInStartOrder.offer(entry);
+    if (sessionCount.incrementAndGet() > properties.maxReports()) {
+      evictOldest();
+    }
   }
 
-  public synchronized void store(String listenId, RadioReportEvent event) {
-    reportsByListenId.computeIfAbsent(listenId, k -> new ArrayList<>()).add(event);
-    evictOldestIfNeeded();
+  /**
+   * Stores a report in the report buffer and attaches it to its session. Reports for unknown
+   * sessions are dropped, so they cannot push reports of real sessions out of the buffer.
+   *
+   * @param listenId the session the report belongs to
+   * @param event the report
+   * @return the sequence number of the report in the report buffer, or {@link #NOT_STORED} if the
+   *     session is unknown
+   */
+  public long store(String listenId, RadioReportEvent event) {
+    var entry = sessionsByListenId.get(listenId);
+    if (entry == null) {
+      return NOT_STORED;
+    }
+    long sequence = reportBuffer.append(listenId, event);
+    entry.addReport(sequence, sequence - properties.reportBufferSize() + 1);
+    return sequence;
   }
 
-  public synchronized List<RadioSessionReport> getSessionReports() {
-    var allListenIds = new LinkedHashSet<>(sessionsByListenId.keySet());
-    allListenIds.addAll(reportsByListenId.keySet());
-    return allListenIds.stream()
-        .map(
-            id ->
-                new RadioSessionReport(
-                    id,
-                    sessionsByListenId.get(id),
-                    List.copyOf(reportsByListenId.getOrDefault(id, List.of()))))
-        .toList();
+  /**
+   * Formats a stored report as a single log line.
+   *
+   * @param sequence the sequence number returned by {@link #store}
+   * @return the formatted report, or null if it is no longer in the report buffer
+   */
+  public String formatReport(long sequence) {
+    return reportBuffer.format(sequence);
   }
 
-  public synchronized Optional<RadioSession> getSession(String listenId) {
-    return Optional.ofNullable(sessionsByListenId.get(listenId));
+  /**
+   * Formats a report that has not been stored, for example one of an unknown session, as a single
+   * log line.
+   *
+   * @param listenId the session the report belongs to
+   * @param event the report
+   * @return the formatted report
+   */
+  public String formatReport(String listenId, RadioReportEvent event) {
+    return RadioReportBuffer.format(listenId, event);
+  }
+
+  public List<RadioSessionReport> getSessionReports() {
+    List<RadioSessionReport> result = new ArrayList<>(sessionCount.get());
+    for (SessionEntry entry : sessionsInStartOrder) {
+      if (!entry.evicted) {
+        result.add(new RadioSessionReport(entry.listenId, entry.session, reportsOf(entry)));
+      }
+    }
+    return result;
+  }
+
+  public Optional<RadioSession> getSession(String listenId) {
+    var entry = sessionsByListenId.get(listenId);
+    return entry == null ? Optional.empty() : Optional.of(entry.session);
   }
 
   public synchronized void clearAll() {
-    sessionsByListenId.clear();
-    reportsByListenId.clear();
+    SessionEntry entry;
+    while ((entry = sessionsInStartOrder.poll()) != null) {
+      remove(entry);
+    }
+    reportBuffer.clear();
   }
 
-  private void evictOldestIfNeeded() {
-    reportsByListenId.keySet().removeIf(id -> !sessionsByListenId.containsKey(id));
-    int limit = properties.maxReports();
-    while (sessionsByListenId.size() > limit) {
-      String oldest = sessionsByListenId.firstEntry().getKey();
-      sessionsByListenId.remove(oldest);
-      reportsByListenId.remove(oldest);
+  private List<RadioReportEvent> reportsOf(SessionEntry entry) {
+    long[] sequences = entry.reportSequences();
+    List<RadioReportEvent> reports = new ArrayList<>(sequences.length);
+    for (long sequence : sequences) {
+      RadioReportEvent event = reportBuffer.read(sequence);
+      if (event != null) {
+        reports.add(event);
+      }
+    }
+    return reports;
+  }
+
+  private synchronized void evictOldest() {
+    while (sessionCount.get() > properties.maxReports()) {
+      SessionEntry oldest = sessionsInStartOrder.poll();
+      if (oldest == null) {
+        return;
+      }
+      remove(oldest);
+    }
+  }
+
+  private void remove(SessionEntry entry) {
+    entry.evicted = true;
+    sessionsByListenId.remove(entry.listenId, entry);
+    sessionCount.decrementAndGet();
+  }
+
+  private static final class SessionEntry {
+    private final String listenId;
+    private long[] reports = new long[4];
+    private int reportCount;
+    private volatile RadioSession session;
+    private volatile boolean evicted;
+
+    private SessionEntry(String listenId, RadioSession session) {
+      this.listenId = listenId;
+      this.session = session;
+    }
+
+    private synchronized void addReport(long sequence, long oldestRetained) {
+      if (reportCount == reports.length) {
+        // Forget reports that have been overwritten in the buffer before growing
+        int retained = 0;
+        for (int i = 0; i < reportCount; i++) {
+          if (reports[i] >= oldestRetained) {
+            reports[retained++] = reports[i];
+          }
+        }
+        reportCount = retained;
+        if (reportCount == reports.length) {
+          reports = Arrays.copyOf(reports, reportCount * 2);
+        }
+      }
+      reports[reportCount++] = sequence;
+    }
+
+    private synchronized long[] reportSequences() {
+      return Arrays.copyOf(reports, reportCount);
     }
   }
 }
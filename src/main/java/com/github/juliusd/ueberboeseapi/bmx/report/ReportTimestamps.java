@@ -0,0 +1,103 @@
+package com.github.juliusd.ueberboeseapi.bmx.report;
+
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+
+/**
+ * Parses the timestamps of TuneIn analytics reports, e.g. {@code 2026-05-13T09:01:19+0000}.
+ *
+ * <p>Speakers always send this exact shape, so it is parsed directly from the characters with the
+ * offsets taken from a precomputed table. Anything else falls back to the formatter.
+ */
+public final class ReportTimestamps {
+
+  private static final DateTimeFormatter REPORT_TS_FORMATTER =
+      new DateTimeFormatterBuilder()
+          .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+          .appendOffset("+HHmm", "+0000")
+          .toFormatter()
+          // Reject days beyond the end of the month instead of moving them to the last day
+          .withResolverStyle(ResolverStyle.STRICT);
+
+  private static final int FAST_PATH_LENGTH = "2026-05-13T09:01:19+0000".length();
+  // Offsets from -18:00 to +18:00 in steps of 15 minutes
+  private static final int QUARTER_HOURS = 18 * 4;
+  private static final ZoneOffset[] QUARTER_HOUR_OFFSETS = new ZoneOffset[2 * QUARTER_HOURS + 1];
+
+  static {
+    for (int i = 0; i < QUARTER_HOUR_OFFSETS.length; i++) {
+      QUARTER_HOUR_OFFSETS[i] = ZoneOffset.ofTotalSeconds((i - QUARTER_HOURS) * 15 * 60);
+    }
+  }
+
+  private ReportTimestamps() {}
+
+  /**
+   * Parses a report timestamp.
+   *
+   * @param text the timestamp
+   * @return the parsed timestamp
+   * @throws java.time.format.DateTimeParseException if the text is not a valid timestamp
+   */
+  public static OffsetDateTime parse(String text) {
+    OffsetDateTime parsed = parseFastPath(text);
+    return parsed != null ? parsed : OffsetDateTime.parse(text, REPORT_TS_FORMATTER);
+  }
+
+  private static OffsetDateTime parseFastPath(String text) {
+    if (text.length() != FAST_PATH_LENGTH
+        || text.charAt(4) != '-'
+        || text.charAt(7) != '-'
+        || text.charAt(10) != 'T'
+        || text.charAt(13) != ':'
+        || text.charAt(16) != ':') {
+      return null;
+    }
+    char sign = text.charAt(19);
+    if (sign != '+' && sign != '-') {
+      return null;
+    }
+    int year = digits(text, 0, 4);
+    int month = digits(text, 5, 2);
+    int day = digits(text, 8, 2);
+    int hour = digits(text, 11, 2);
+    int minute = digits(text, 14, 2);
+    int second = digits(text, 17, 2);
+    int offsetHours = digits(text, 20, 2);
+    int offsetMinutes = digits(text, 22, 2);
+    if ((year | month | day | hour | minute | second | offsetHours | offsetMinutes) < 0
+        || offsetHours > 18
+        || offsetMinutes % 15 != 0) {
+      return null;
+    }
+    int quarterHours = offsetHours * 4 + offsetMinutes / 15;
+    if (quarterHours > QUARTER_HOURS) {
+      return null;
+    }
+    ZoneOffset offset =
+        QUARTER_HOUR_OFFSETS[QUARTER_HOURS + (sign == '-' ? -quarterHours : quarterHours)];
+    try {
+      return OffsetDateTime.of(year, month, day, hour, minute, second, 0, offset);
+    } catch (DateTimeException e) {
+      // Out-of-range fields are reported by the formatter as DateTimeParseException
+      return null;
+    }
+  }
+
+  /** Returns the value of {@code length} decimal digits, or -1 if any character is not a digit. */
+  private static int digits(String text, int start, int length) {
+    int value = 0;
+    for (int i = start; i < start + length; i++) {
+      int digit = text.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,19 @@
+package com.github.juliusd.ueberboeseapi.bmx.station;
+
+import java.time.OffsetDateTime;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Builder(toBuilder = true)
+@Table("CUSTOM_STATION")
+public record CustomStation(
+    @Id Long id,
+    String stationId,
+    String name,
+    String streamUrl,
+    String imageUrl,
+    OffsetDateTime createdOn,
+    OffsetDateTime updatedOn,
+    @Version Long version) {}
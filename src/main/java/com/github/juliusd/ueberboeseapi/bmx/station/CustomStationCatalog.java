@@ -0,0 +1,217 @@
+package com.github.juliusd.ueberboeseapi.bmx.station;
+
+import static tools.jackson.databind.json.JsonMapper.builder;
+
+import com.github.juliusd.ueberboeseapi.bmx.CustomStreamPlayback;
+import com.github.juliusd.ueberboeseapi.bmx.PrecomputedResponse;
+import com.github.juliusd.ueberboeseapi.generated.dtos.BmxPlaybackResponseApiDto;
+import java.net.URI;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Catalog of user-defined radio stations. Stations are persisted in the database and kept in an
+ * in-memory index together with their precomputed playback response, so playing a station is a
+ * single map lookup.
+ *
+ * <p>Presets refer to a station by its short station ID (see {@link #locationOf(String)}) instead
+ * of carrying the whole stream description in their location.
+ */
+@Service
+@Slf4j
+public class CustomStationCatalog {
+
+  private static final String LOCATION_PREFIX =
+      "/core02/svc-bmx-adapter-orion/prod/orion/station?id=";
+
+  private static final char[] STATION_ID_ALPHABET =
+      "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+  private static final int STATION_ID_LENGTH = 8;
+  // Column lengths of CUSTOM_STATION
+  private static final int MAX_NAME_LENGTH = 512;
+  private static final int MAX_URL_LENGTH = 2048;
+
+  private final CustomStationRepository customStationRepository;
+  private final JsonMapper jsonMapper = builder().findAndAddModules().build();
+  private final SecureRandom random = new SecureRandom();
+
+  // Writes are serialized by the synchronized mutators, reads go to the map directly
+  private final Map<String, IndexedStation> index = new ConcurrentHashMap<>();
+
+  public CustomStationCatalog(CustomStationRepository customStationRepository) {
+    this.customStationRepository = customStationRepository;
+    customStationRepository.findAll().forEach(this::putIndex);
+    log.info("Loaded {} custom stations", index.size());
+  }
+
+  /**
+   * Returns all stations of the catalog, oldest first.
+   *
+   * @return the stations
+   */
+  public List<CustomStation> getStations() {
+    return index.values().stream()
+        .map(IndexedStation::station)
+        .sorted(
+            Comparator.comparing(CustomStation::createdOn).thenComparing(CustomStation::stationId))
+        .toList();
+  }
+
+  /**
+   * Returns the precomputed playback response of a station.
+   *
+   * @param stationId short ID of the station
+   * @return the playback response, must not be modified, or empty if the station is unknown
+   */
+  public Optional<PrecomputedResponse<BmxPlaybackResponseApiDto>> getPlayback(String stationId) {
+    IndexedStation indexed = stationId != null ? index.get(stationId) : null;
+    return Optional.ofNullable(indexed).map(IndexedStation::playback);
+  }
+
+  /**
+   * Adds a station to the catalog and assigns a new short station ID.
+   *
+   * @param name station name
+   * @param streamUrl HTTP or HTTPS URL of the stream or its playlist
+   * @param imageUrl logo URL, may be null
+   * @return the saved station
+   * @throws IllegalArgumentException if the name or stream URL is missing or invalid, or a value is
+   *     too long
+   */
+  public synchronized CustomStation create(String name, String streamUrl, String imageUrl) {
+    validate(name, streamUrl, imageUrl);
+    var now = OffsetDateTime.now().withNano(0);
+    CustomStation station =
+        customStationRepository.save(
+            CustomStation.builder()
+                .stationId(newStationId())
+                .name(name)
+                .streamUrl(streamUrl)
+                .imageUrl(imageUrl)
+                .createdOn(now)
+                .updatedOn(now)
+                .build());
+    putIndex(station);
+    log.info("Added custom station {} ({})", station.stationId(), name);
+    return station;
+  }
+
+  /**
+   * Replaces name, stream URL and image URL of a station.
+   *
+   * @param stationId short ID of the station
+   * @param name station name
+   * @param streamUrl HTTP or HTTPS URL of the stream or its playlist
+   * @param imageUrl logo URL, may be null
+   * @return the saved station, or empty if the station is unknown
+   * @throws IllegalArgumentException if the name or stream URL is missing or invalid, or a value is
+   *     too long
+   */
+  public synchronized Optional<CustomStation> update(
+      String stationId, String name, String streamUrl, String imageUrl) {
+    IndexedStation existing = index.get(stationId);
+    if (existing == null) {
+      return Optional.empty();
+    }
+    validate(name, streamUrl, imageUrl);
+    CustomStation station =
+        customStationRepository.save(
+            existing.station().toBuilder()
+                .name(name)
+                .streamUrl(streamUrl)
+                .imageUrl(imageUrl)
+                .updatedOn(OffsetDateTime.now().withNano(0))
+                .build());
+    putIndex(station);
+    log.info("Updated custom station {} ({})", stationId, name);
+    return Optional.of(station);
+  }
+
+  /**
+   * Removes a station from the catalog.
+   *
+   * @param stationId short ID of the station
+   * @return true if the station existed
+   */
+  public synchronized boolean delete(String stationId) {
+    IndexedStation existing = index.remove(stationId);
+    if (existing == null) {
+      return false;
+    }
+    customStationRepository.delete(existing.station());
+    log.info("Removed custom station {}", stationId);
+    return true;
+  }
+
+  /**
+   * Returns the location presets use to play a station.
+   *
+   * @param stationId short ID of the station
+   * @return the location, relative to the BMX base URL
+   */
+  public static String locationOf(String stationId) {
+    return LOCATION_PREFIX + stationId;
+  }
+
+  private void putIndex(CustomStation station) {
+    BmxPlaybackResponseApiDto playback =
+        CustomStreamPlayback.create(station.streamUrl(), station.imageUrl(), station.name());
+    index.put(
+        station.stationId(),
+        new IndexedStation(
+            station, PrecomputedResponse.of(playback, jsonMapper.writeValueAsBytes(playback))));
+  }
+
+  private String newStationId() {
+    String stationId;
+    do {
+      char[] chars = new char[STATION_ID_LENGTH];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = STATION_ID_ALPHABET[random.nextInt(STATION_ID_ALPHABET.length)];
+      }
+      stationId = new String(chars);
+    } while (index.containsKey(stationId));
+    return stationId;
+  }
+
+  private static void validate(String name, String streamUrl, String imageUrl) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("name is required");
+    }
+    if (name.length() > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException(
+          "name must not be longer than " + MAX_NAME_LENGTH + " characters");
+    }
+    if (streamUrl == null || streamUrl.isBlank()) {
+      throw new IllegalArgumentException("streamUrl is required");
+    }
+    if (streamUrl.length() > MAX_URL_LENGTH) {
+      throw new IllegalArgumentException(
+          "streamUrl must not be longer than " + MAX_URL_LENGTH + " characters");
+    }
+    if (imageUrl != null && imageUrl.length() > MAX_URL_LENGTH) {
+      throw new IllegalArgumentException(
+          "imageUrl must not be longer than " + MAX_URL_LENGTH + " characters");
+    }
+    String scheme;
+    try {
+      scheme = URI.create(streamUrl).getScheme();
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("streamUrl is not a valid URL: " + streamUrl);
+    }
+    if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+      throw new IllegalArgumentException("streamUrl must be an HTTP or HTTPS URL: " + streamUrl);
+    }
+  }
+
+  private record IndexedStation(
+      CustomStation station, PrecomputedResponse<BmxPlaybackResponseApiDto> playback) {}
+}
@@ -0,0 +1,7 @@
+package com.github.juliusd.ueberboeseapi.bmx.station;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomStationRepository extends CrudRepository<CustomStation, Long> {}
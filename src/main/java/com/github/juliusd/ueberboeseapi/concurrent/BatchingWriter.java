@@ -0,0 +1,172 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded queue drained in batches by a single background writer thread.
+ *
+ * <p>Producers never block: {@link #offer(Object)} returns false once the capacity is reached or
+ * the writer is closed, so callers can count the overflow. The writer thread blocks while the queue
+ * is empty and takes everything that queued up in the meantime, up to the batch size, as soon as an
+ * element arrives. {@link #flush(Duration)} waits until everything offered before the call has been
+ * handed to the sink.
+ *
+ * <p>The writer is stopped with a marker element instead of an interrupt, because interrupting a
+ * thread blocked in file I/O closes the channel it is writing to.
+ *
+ * @param <T> element type
+ */
+@Slf4j
+public final class BatchingWriter<T> {
+
+  private static final Object STOP = new Object();
+
+  private final String name;
+  private final int capacity;
+  private final int batchSize;
+  private final Consumer<List<T>> sink;
+  private final LinkedBlockingQueue<Object> queue;
+  private final Thread thread;
+  private final AtomicLong offered = new AtomicLong();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition progressed = lock.newCondition();
+  private long written;
+  private volatile boolean closed;
+
+  /**
+   * Creates a writer. The writer thread is not started until {@link #start()} is called.
+   *
+   * @param name name of the writer thread
+   * @param capacity maximum number of queued elements
+   * @param batchSize maximum number of elements handed to the sink at once
+   * @param sink receives each batch on the writer thread and must not keep the list; exceptions are
+   *     logged and the batch is dropped
+   */
+  public BatchingWriter(String name, int capacity, int batchSize, Consumer<List<T>> sink) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.name = name;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.sink = sink;
+    // One extra slot so the stop marker always fits
+    this.queue = new LinkedBlockingQueue<>(capacity + 1);
+    this.thread = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+  }
+
+  /** Starts the writer thread. */
+  public void start() {
+    thread.start();
+  }
+
+  /**
+   * Queues an element for writing if the writer has room and is not closed.
+   *
+   * @param element the element to write
+   * @return true if the element was queued, false if it was rejected
+   */
+  public boolean offer(T element) {
+    if (closed || queue.size() >= capacity || !queue.offer(element)) {
+      return false;
+    }
+    offered.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Waits until all elements offered before this call have been handed to the sink.
+   *
+   * @param timeout maximum time to wait
+   * @return true if everything was written, false if the timeout elapsed first
+   */
+  public boolean flush(Duration timeout) {
+    long target = offered.get();
+    long remainingNanos = timeout.toNanos();
+    lock.lock();
+    try {
+      while (written < target) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = progressed.awaitNanos(remainingNanos);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    return queue.size();
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Rejects further elements, lets the writer thread write everything still queued and waits up to
+   * the given timeout for it to finish.
+   *
+   * @param timeout maximum time to wait for the writer thread
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close(Duration timeout) throws InterruptedException {
+    closed = true;
+    if (thread.isAlive()) {
+      queue.offer(STOP, timeout.toMillis(), TimeUnit.MILLISECONDS);
+      thread.join(timeout.toMillis());
+    }
+  }
+
+  private void run() {
+    List<Object> batch = new ArrayList<>(batchSize);
+    boolean stopping = false;
+    while (!stopping || !queue.isEmpty()) {
+      try {
+        batch.add(stopping ? queue.poll() : queue.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, batchSize - 1);
+      stopping |= batch.remove(STOP);
+      if (!batch.isEmpty()) {
+        write(batch);
+      }
+      batch.clear();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void write(List<Object> batch) {
+    try {
+      sink.accept((List<T>) batch);
+    } catch (RuntimeException e) {
+      log.warn("Writer {} failed to write a batch of {} element(s)", name, batch.size(), e);
+    }
+    lock.lock();
+    try {
+      written += batch.size();
+      progressed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
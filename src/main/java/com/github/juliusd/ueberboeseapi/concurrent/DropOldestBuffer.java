@@ -0,0 +1,131 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer between a producer that must never wait and a single, possibly slow consumer.
+ *
+ * <p>{@link #offer(Object)} always succeeds: once the buffer is full the oldest element is dropped
+ * to make room and counted. The consumer waits in {@link #poll(long, TimeUnit)} and learns about
+ * dropped elements through {@link #takeDropped()}.
+ *
+ * @param <T> element type
+ */
+public final class DropOldestBuffer<T> {
+
+  private final Object[] elements;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private int head;
+  private int size;
+  private long dropped;
+  private boolean closed;
+
+  public DropOldestBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.elements = new Object[capacity];
+  }
+
+  /**
+   * Adds an element, dropping the oldest one if the buffer is full. Ignored once closed.
+   *
+   * @param element the element to add
+   */
+  public void offer(T element) {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      if (size == elements.length) {
+        elements[head] = null;
+        head = (head + 1) % elements.length;
+        size--;
+        dropped++;
+      }
+      elements[(head + size) % elements.length] = element;
+      size++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the oldest element, waiting up to the given time for one to arrive.
+   *
+   * @param timeout maximum time to wait
+   * @param unit unit of the timeout
+   * @return the oldest element, or null if none arrived in time or the buffer was closed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  @SuppressWarnings("unchecked")
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long remaining = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (size == 0) {
+        if (closed || remaining <= 0) {
+          return null;
+        }
+        remaining = notEmpty.awaitNanos(remaining);
+      }
+      T element = (T) elements[head];
+      elements[head] = null;
+      head = (head + 1) % elements.length;
+      size--;
+      return element;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of elements dropped since the previous call.
+   *
+   * @return the number of dropped elements
+   */
+  public long takeDropped() {
+    lock.lock();
+    try {
+      long result = dropped;
+      dropped = 0;
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Closes the buffer: further elements are ignored and a waiting consumer returns. */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isClosed() {
+    lock.lock();
+    try {
+      return closed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity ring buffer that keeps the most recent elements.
+ *
+ * <p>Writers are serialized among themselves, readers take snapshots without any locking and never
+ * block writers. Every slot holds an immutable element stamped with its sequence number, so a
+ * reader racing with a writer skips slots that were overwritten while it was copying instead of
+ * returning a torn or out-of-order snapshot.
+ *
+ * @param <T> element type
+ */
+public final class SnapshotRingBuffer<T> {
+
+  private final AtomicReferenceArray<Slot<T>> slots;
+  private final int capacity;
+
+  // Number of elements ever appended; written only while holding the writer lock
+  private volatile long sequence;
+
+  public SnapshotRingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Appends elements, overwriting the oldest ones once the buffer is full.
+   *
+   * @param elements the elements to append, in order
+   */
+  public synchronized void addAll(Collection<? extends T> elements) {
+    long next = sequence;
+    for (T element : elements) {
+      slots.set((int) (next % capacity), new Slot<>(next, element));
+      next++;
+      // Publish each element, so readers see it as soon as it is written
+      sequence = next;
+    }
+  }
+
+  /**
+   * Returns the elements currently held, oldest first.
+   *
+   * @return a snapshot of the buffer's content
+   */
+  public List<T> snapshot() {
+    long end = sequence;
+    long start = Math.max(0, end - capacity);
+    List<T> result = new ArrayList<>((int) (end - start));
+    for (long i = start; i < end; i++) {
+      Slot<T> slot = slots.get((int) (i % capacity));
+      // A higher sequence means the element was overwritten since the snapshot started
+      if (slot != null && slot.sequence() == i) {
+        result.add(slot.element());
+      }
+    }
+    return result;
+  }
+
+  /** Returns the number of elements currently held. */
+  public int size() {
+    return (int) Math.min(sequence, capacity);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  private record Slot<T>(long sequence, T element) {}
+}
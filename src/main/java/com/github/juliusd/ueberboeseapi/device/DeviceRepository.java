@@ -1,6 +1,7 @@
 package com.github.juliusd.ueberboeseapi.device;
 
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -13,4 +14,7 @@ public interface DeviceRepository extends CrudRepository<Device, String> {
 
   @Query("SELECT * FROM DEVICE WHERE MARGE_ACCOUNT_ID = :margeAccountId")
   List<Device> findAllByMargeAccountId(String margeAccountId);
+
+  @Query("SELECT * FROM DEVICE WHERE IP_ADDRESS = :ipAddress ORDER BY LAST_SEEN DESC LIMIT 1")
+  Optional<Device> findFirstByIpAddress(String ipAddress);
 }
@@ -8,6 +8,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
@@ -16,12 +17,24 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
+/**
+ * Logs incoming requests and, depending on the request category, their bodies. Requests are
+ * classified with precompiled patterns and a body is only buffered if the category's {@link
+ * RequestLoggingProperties.CapturePolicy} selects the request and the logger it is written to is
+ * enabled.
+ */
 @Component
 @Slf4j
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
   private static final Logger EVENT_LOG = getLogger("com.github.juliusd.ueberboeseapi.EventLog");
 
+  private final RequestLoggingProperties properties;
+
+  public RequestLoggingFilter(RequestLoggingProperties properties) {
+    this.properties = properties;
+  }
+
   @Override
   protected void doFilterInternal(
       @NonNull HttpServletRequest request,
@@ -30,8 +43,6 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
 
     String uri = request.getRequestURI();
-    String queryString = request.getQueryString();
-    String fullUri = queryString != null ? uri + "?" + queryString : uri;
 
     String clientIp = request.getHeader("X-Forwarded-For");
     if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
@@ -48,30 +59,37 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
     MDC.put("clientIp", clientIp);
 
     try {
-      log.debug("Request: {} {}", request.getMethod(), fullUri);
+      if (log.isDebugEnabled()) {
+        String queryString = request.getQueryString();
+        log.debug(
+            "Request: {} {}",
+            request.getMethod(),
+            queryString != null ? uri + "?" + queryString : uri);
+      }
 
-      boolean isEventReport = uri.matches(".*/v1/scmudc/.*");
-      boolean isBmxReport = uri.matches(".*/bmx/.+/v1/report.*");
-      boolean isOAuth = uri.matches(".*/oauth.*");
-      boolean isPost = "POST".equalsIgnoreCase(request.getMethod());
+      RequestPathClassifier.Category category =
+          RequestPathClassifier.classify(request.getMethod(), uri);
+      RequestLoggingProperties.CapturePolicy policy = captureFor(category);
 
-      if (isEventReport || isBmxReport || isPost || isOAuth) {
+      if (policy != null) {
         ContentCachingRequestWrapper wrappedRequest =
-            new ContentCachingRequestWrapper(request, 1024 * 1024);
+            new ContentCachingRequestWrapper(request, policy.maxBodyBytes());
 
         filterChain.doFilter(wrappedRequest, response);
 
         byte[] content = wrappedRequest.getContentAsByteArray();
         if (content.length > 0) {
           String rawBody = new String(content, StandardCharsets.UTF_8);
-          if (isEventReport) {
-            EVENT_LOG.debug("event: {}", rawBody.trim());
-          } else if (isBmxReport) {
-            EVENT_LOG.debug("bxm-report: {}", rawBody.trim());
-          } else if (isOAuth) {
-            log.debug("OAuth body: {}", rawBody.trim());
-          } else if (response.getStatus() >= 400) {
-            log.warn("POST {} failed (HTTP {}): {}", uri, response.getStatus(), rawBody.trim());
+          switch (category) {
+            case EVENT_REPORT -> EVENT_LOG.debug("event: {}", rawBody.trim());
+            case BMX_REPORT -> EVENT_LOG.debug("bxm-report: {}", rawBody.trim());
+            case OAUTH -> log.debug("OAuth body: {}", rawBody.trim());
+            case POST -> {
+              if (response.getStatus() >= 400) {
+                log.warn("POST {} failed (HTTP {}): {}", uri, response.getStatus(), rawBody.trim());
+              }
+            }
+            case OTHER -> {}
           }
         }
       } else {
@@ -82,4 +100,45 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
       MDC.clear();
     }
   }
+
+  /**
+   * Returns the capture policy if the body of a request in the given category should be captured,
+   * or null if capturing it would be wasted work.
+   */
+  private RequestLoggingProperties.CapturePolicy captureFor(
+      RequestPathClassifier.Category category) {
+    RequestLoggingProperties.CapturePolicy policy;
+    boolean loggerEnabled;
+    switch (category) {
+      case EVENT_REPORT -> {
+        policy = properties.eventReports();
+        loggerEnabled = EVENT_LOG.isDebugEnabled();
+      }
+      case BMX_REPORT -> {
+        policy = properties.bmxReports();
+        loggerEnabled = EVENT_LOG.isDebugEnabled();
+      }
+      case OAUTH -> {
+        policy = properties.oauth();
+        loggerEnabled = log.isDebugEnabled();
+      }
+      case POST -> {
+        policy = properties.posts();
+        loggerEnabled = log.isWarnEnabled();
+      }
+      default -> {
+        return null;
+      }
+    }
+
+    if (!loggerEnabled) {
+      return null;
+    }
+    return switch (policy.mode()) {
+      case OFF -> null;
+      case ALWAYS -> policy;
+      case SAMPLED ->
+          ThreadLocalRandom.current().nextDouble() < policy.sampleRate() ? policy : null;
+    };
+  }
 }
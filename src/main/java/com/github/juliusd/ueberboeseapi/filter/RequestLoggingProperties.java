@@ -0,0 +1,52 @@
+package com.github.juliusd.ueberboeseapi.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for capturing request bodies in {@link RequestLoggingFilter}. Each
+ * request category has its own policy; bodies are only captured if the logger they are written to
+ * is enabled.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.request-logging.event-reports.mode=sampled
+ * ueberboese.request-logging.event-reports.sample-rate=0.1
+ * ueberboese.request-logging.bmx-reports.max-body-bytes=16384
+ * ueberboese.request-logging.oauth.mode=off
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.request-logging")
+public record RequestLoggingProperties(
+    /** Policy for device event reports (/v1/scmudc/...), written to the event log. */
+    @DefaultValue CapturePolicy eventReports,
+
+    /** Policy for BMX playback reports (/bmx/.../v1/report), written to the event log. */
+    @DefaultValue CapturePolicy bmxReports,
+
+    /** Policy for OAuth requests, written at DEBUG level. */
+    @DefaultValue CapturePolicy oauth,
+
+    /** Policy for all other POST requests, whose bodies are logged when the request fails. */
+    @DefaultValue CapturePolicy posts) {
+
+  /** Whether the body of a request is captured. */
+  public enum CaptureMode {
+    OFF,
+    SAMPLED,
+    ALWAYS
+  }
+
+  /**
+   * Body capture policy for one request category.
+   *
+   * @param mode whether bodies are captured never, for a sample of requests or always
+   * @param sampleRate fraction of requests captured in SAMPLED mode, between 0.0 and 1.0
+   * @param maxBodyBytes maximum number of body bytes kept; longer bodies are truncated
+   */
+  public record CapturePolicy(
+      @DefaultValue("always") CaptureMode mode,
+      @DefaultValue("1.0") double sampleRate,
+      @DefaultValue("1048576") int maxBodyBytes) {}
+}
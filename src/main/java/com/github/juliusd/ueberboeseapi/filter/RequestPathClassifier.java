@@ -0,0 +1,40 @@
+package com.github.juliusd.ueberboeseapi.filter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Classifies incoming requests for {@link RequestLoggingFilter}. The patterns are compiled once, so
+ * classifying a request does not compile regular expressions or allocate strings.
+ */
+final class RequestPathClassifier {
+
+  private static final Pattern EVENT_REPORT = Pattern.compile("/v1/scmudc/.");
+  private static final Pattern BMX_REPORT = Pattern.compile("/bmx/.+/v1/report");
+
+  /** Request categories with their own body capture policy. */
+  enum Category {
+    EVENT_REPORT,
+    BMX_REPORT,
+    OAUTH,
+    POST,
+    OTHER
+  }
+
+  private RequestPathClassifier() {}
+
+  static Category classify(String method, String uri) {
+    if (uri.contains("/v1/scmudc/") && EVENT_REPORT.matcher(uri).find()) {
+      return Category.EVENT_REPORT;
+    }
+    if (uri.contains("/bmx/") && BMX_REPORT.matcher(uri).find()) {
+      return Category.BMX_REPORT;
+    }
+    if (uri.contains("/oauth")) {
+      return Category.OAUTH;
+    }
+    if ("POST".equalsIgnoreCase(method)) {
+      return Category.POST;
+    }
+    return Category.OTHER;
+  }
+}
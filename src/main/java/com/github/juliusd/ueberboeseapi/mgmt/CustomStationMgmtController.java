@@ -0,0 +1,103 @@
+package com.github.juliusd.ueberboeseapi.mgmt;
+
+import com.github.juliusd.ueberboeseapi.bmx.station.CustomStation;
+import com.github.juliusd.ueberboeseapi.bmx.station.CustomStationCatalog;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.CustomStationManagementApi;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.CustomStationApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.CustomStationRequestApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.CustomStationsApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.ErrorApiDto;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class CustomStationMgmtController implements CustomStationManagementApi {
+
+  private final CustomStationCatalog customStationCatalog;
+
+  @Override
+  public ResponseEntity<CustomStationsApiDto> listCustomStations() {
+    log.info("Listing custom stations");
+
+    List<CustomStationApiDto> stations =
+        customStationCatalog.getStations().stream()
+            .map(CustomStationMgmtController::toDto)
+            .toList();
+
+    CustomStationsApiDto response = new CustomStationsApiDto();
+    response.setStations(stations);
+    return ResponseEntity.ok().header("Content-Type", "application/json").body(response);
+  }
+
+  @Override
+  public ResponseEntity<CustomStationApiDto> createCustomStation(
+      CustomStationRequestApiDto customStationRequestApiDto) {
+    log.info("Adding custom station: {}", customStationRequestApiDto.getName());
+
+    CustomStation station =
+        customStationCatalog.create(
+            customStationRequestApiDto.getName(),
+            customStationRequestApiDto.getStreamUrl(),
+            customStationRequestApiDto.getImageUrl());
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .header("Content-Type", "application/json")
+        .body(toDto(station));
+  }
+
+  @Override
+  public ResponseEntity<CustomStationApiDto> updateCustomStation(
+      String stationId, CustomStationRequestApiDto customStationRequestApiDto) {
+    log.info("Updating custom station: {}", stationId);
+
+    return customStationCatalog
+        .update(
+            stationId,
+            customStationRequestApiDto.getName(),
+            customStationRequestApiDto.getStreamUrl(),
+            customStationRequestApiDto.getImageUrl())
+        .map(
+            station ->
+                ResponseEntity.ok().header("Content-Type", "application/json").body(toDto(station)))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @Override
+  public ResponseEntity<Void> deleteCustomStation(String stationId) {
+    log.info("Removing custom station: {}", stationId);
+
+    return customStationCatalog.delete(stationId)
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.notFound().build();
+  }
+
+  private static CustomStationApiDto toDto(CustomStation station) {
+    CustomStationApiDto dto = new CustomStationApiDto();
+    dto.setStationId(station.stationId());
+    dto.setName(station.name());
+    dto.setStreamUrl(station.streamUrl());
+    dto.setImageUrl(station.imageUrl());
+    dto.setLocation(CustomStationCatalog.locationOf(station.stationId()));
+    dto.setCreatedOn(station.createdOn());
+    dto.setUpdatedOn(station.updatedOn());
+    return dto;
+  }
+
+  /** Exception handler for IllegalArgumentException - returns 400 Bad Request. */
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<ErrorApiDto> handleIllegalArgumentException(IllegalArgumentException e) {
+    log.warn("Bad request: {}", e.getMessage());
+
+    ErrorApiDto error = new ErrorApiDto();
+    error.setError("Invalid station");
+    error.setMessage(e.getMessage());
+
+    return ResponseEntity.badRequest().header("Content-Type", "application/json").body(error);
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.juliusd.ueberboeseapi.mgmt;
+
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.DeviceEventApiDto;
+import com.github.juliusd.ueberboeseapi.service.EventBroadcaster;
+import com.github.juliusd.ueberboeseapi.service.EventStreamProperties;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams newly received device events as Server-Sent Events.
+ *
+ * <p>Not part of mgmt-api.yaml because the generated interfaces cannot return an {@link
+ * SseEmitter}. Each stream is fed by a virtual thread that drains the subscriber's buffer:
+ *
+ * <ul>
+ *   <li>{@code device-event}: one event, with the device ID and the event as JSON
+ *   <li>{@code dropped}: number of events the subscriber lost because it fell behind
+ * </ul>
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class EventStreamController {
+
+  private final EventBroadcaster eventBroadcaster;
+  private final EventStreamProperties properties;
+
+  @GetMapping(path = "/mgmt/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamEvents(
+      @RequestParam(required = false) String deviceId,
+      @RequestParam(required = false) String type) {
+    EventBroadcaster.Subscription subscription = eventBroadcaster.subscribe(deviceId, type);
+    if (subscription == null) {
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Too many event stream subscribers");
+    }
+    log.info("Event stream opened (deviceId: {}, type: {})", deviceId, type);
+
+    // Never times out; the stream ends when the client disconnects
+    SseEmitter emitter = new SseEmitter(0L);
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(e -> subscription.close());
+    Thread.ofVirtual().name("event-stream").start(() -> pump(subscription, emitter));
+    return emitter;
+  }
+
+  private void pump(EventBroadcaster.Subscription subscription, SseEmitter emitter) {
+    long heartbeatMillis = properties.heartbeatInterval().toMillis();
+    try {
+      while (!subscription.buffer().isClosed()) {
+        EventBroadcaster.LiveEvent event =
+            subscription.buffer().poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+        long dropped = subscription.buffer().takeDropped();
+        if (dropped > 0) {
+          emitter.send(SseEmitter.event().name("dropped").data(dropped));
+        }
+        if (event != null) {
+          emitter.send(
+              SseEmitter.event()
+                  .id(Long.toString(event.id()))
+                  .name("device-event")
+                  .data(toDto(event), MediaType.APPLICATION_JSON));
+        } else if (!subscription.buffer().isClosed()) {
+          emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+      }
+    } catch (IOException | IllegalStateException e) {
+      // The client went away
+      log.debug("Event stream closed: {}", e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      subscription.close();
+      emitter.complete();
+    }
+  }
+
+  private static StreamedEventDto toDto(EventBroadcaster.LiveEvent liveEvent) {
+    var source = liveEvent.event();
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setData(source.getData());
+    event.setMonoTime(source.getMonoTime());
+    event.setTime(source.getTime());
+    event.setType(source.getType());
+    return new StreamedEventDto(liveEvent.deviceId(), event);
+  }
+
+  record StreamedEventDto(String deviceId, DeviceEventApiDto event) {}
+}
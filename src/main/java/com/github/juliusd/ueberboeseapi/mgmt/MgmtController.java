@@ -1,20 +1,31 @@
 package com.github.juliusd.ueberboeseapi.mgmt;
 
+import com.github.juliusd.ueberboeseapi.bmx.history.ListeningHistoryService;
+import com.github.juliusd.ueberboeseapi.bmx.history.StationListeningStats;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportStorageService;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioSessionReport;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.AccountManagementApi;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.EventManagementApi;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.DeviceEventApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.DeviceEventStatsApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.ErrorApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.EventIngestionStatsApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.EventTypeStatsApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.GetDeviceEvents200ResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.ListSpeakers200ResponseApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.RadioReportEventApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.RadioReportSessionApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.RadioReportsApiDto;
 import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.SpeakerApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.StationListeningStatsApiDto;
+import com.github.juliusd.ueberboeseapi.generated.mgmt.dtos.TopStationsApiDto;
 import com.github.juliusd.ueberboeseapi.service.DeviceTrackingService;
+import com.github.juliusd.ueberboeseapi.service.EventIngestionService;
+import com.github.juliusd.ueberboeseapi.service.EventStatisticsService;
 import com.github.juliusd.ueberboeseapi.service.EventStorageService;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -30,7 +41,10 @@ public class MgmtController implements AccountManagementApi, EventManagementApi
 
   private final DeviceTrackingService deviceTrackingService;
   private final EventStorageService eventStorageService;
+  private final EventStatisticsService eventStatisticsService;
+  private final EventIngestionService eventIngestionService;
   private final RadioReportStorageService radioReportStorageService;
+  private final ListeningHistoryService listeningHistoryService;
 
   @Override
   public ResponseEntity<ListSpeakers200ResponseApiDto> listSpeakers(String accountId) {
@@ -52,13 +66,20 @@ public class MgmtController implements AccountManagementApi, EventManagementApi
   }
 
   @Override
-  public ResponseEntity<GetDeviceEvents200ResponseApiDto> getDeviceEvents(String deviceId) {
+  public ResponseEntity<GetDeviceEvents200ResponseApiDto> getDeviceEvents(
+      String deviceId, OffsetDateTime from, OffsetDateTime to, String cursor, Integer limit) {
     log.info("Retrieving events for device: {}", deviceId);
 
-    var storedEvents = eventStorageService.getEventsForDevice(deviceId);
+    var page =
+        eventStorageService.findEvents(
+            deviceId,
+            from != null ? from.toInstant() : null,
+            to != null ? to.toInstant() : null,
+            parseCursor(cursor),
+            limit);
     List<DeviceEventApiDto> allDeviceEvents = new ArrayList<>();
 
-    for (var sourceEvent : storedEvents) {
+    for (var sourceEvent : page.events()) {
       DeviceEventApiDto deviceEvent = new DeviceEventApiDto();
       deviceEvent.setData(sourceEvent.getData());
       deviceEvent.setMonoTime(sourceEvent.getMonoTime());
@@ -69,11 +90,62 @@ public class MgmtController implements AccountManagementApi, EventManagementApi
 
     GetDeviceEvents200ResponseApiDto response = new GetDeviceEvents200ResponseApiDto();
     response.setEvents(allDeviceEvents);
+    if (page.nextCursor() != null) {
+      response.setNextCursor(page.nextCursor().toString());
+    }
 
     log.info("Retrieved {} events for device: {}", allDeviceEvents.size(), deviceId);
     return ResponseEntity.ok().header("Content-Type", "application/json").body(response);
   }
 
+  @Override
+  public ResponseEntity<DeviceEventStatsApiDto> getDeviceEventStats(String deviceId) {
+    var statistics = eventStatisticsService.getStatistics(deviceId);
+
+    DeviceEventStatsApiDto response = new DeviceEventStatsApiDto();
+    response.setDeviceId(statistics.deviceId());
+    response.setTotalEvents(statistics.totalEvents());
+    response.setTypes(statistics.types().stream().map(this::toDto).toList());
+    response.setIngestion(toDto(eventIngestionService.getStats(deviceId)));
+    return ResponseEntity.ok().header("Content-Type", "application/json").body(response);
+  }
+
+  private EventIngestionStatsApiDto toDto(EventIngestionService.DeviceIngestionStats statistics) {
+    EventIngestionStatsApiDto dto = new EventIngestionStatsApiDto();
+    dto.setAcceptedEvents(statistics.acceptedEvents());
+    dto.setRejectedSubmissions(statistics.rejectedSubmissions());
+    dto.setEventsLastMinute(statistics.eventsLastMinute());
+    return dto;
+  }
+
+  private EventTypeStatsApiDto toDto(EventStatisticsService.EventTypeStatistics statistics) {
+    EventTypeStatsApiDto dto = new EventTypeStatsApiDto();
+    dto.setType(statistics.type());
+    dto.setCount(statistics.count());
+    if (statistics.lastSeen() != null) {
+      dto.setLastSeen(OffsetDateTime.ofInstant(statistics.lastSeen(), ZoneOffset.UTC));
+    }
+    dto.setEventsLastMinute(statistics.eventsLastMinute());
+    dto.setEventsLast15Minutes(statistics.eventsLast15Minutes());
+    dto.setEventsLastHour(statistics.eventsLastHour());
+    dto.setLastMonoTimeDelta(statistics.lastMonoTimeDelta());
+    dto.setMinMonoTimeDelta(statistics.minMonoTimeDelta());
+    dto.setMaxMonoTimeDelta(statistics.maxMonoTimeDelta());
+    dto.setAverageMonoTimeDelta(statistics.averageMonoTimeDelta());
+    return dto;
+  }
+
+  private static Long parseCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(cursor);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+
   @Override
   public ResponseEntity<RadioReportsApiDto> getRadioReports() {
     List<RadioReportSessionApiDto> result =
@@ -83,6 +155,28 @@ public class MgmtController implements AccountManagementApi, EventManagementApi
     return ResponseEntity.ok().header("Content-Type", "application/json").body(response);
   }
 
+  @Override
+  public ResponseEntity<TopStationsApiDto> getTopStations(String deviceId, Integer limit) {
+    int maxStations = limit != null ? Math.clamp(limit, 1, 100) : 10;
+    TopStationsApiDto response = new TopStationsApiDto();
+    response.setStations(
+        listeningHistoryService.getMostPlayedStations(deviceId, maxStations).stream()
+            .map(this::toDto)
+            .toList());
+    return ResponseEntity.ok().header("Content-Type", "application/json").body(response);
+  }
+
+  private StationListeningStatsApiDto toDto(StationListeningStats stats) {
+    StationListeningStatsApiDto dto = new StationListeningStatsApiDto();
+    dto.setStationId(stats.stationId());
+    dto.setStationName(stats.stationName());
+    dto.setLogoUrl(stats.logoUrl());
+    dto.setPlayCount(stats.playCount());
+    dto.setListeningSeconds(stats.listeningSeconds());
+    dto.setLastPlayedAt(stats.lastPlayedAt());
+    return dto;
+  }
+
   private RadioReportSessionApiDto toDto(RadioSessionReport report) {
     RadioReportSessionApiDto dto = new RadioReportSessionApiDto();
     dto.setListenId(report.listenId());
@@ -107,6 +201,18 @@ public class MgmtController implements AccountManagementApi, EventManagementApi
     return event;
   }
 
+  /** Exception handler for IllegalArgumentException - returns 400 Bad Request. */
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<ErrorApiDto> handleIllegalArgumentException(IllegalArgumentException e) {
+    log.warn("Bad request: {}", e.getMessage());
+
+    ErrorApiDto error = new ErrorApiDto();
+    error.setError("Invalid parameter");
+    error.setMessage(e.getMessage());
+
+    return ResponseEntity.badRequest().header("Content-Type", "application/json").body(error);
+  }
+
   /** Exception handler for RuntimeException - returns 500 Internal Server Error. */
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<ErrorApiDto> handleRuntimeException(RuntimeException e) {
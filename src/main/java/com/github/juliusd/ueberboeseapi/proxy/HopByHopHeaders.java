@@ -0,0 +1,47 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Hop-by-hop headers (RFC 7230, section 6.1) that only apply to a single connection. They are
+ * neither forwarded by the proxy nor stored in the {@link ProxyResponseCache}.
+ */
+public final class HopByHopHeaders {
+
+  private static final Set<String> NAMES = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  static {
+    Collections.addAll(
+        NAMES,
+        "Connection",
+        "Keep-Alive",
+        "Proxy-Connection",
+        "TE",
+        "Trailer",
+        "Transfer-Encoding",
+        "Upgrade");
+  }
+
+  private HopByHopHeaders() {}
+
+  /**
+   * Checks whether the given header is hop-by-hop.
+   *
+   * @param headerName the header name, compared case-insensitively
+   * @return true if the header only applies to a single connection
+   */
+  public static boolean contains(String headerName) {
+    return NAMES.contains(headerName);
+  }
+
+  /**
+   * Returns all hop-by-hop header names.
+   *
+   * @return an unmodifiable, case-insensitive set of header names
+   */
+  public static Set<String> names() {
+    return Collections.unmodifiableSet(NAMES);
+  }
+}
@@ -0,0 +1,44 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the disk-backed cache of proxied upstream responses.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * proxy.cache.enabled=true
+ * proxy.cache.directory=/data/proxy-cache
+ * proxy.cache.max-size-bytes=104857600
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "proxy.cache")
+public record ProxyCacheProperties(
+    /** Whether cacheable upstream responses are stored and reused. Defaults to true. */
+    @DefaultValue("true") boolean enabled,
+
+    /**
+     * Directory where cached responses are stored, one memory-mapped file per entry. Example:
+     * /data/proxy-cache
+     */
+    String directory,
+
+    /**
+     * Upper bound for the summed size of all cache files. Least recently used entries are evicted
+     * once the bound is exceeded. Defaults to 100 MB.
+     */
+    @DefaultValue("104857600") long maxSizeBytes,
+
+    /**
+     * How long (in seconds) a stale response may be served when the upstream answers with a 5xx
+     * status, unless the response itself carries a stale-if-error directive. Defaults to one day.
+     */
+    @DefaultValue("86400") long staleIfErrorSeconds,
+
+    /**
+     * Whether the last known good response is served when the upstream cannot be reached at all,
+     * regardless of its age. Defaults to true.
+     */
+    @DefaultValue("true") boolean serveStaleWhenUnreachable) {}
@@ -0,0 +1,39 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for capturing proxied traffic into proxy-requests.log.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * proxy.capture.enabled=true
+ * proxy.capture.sample-rate=0.25
+ * proxy.capture.max-body-bytes=16384
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "proxy.capture")
+public record ProxyCaptureProperties(
+    /** Whether proxied requests and responses are captured at all. Defaults to true. */
+    @DefaultValue("true") boolean enabled,
+
+    /**
+     * Fraction of proxied exchanges that are captured, between 0.0 and 1.0. Defaults to 1.0 (every
+     * exchange).
+     */
+    @DefaultValue("1.0") double sampleRate,
+
+    /**
+     * Maximum number of request and response body bytes written to proxy-requests.log per exchange.
+     * Longer bodies are truncated in the log; the capture store keeps them complete. Defaults to 64
+     * KB.
+     */
+    @DefaultValue("65536") int maxBodyBytes,
+
+    /**
+     * Maximum number of captured exchanges waiting to be written. Exchanges arriving while the
+     * queue is full are dropped and counted. Defaults to 1024.
+     */
+    @DefaultValue("1024") int queueCapacity) {}
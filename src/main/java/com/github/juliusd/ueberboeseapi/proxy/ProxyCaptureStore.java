@@ -0,0 +1,659 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only binary store for captured proxy exchanges.
+ *
+ * <p>Exchanges are appended to segment files below the configured directory as length-prefixed,
+ * CRC-checked records. Each record starts with a small metadata block (time, method, host, path,
+ * query, status) followed by the headers and the bodies, which are deflate-compressed when that
+ * makes them smaller. On startup only the metadata blocks are read to rebuild the in-memory index
+ * by host+path and by time; a torn record at the end of the newest segment is cut off. The oldest
+ * segments are deleted once the configured size bound is exceeded.
+ *
+ * <p>In replay mode {@link com.github.juliusd.ueberboeseapi.ProxyService} answers from this store
+ * instead of contacting the upstream hosts.
+ */
+@Component
+@Slf4j
+public class ProxyCaptureStore implements DisposableBean {
+
+  private static final int SEGMENT_MAGIC = 0x50435331; // "PCS1"
+  private static final int SEGMENT_HEADER_BYTES = 12;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".pcs";
+  // record length, CRC32 and metadata length
+  private static final int RECORD_HEADER_BYTES = 12;
+  private static final int MIN_COMPRESSED_BODY_BYTES = 256;
+  private static final byte BODY_RAW = 0;
+  private static final byte BODY_DEFLATED = 1;
+
+  private final ProxyCaptureStoreProperties properties;
+  private final Path directory;
+
+  // All fields below are guarded by this
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+  private final List<IndexEntry> byTime = new ArrayList<>();
+  private final Map<String, List<IndexEntry>> byResource = new HashMap<>();
+  private long totalBytes;
+
+  public ProxyCaptureStore(
+      ProxyCaptureStoreProperties properties, DataDirectoryProperties dataDirectoryProperties) {
+    this.properties = properties;
+    this.directory =
+        properties.directory() != null && !properties.directory().isBlank()
+            ? Path.of(properties.directory())
+            : Path.of(dataDirectoryProperties.dataDirectory(), "proxy-capture");
+
+    if (properties.enabled() || properties.replay()) {
+      loadIndex();
+      log.info(
+          "Proxy capture store {} in {} with {} exchanges in {} segments ({} bytes)",
+          properties.replay() ? "replaying" : "enabled",
+          directory,
+          byTime.size(),
+          segments.size(),
+          totalBytes);
+    }
+  }
+
+  /** Whether captured exchanges are appended to this store. */
+  public boolean isEnabled() {
+    return properties.enabled() && !properties.replay();
+  }
+
+  /** Whether the proxy should answer from this store instead of the upstream hosts. */
+  public boolean isReplayEnabled() {
+    return properties.replay();
+  }
+
+  /**
+   * Appends a completed or failed exchange. Called from the capture writer thread.
+   *
+   * @param exchange the captured exchange
+   */
+  public void append(ProxyTrafficCapture.CapturedExchange exchange) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    URI uri;
+    try {
+      uri = URI.create(exchange.targetUrl);
+    } catch (IllegalArgumentException e) {
+      log.debug("Not storing exchange with unparsable target URL {}", exchange.targetUrl);
+      return;
+    }
+    String host = uri.getRawAuthority() != null ? uri.getRawAuthority() : "";
+    String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+    String query = uri.getRawQuery() != null ? uri.getRawQuery() : "";
+    int status = exchange.error == null ? exchange.status : 0;
+
+    byte[] record;
+    int metadataLength;
+    try {
+      ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream(128);
+      try (DataOutputStream out = new DataOutputStream(metadataBytes)) {
+        out.writeLong(exchange.startedAt);
+        out.writeLong(exchange.requestId);
+        writeString(out, exchange.method);
+        writeString(out, host);
+        writeString(out, path);
+        writeString(out, query);
+        out.writeInt(status);
+      }
+      metadataLength = metadataBytes.size();
+
+      ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(1024);
+      try (DataOutputStream out = new DataOutputStream(recordBytes)) {
+        out.writeInt(0); // record length, patched below
+        out.writeInt(0); // CRC32, patched below
+        out.writeInt(metadataLength);
+        metadataBytes.writeTo(out);
+        writeString(out, exchange.error != null ? exchange.error : "");
+        out.writeInt(exchange.requestHeaders.size() / 2);
+        for (String value : exchange.requestHeaders) {
+          writeString(out, value);
+        }
+        writeBody(
+            out,
+            exchange.requestBody != null
+                ? exchange.requestBody.getBytes(StandardCharsets.UTF_8)
+                : null);
+        HttpHeaders responseHeaders =
+            exchange.responseHeaders != null ? exchange.responseHeaders : new HttpHeaders();
+        List<Map.Entry<String, String>> flattened = new ArrayList<>();
+        responseHeaders.forEach(
+            (name, values) -> values.forEach(value -> flattened.add(Map.entry(name, value))));
+        out.writeInt(flattened.size());
+        for (Map.Entry<String, String> header : flattened) {
+          writeString(out, header.getKey());
+          writeString(out, header.getValue());
+        }
+        writeBody(out, exchange.responseBody);
+      }
+      record = recordBytes.toByteArray();
+    } catch (IOException e) {
+      log.warn("Failed to encode captured exchange {}", exchange.requestId, e);
+      return;
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(record);
+    buffer.putInt(0, record.length - 4);
+    CRC32 crc = new CRC32();
+    crc.update(record, 8, record.length - 8);
+    buffer.putInt(4, (int) crc.getValue());
+
+    synchronized (this) {
+      try {
+        Segment segment = writableSegment(record.length);
+        long position = segment.size;
+        while (buffer.hasRemaining()) {
+          segment.channel().write(buffer, position + buffer.position());
+        }
+        segment.size += record.length;
+        totalBytes += record.length;
+        addToIndex(
+            new IndexEntry(
+                Instant.ofEpochMilli(exchange.startedAt),
+                exchange.requestId,
+                exchange.method,
+                host,
+                path,
+                query,
+                status,
+                segment.id,
+                position,
+                record.length));
+        enforceSizeLimit();
+      } catch (IOException e) {
+        log.warn("Failed to append captured exchange {}", exchange.requestId, e);
+      }
+    }
+  }
+
+  /**
+   * Finds the exchanges captured for a host and path within a time range, oldest first.
+   *
+   * @param host the upstream host, including a non-default port (e.g. streaming.bose.com)
+   * @param path the request path without query string
+   * @param from start of the range (inclusive), or null for no lower bound
+   * @param to end of the range (exclusive), or null for no upper bound
+   * @return the matching index entries
+   */
+  public synchronized List<IndexEntry> find(String host, String path, Instant from, Instant to) {
+    List<IndexEntry> entries = byResource.getOrDefault(resourceKey(host, path), List.of());
+    return entries.stream().filter(entry -> inRange(entry.timestamp(), from, to)).toList();
+  }
+
+  /**
+   * Finds all exchanges captured within a time range, oldest first.
+   *
+   * @param from start of the range (inclusive), or null for no lower bound
+   * @param to end of the range (exclusive), or null for no upper bound
+   * @return the matching index entries
+   */
+  public synchronized List<IndexEntry> findBetween(Instant from, Instant to) {
+    int start = from != null ? lowerBound(from) : 0;
+    int end = to != null ? lowerBound(to) : byTime.size();
+    return start < end ? List.copyOf(byTime.subList(start, end)) : List.of();
+  }
+
+  /**
+   * Reads a captured exchange from its segment.
+   *
+   * @param entry an entry returned by one of the find methods
+   * @return the exchange, or empty if its segment has been deleted or the record is damaged
+   */
+  public Optional<StoredExchange> read(IndexEntry entry) {
+    FileChannel channel;
+    synchronized (this) {
+      Segment segment = segments.get(entry.segmentId());
+      if (segment == null) {
+        return Optional.empty();
+      }
+      try {
+        channel = segment.channel();
+      } catch (IOException e) {
+        log.warn("Failed to open capture segment {}", segment.file, e);
+        return Optional.empty();
+      }
+    }
+
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, entry.position() + buffer.position()) < 0) {
+          return Optional.empty();
+        }
+      }
+      buffer.flip();
+      if (!verify(buffer)) {
+        log.warn("Captured exchange at {}:{} is damaged", entry.segmentId(), entry.position());
+        return Optional.empty();
+      }
+      return Optional.of(decode(buffer, entry));
+    } catch (IOException | DataFormatException | RuntimeException e) {
+      log.warn("Failed to read captured exchange at {}:{}", entry.segmentId(), entry.position(), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Finds the most recent captured response for a request. Exchanges with the same method, path and
+   * query are preferred; otherwise the most recent exchange for the same method and path is used.
+   * Failed exchanges are never replayed.
+   *
+   * @param method the request method
+   * @param targetUrl the upstream URL the request would be forwarded to
+   * @return the captured exchange, or empty if nothing matching was captured
+   */
+  public Optional<StoredExchange> replay(HttpMethod method, String targetUrl) {
+    URI uri = URI.create(targetUrl);
+    String query = uri.getRawQuery() != null ? uri.getRawQuery() : "";
+    List<IndexEntry> candidates =
+        find(uri.getRawAuthority(), uri.getRawPath(), null, null).stream()
+            .filter(entry -> entry.status() > 0 && entry.method().equals(method.name()))
+            .toList();
+
+    IndexEntry best = null;
+    for (int i = candidates.size() - 1; i >= 0; i--) {
+      IndexEntry candidate = candidates.get(i);
+      if (candidate.query().equals(query)) {
+        best = candidate;
+        break;
+      }
+      if (best == null) {
+        best = candidate;
+      }
+    }
+    return best != null ? read(best) : Optional.empty();
+  }
+
+  @Override
+  public synchronized void destroy() {
+    segments.values().forEach(Segment::close);
+  }
+
+  private Segment writableSegment(int recordLength) throws IOException {
+    Segment last = segments.isEmpty() ? null : segments.lastEntry().getValue();
+    if (last != null
+        && (last.size + recordLength <= properties.segmentSizeBytes()
+            || last.size == SEGMENT_HEADER_BYTES)) {
+      return last;
+    }
+
+    long id = last != null ? last.id + 1 : 1;
+    Files.createDirectories(directory);
+    Segment segment =
+        new Segment(id, directory.resolve(SEGMENT_PREFIX + "%012d".formatted(id) + SEGMENT_SUFFIX));
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+    header.putInt(SEGMENT_MAGIC).putLong(id).flip();
+    segment.channel().write(header, 0);
+    segment.size = SEGMENT_HEADER_BYTES;
+    segments.put(id, segment);
+    totalBytes += SEGMENT_HEADER_BYTES;
+    log.debug("Started capture segment {}", segment.file);
+    return segment;
+  }
+
+  private void enforceSizeLimit() {
+    while (totalBytes > properties.maxSizeBytes() && segments.size() > 1) {
+      Segment oldest = segments.pollFirstEntry().getValue();
+      totalBytes -= oldest.size;
+      byTime.removeIf(entry -> entry.segmentId() == oldest.id);
+      byResource
+          .values()
+          .removeIf(
+              entries -> {
+                entries.removeIf(entry -> entry.segmentId() == oldest.id);
+                return entries.isEmpty();
+              });
+      oldest.close();
+      try {
+        Files.deleteIfExists(oldest.file);
+      } catch (IOException e) {
+        log.warn("Failed to delete capture segment {}", oldest.file, e);
+      }
+      log.info("Deleted capture segment {} ({} bytes)", oldest.file, oldest.size);
+    }
+  }
+
+  private void addToIndex(IndexEntry entry) {
+    // Exchanges complete out of order, so insert after the last entry that is not newer
+    int position = byTime.size();
+    while (position > 0 && byTime.get(position - 1).timestamp().isAfter(entry.timestamp())) {
+      position--;
+    }
+    byTime.add(position, entry);
+
+    List<IndexEntry> entries =
+        byResource.computeIfAbsent(
+            resourceKey(entry.host(), entry.path()), key -> new ArrayList<>());
+    position = entries.size();
+    while (position > 0 && entries.get(position - 1).timestamp().isAfter(entry.timestamp())) {
+      position--;
+    }
+    entries.add(position, entry);
+  }
+
+  private int lowerBound(Instant timestamp) {
+    int low = 0;
+    int high = byTime.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (byTime.get(middle).timestamp().isBefore(timestamp)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private synchronized void loadIndex() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files =
+          listing
+              .filter(
+                  file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                  })
+              .sorted(Comparator.comparing(Path::toString))
+              .toList();
+    } catch (IOException e) {
+      log.warn("Failed to list capture directory {}", directory, e);
+      return;
+    }
+
+    for (int i = 0; i < files.size(); i++) {
+      boolean newest = i == files.size() - 1;
+      try {
+        loadSegment(files.get(i), newest);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Ignoring unreadable capture segment {}", files.get(i), e);
+      }
+    }
+  }
+
+  private void loadSegment(Path file, boolean newest) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+      channel.read(header, 0);
+      header.flip();
+      if (header.remaining() < SEGMENT_HEADER_BYTES || header.getInt() != SEGMENT_MAGIC) {
+        throw new IOException("Not a capture segment");
+      }
+      Segment segment = new Segment(header.getLong(), file);
+      long fileSize = channel.size();
+      long position = SEGMENT_HEADER_BYTES;
+      ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+
+      while (position < fileSize) {
+        recordHeader.clear();
+        channel.read(recordHeader, position);
+        recordHeader.flip();
+        if (recordHeader.remaining() < RECORD_HEADER_BYTES) {
+          break;
+        }
+        int recordLength = recordHeader.getInt() + 4;
+        recordHeader.getInt(); // CRC32, only verified for the newest segment
+        int metadataLength = recordHeader.getInt();
+        if (recordLength < RECORD_HEADER_BYTES + metadataLength
+            || position + recordLength > fileSize) {
+          break;
+        }
+
+        // Only the newest segment can hold a torn write, so only its records are fully verified
+        ByteBuffer buffer =
+            ByteBuffer.allocate(newest ? recordLength : RECORD_HEADER_BYTES + metadataLength);
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, position + buffer.position()) < 0) {
+            throw new IOException("Unexpected end of segment");
+          }
+        }
+        buffer.flip();
+        if (newest && !verify(buffer)) {
+          break;
+        }
+        buffer.position(RECORD_HEADER_BYTES);
+        addToIndex(readIndexEntry(buffer, segment.id, position, recordLength));
+        position += recordLength;
+      }
+
+      if (position < fileSize) {
+        log.warn(
+            "Truncating capture segment {} from {} to {} bytes after a damaged record",
+            file,
+            fileSize,
+            position);
+        try (FileChannel writable = FileChannel.open(file, StandardOpenOption.WRITE)) {
+          writable.truncate(position);
+        }
+      }
+      segment.size = position;
+      segments.put(segment.id, segment);
+      totalBytes += position;
+    }
+  }
+
+  private static boolean verify(ByteBuffer record) {
+    CRC32 crc = new CRC32();
+    crc.update(record.slice(8, record.limit() - 8));
+    return record.getInt(4) == (int) crc.getValue();
+  }
+
+  private static IndexEntry readIndexEntry(
+      ByteBuffer buffer, long segmentId, long position, int length) {
+    long timestamp = buffer.getLong();
+    long requestId = buffer.getLong();
+    String method = readString(buffer);
+    String host = readString(buffer);
+    String path = readString(buffer);
+    String query = readString(buffer);
+    int status = buffer.getInt();
+    return new IndexEntry(
+        Instant.ofEpochMilli(timestamp),
+        requestId,
+        method,
+        host,
+        path,
+        query,
+        status,
+        segmentId,
+        position,
+        length);
+  }
+
+  private static StoredExchange decode(ByteBuffer buffer, IndexEntry entry)
+      throws DataFormatException {
+    buffer.position(RECORD_HEADER_BYTES);
+    readIndexEntry(buffer, entry.segmentId(), entry.position(), entry.length());
+    String error = readString(buffer);
+
+    HttpHeaders requestHeaders = new HttpHeaders();
+    int requestHeaderCount = buffer.getInt();
+    for (int i = 0; i < requestHeaderCount; i++) {
+      requestHeaders.add(readString(buffer), readString(buffer));
+    }
+    byte[] requestBody = readBody(buffer);
+
+    HttpHeaders responseHeaders = new HttpHeaders();
+    int responseHeaderCount = buffer.getInt();
+    for (int i = 0; i < responseHeaderCount; i++) {
+      responseHeaders.add(readString(buffer), readString(buffer));
+    }
+    byte[] responseBody = readBody(buffer);
+
+    return new StoredExchange(
+        entry,
+        error.isEmpty() ? null : error,
+        requestHeaders,
+        requestBody,
+        responseHeaders,
+        responseBody);
+  }
+
+  private static void writeBody(DataOutputStream out, byte[] body) throws IOException {
+    if (body == null || body.length == 0) {
+      out.writeByte(BODY_RAW);
+      out.writeInt(0);
+      return;
+    }
+
+    if (body.length >= MIN_COMPRESSED_BODY_BYTES) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(body);
+        deflater.finish();
+        byte[] compressed = new byte[body.length];
+        int compressedLength = deflater.deflate(compressed);
+        if (deflater.finished() && compressedLength < body.length) {
+          out.writeByte(BODY_DEFLATED);
+          out.writeInt(body.length);
+          out.writeInt(compressedLength);
+          out.write(compressed, 0, compressedLength);
+          return;
+        }
+      } finally {
+        deflater.end();
+      }
+    }
+
+    out.writeByte(BODY_RAW);
+    out.writeInt(body.length);
+    out.write(body);
+  }
+
+  private static byte[] readBody(ByteBuffer buffer) throws DataFormatException {
+    byte encoding = buffer.get();
+    byte[] body = new byte[buffer.getInt()];
+    if (encoding == BODY_RAW) {
+      buffer.get(body);
+      return body;
+    }
+
+    byte[] compressed = new byte[buffer.getInt()];
+    buffer.get(compressed);
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      int inflated = inflater.inflate(body);
+      if (inflated != body.length) {
+        throw new DataFormatException("Inflated " + inflated + " of " + body.length + " bytes");
+      }
+    } finally {
+      inflater.end();
+    }
+    return body;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String resourceKey(String host, String path) {
+    return host + path;
+  }
+
+  private static boolean inRange(Instant timestamp, Instant from, Instant to) {
+    return (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to));
+  }
+
+  /** Location and metadata of a captured exchange. A status of 0 marks a failed exchange. */
+  public record IndexEntry(
+      Instant timestamp,
+      long requestId,
+      String method,
+      String host,
+      String path,
+      String query,
+      int status,
+      long segmentId,
+      long position,
+      int length) {}
+
+  /** A captured exchange read back from the store. */
+  public record StoredExchange(
+      IndexEntry entry,
+      String error,
+      HttpHeaders requestHeaders,
+      byte[] requestBody,
+      HttpHeaders responseHeaders,
+      byte[] responseBody) {}
+
+  private static final class Segment {
+    private final long id;
+    private final Path file;
+    private long size;
+    private FileChannel channel;
+
+    private Segment(long id, Path file) {
+      this.id = id;
+      this.file = file;
+    }
+
+    private FileChannel channel() throws IOException {
+      if (channel == null) {
+        channel =
+            FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      return channel;
+    }
+
+    private void close() {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          log.debug("Failed to close capture segment {}", file, e);
+        }
+        channel = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the binary store of captured proxy traffic.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * proxy.capture-store.enabled=true
+ * proxy.capture-store.directory=/data/proxy-capture
+ * proxy.capture-store.max-size-bytes=10737418240
+ * proxy.capture-store.replay=false
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "proxy.capture-store")
+public record ProxyCaptureStoreProperties(
+    /** Whether captured exchanges are appended to the store. Defaults to false. */
+    @DefaultValue("false") boolean enabled,
+
+    /** Directory holding the segment files. Example: /data/proxy-capture */
+    String directory,
+
+    /** Size at which the current segment is closed and a new one is started. Defaults to 64 MB. */
+    @DefaultValue("67108864") long segmentSizeBytes,
+
+    /**
+     * Upper bound for the summed size of all segments. The oldest segments are deleted once the
+     * bound is exceeded. Defaults to 10 GB.
+     */
+    @DefaultValue("10737418240") long maxSizeBytes,
+
+    /**
+     * Whether the proxy answers from the store instead of contacting the upstream hosts. Useful for
+     * offline integration and load tests. Defaults to false.
+     */
+    @DefaultValue("false") boolean replay) {}
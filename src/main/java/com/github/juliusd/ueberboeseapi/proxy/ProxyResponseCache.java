@@ -0,0 +1,607 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk-backed cache for upstream responses forwarded by the proxy, following the RFC 7234 freshness
+ * model for shared caches.
+ *
+ * <p>Entries are keyed by method, target URL and the request header values named in the response's
+ * Vary header. Every entry lives in its own memory-mapped file below the configured cache
+ * directory, so the cache survives restarts. The summed file size is bounded and the least recently
+ * used entries are evicted first. Besides fresh hits, stale entries are kept as last known good
+ * responses that can be served when the upstream fails (stale-if-error) or cannot be reached.
+ */
+@Component
+@Slf4j
+public class ProxyResponseCache {
+
+  private static final int FILE_MAGIC = 0x50524331; // "PRC1"
+  private static final String FILE_SUFFIX = ".cache";
+
+  /** Status codes that are cacheable by default (RFC 7231, section 6.1). */
+  private static final Set<Integer> CACHEABLE_STATUS_CODES =
+      Set.of(200, 203, 204, 300, 301, 404, 405, 410, 414, 501);
+
+  /** Response headers besides the hop-by-hop ones that must not be replayed from the cache. */
+  private static final Set<String> UNSTORED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  static {
+    UNSTORED_HEADERS.addAll(HopByHopHeaders.names());
+    Collections.addAll(UNSTORED_HEADERS, "Set-Cookie", "Age");
+  }
+
+  private final ProxyCacheProperties properties;
+  private final Path directory;
+
+  // Access-ordered, so iteration starts with the least recently used entry
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, List<String>> varyByResource = new HashMap<>();
+  private long totalBytes;
+
+  public ProxyResponseCache(
+      ProxyCacheProperties properties, DataDirectoryProperties dataDirectoryProperties) {
+    this.properties = properties;
+    this.directory =
+        properties.directory() != null && !properties.directory().isBlank()
+            ? Path.of(properties.directory())
+            : Path.of(dataDirectoryProperties.dataDirectory(), "proxy-cache");
+
+    if (properties.enabled()) {
+      loadIndex();
+      log.info(
+          "Proxy response cache enabled in {} with {} entries ({} bytes)",
+          directory,
+          entries.size(),
+          totalBytes);
+    }
+  }
+
+  /**
+   * Looks up a cached response matching the given request.
+   *
+   * @param method the HTTP method of the incoming request
+   * @param targetUrl the upstream URL the request would be forwarded to
+   * @param request the incoming request, used to resolve Vary headers and request directives
+   * @return the cached response, which may be fresh or only usable as a fallback
+   */
+  public Optional<CachedResponse> lookup(
+      HttpMethod method, String targetUrl, HttpServletRequest request) {
+    if (!properties.enabled() || !HttpMethod.GET.equals(method)) {
+      return Optional.empty();
+    }
+
+    String resourceKey = resourceKey(method, targetUrl);
+    Entry entry;
+    synchronized (this) {
+      List<String> varyHeaders = varyByResource.get(resourceKey);
+      if (varyHeaders == null) {
+        return Optional.empty();
+      }
+      entry = entries.get(cacheKey(resourceKey, varyHeaders, headerLookup(request)));
+    }
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    try {
+      StoredResponse stored = readFile(entry.file());
+      long now = Instant.now().toEpochMilli();
+      HttpHeaders headers = stored.headers();
+      headers.set(HttpHeaders.AGE, String.valueOf(Math.max(0, (now - entry.storedAt()) / 1000)));
+
+      boolean fresh = now < entry.freshUntil() && !requestDemandsRevalidation(request);
+      boolean usableOnError = now < entry.staleIfErrorUntil();
+      return Optional.of(
+          new CachedResponse(
+              HttpStatusCode.valueOf(stored.status()),
+              headers,
+              stored.body(),
+              fresh,
+              usableOnError,
+              usableOnError || properties.serveStaleWhenUnreachable()));
+    } catch (IOException e) {
+      log.warn("Failed to read cached response {}, dropping entry", entry.file(), e);
+      remove(entry);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores an upstream response if it is cacheable for a shared cache.
+   *
+   * @param method the HTTP method of the incoming request
+   * @param targetUrl the upstream URL the request was forwarded to
+   * @param request the incoming request
+   * @param statusCode the upstream response status
+   * @param responseHeaders the upstream response headers
+   * @param body the upstream response body
+   */
+  public void store(
+      HttpMethod method,
+      String targetUrl,
+      HttpServletRequest request,
+      HttpStatusCode statusCode,
+      HttpHeaders responseHeaders,
+      byte[] body) {
+    if (!properties.enabled()
+        || !HttpMethod.GET.equals(method)
+        || !CACHEABLE_STATUS_CODES.contains(statusCode.value())) {
+      return;
+    }
+
+    Map<String, String> responseDirectives =
+        parseCacheControl(responseHeaders.get(HttpHeaders.CACHE_CONTROL));
+    Map<String, String> requestDirectives =
+        parseCacheControl(headerValues(request, "Cache-Control"));
+    if (responseDirectives.containsKey("no-store")
+        || responseDirectives.containsKey("private")
+        || requestDirectives.containsKey("no-store")) {
+      return;
+    }
+    if (request.getHeader(HttpHeaders.AUTHORIZATION) != null
+        && !responseDirectives.containsKey("public")
+        && !responseDirectives.containsKey("s-maxage")
+        && !responseDirectives.containsKey("must-revalidate")) {
+      return;
+    }
+
+    List<String> varyHeaders = parseVary(responseHeaders.get(HttpHeaders.VARY));
+    if (varyHeaders.contains("*")) {
+      return;
+    }
+
+    long now = Instant.now().toEpochMilli();
+    long freshUntil = now + freshnessLifetimeMillis(responseDirectives, responseHeaders);
+    long staleIfErrorSeconds =
+        parseSeconds(responseDirectives.get("stale-if-error"), properties.staleIfErrorSeconds());
+    long staleIfErrorUntil = Math.max(freshUntil, now) + staleIfErrorSeconds * 1000;
+    if (staleIfErrorUntil <= now) {
+      // Neither fresh nor usable on error, so writing it would only cost disk I/O
+      return;
+    }
+
+    String resourceKey = resourceKey(method, targetUrl);
+    String key = cacheKey(resourceKey, varyHeaders, headerLookup(request));
+    Path file = directory.resolve(sha256(key) + FILE_SUFFIX);
+
+    HttpHeaders storedHeaders = new HttpHeaders();
+    responseHeaders.forEach(
+        (name, values) -> {
+          if (!UNSTORED_HEADERS.contains(name)) {
+            storedHeaders.addAll(name, values);
+          }
+        });
+
+    Path tempFile;
+    try {
+      tempFile =
+          writeTempFile(
+              new Metadata(key, resourceKey, varyHeaders, now, freshUntil, staleIfErrorUntil),
+              new StoredResponse(
+                  statusCode.value(), storedHeaders, body != null ? body : new byte[0]));
+    } catch (IOException e) {
+      log.warn("Failed to write cached response for {}", targetUrl, e);
+      return;
+    }
+
+    long size;
+    // Moving the file into place and indexing it under the same lock keeps a concurrent eviction
+    // or clear from deleting a file the index still points at
+    synchronized (this) {
+      try {
+        size = Files.size(tempFile);
+        Files.move(
+            tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Failed to write cached response for {}", targetUrl, e);
+        deleteQuietly(tempFile);
+        return;
+      }
+      varyByResource.put(resourceKey, varyHeaders);
+      Entry previous =
+          entries.put(
+              key, new Entry(key, resourceKey, file, size, now, freshUntil, staleIfErrorUntil));
+      if (previous != null) {
+        totalBytes -= previous.size();
+      }
+      totalBytes += size;
+      evictIfNeeded();
+    }
+    log.debug(
+        "Cached response for {} ({} bytes, fresh for {} ms)", targetUrl, size, freshUntil - now);
+  }
+
+  /** Removes all cached responses from memory and disk. */
+  public synchronized void clear() {
+    entries.values().forEach(entry -> deleteQuietly(entry.file()));
+    entries.clear();
+    varyByResource.clear();
+    totalBytes = 0;
+  }
+
+  private synchronized void remove(Entry entry) {
+    if (entries.remove(entry.key(), entry)) {
+      totalBytes -= entry.size();
+      deleteQuietly(entry.file());
+    }
+  }
+
+  private void evictIfNeeded() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (totalBytes > properties.maxSizeBytes() && iterator.hasNext()) {
+      Entry eldest = iterator.next();
+      iterator.remove();
+      totalBytes -= eldest.size();
+      deleteQuietly(eldest.file());
+      log.debug("Evicted cached response {} ({} bytes)", eldest.resourceKey(), eldest.size());
+    }
+  }
+
+  private void loadIndex() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+
+    List<Entry> loaded = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files
+          .filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX))
+          .forEach(
+              file -> {
+                try {
+                  Metadata metadata = readMetadata(file);
+                  synchronized (this) {
+                    varyByResource.put(metadata.resourceKey(), metadata.varyHeaders());
+                  }
+                  loaded.add(
+                      new Entry(
+                          metadata.key(),
+                          metadata.resourceKey(),
+                          file,
+                          Files.size(file),
+                          metadata.storedAt(),
+                          metadata.freshUntil(),
+                          metadata.staleIfErrorUntil()));
+                } catch (IOException | RuntimeException e) {
+                  log.warn("Ignoring unreadable proxy cache file {}", file, e);
+                  deleteQuietly(file);
+                }
+              });
+    } catch (IOException e) {
+      log.warn("Failed to list proxy cache directory {}", directory, e);
+      return;
+    }
+
+    // Approximate the previous LRU order by storage time
+    loaded.sort(Comparator.comparingLong(Entry::storedAt));
+    synchronized (this) {
+      for (Entry entry : loaded) {
+        entries.put(entry.key(), entry);
+        totalBytes += entry.size();
+      }
+      evictIfNeeded();
+    }
+  }
+
+  private Path writeTempFile(Metadata metadata, StoredResponse response) throws IOException {
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(512);
+    try (DataOutputStream out = new DataOutputStream(headerBytes)) {
+      out.writeInt(FILE_MAGIC);
+      out.writeLong(metadata.storedAt());
+      out.writeLong(metadata.freshUntil());
+      out.writeLong(metadata.staleIfErrorUntil());
+      writeString(out, metadata.key());
+      writeString(out, metadata.resourceKey());
+      out.writeInt(metadata.varyHeaders().size());
+      for (String varyHeader : metadata.varyHeaders()) {
+        writeString(out, varyHeader);
+      }
+      out.writeInt(response.status());
+      out.writeInt(response.headers().size());
+      for (Map.Entry<String, List<String>> header : response.headers().headerSet()) {
+        writeString(out, header.getKey());
+        out.writeInt(header.getValue().size());
+        for (String value : header.getValue()) {
+          writeString(out, value);
+        }
+      }
+      out.writeInt(response.body().length);
+    }
+
+    Files.createDirectories(directory);
+    Path tempFile = Files.createTempFile(directory, "entry", ".tmp");
+    long size = headerBytes.size() + (long) response.body().length;
+    try (FileChannel channel =
+        FileChannel.open(tempFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.put(headerBytes.toByteArray());
+      // Not forced to disk: the cache is rebuilt from upstream if entries get lost in a crash
+      buffer.put(response.body());
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(tempFile);
+      throw e;
+    }
+    return tempFile;
+  }
+
+  private static Metadata readMetadata(Path file) throws IOException {
+    return parseMetadata(map(file));
+  }
+
+  private static StoredResponse readFile(Path file) throws IOException {
+    ByteBuffer buffer = map(file);
+    parseMetadata(buffer);
+
+    int status = buffer.getInt();
+    HttpHeaders headers = new HttpHeaders();
+    int headerCount = buffer.getInt();
+    for (int i = 0; i < headerCount; i++) {
+      String name = readString(buffer);
+      int valueCount = buffer.getInt();
+      for (int j = 0; j < valueCount; j++) {
+        headers.add(name, readString(buffer));
+      }
+    }
+    byte[] body = new byte[buffer.getInt()];
+    buffer.get(body);
+    return new StoredResponse(status, headers, body);
+  }
+
+  private static ByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static Metadata parseMetadata(ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != FILE_MAGIC) {
+      throw new IOException("Not a proxy cache file");
+    }
+    long storedAt = buffer.getLong();
+    long freshUntil = buffer.getLong();
+    long staleIfErrorUntil = buffer.getLong();
+    String key = readString(buffer);
+    String resourceKey = readString(buffer);
+    int varyCount = buffer.getInt();
+    List<String> varyHeaders = new ArrayList<>(varyCount);
+    for (int i = 0; i < varyCount; i++) {
+      varyHeaders.add(readString(buffer));
+    }
+    return new Metadata(key, resourceKey, varyHeaders, storedAt, freshUntil, staleIfErrorUntil);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long freshnessLifetimeMillis(
+      Map<String, String> directives, HttpHeaders responseHeaders) {
+    if (directives.containsKey("no-cache")) {
+      return 0;
+    }
+    if (directives.containsKey("s-maxage")) {
+      return parseSeconds(directives.get("s-maxage"), 0) * 1000;
+    }
+    if (directives.containsKey("max-age")) {
+      return parseSeconds(directives.get("max-age"), 0) * 1000;
+    }
+
+    String expires = responseHeaders.getFirst(HttpHeaders.EXPIRES);
+    if (expires != null) {
+      Instant expiresAt = parseHttpDate(expires);
+      if (expiresAt == null) {
+        // An invalid Expires value means "already expired"
+        return 0;
+      }
+      String date = responseHeaders.getFirst(HttpHeaders.DATE);
+      Instant dateValue = date != null ? parseHttpDate(date) : null;
+      Instant base = dateValue != null ? dateValue : Instant.now();
+      return Math.max(0, expiresAt.toEpochMilli() - base.toEpochMilli());
+    }
+
+    // No heuristic freshness: such responses are only kept as last known good
+    return 0;
+  }
+
+  private static boolean requestDemandsRevalidation(HttpServletRequest request) {
+    Map<String, String> directives = parseCacheControl(headerValues(request, "Cache-Control"));
+    if (directives.containsKey("no-cache")) {
+      return true;
+    }
+    if (directives.containsKey("max-age") && parseSeconds(directives.get("max-age"), 0) == 0) {
+      return true;
+    }
+    return "no-cache".equalsIgnoreCase(request.getHeader("Pragma"));
+  }
+
+  private static Map<String, String> parseCacheControl(List<String> headerValues) {
+    if (headerValues == null || headerValues.isEmpty()) {
+      return Map.of();
+    }
+    Map<String, String> directives = new HashMap<>();
+    for (String headerValue : headerValues) {
+      for (String directive : headerValue.split(",")) {
+        String trimmed = directive.trim();
+        if (trimmed.isEmpty()) {
+          continue;
+        }
+        int equals = trimmed.indexOf('=');
+        if (equals < 0) {
+          directives.put(trimmed.toLowerCase(Locale.ROOT), null);
+        } else {
+          directives.put(
+              trimmed.substring(0, equals).trim().toLowerCase(Locale.ROOT),
+              trimmed.substring(equals + 1).trim().replace("\"", ""));
+        }
+      }
+    }
+    return directives;
+  }
+
+  private static List<String> parseVary(List<String> headerValues) {
+    if (headerValues == null || headerValues.isEmpty()) {
+      return List.of();
+    }
+    TreeSet<String> names = new TreeSet<>();
+    for (String headerValue : headerValues) {
+      for (String name : headerValue.split(",")) {
+        if (!name.isBlank()) {
+          names.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+    return List.copyOf(names);
+  }
+
+  private static long parseSeconds(String value, long defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Math.max(0, Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  private static Instant parseHttpDate(String value) {
+    try {
+      return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static String resourceKey(HttpMethod method, String targetUrl) {
+    return method.name() + " " + targetUrl;
+  }
+
+  private static String cacheKey(
+      String resourceKey, List<String> varyHeaders, Function<String, String> requestHeaders) {
+    if (varyHeaders.isEmpty()) {
+      return resourceKey;
+    }
+    StringBuilder key = new StringBuilder(resourceKey);
+    for (String varyHeader : varyHeaders) {
+      String value = requestHeaders.apply(varyHeader);
+      key.append('\n').append(varyHeader).append('=').append(value != null ? value : "");
+    }
+    return key.toString();
+  }
+
+  private static Function<String, String> headerLookup(HttpServletRequest request) {
+    return name -> {
+      List<String> values = headerValues(request, name);
+      return values != null ? String.join(",", values) : null;
+    };
+  }
+
+  private static List<String> headerValues(HttpServletRequest request, String name) {
+    var values = request.getHeaders(name);
+    if (values == null || !values.hasMoreElements()) {
+      return null;
+    }
+    return Collections.list(values);
+  }
+
+  private static String sha256(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Failed to delete proxy cache file {}", file, e);
+    }
+  }
+
+  /**
+   * A response served from the cache.
+   *
+   * @param statusCode the cached status code
+   * @param headers the cached headers, including a computed Age header
+   * @param body the cached body
+   * @param fresh whether the response may be served without contacting the upstream
+   * @param usableOnError whether the response may replace an upstream 5xx answer
+   * @param usableWhenUnreachable whether the response may be served if the upstream is unreachable
+   */
+  public record CachedResponse(
+      HttpStatusCode statusCode,
+      HttpHeaders headers,
+      byte[] body,
+      boolean fresh,
+      boolean usableOnError,
+      boolean usableWhenUnreachable) {}
+
+  private record Entry(
+      String key,
+      String resourceKey,
+      Path file,
+      long size,
+      long storedAt,
+      long freshUntil,
+      long staleIfErrorUntil) {}
+
+  private record Metadata(
+      String key,
+      String resourceKey,
+      List<String> varyHeaders,
+      long storedAt,
+      long freshUntil,
+      long staleIfErrorUntil) {}
+
+  private record StoredResponse(int status, HttpHeaders headers, byte[] body) {}
+}
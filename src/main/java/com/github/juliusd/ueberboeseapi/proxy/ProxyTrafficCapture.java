@@ -0,0 +1,290 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.github.juliusd.ueberboeseapi.concurrent.BatchingWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Captures proxied requests and responses for research and writes them to proxy-requests.log and,
+ * if enabled, to the {@link ProxyCaptureStore}.
+ *
+ * <p>Nothing is built for an exchange unless capturing is enabled, the traffic logger or the store
+ * is enabled and the exchange is sampled. Captured exchanges are handed to a {@link BatchingWriter}
+ * and formatted and written on its background thread, so request threads never wait on the rolling
+ * file appender or the store. Exchanges arriving while the queue is full are dropped and counted.
+ */
+@Component
+@Slf4j
+public class ProxyTrafficCapture implements DisposableBean {
+
+  static final Logger TRAFFIC_LOG = getLogger("com.github.juliusd.ueberboeseapi.ProxyTraffic");
+
+  private static final int WRITE_BATCH_SIZE = 64;
+
+  private final ProxyCaptureProperties properties;
+  private final ProxyCaptureStore captureStore;
+  private final BatchingWriter<CapturedExchange> writer;
+  private final Counter writtenCounter;
+  private final Counter droppedCounter;
+  private final Counter sampledOutCounter;
+
+  public ProxyTrafficCapture(
+      ProxyCaptureProperties properties,
+      ProxyCaptureStore captureStore,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.captureStore = captureStore;
+    this.writer =
+        new BatchingWriter<>(
+            "proxy-capture-writer", properties.queueCapacity(), WRITE_BATCH_SIZE, this::write);
+    this.writtenCounter = meterRegistry.counter("proxy.capture.written");
+    this.droppedCounter = meterRegistry.counter("proxy.capture.dropped");
+    this.sampledOutCounter = meterRegistry.counter("proxy.capture.sampled.out");
+    Gauge.builder("proxy.capture.queue.size", writer, BatchingWriter::size).register(meterRegistry);
+
+    if (properties.enabled()) {
+      writer.start();
+    }
+  }
+
+  /**
+   * Starts capturing an exchange. Returns null if the exchange is not captured, in which case
+   * nothing has been copied from the request.
+   *
+   * @param requestId the proxy request id
+   * @param request the incoming request
+   * @param method the forwarded method
+   * @param targetUrl the upstream URL
+   * @param requestBody the forwarded request body
+   * @return the captured exchange, or null if it is not captured
+   */
+  public CapturedExchange begin(
+      long requestId,
+      HttpServletRequest request,
+      HttpMethod method,
+      String targetUrl,
+      String requestBody) {
+    if (!properties.enabled() || !(TRAFFIC_LOG.isInfoEnabled() || captureStore.isEnabled())) {
+      return null;
+    }
+    if (properties.sampleRate() < 1.0
+        && ThreadLocalRandom.current().nextDouble() >= properties.sampleRate()) {
+      sampledOutCounter.increment();
+      return null;
+    }
+
+    // The servlet request is recycled after the response, so copy what the writer needs now
+    List<String> headers = new ArrayList<>();
+    var headerNames = request.getHeaderNames();
+    while (headerNames.hasMoreElements()) {
+      String name = headerNames.nextElement();
+      var values = request.getHeaders(name);
+      while (values.hasMoreElements()) {
+        headers.add(name);
+        headers.add(values.nextElement());
+      }
+    }
+
+    return new CapturedExchange(
+        System.currentTimeMillis(),
+        requestId,
+        method.name(),
+        request.getRequestURL().toString(),
+        targetUrl,
+        request.getContentType(),
+        request.getContentLength(),
+        headers,
+        requestBody);
+  }
+
+  /**
+   * Completes a captured exchange with the upstream response and queues it for writing.
+   *
+   * @param exchange the exchange returned by {@link #begin}, may be null
+   * @param statusCode the response status
+   * @param responseHeaders the response headers
+   * @param responseBody the response body
+   */
+  public void complete(
+      CapturedExchange exchange,
+      HttpStatusCode statusCode,
+      HttpHeaders responseHeaders,
+      byte[] responseBody) {
+    if (exchange == null) {
+      return;
+    }
+    exchange.status = statusCode.value();
+    exchange.responseHeaders = responseHeaders;
+    // Bodies are not copied here; the log truncates them on the writer thread
+    exchange.responseBody = responseBody;
+    enqueue(exchange);
+  }
+
+  /**
+   * Completes a captured exchange that did not produce an upstream response.
+   *
+   * @param exchange the exchange returned by {@link #begin}, may be null
+   * @param error short description of the failure
+   */
+  public void fail(CapturedExchange exchange, String error) {
+    if (exchange == null) {
+      return;
+    }
+    exchange.error = error;
+    enqueue(exchange);
+  }
+
+  public long getDroppedCount() {
+    return (long) droppedCounter.count();
+  }
+
+  public long getWrittenCount() {
+    return (long) writtenCounter.count();
+  }
+
+  private void enqueue(CapturedExchange exchange) {
+    if (!writer.offer(exchange)) {
+      droppedCounter.increment();
+      long dropped = getDroppedCount();
+      if (dropped == 1 || dropped % 1000 == 0) {
+        log.warn("Proxy capture queue is full, {} exchange(s) dropped so far", dropped);
+      }
+    }
+  }
+
+  private void write(List<CapturedExchange> batch) {
+    for (CapturedExchange exchange : batch) {
+      try {
+        if (TRAFFIC_LOG.isInfoEnabled()) {
+          TRAFFIC_LOG.info(format(exchange, properties.maxBodyBytes()));
+        }
+        captureStore.append(exchange);
+        writtenCounter.increment();
+      } catch (RuntimeException e) {
+        log.warn("Failed to write captured exchange {}", exchange.requestId, e);
+      }
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    writer.close(Duration.ofSeconds(5));
+  }
+
+  static String format(CapturedExchange exchange, int maxBodyBytes) {
+    StringBuilder out = new StringBuilder(512);
+    out.append("\n=== PROXY REQUEST START ===");
+    out.append("\n  requestId: ").append(exchange.requestId);
+    out.append("\n  Original URL: ").append(exchange.originalUrl);
+    out.append("\n  Target URL: ").append(exchange.targetUrl);
+    out.append("\n  Method: ").append(exchange.method);
+    if (exchange.contentType != null) {
+      out.append("\n  Content-Type: ").append(exchange.contentType);
+    }
+    if (exchange.contentLength != -1) {
+      out.append("\n  Content-Length: ").append(exchange.contentLength);
+    }
+    out.append("\n  Request Headers:");
+    for (int i = 0; i < exchange.requestHeaders.size(); i += 2) {
+      out.append("\n    ")
+          .append(exchange.requestHeaders.get(i))
+          .append(": ")
+          .append(exchange.requestHeaders.get(i + 1));
+    }
+    if (exchange.requestBody != null && !exchange.requestBody.isEmpty()) {
+      out.append("\n  Request Body: ");
+      appendBody(out, exchange.requestBody.getBytes(StandardCharsets.UTF_8), maxBodyBytes);
+    }
+
+    if (exchange.error != null) {
+      out.append("\n=== PROXY ERROR ===");
+      out.append("\n  ").append(exchange.error);
+    } else {
+      out.append("\n=== PROXY RESPONSE ===");
+      out.append("\n  Status: ").append(exchange.status);
+      out.append("\n  Response Headers:");
+      if (exchange.responseHeaders != null) {
+        exchange.responseHeaders.forEach(
+            (name, values) ->
+                out.append("\n    ").append(name).append(": ").append(String.join(", ", values)));
+      }
+      if (exchange.responseBody != null) {
+        out.append("\n  Response Body: ");
+        appendBody(out, exchange.responseBody, maxBodyBytes);
+      }
+    }
+    out.append("\n=== PROXY REQUEST END ===");
+    return out.toString();
+  }
+
+  /** Appends at most {@code maxBodyBytes} bytes of a UTF-8 body without splitting a character. */
+  private static void appendBody(StringBuilder out, byte[] body, int maxBodyBytes) {
+    if (body.length <= maxBodyBytes) {
+      out.append(new String(body, StandardCharsets.UTF_8));
+      return;
+    }
+    int length = Math.max(maxBodyBytes, 0);
+    // Continuation bytes look like 10xxxxxx; cut before the character they belong to
+    while (length > 0 && (body[length] & 0xC0) == 0x80) {
+      length--;
+    }
+    out.append(new String(body, 0, length, StandardCharsets.UTF_8))
+        .append(" [truncated, ")
+        .append(body.length)
+        .append(" bytes in total]");
+  }
+
+  /** A proxied exchange captured for writing. Filled by the request thread, read by the writer. */
+  public static final class CapturedExchange {
+    final long startedAt;
+    final long requestId;
+    final String method;
+    final String originalUrl;
+    final String targetUrl;
+    final String contentType;
+    final int contentLength;
+    final List<String> requestHeaders;
+    final String requestBody;
+    int status;
+    HttpHeaders responseHeaders;
+    byte[] responseBody;
+    String error;
+
+    CapturedExchange(
+        long startedAt,
+        long requestId,
+        String method,
+        String originalUrl,
+        String targetUrl,
+        String contentType,
+        int contentLength,
+        List<String> requestHeaders,
+        String requestBody) {
+      this.startedAt = startedAt;
+      this.requestId = requestId;
+      this.method = method;
+      this.originalUrl = originalUrl;
+      this.targetUrl = targetUrl;
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.requestHeaders = requestHeaders;
+      this.requestBody = requestBody;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import com.github.juliusd.ueberboeseapi.concurrent.DropOldestBuffer;
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fans out newly stored device events to live subscribers.
+ *
+ * <p>Every subscriber gets its own bounded buffer that drops the oldest events when the subscriber
+ * falls behind, so publishing never waits for a slow consumer and never slows down ingestion.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EventBroadcaster implements DisposableBean {
+
+  private final EventStreamProperties properties;
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Registers a subscriber.
+   *
+   * @param deviceId only events of this device, or null for all devices
+   * @param type only events of this type, or null for all types
+   * @return the subscription, or null if the maximum number of subscribers is reached
+   */
+  public synchronized Subscription subscribe(String deviceId, String type) {
+    if (subscriptions.size() >= properties.maxSubscribers()) {
+      return null;
+    }
+    Subscription subscription = new Subscription(deviceId, type, properties.bufferSize());
+    subscriptions.add(subscription);
+    log.debug("Event stream subscriber added, {} active", subscriptions.size());
+    return subscription;
+  }
+
+  /**
+   * Hands events of a device to all matching subscribers. Never blocks.
+   *
+   * @param deviceId the device ID
+   * @param events the events in the order they were reported
+   */
+  public void publish(String deviceId, List<DeviceEventApiDto> events) {
+    if (subscriptions.isEmpty()) {
+      return;
+    }
+    for (DeviceEventApiDto event : events) {
+      LiveEvent liveEvent = null;
+      for (Subscription subscription : subscriptions) {
+        if (subscription.matches(deviceId, event.getType())) {
+          if (liveEvent == null) {
+            liveEvent = new LiveEvent(sequence.incrementAndGet(), deviceId, event);
+          }
+          subscription.buffer.offer(liveEvent);
+        }
+      }
+    }
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  /** Closes all subscriptions, which ends the open streams. */
+  @Override
+  public void destroy() {
+    subscriptions.forEach(Subscription::close);
+  }
+
+  private void remove(Subscription subscription) {
+    if (subscriptions.remove(subscription)) {
+      log.debug("Event stream subscriber removed, {} active", subscriptions.size());
+    }
+  }
+
+  /**
+   * An event as delivered to subscribers.
+   *
+   * @param id increasing id of the delivered event
+   * @param deviceId the device that reported the event
+   * @param event the event
+   */
+  public record LiveEvent(long id, String deviceId, DeviceEventApiDto event) {}
+
+  /** A live subscriber with its own buffer. */
+  public final class Subscription implements AutoCloseable {
+    private final String deviceId;
+    private final String type;
+    private final DropOldestBuffer<LiveEvent> buffer;
+
+    private Subscription(String deviceId, String type, int bufferSize) {
+      this.deviceId = deviceId;
+      this.type = type;
+      this.buffer = new DropOldestBuffer<>(bufferSize);
+    }
+
+    private boolean matches(String eventDeviceId, String eventType) {
+      return (deviceId == null || deviceId.equals(eventDeviceId))
+          && (type == null || type.equals(eventType));
+    }
+
+    public DropOldestBuffer<LiveEvent> buffer() {
+      return buffer;
+    }
+
+    @Override
+    public void close() {
+      buffer.close();
+      remove(this);
+    }
+  }
+}
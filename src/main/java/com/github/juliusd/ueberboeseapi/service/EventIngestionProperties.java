@@ -0,0 +1,35 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the asynchronous ingestion of device events.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.events.ingestion.queue-capacity=10000
+ * ueberboese.events.ingestion.batch-size=256
+ * ueberboese.events.ingestion.max-tracked-devices=1000
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.events.ingestion")
+public record EventIngestionProperties(
+    /**
+     * Maximum number of event submissions waiting to be stored. Further submissions are rejected
+     * with 429 Too Many Requests. Defaults to 10000.
+     */
+    @DefaultValue("10000") int queueCapacity,
+
+    /** Maximum number of submissions stored together in one batch. Defaults to 256. */
+    @DefaultValue("256") int batchSize,
+
+    /** Value of the Retry-After header sent with 429 responses, in seconds. Defaults to 1. */
+    @DefaultValue("1") int retryAfterSeconds,
+
+    /**
+     * Maximum number of devices whose ingestion statistics are kept. Beyond that the least recently
+     * active device is dropped. Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxTrackedDevices) {}
@@ -0,0 +1,217 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import com.github.juliusd.ueberboeseapi.concurrent.BatchingWriter;
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+/**
+ * Accepts device events on the request thread and stores them in batches on a background thread.
+ *
+ * <p>Submissions go to a bounded {@link BatchingWriter}, so accepting events takes constant time no
+ * matter how many events a device has stored. The writer thread hands all events of a device in a
+ * batch to the {@link EventStorageService} at once. When the queue is full the submission is
+ * rejected and the caller answers with 429 Too Many Requests.
+ *
+ * <p>Accepted events and rejected submissions are counted per device, together with the number of
+ * events received during the last minute, and reported by the management API's event statistics.
+ * Since the device ID comes from an unauthenticated path, only a bounded number of devices is
+ * tracked; beyond that the least recently active device is dropped.
+ */
+@Service
+@Slf4j
+public class EventIngestionService implements DisposableBean {
+
+  private static final long RATE_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final EventIngestionProperties properties;
+  private final EventStorageService eventStorageService;
+  private final BatchingWriter<Submission> writer;
+  private final Map<String, DeviceRate> ratesByDevice = new ConcurrentHashMap<>();
+  private final Counter acceptedCounter;
+  private final Counter rejectedCounter;
+
+  public EventIngestionService(
+      EventIngestionProperties properties,
+      EventStorageService eventStorageService,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.eventStorageService = eventStorageService;
+    this.writer =
+        new BatchingWriter<>(
+            "event-ingestion-writer",
+            properties.queueCapacity(),
+            properties.batchSize(),
+            this::store);
+    this.acceptedCounter = meterRegistry.counter("events.ingestion.accepted");
+    this.rejectedCounter = meterRegistry.counter("events.ingestion.rejected");
+    Gauge.builder("events.ingestion.queue.size", writer, BatchingWriter::size)
+        .register(meterRegistry);
+
+    writer.start();
+  }
+
+  /**
+   * Queues the events of a device for storage.
+   *
+   * @param deviceId the device ID
+   * @param events the events in the order they were reported
+   * @return true if the events were accepted, false if the queue is full
+   */
+  public boolean submit(String deviceId, List<DeviceEventApiDto> events) {
+    long now = System.currentTimeMillis();
+    DeviceRate rate = rateOf(deviceId, now);
+    if (!writer.offer(new Submission(deviceId, events))) {
+      rate.rejected.increment();
+      rejectedCounter.increment();
+      long rejected = (long) rejectedCounter.count();
+      if (rejected == 1 || rejected % 1000 == 0) {
+        log.warn("Event ingestion queue is full, {} submission(s) rejected so far", rejected);
+      }
+      return false;
+    }
+    rate.record(events.size(), now);
+    acceptedCounter.increment(events.size());
+    return true;
+  }
+
+  /**
+   * Waits until all submissions accepted before this call have been stored.
+   *
+   * @param timeout maximum time to wait
+   * @return true if everything was stored within the timeout
+   */
+  public boolean flush(Duration timeout) {
+    return writer.flush(timeout);
+  }
+
+  /**
+   * Returns the ingestion statistics of a device.
+   *
+   * @param deviceId the device ID
+   * @return the statistics, all zero for unknown or no longer tracked devices
+   */
+  public DeviceIngestionStats getStats(String deviceId) {
+    DeviceRate rate = ratesByDevice.get(deviceId);
+    if (rate == null) {
+      return new DeviceIngestionStats(0, 0, 0);
+    }
+    return rate.toStats(System.currentTimeMillis());
+  }
+
+  public int getRetryAfterSeconds() {
+    return properties.retryAfterSeconds();
+  }
+
+  private DeviceRate rateOf(String deviceId, long now) {
+    DeviceRate rate = ratesByDevice.get(deviceId);
+    if (rate == null) {
+      // Only adding a device takes the lock, so known devices are counted without contention
+      synchronized (ratesByDevice) {
+        rate = ratesByDevice.computeIfAbsent(deviceId, k -> new DeviceRate());
+        while (ratesByDevice.size() > properties.maxTrackedDevices()) {
+          evictLeastRecentlyActive(deviceId);
+        }
+      }
+    }
+    rate.lastActiveAt = now;
+    return rate;
+  }
+
+  private void evictLeastRecentlyActive(String keptDeviceId) {
+    String eldest = null;
+    long eldestActiveAt = Long.MAX_VALUE;
+    for (Map.Entry<String, DeviceRate> entry : ratesByDevice.entrySet()) {
+      if (!entry.getKey().equals(keptDeviceId) && entry.getValue().lastActiveAt < eldestActiveAt) {
+        eldest = entry.getKey();
+        eldestActiveAt = entry.getValue().lastActiveAt;
+      }
+    }
+    if (eldest == null) {
+      return;
+    }
+    ratesByDevice.remove(eldest);
+    log.debug("Stopped tracking ingestion statistics of device {}", eldest);
+  }
+
+  private void store(List<Submission> batch) {
+    // Keeps the order of the events of each device
+    Map<String, List<DeviceEventApiDto>> eventsByDevice = new LinkedHashMap<>();
+    for (Submission submission : batch) {
+      eventsByDevice
+          .computeIfAbsent(submission.deviceId(), k -> new ArrayList<>())
+          .addAll(submission.events());
+    }
+    eventsByDevice.forEach(
+        (deviceId, events) -> {
+          try {
+            eventStorageService.storeEvents(deviceId, events);
+          } catch (RuntimeException e) {
+            log.warn("Failed to store {} event(s) of device {}", events.size(), deviceId, e);
+          }
+        });
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    writer.close(Duration.ofSeconds(5));
+  }
+
+  /**
+   * Ingestion statistics of a device.
+   *
+   * @param acceptedEvents number of events accepted since startup
+   * @param rejectedSubmissions number of submissions rejected because the queue was full
+   * @param eventsLastMinute number of events accepted during roughly the last minute
+   */
+  public record DeviceIngestionStats(
+      long acceptedEvents, long rejectedSubmissions, long eventsLastMinute) {}
+
+  private record Submission(String deviceId, List<DeviceEventApiDto> events) {}
+
+  /** Counts per device, with the recent rate estimated from two fixed one-minute windows. */
+  private static final class DeviceRate {
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long lastActiveAt = System.currentTimeMillis();
+    private long windowStart;
+    private long currentWindow;
+    private long previousWindow;
+
+    synchronized void record(int events, long now) {
+      accepted.add(events);
+      roll(now);
+      currentWindow += events;
+    }
+
+    synchronized DeviceIngestionStats toStats(long now) {
+      roll(now);
+      // Weight the previous window by the part of it that still lies within the last minute
+      double previousWeight = 1.0 - (double) (now - windowStart) / RATE_WINDOW_MILLIS;
+      long lastMinute = currentWindow + Math.round(previousWindow * previousWeight);
+      return new DeviceIngestionStats(accepted.sum(), rejected.sum(), lastMinute);
+    }
+
+    private void roll(long now) {
+      long elapsedWindows = (now - windowStart) / RATE_WINDOW_MILLIS;
+      if (elapsedWindows == 0) {
+        return;
+      }
+      previousWindow = elapsedWindows == 1 ? currentWindow : 0;
+      currentWindow = 0;
+      windowStart = now - (now - windowStart) % RATE_WINDOW_MILLIS;
+    }
+  }
+}
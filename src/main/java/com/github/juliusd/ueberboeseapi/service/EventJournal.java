@@ -0,0 +1,647 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Persistent, append-only journal of device events with one directory of memory-mapped segment
+ * files per device.
+ *
+ * <p>Each record holds its sequence number, the event time and the event as JSON. The length is
+ * written last, so a record only becomes visible once it is complete. Every segment keeps a sparse
+ * in-memory index (sequence, offset and the highest event time before that offset), which lets
+ * time-range and cursor queries start scanning close to the first matching record and read straight
+ * from the mapped segment instead of loading the journal into the heap.
+ *
+ * <p>Full segments are sealed: they are trimmed to their used size and remapped read-only. Sealed
+ * segments are deleted once all their events are older than the configured maximum age or the
+ * device exceeds its size bound, and the oldest segment is compacted when only part of it has
+ * expired.
+ *
+ * <p>Only {@code maxDevices} devices keep a journal; when a further device shows up the journal of
+ * the least recently active device is deleted and the listener registered with {@link #onEviction}
+ * is told. Journals idle for longer than {@code idleTimeout} are closed, so their segments can be
+ * unmapped, and reopened on the next access.
+ */
+@Component
+@Slf4j
+public class EventJournal {
+
+  private static final int SEGMENT_MAGIC = 0x45564a31; // "EVJ1"
+  // magic, reserved and the first sequence number
+  private static final int SEGMENT_HEADER_BYTES = 16;
+  private static final String SEGMENT_SUFFIX = ".evj";
+  // payload length, sequence number and event time
+  private static final int RECORD_HEADER_BYTES = 20;
+  private static final int INDEX_INTERVAL = 32;
+  private static final Pattern SAFE_DEVICE_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  private final EventJournalProperties properties;
+  private final JsonMapper jsonMapper;
+  private final Path directory;
+  private final Map<String, DeviceJournal> journals = new ConcurrentHashMap<>();
+  // Last activity of every device directory on disk, open or not; guarded by itself
+  private final Map<Path, Long> lastActiveByDirectory = new HashMap<>();
+  private long lastIdleCheck;
+  private volatile Consumer<String> evictionListener = deviceId -> {};
+
+  public EventJournal(
+      EventJournalProperties properties,
+      DataDirectoryProperties dataDirectoryProperties,
+      JsonMapper jsonMapper) {
+    this.properties = properties;
+    this.jsonMapper = jsonMapper;
+    this.directory =
+        properties.directory() != null && !properties.directory().isBlank()
+            ? Path.of(properties.directory())
+            : Path.of(dataDirectoryProperties.dataDirectory(), "event-journal");
+    loadDeviceDirectories();
+  }
+
+  /**
+   * Appends events of a device in the order given.
+   *
+   * @param deviceId the device ID
+   * @param events the events to append
+   */
+  public void append(String deviceId, List<DeviceEventApiDto> events) {
+    if (events == null || events.isEmpty()) {
+      return;
+    }
+    DeviceJournal journal = journal(deviceId, true);
+    long now = System.currentTimeMillis();
+    for (DeviceEventApiDto event : events) {
+      byte[] payload;
+      try {
+        payload = jsonMapper.writeValueAsBytes(event);
+      } catch (JacksonException e) {
+        log.warn("Failed to serialize event of device {}", deviceId, e);
+        continue;
+      }
+      long time = event.getTime() != null ? event.getTime().toInstant().toEpochMilli() : now;
+      try {
+        while (!journal.append(time, payload)) {
+          // Closed as idle or evicted in the meantime
+          journal = journal(deviceId, true);
+        }
+      } catch (IOException e) {
+        log.warn("Failed to append event of device {} to the journal", deviceId, e);
+      }
+    }
+  }
+
+  /**
+   * Reads events of a device.
+   *
+   * <p>Without time range and cursor the most recent {@code limit} events are returned. Otherwise
+   * events are returned oldest first, starting after the cursor.
+   *
+   * @param deviceId the device ID
+   * @param from only events at or after this time, or null
+   * @param to only events before this time, or null
+   * @param cursor the sequence number of the last event of the previous page, or null
+   * @param limit maximum number of events to return
+   * @return the page of events
+   */
+  public EventPage read(String deviceId, Instant from, Instant to, Long cursor, int limit) {
+    while (true) {
+      DeviceJournal journal = journal(deviceId, false);
+      if (journal == null) {
+        return new EventPage(List.of(), null);
+      }
+      EventPage page = journal.read(from, to, cursor, limit);
+      if (page != null) {
+        return page;
+      }
+    }
+  }
+
+  /**
+   * Registers the listener that is called with the device ID whenever the journal of a device is
+   * deleted to make room for another device. It is called while the journal is locked, so it must
+   * be quick and must not call back into the journal.
+   *
+   * @param listener the listener, replacing any previous one
+   */
+  public void onEviction(Consumer<String> listener) {
+    this.evictionListener = listener;
+  }
+
+  /** Deletes the journals of all devices. */
+  public void clear() {
+    synchronized (lastActiveByDirectory) {
+      journals.values().forEach(DeviceJournal::close);
+      journals.clear();
+      lastActiveByDirectory.clear();
+      deleteRecursively(directory);
+    }
+  }
+
+  /**
+   * Returns the open journal of a device, opening or creating it if needed.
+   *
+   * @param create whether to create a journal for a device that has none on disk
+   * @return the journal, or null if the device has none and {@code create} is false
+   */
+  private DeviceJournal journal(String deviceId, boolean create) {
+    long now = System.currentTimeMillis();
+    DeviceJournal journal = journals.get(deviceId);
+    if (journal != null && !journal.closed) {
+      journal.lastActiveAt = now;
+      return journal;
+    }
+    // Opening, creating and closing journals takes the lock, known devices are served without it
+    synchronized (lastActiveByDirectory) {
+      closeIdleJournals(now);
+      journal = journals.get(deviceId);
+      if (journal == null || journal.closed) {
+        Path deviceDirectory = deviceDirectory(deviceId);
+        if (!lastActiveByDirectory.containsKey(deviceDirectory)) {
+          if (!create) {
+            return null;
+          }
+          while (lastActiveByDirectory.size() >= Math.max(properties.maxDevices(), 1)) {
+            evictLeastRecentlyActive();
+          }
+        }
+        lastActiveByDirectory.put(deviceDirectory, now);
+        journal = new DeviceJournal(deviceId, deviceDirectory);
+        journals.put(deviceId, journal);
+      }
+      journal.lastActiveAt = now;
+      return journal;
+    }
+  }
+
+  private void closeIdleJournals(long now) {
+    long idleMillis = properties.idleTimeout().toMillis();
+    if (now - lastIdleCheck < Math.min(idleMillis, 60_000)) {
+      return;
+    }
+    lastIdleCheck = now;
+    for (DeviceJournal journal : journals.values()) {
+      if (now - journal.lastActiveAt >= idleMillis) {
+        lastActiveByDirectory.put(journal.directory, journal.lastActiveAt);
+        journals.remove(journal.deviceId, journal);
+        journal.close();
+        log.debug("Closed idle event journal of device {}", journal.deviceId);
+      }
+    }
+  }
+
+  private void evictLeastRecentlyActive() {
+    for (DeviceJournal journal : journals.values()) {
+      lastActiveByDirectory.put(journal.directory, journal.lastActiveAt);
+    }
+    Path eldest = null;
+    long eldestActiveAt = Long.MAX_VALUE;
+    for (Map.Entry<Path, Long> entry : lastActiveByDirectory.entrySet()) {
+      if (entry.getValue() < eldestActiveAt) {
+        eldest = entry.getKey();
+        eldestActiveAt = entry.getValue();
+      }
+    }
+    if (eldest == null) {
+      return;
+    }
+    lastActiveByDirectory.remove(eldest);
+    for (DeviceJournal journal : journals.values()) {
+      if (journal.directory.equals(eldest)) {
+        journals.remove(journal.deviceId, journal);
+        journal.close();
+      }
+    }
+    deleteRecursively(eldest);
+    log.debug("Deleted event journal {} of the least recently active device", eldest);
+    evictionListener.accept(deviceId(eldest));
+  }
+
+  private void loadDeviceDirectories() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (Stream<Path> listing = Files.list(directory)) {
+      for (Path deviceDirectory : listing.filter(Files::isDirectory).toList()) {
+        lastActiveByDirectory.put(
+            deviceDirectory, Files.getLastModifiedTime(deviceDirectory).toMillis());
+      }
+    } catch (IOException e) {
+      log.warn("Failed to list event journal {}", directory, e);
+    }
+  }
+
+  private void deleteRecursively(Path root) {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(root)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        if (!file.equals(directory)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Failed to delete event journal {}", root, e);
+    }
+  }
+
+  private Path deviceDirectory(String deviceId) {
+    // Device IDs come from the request path, so anything unusual is hex-encoded
+    String name =
+        SAFE_DEVICE_ID.matcher(deviceId).matches()
+            ? deviceId
+            : "x" + HexFormat.of().formatHex(deviceId.getBytes(StandardCharsets.UTF_8));
+    return directory.resolve(name);
+  }
+
+  private static String deviceId(Path deviceDirectory) {
+    // Reverses deviceDirectory: safe device IDs are used as they are, all others are hex-encoded
+    String name = deviceDirectory.getFileName().toString();
+    if (name.startsWith("x") && name.length() % 2 == 1) {
+      try {
+        String decoded =
+            new String(HexFormat.of().parseHex(name, 1, name.length()), StandardCharsets.UTF_8);
+        if (!SAFE_DEVICE_ID.matcher(decoded).matches()) {
+          return decoded;
+        }
+      } catch (IllegalArgumentException e) {
+        // Not hex, so a safe device ID that happens to start with x
+      }
+    }
+    return name;
+  }
+
+  private DeviceEventApiDto decode(byte[] payload) {
+    return jsonMapper.readValue(payload, DeviceEventApiDto.class);
+  }
+
+  /**
+   * A page of events.
+   *
+   * @param events the events of this page
+   * @param nextCursor cursor for the next page, or null if there are no further events
+   */
+  public record EventPage(List<DeviceEventApiDto> events, Long nextCursor) {}
+
+  private record IndexPoint(long sequence, int offset, long maxTimeBefore) {}
+
+  private final class DeviceJournal {
+    private final String deviceId;
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private long nextSequence;
+    private volatile long lastActiveAt = System.currentTimeMillis();
+    private volatile boolean closed;
+
+    private DeviceJournal(String deviceId, Path directory) {
+      this.deviceId = deviceId;
+      this.directory = directory;
+      load();
+    }
+
+    /** Appends a record, or returns false if the journal has been closed. */
+    private synchronized boolean append(long time, byte[] payload) throws IOException {
+      if (closed) {
+        return false;
+      }
+      Segment current = segments.isEmpty() ? null : segments.getLast();
+      if (current == null || current.sealed || !current.tryAppend(nextSequence, time, payload)) {
+        if (current != null && !current.sealed) {
+          current.seal();
+        }
+        int size =
+            Math.max(
+                properties.segmentSizeBytes(),
+                SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES + payload.length);
+        current = Segment.create(directory, nextSequence, size);
+        segments.add(current);
+        current.tryAppend(nextSequence, time, payload);
+        enforceRetention();
+      }
+      nextSequence++;
+      return true;
+    }
+
+    /** Reads a page, or returns null if the journal has been closed. */
+    private synchronized EventPage read(Instant from, Instant to, Long cursor, int limit) {
+      if (closed) {
+        return null;
+      }
+      boolean latest = from == null && to == null && cursor == null;
+      long startSequence =
+          latest ? Math.max(0, nextSequence - limit) : cursor != null ? cursor + 1 : 0;
+      long fromMillis = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+      long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+
+      List<DeviceEventApiDto> events = new ArrayList<>(Math.min(limit, 256));
+      long lastReturned = -1;
+      for (Segment segment : segments) {
+        if (segment.count == 0
+            || segment.lastSequence < startSequence
+            || segment.maxTime < fromMillis
+            || segment.minTime >= toMillis) {
+          continue;
+        }
+
+        ByteBuffer buffer = segment.buffer;
+        int position = segment.startPosition(startSequence, fromMillis);
+        while (position < segment.writePosition) {
+          int length = buffer.getInt(position);
+          long sequence = buffer.getLong(position + 4);
+          long time = buffer.getLong(position + 12);
+          if (sequence >= startSequence && time >= fromMillis && time < toMillis) {
+            if (events.size() == limit) {
+              return new EventPage(events, lastReturned);
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_BYTES, payload);
+            try {
+              events.add(decode(payload));
+              lastReturned = sequence;
+            } catch (JacksonException e) {
+              log.warn("Skipping unreadable event {} of device {}", sequence, deviceId, e);
+            }
+          }
+          position += RECORD_HEADER_BYTES + length;
+        }
+      }
+      return new EventPage(events, null);
+    }
+
+    private void load() {
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+      List<Path> files;
+      try (Stream<Path> listing = Files.list(directory)) {
+        files =
+            listing
+                .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+      } catch (IOException e) {
+        log.warn("Failed to list event journal {}", directory, e);
+        return;
+      }
+
+      for (int i = 0; i < files.size(); i++) {
+        try {
+          Segment segment = Segment.open(files.get(i), i == files.size() - 1);
+          segments.add(segment);
+          if (segment.count > 0) {
+            nextSequence = segment.lastSequence + 1;
+          } else {
+            nextSequence = Math.max(nextSequence, segment.firstSequence);
+          }
+        } catch (IOException | RuntimeException e) {
+          log.warn("Ignoring unreadable event journal segment {}", files.get(i), e);
+        }
+      }
+      try {
+        enforceRetention();
+      } catch (IOException e) {
+        log.warn("Failed to apply retention to event journal {}", directory, e);
+      }
+      log.debug("Loaded event journal of device {} with {} segments", deviceId, segments.size());
+    }
+
+    private void enforceRetention() throws IOException {
+      long cutoff = System.currentTimeMillis() - properties.maxAge().toMillis();
+      while (segments.size() > 1
+          && segments.getFirst().sealed
+          && (segments.getFirst().maxTime < cutoff
+              || totalBytes() > properties.maxBytesPerDevice())) {
+        Segment oldest = segments.removeFirst();
+        Files.deleteIfExists(oldest.file);
+        log.debug("Deleted event journal segment {}", oldest.file);
+      }
+
+      Segment oldest = segments.isEmpty() ? null : segments.getFirst();
+      if (oldest != null && oldest.sealed && oldest.count > 0 && oldest.minTime < cutoff) {
+        segments.set(0, oldest.compact(directory, cutoff));
+      }
+    }
+
+    private long totalBytes() {
+      long total = 0;
+      for (Segment segment : segments) {
+        total += segment.sealed ? segment.writePosition : segment.buffer.capacity();
+      }
+      return total;
+    }
+
+    /** Drops the segments, so their mappings are released once they are garbage collected. */
+    private synchronized void close() {
+      closed = true;
+      segments.clear();
+    }
+  }
+
+  private static final class Segment {
+    private final Path file;
+    private final long firstSequence;
+    private final List<IndexPoint> index = new ArrayList<>();
+    private MappedByteBuffer buffer;
+    private int writePosition = SEGMENT_HEADER_BYTES;
+    private int count;
+    private long lastSequence;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private boolean sealed;
+
+    private Segment(Path file, long firstSequence, MappedByteBuffer buffer) {
+      this.file = file;
+      this.firstSequence = firstSequence;
+      this.buffer = buffer;
+      this.lastSequence = firstSequence - 1;
+    }
+
+    static Segment create(Path directory, long firstSequence, int size) throws IOException {
+      Files.createDirectories(directory);
+      Path file = directory.resolve(fileName(firstSequence));
+      MappedByteBuffer buffer;
+      try (FileChannel channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      }
+      buffer.putInt(0, SEGMENT_MAGIC);
+      buffer.putLong(8, firstSequence);
+      return new Segment(file, firstSequence, buffer);
+    }
+
+    static Segment open(Path file, boolean newest) throws IOException {
+      MappedByteBuffer buffer;
+      try (FileChannel channel =
+          newest
+              ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+              : FileChannel.open(file, StandardOpenOption.READ)) {
+        buffer =
+            channel.map(
+                newest ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size());
+      }
+      if (buffer.capacity() < SEGMENT_HEADER_BYTES || buffer.getInt(0) != SEGMENT_MAGIC) {
+        throw new IOException("Not an event journal segment");
+      }
+
+      Segment segment = new Segment(file, buffer.getLong(8), buffer);
+      int position = SEGMENT_HEADER_BYTES;
+      while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+          break;
+        }
+        long sequence = buffer.getLong(position + 4);
+        if (sequence <= segment.lastSequence) {
+          break;
+        }
+        segment.indexRecord(sequence, buffer.getLong(position + 12), position);
+        position += RECORD_HEADER_BYTES + length;
+      }
+      segment.writePosition = position;
+      // Only the newest segment keeps accepting events
+      segment.sealed = !newest || position == buffer.capacity();
+      return segment;
+    }
+
+    boolean tryAppend(long sequence, long time, byte[] payload) {
+      int recordBytes = RECORD_HEADER_BYTES + payload.length;
+      if (writePosition + recordBytes > buffer.capacity()) {
+        return false;
+      }
+      buffer.putLong(writePosition + 4, sequence);
+      buffer.putLong(writePosition + 12, time);
+      buffer.put(writePosition + RECORD_HEADER_BYTES, payload);
+      // The length is written last and marks the record as complete
+      buffer.putInt(writePosition, payload.length);
+      indexRecord(sequence, time, writePosition);
+      writePosition += recordBytes;
+      return true;
+    }
+
+    private void indexRecord(long sequence, long time, int position) {
+      if (count % INDEX_INTERVAL == 0) {
+        index.add(new IndexPoint(sequence, position, maxTime));
+      }
+      count++;
+      lastSequence = sequence;
+      minTime = Math.min(minTime, time);
+      maxTime = Math.max(maxTime, time);
+    }
+
+    /** Returns an offset before which no record can match the given sequence and time bounds. */
+    int startPosition(long startSequence, long fromMillis) {
+      int position = SEGMENT_HEADER_BYTES;
+      int low = 0;
+      int high = index.size() - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (index.get(middle).sequence() <= startSequence) {
+          position = Math.max(position, index.get(middle).offset());
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      low = 0;
+      high = index.size() - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (index.get(middle).maxTimeBefore() < fromMillis) {
+          position = Math.max(position, index.get(middle).offset());
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return position;
+    }
+
+    /** Trims the file to its used size and remaps it read-only. */
+    void seal() throws IOException {
+      buffer.force();
+      try (FileChannel channel =
+          FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        channel.truncate(writePosition);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+      }
+      sealed = true;
+    }
+
+    /** Rewrites this sealed segment without the events older than the cutoff. */
+    Segment compact(Path directory, long cutoff) throws IOException {
+      List<Integer> retained = new ArrayList<>();
+      int retainedBytes = SEGMENT_HEADER_BYTES;
+      int position = SEGMENT_HEADER_BYTES;
+      while (position < writePosition) {
+        int recordBytes = RECORD_HEADER_BYTES + buffer.getInt(position);
+        if (buffer.getLong(position + 12) >= cutoff) {
+          retained.add(position);
+          retainedBytes += recordBytes;
+        }
+        position += recordBytes;
+      }
+      if (retained.isEmpty() || retained.size() == count) {
+        return this;
+      }
+
+      long first = buffer.getLong(retained.getFirst() + 4);
+      Path tempFile = Files.createTempFile(directory, "compact", ".tmp");
+      Path target = directory.resolve(fileName(first));
+      MappedByteBuffer compacted;
+      try (FileChannel channel =
+          FileChannel.open(tempFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        compacted = channel.map(FileChannel.MapMode.READ_WRITE, 0, retainedBytes);
+        compacted.putInt(0, SEGMENT_MAGIC);
+        compacted.putLong(8, first);
+        int target0 = SEGMENT_HEADER_BYTES;
+        for (int offset : retained) {
+          int recordBytes = RECORD_HEADER_BYTES + buffer.getInt(offset);
+          compacted.put(target0, buffer, offset, recordBytes);
+          target0 += recordBytes;
+        }
+        compacted.force();
+      }
+      Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+      if (!target.equals(file)) {
+        Files.deleteIfExists(file);
+      }
+      log.debug(
+          "Compacted event journal segment {} from {} to {} events", file, count, retained.size());
+      return open(target, false);
+    }
+
+    private static String fileName(long firstSequence) {
+      return "%020d".formatted(firstSequence) + SEGMENT_SUFFIX;
+    }
+  }
+}
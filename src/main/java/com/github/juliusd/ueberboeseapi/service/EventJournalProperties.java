@@ -0,0 +1,49 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the persistent per-device event journal.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.events.journal.directory=/data/event-journal
+ * ueberboese.events.journal.max-bytes-per-device=67108864
+ * ueberboese.events.journal.max-age=30d
+ * ueberboese.events.journal.max-devices=1000
+ * ueberboese.events.journal.idle-timeout=10m
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.events.journal")
+public record EventJournalProperties(
+    /** Directory holding one sub directory of segment files per device. */
+    String directory,
+
+    /** Size of a memory-mapped segment file. Defaults to 1 MB. */
+    @DefaultValue("1048576") int segmentSizeBytes,
+
+    /**
+     * Upper bound for the summed segment size of one device. The oldest segments are deleted once
+     * the bound is exceeded. Defaults to 64 MB.
+     */
+    @DefaultValue("67108864") long maxBytesPerDevice,
+
+    /**
+     * How long events are kept, based on the event time reported by the device. Defaults to 30d.
+     */
+    @DefaultValue("30d") Duration maxAge,
+
+    /**
+     * Maximum number of devices with a journal. Device IDs come from an unauthenticated path, so
+     * beyond that the journal of the least recently active device is deleted. Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxDevices,
+
+    /**
+     * Journals that have been neither written nor read for this long are closed, which releases
+     * their memory-mapped segments. They are reopened on the next access. Defaults to 10m.
+     */
+    @DefaultValue("10m") Duration idleTimeout) {}
@@ -0,0 +1,28 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the per-device event statistics.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.events.statistics.max-tracked-devices=1000
+ * ueberboese.events.statistics.max-types-per-device=32
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.events.statistics")
+public record EventStatisticsProperties(
+    /**
+     * Maximum number of devices whose statistics are kept. Beyond that the least recently active
+     * device is dropped. Defaults to 1000.
+     */
+    @DefaultValue("1000") int maxTrackedDevices,
+
+    /**
+     * Maximum number of distinct event types kept per device. Events of further types are counted
+     * as type "other". Defaults to 32.
+     */
+    @DefaultValue("32") int maxTypesPerDevice) {}
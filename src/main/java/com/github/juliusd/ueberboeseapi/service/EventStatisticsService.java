@@ -0,0 +1,287 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains per-device aggregates of the received events, updated as events are stored.
+ *
+ * <p>For every device and event type the count, the time of the last event, the number of events
+ * per minute for the last hour and the deltas between the monotonic times of consecutive events are
+ * kept in primitive arrays indexed by event type, so reading the statistics never touches the raw
+ * events.
+ *
+ * <p>Device IDs and event types come from an unauthenticated endpoint, so only a bounded number of
+ * devices is tracked, dropping the least recently active device beyond that, and events of types
+ * beyond the per-device limit are counted as {@value #OTHER_TYPE}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EventStatisticsService {
+
+  /** Type under which events of types beyond {@code max-types-per-device} are counted. */
+  public static final String OTHER_TYPE = "other";
+
+  private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  // One bucket per minute of the last hour
+  private static final int BUCKETS = 60;
+
+  private final EventStatisticsProperties properties;
+  private final Map<String, DeviceAggregates> aggregatesByDevice = new ConcurrentHashMap<>();
+
+  /**
+   * Adds events of a device to its aggregates.
+   *
+   * @param deviceId the device ID
+   * @param events the events in the order they were reported
+   */
+  public void record(String deviceId, List<DeviceEventApiDto> events) {
+    record(deviceId, events, System.currentTimeMillis());
+  }
+
+  void record(String deviceId, List<DeviceEventApiDto> events, long now) {
+    aggregatesOf(deviceId, now).record(events, now);
+  }
+
+  /**
+   * Returns the statistics of a device.
+   *
+   * @param deviceId the device ID
+   * @return the statistics, without types for unknown devices
+   */
+  public DeviceEventStatistics getStatistics(String deviceId) {
+    return getStatistics(deviceId, System.currentTimeMillis());
+  }
+
+  DeviceEventStatistics getStatistics(String deviceId, long now) {
+    DeviceAggregates aggregates = aggregatesByDevice.get(deviceId);
+    if (aggregates == null) {
+      return new DeviceEventStatistics(deviceId, 0, List.of());
+    }
+    return aggregates.toStatistics(deviceId, now);
+  }
+
+  public void clear() {
+    aggregatesByDevice.clear();
+  }
+
+  private DeviceAggregates aggregatesOf(String deviceId, long now) {
+    DeviceAggregates aggregates = aggregatesByDevice.get(deviceId);
+    if (aggregates == null) {
+      // Only adding a device takes the lock, so known devices are recorded without contention
+      synchronized (aggregatesByDevice) {
+        aggregates =
+            aggregatesByDevice.computeIfAbsent(
+                deviceId, k -> new DeviceAggregates(properties.maxTypesPerDevice()));
+        while (aggregatesByDevice.size() > properties.maxTrackedDevices()) {
+          evictLeastRecentlyActive(deviceId);
+        }
+      }
+    }
+    aggregates.lastActiveAt = now;
+    return aggregates;
+  }
+
+  private void evictLeastRecentlyActive(String keptDeviceId) {
+    String eldest = null;
+    long eldestActiveAt = Long.MAX_VALUE;
+    for (Map.Entry<String, DeviceAggregates> entry : aggregatesByDevice.entrySet()) {
+      if (!entry.getKey().equals(keptDeviceId) && entry.getValue().lastActiveAt < eldestActiveAt) {
+        eldest = entry.getKey();
+        eldestActiveAt = entry.getValue().lastActiveAt;
+      }
+    }
+    if (eldest == null) {
+      return;
+    }
+    aggregatesByDevice.remove(eldest);
+    log.debug("Stopped tracking event statistics of device {}", eldest);
+  }
+
+  /**
+   * Aggregated statistics of a device.
+   *
+   * @param deviceId the device ID
+   * @param totalEvents number of events received since startup
+   * @param types statistics per event type, most frequent first
+   */
+  public record DeviceEventStatistics(
+      String deviceId, long totalEvents, List<EventTypeStatistics> types) {}
+
+  /**
+   * Aggregated statistics of one event type.
+   *
+   * @param type the event type
+   * @param count number of events received since startup
+   * @param lastSeen event time of the most recent event, or null if no event carried a time
+   * @param eventsLastMinute events received during the current minute
+   * @param eventsLast15Minutes events received during the current and the previous 14 minutes
+   * @param eventsLastHour events received during the current and the previous 59 minutes
+   * @param lastMonoTimeDelta monotonic time between the two most recent events, or null
+   * @param minMonoTimeDelta smallest monotonic time between consecutive events, or null
+   * @param maxMonoTimeDelta largest monotonic time between consecutive events, or null
+   * @param averageMonoTimeDelta average monotonic time between consecutive events, or null
+   */
+  public record EventTypeStatistics(
+      String type,
+      long count,
+      Instant lastSeen,
+      long eventsLastMinute,
+      long eventsLast15Minutes,
+      long eventsLastHour,
+      Long lastMonoTimeDelta,
+      Long minMonoTimeDelta,
+      Long maxMonoTimeDelta,
+      Double averageMonoTimeDelta) {}
+
+  /**
+   * Aggregates of one device. Each array holds one value per event type, {@code buckets} holds
+   * {@link #BUCKETS} per-minute counts per event type.
+   */
+  private static final class DeviceAggregates {
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final int maxTypes;
+    private final Map<String, Integer> typeIndex = new HashMap<>();
+    private final long[] bucketMinutes = new long[BUCKETS];
+    private String[] types = new String[8];
+    private long[] counts = new long[8];
+    private long[] lastSeen = filled(8);
+    private long[] lastMonoTime = filled(8);
+    private long[] lastDelta = filled(8);
+    private long[] minDelta = filled(8);
+    private long[] maxDelta = filled(8);
+    private long[] deltaSum = new long[8];
+    private long[] deltaCount = new long[8];
+    private long[] buckets = new long[8 * BUCKETS];
+    private long total;
+    private volatile long lastActiveAt;
+
+    private DeviceAggregates(int maxTypes) {
+      // Keep one type for "other"
+      this.maxTypes = Math.max(maxTypes, 2);
+      Arrays.fill(bucketMinutes, NONE);
+    }
+
+    synchronized void record(List<DeviceEventApiDto> events, long now) {
+      long minute = now / MINUTE_MILLIS;
+      int bucket = (int) (minute % BUCKETS);
+      if (bucketMinutes[bucket] != minute) {
+        // The bucket still holds counts of an hour ago
+        for (int type = 0; type < typeIndex.size(); type++) {
+          buckets[type * BUCKETS + bucket] = 0;
+        }
+        bucketMinutes[bucket] = minute;
+      }
+
+      for (DeviceEventApiDto event : events) {
+        int type = indexOf(event.getType() != null ? event.getType() : "unknown");
+        total++;
+        counts[type]++;
+        buckets[type * BUCKETS + bucket]++;
+        if (event.getTime() != null) {
+          lastSeen[type] = Math.max(lastSeen[type], event.getTime().toInstant().toEpochMilli());
+        }
+        if (event.getMonoTime() != null) {
+          long monoTime = event.getMonoTime();
+          long delta = monoTime - lastMonoTime[type];
+          // A decreasing monotonic time means the device restarted
+          if (lastMonoTime[type] != NONE && delta >= 0) {
+            lastDelta[type] = delta;
+            minDelta[type] = minDelta[type] == NONE ? delta : Math.min(minDelta[type], delta);
+            maxDelta[type] = Math.max(maxDelta[type], delta);
+            deltaSum[type] += delta;
+            deltaCount[type]++;
+          }
+          lastMonoTime[type] = monoTime;
+        }
+      }
+    }
+
+    synchronized DeviceEventStatistics toStatistics(String deviceId, long now) {
+      long minute = now / MINUTE_MILLIS;
+      List<EventTypeStatistics> result = new ArrayList<>(typeIndex.size());
+      for (int type = 0; type < typeIndex.size(); type++) {
+        result.add(
+            new EventTypeStatistics(
+                types[type],
+                counts[type],
+                lastSeen[type] == NONE ? null : Instant.ofEpochMilli(lastSeen[type]),
+                sumBuckets(type, minute, 1),
+                sumBuckets(type, minute, 15),
+                sumBuckets(type, minute, BUCKETS),
+                lastDelta[type] == NONE ? null : lastDelta[type],
+                minDelta[type] == NONE ? null : minDelta[type],
+                maxDelta[type] == NONE ? null : maxDelta[type],
+                deltaCount[type] == 0 ? null : (double) deltaSum[type] / deltaCount[type]));
+      }
+      result.sort(Comparator.comparingLong(EventTypeStatistics::count).reversed());
+      return new DeviceEventStatistics(deviceId, total, result);
+    }
+
+    private long sumBuckets(int type, long minute, int minutes) {
+      long sum = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        long bucketMinute = bucketMinutes[bucket];
+        if (bucketMinute != NONE && bucketMinute <= minute && bucketMinute > minute - minutes) {
+          sum += buckets[type * BUCKETS + bucket];
+        }
+      }
+      return sum;
+    }
+
+    private int indexOf(String type) {
+      Integer index = typeIndex.get(type);
+      if (index != null) {
+        return index;
+      }
+      if (typeIndex.size() >= maxTypes - 1 && !type.equals(OTHER_TYPE)) {
+        return indexOf(OTHER_TYPE);
+      }
+      int newIndex = typeIndex.size();
+      if (newIndex == types.length) {
+        grow(Math.min(types.length * 2, maxTypes));
+      }
+      types[newIndex] = type;
+      typeIndex.put(type, newIndex);
+      return newIndex;
+    }
+
+    private void grow(int capacity) {
+      types = Arrays.copyOf(types, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+      lastSeen = grownFilled(lastSeen, capacity);
+      lastMonoTime = grownFilled(lastMonoTime, capacity);
+      lastDelta = grownFilled(lastDelta, capacity);
+      minDelta = grownFilled(minDelta, capacity);
+      maxDelta = grownFilled(maxDelta, capacity);
+      deltaSum = Arrays.copyOf(deltaSum, capacity);
+      deltaCount = Arrays.copyOf(deltaCount, capacity);
+      buckets = Arrays.copyOf(buckets, capacity * BUCKETS);
+    }
+
+    private static long[] filled(int capacity) {
+      long[] array = new long[capacity];
+      Arrays.fill(array, NONE);
+      return array;
+    }
+
+    private static long[] grownFilled(long[] array, int capacity) {
+      long[] grown = Arrays.copyOf(array, capacity);
+      Arrays.fill(grown, array.length, capacity, NONE);
+      return grown;
+    }
+  }
+}
@@ -1,60 +1,150 @@
 package com.github.juliusd.ueberboeseapi.service;
 
+import com.github.juliusd.ueberboeseapi.concurrent.SnapshotRingBuffer;
 import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
-import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventsRequestApiDto;
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+/**
+ * Stores device events and serves them to the management API.
+ *
+ * <p>Every event goes to the persistent {@link EventJournal}. The most recent events of each device
+ * are also kept in a {@link SnapshotRingBuffer}, which is seeded from the journal the first time a
+ * device reports, so the default page without time range or cursor is answered from memory. Like
+ * the journal, only the {@code ueberboese.events.journal.max-devices} most recently active devices
+ * keep a buffer, and the buffer of a device is dropped together with its journal.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class EventStorageService {
 
+  /** Upper bound for the page size of {@link #findEvents}. */
+  public static final int MAX_PAGE_SIZE = 1000;
+
   private final EventsProperties properties;
+  private final EventJournalProperties journalProperties;
+  private final EventJournal eventJournal;
+  private final EventStatisticsService eventStatisticsService;
+  private final EventBroadcaster eventBroadcaster;
 
-  private final Map<String, List<DeviceEventApiDto>> eventsByDevice = new ConcurrentHashMap<>();
+  // One ring buffer per device: writes for a device are serialized, reads never block them
+  private final Map<String, RecentEvents> eventsByDevice = new ConcurrentHashMap<>();
 
-  public void storeEvent(String deviceId, DeviceEventsRequestApiDto event) {
-    List<DeviceEventApiDto> events =
-        eventsByDevice.computeIfAbsent(deviceId, k -> new ArrayList<>());
+  public EventStorageService(
+      EventsProperties properties,
+      EventJournalProperties journalProperties,
+      EventJournal eventJournal,
+      EventStatisticsService eventStatisticsService,
+      EventBroadcaster eventBroadcaster) {
+    this.properties = properties;
+    this.journalProperties = journalProperties;
+    this.eventJournal = eventJournal;
+    this.eventStatisticsService = eventStatisticsService;
+    this.eventBroadcaster = eventBroadcaster;
+    // Events of a deleted journal must not be served from memory either
+    eventJournal.onEviction(eventsByDevice::remove);
+  }
 
-    synchronized (events) {
-      events.addAll(event.getPayload().getEvents());
+  /**
+   * Stores events of a device. Called by the {@link EventIngestionService} with all events of a
+   * device in one batch.
+   *
+   * @param deviceId the device ID
+   * @param events the events in the order they were reported
+   */
+  public void storeEvents(String deviceId, List<DeviceEventApiDto> events) {
+    recentEvents(deviceId).addAll(events);
+    eventJournal.append(deviceId, events);
+    eventStatisticsService.record(deviceId, events);
+    eventBroadcaster.publish(deviceId, events);
+  }
 
-      while (events.size() > properties.maxEventsPerDevice()) {
-        events.removeFirst();
-      }
+  /**
+   * Reads events of a device, including events received before a restart.
+   *
+   * <p>Without time range and cursor the most recent events of a device that reported since startup
+   * are returned from memory, as long as the page fits into its ring buffer. All other queries go
+   * to the journal.
+   *
+   * @param deviceId the device ID
+   * @param from only events at or after this time, or null
+   * @param to only events before this time, or null
+   * @param cursor the cursor returned with the previous page, or null
+   * @param limit maximum number of events, or null for the configured number of events per device
+   * @return the page of events
+   */
+  public EventJournal.EventPage findEvents(
+      String deviceId, Instant from, Instant to, Long cursor, Integer limit) {
+    if (from != null && to != null && !from.isBefore(to)) {
+      throw new IllegalArgumentException("from must be before to");
     }
+    int pageSize =
+        Math.min(
+            limit != null ? Math.max(limit, 1) : properties.maxEventsPerDevice(), MAX_PAGE_SIZE);
+    var recentEvents = eventsByDevice.get(deviceId);
+    boolean latest = from == null && to == null && cursor == null;
+    if (latest && recentEvents != null && pageSize <= recentEvents.buffer.capacity()) {
+      List<DeviceEventApiDto> events = recentEvents.buffer.snapshot();
+      return new EventJournal.EventPage(
+          List.copyOf(events.subList(Math.max(0, events.size() - pageSize), events.size())), null);
+    }
+    return eventJournal.read(deviceId, from, to, cursor, pageSize);
   }
 
-  public List<DeviceEventApiDto> getEventsForDevice(String deviceId) {
-    var events = eventsByDevice.get(deviceId);
-    if (events == null) {
-      return new ArrayList<>();
-    }
+  public void clearAllEvents() {
+    eventsByDevice.clear();
+    eventJournal.clear();
+    eventStatisticsService.clear();
+  }
 
-    synchronized (events) {
-      return new ArrayList<>(events);
+  private SnapshotRingBuffer<DeviceEventApiDto> recentEvents(String deviceId) {
+    RecentEvents recentEvents = eventsByDevice.get(deviceId);
+    if (recentEvents == null) {
+      // Pick up the events received before a restart; the journal is read outside any lock
+      var seeded = new RecentEvents(properties.maxEventsPerDevice());
+      seeded.buffer.addAll(
+          eventJournal.read(deviceId, null, null, null, properties.maxEventsPerDevice()).events());
+      // Only adding a device takes the lock, so known devices are served without contention
+      synchronized (eventsByDevice) {
+        recentEvents = eventsByDevice.putIfAbsent(deviceId, seeded);
+        if (recentEvents == null) {
+          recentEvents = seeded;
+          while (eventsByDevice.size() > Math.max(journalProperties.maxDevices(), 1)) {
+            evictLeastRecentlyActive(deviceId);
+          }
+        }
+      }
     }
+    recentEvents.lastActiveAt = System.currentTimeMillis();
+    return recentEvents.buffer;
   }
 
-  public int getEventCount(String deviceId) {
-    var events = eventsByDevice.get(deviceId);
-    if (events == null) {
-      return 0;
+  private void evictLeastRecentlyActive(String keptDeviceId) {
+    String eldest = null;
+    long eldestActiveAt = Long.MAX_VALUE;
+    for (Map.Entry<String, RecentEvents> entry : eventsByDevice.entrySet()) {
+      if (!entry.getKey().equals(keptDeviceId) && entry.getValue().lastActiveAt < eldestActiveAt) {
+        eldest = entry.getKey();
+        eldestActiveAt = entry.getValue().lastActiveAt;
+      }
     }
-
-    synchronized (events) {
-      return events.size();
+    if (eldest == null) {
+      return;
     }
+    eventsByDevice.remove(eldest);
+    log.debug("Dropped the recent events of device {} from memory", eldest);
   }
 
-  public void clearAllEvents() {
-    eventsByDevice.clear();
+  private static final class RecentEvents {
+    private final SnapshotRingBuffer<DeviceEventApiDto> buffer;
+    private volatile long lastActiveAt = System.currentTimeMillis();
+
+    private RecentEvents(int capacity) {
+      this.buffer = new SnapshotRingBuffer<>(capacity);
+    }
   }
 }
@@ -0,0 +1,30 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the live stream of device events.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * ueberboese.events.stream.buffer-size=256
+ * ueberboese.events.stream.max-subscribers=16
+ * ueberboese.events.stream.heartbeat-interval=15s
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "ueberboese.events.stream")
+public record EventStreamProperties(
+    /**
+     * Number of events buffered per subscriber. A subscriber that falls further behind loses the
+     * oldest events. Defaults to 256.
+     */
+    @DefaultValue("256") int bufferSize,
+
+    /** Maximum number of concurrent subscribers. Defaults to 16. */
+    @DefaultValue("16") int maxSubscribers,
+
+    /** Interval of keep-alive comments sent while no events arrive. Defaults to 15s. */
+    @DefaultValue("15s") Duration heartbeatInterval) {}
@@ -5,6 +5,7 @@ import static java.util.stream.Collectors.toUnmodifiableSet;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.github.juliusd.ueberboeseapi.ProxyService;
 import com.github.juliusd.ueberboeseapi.SourceProvider;
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPrefetcher;
 import com.github.juliusd.ueberboeseapi.device.Device;
 import com.github.juliusd.ueberboeseapi.device.DeviceRepository;
 import com.github.juliusd.ueberboeseapi.generated.dtos.AttachedProductApiDto;
@@ -30,6 +31,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -58,6 +60,7 @@ public class FullAccountService {
   private final PresetService presetService;
   private final PresetMapper presetMapper;
   private final DeviceRepository deviceRepository;
+  private final TuneInPrefetcher tuneInPrefetcher;
 
   // Inject flag directly to control standalone behavior natively
   @Value("${proxy.enabled:true}")
@@ -158,6 +161,7 @@ public class FullAccountService {
     injectRecentsFromDatabase(response, accountId);
     injectPresetsFromDatabase(response, accountId);
     patch(response);
+    prefetchTuneInStations(response);
 
     // If the debug flag is enabled, isolate the list to a single matching device.
     // Otherwise, fallback to the original behavior of prioritizing the active device to the front.
@@ -383,6 +387,28 @@ public class FullAccountService {
     log.info("Injected presets from database into full account for accountId: {}", accountId);
   }
 
+  /** Warms the TuneIn cache for the stations the devices are likely to play next. */
+  private void prefetchTuneInStations(FullAccountResponseApiDto response) {
+    if (response.getDevices() == null || response.getDevices().getDevice() == null) {
+      return;
+    }
+
+    Set<String> locations = new HashSet<>();
+    for (var device : response.getDevices().getDevice()) {
+      if (device.getPresets() != null && device.getPresets().getPreset() != null) {
+        for (var preset : device.getPresets().getPreset()) {
+          locations.add(preset.getLocation());
+        }
+      }
+      if (device.getRecents() != null && device.getRecents().getRecent() != null) {
+        for (var recent : device.getRecents().getRecent()) {
+          locations.add(recent.getLocation());
+        }
+      }
+    }
+    tuneInPrefetcher.prefetchLocations(locations);
+  }
+
   private void injectSpotifySources(FullAccountResponseApiDto response) {
     if (response.getSources() == null) {
       response.setSources(new SourcesContainerApiDto());
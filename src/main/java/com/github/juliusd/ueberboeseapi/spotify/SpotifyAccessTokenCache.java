@@ -0,0 +1,139 @@
+package com.github.juliusd.ueberboeseapi.spotify;
+
+import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient;
+import com.github.juliusd.ueberboeseapi.spotify.dto.AuthorizationCodeCredentialsDto;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+
+/**
+ * Caches the access token of each Spotify account until shortly before it expires, so speakers and
+ * the management API share live tokens instead of refreshing one per call.
+ *
+ * <p>Concurrent lookups for the same account share one refresh. Every refresh stores the refresh
+ * token, rotated by Spotify or not, so it only happens on a cache miss. Failed refreshes are not
+ * cached.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SpotifyAccessTokenCache {
+
+  /** Lifetime assumed when Spotify does not say how long a token is valid. */
+  private static final Duration DEFAULT_EXPIRES_IN = Duration.ofHours(1);
+
+  private final SpotifyAuthProperties spotifyAuthProperties;
+  private final SpotifyTokenCacheProperties properties;
+  private final SpotifyAccountService spotifyAccountService;
+  private final SpotifyOAuthClient spotifyOAuthClient;
+
+  private final Map<String, TokenHolder> tokens = new ConcurrentHashMap<>();
+
+  /**
+   * Returns a valid access token of an account, refreshing it at Spotify if the cached one is
+   * missing or about to expire.
+   *
+   * @param account the Spotify account
+   * @return the credentials, with {@code expires_in} counting down from the refresh
+   */
+  public AuthorizationCodeCredentialsDto getCredentials(SpotifyAccount account) {
+    if (!properties.enabled()) {
+      return refresh(account).credentials();
+    }
+    TokenHolder holder = tokens.computeIfAbsent(account.spotifyUserId(), id -> new TokenHolder());
+    CachedToken cached = holder.token;
+    if (isUsable(cached)) {
+      return cached.remaining();
+    }
+    holder.lock.lock();
+    try {
+      // Another caller may have refreshed the token while this one waited
+      cached = holder.token;
+      if (isUsable(cached)) {
+        return cached.remaining();
+      }
+      CachedToken refreshed = refresh(account);
+      holder.token = refreshed;
+      return refreshed.credentials();
+    } finally {
+      holder.lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the cached access token of an account, for example after Spotify rejected it.
+   *
+   * @param spotifyUserId the Spotify user ID of the account
+   */
+  public void invalidate(String spotifyUserId) {
+    TokenHolder holder = tokens.get(spotifyUserId);
+    if (holder != null) {
+      holder.token = null;
+    }
+  }
+
+  /** Forgets all cached access tokens. */
+  public void clear() {
+    tokens.clear();
+  }
+
+  private boolean isUsable(CachedToken cached) {
+    return cached != null
+        && Instant.now().plus(properties.refreshMargin()).isBefore(cached.expiresAt());
+  }
+
+  private CachedToken refresh(SpotifyAccount account) {
+    log.debug("Refreshing Spotify access token for account: {}", account.spotifyUserId());
+
+    LinkedMultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+    formData.add("grant_type", "refresh_token");
+    formData.add("refresh_token", account.refreshToken());
+    formData.add("client_id", spotifyAuthProperties.clientId());
+    formData.add("client_secret", spotifyAuthProperties.clientSecret());
+
+    Instant requestedAt = Instant.now();
+    AuthorizationCodeCredentialsDto credentials = spotifyOAuthClient.refreshAccessToken(formData);
+
+    // Check if Spotify returned a brand new or rotated refresh token
+    String latestRefreshToken = credentials.refreshToken();
+    if (latestRefreshToken == null || latestRefreshToken.isBlank()) {
+      // If Spotify does not issue a new token, retain the current active one
+      log.debug("No refresh token issued by Spotify, retain the current active one");
+      latestRefreshToken = account.refreshToken();
+    }
+
+    // Persist the (potentially rotated) token on every refresh, as before the cache existed
+    spotifyAccountService.updateRefreshToken(account.spotifyUserId(), latestRefreshToken);
+
+    Duration expiresIn =
+        credentials.expiresIn() != null
+            ? Duration.ofSeconds(credentials.expiresIn())
+            : DEFAULT_EXPIRES_IN;
+    return new CachedToken(credentials, requestedAt.plus(expiresIn));
+  }
+
+  private static final class TokenHolder {
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile CachedToken token;
+  }
+
+  private record CachedToken(AuthorizationCodeCredentialsDto credentials, Instant expiresAt) {
+
+    /** Returns the credentials with the lifetime that is left. */
+    AuthorizationCodeCredentialsDto remaining() {
+      long secondsLeft = Duration.between(Instant.now(), expiresAt).toSeconds();
+      return new AuthorizationCodeCredentialsDto(
+          credentials.accessToken(),
+          credentials.tokenType(),
+          (int) Math.max(0, secondsLeft),
+          credentials.refreshToken(),
+          credentials.scope());
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package com.github.juliusd.ueberboeseapi.spotify;
 
 import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyEntitiesClient;
-import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient;
 import com.github.juliusd.ueberboeseapi.spotify.dto.*;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -13,11 +12,10 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class SpotifyEntityService {
 
-  private final SpotifyAuthProperties spotifyAuthProperties;
   private final SpotifyAccountService spotifyAccountService;
   private final SpotifyUriParser spotifyUriParser;
   private final SpotifyEntitiesClient spotifyEntitiesClient;
-  private final SpotifyOAuthClient spotifyOAuthClient;
+  private final SpotifyAccessTokenCache spotifyAccessTokenCache;
 
   public SpotifyEntityInfo getEntityInfo(String uri) {
     log.info("Getting entity info for URI: {}", uri);
@@ -27,11 +25,11 @@ public class SpotifyEntityService {
     log.debug("Parsed URI - type: {}, id: {}", spotifyUri.type(), spotifyUri.id());
 
     // Get access token
-    String accessToken = getAccessToken();
+    AccessToken accessToken = getAccessToken();
 
     try {
       // Prepare authorization header
-      String authHeader = "Bearer " + accessToken;
+      String authHeader = "Bearer " + accessToken.value();
 
       // Fetch entity based on type
       return switch (spotifyUri.type()) {
@@ -53,8 +51,13 @@ public class SpotifyEntityService {
     } catch (Exception e) {
       log.error("Failed to fetch Spotify entity: {}", e.getMessage(), e);
 
-      // Check if it's a 404 Not Found error from Spotify API
+      // A rejected token may have been revoked, the next lookup asks Spotify for a new one
       String errorMsg = e.getMessage();
+      if (errorMsg != null && errorMsg.contains("401")) {
+        spotifyAccessTokenCache.invalidate(accessToken.spotifyUserId());
+      }
+
+      // Check if it's a 404 Not Found error from Spotify API
       if (errorMsg != null
           && (errorMsg.toLowerCase().contains("not found") || errorMsg.contains("404"))) {
         throw new SpotifyEntityNotFoundException("Spotify entity not found: " + uri, e);
@@ -64,7 +67,7 @@ public class SpotifyEntityService {
     }
   }
 
-  private String getAccessToken() {
+  private AccessToken getAccessToken() {
     try {
       // Get the oldest connected Spotify account
       List<SpotifyAccount> accounts = spotifyAccountService.listAllAccounts();
@@ -81,19 +84,13 @@ public class SpotifyEntityService {
           oldestAccount.displayName(),
           oldestAccount.spotifyUserId());
 
-      // Prepare form data for token refresh
-      org.springframework.util.LinkedMultiValueMap<String, String> formData =
-          new org.springframework.util.LinkedMultiValueMap<>();
-      formData.add("grant_type", "refresh_token");
-      formData.add("refresh_token", oldestAccount.refreshToken());
-      formData.add("client_id", spotifyAuthProperties.clientId());
-      formData.add("client_secret", spotifyAuthProperties.clientSecret());
-
-      // Refresh the access token
-      var authorizationCodeCredentials = spotifyOAuthClient.refreshAccessToken(formData);
+      // Reuse the live access token of the account, Spotify is only asked when it is about to
+      // expire
+      var authorizationCodeCredentials = spotifyAccessTokenCache.getCredentials(oldestAccount);
 
       log.debug("Successfully obtained Spotify access token");
-      return authorizationCodeCredentials.accessToken();
+      return new AccessToken(
+          oldestAccount.spotifyUserId(), authorizationCodeCredentials.accessToken());
 
     } catch (Exception e) {
       log.error("Failed to authenticate with Spotify: {}", e.getMessage());
@@ -199,4 +196,6 @@ public class SpotifyEntityService {
   }
 
   public record SpotifyEntityInfo(String name, String imageUrl) {}
+
+  private record AccessToken(String spotifyUserId, String value) {}
 }
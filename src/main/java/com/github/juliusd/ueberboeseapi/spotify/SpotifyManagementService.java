@@ -22,6 +22,7 @@ public class SpotifyManagementService {
   private final SpotifyAccountService spotifyAccountService;
   private final SpotifyOAuthClient spotifyOAuthClient;
   private final SpotifyUserClient spotifyUserClient;
+  private final SpotifyAccessTokenCache spotifyAccessTokenCache;
 
   /**
    * Generates the Spotify authorization URL for OAuth flow initialization.
@@ -93,6 +94,8 @@ public class SpotifyManagementService {
       // Save account
       String accountId =
           spotifyAccountService.saveAccount(spotifyUserId, displayName, credentials.refreshToken());
+      // A re-linked account may have been granted new scopes, so stop serving its old token
+      spotifyAccessTokenCache.invalidate(accountId);
 
       log.info("Successfully saved Spotify account with accountId: {}", accountId);
       return accountId;
@@ -0,0 +1,29 @@
+package com.github.juliusd.ueberboeseapi.spotify;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the cache of Spotify access tokens.
+ *
+ * <p>Example configuration in application.properties:
+ *
+ * <pre>
+ * spotify.token-cache.enabled=true
+ * spotify.token-cache.refresh-margin=5m
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "spotify.token-cache")
+public record SpotifyTokenCacheProperties(
+    /**
+     * Whether access tokens are reused until they are about to expire. Without it every lookup
+     * refreshes the token at Spotify. Defaults to true.
+     */
+    @DefaultValue("true") boolean enabled,
+
+    /**
+     * How long before its expiry an access token is refreshed, so handed out tokens stay valid for
+     * at least this long. Defaults to 5 minutes.
+     */
+    @DefaultValue("5m") Duration refreshMargin) {}
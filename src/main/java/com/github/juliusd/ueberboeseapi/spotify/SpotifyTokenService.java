@@ -1,7 +1,6 @@
 package com.github.juliusd.ueberboeseapi.spotify;
 
 import com.github.juliusd.ueberboeseapi.generated.dtos.OAuthTokenRequestApiDto;
-import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient;
 import com.github.juliusd.ueberboeseapi.spotify.dto.AuthorizationCodeCredentialsDto;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
@@ -28,7 +27,7 @@ public class SpotifyTokenService {
 
   private final SpotifyAuthProperties spotifyAuthProperties;
   private final SpotifyAccountService spotifyAccountService;
-  private final SpotifyOAuthClient spotifyOAuthClient;
+  private final SpotifyAccessTokenCache spotifyAccessTokenCache;
 
   public AuthorizationCodeCredentialsDto loadSpotifyAuth(
       OAuthTokenRequestApiDto oauthTokenRequestApiDto) {
@@ -69,34 +68,18 @@ public class SpotifyTokenService {
     }
 
     try {
-      // Prepare form data for token refresh using the resolved account
-      org.springframework.util.LinkedMultiValueMap<String, String> formData =
-          new org.springframework.util.LinkedMultiValueMap<>();
-      formData.add("grant_type", "refresh_token");
-      formData.add("refresh_token", targetAccount.refreshToken());
-      formData.add("client_id", spotifyAuthProperties.clientId());
-      formData.add("client_secret", spotifyAuthProperties.clientSecret());
-
-      // Call Spotify API to refresh the access token
-      var authorizationCodeCredentials = spotifyOAuthClient.refreshAccessToken(formData);
+      // Live tokens are reused, Spotify is only asked shortly before they expire
+      var authorizationCodeCredentials = spotifyAccessTokenCache.getCredentials(targetAccount);
 
       String actualScope = authorizationCodeCredentials.scope();
-      log.debug("Spotify auth refresh request successful with scope {}", actualScope);
+      log.debug("Spotify auth request successful with scope {}", actualScope);
 
       // Validate that all required scopes are present
-      validateScopes(actualScope);
-
-      // Check if Spotify returned a brand new or rotated refresh token
-      String latestRefreshToken = authorizationCodeCredentials.refreshToken();
-      if (latestRefreshToken == null || latestRefreshToken.isBlank()) {
-        // If Spotify does not issue a new token, retain the current active one
-        log.debug("No refresh token issued by Spotify, retain the current active one");
-        latestRefreshToken = targetAccount.refreshToken();
+      if (!validateScopes(actualScope)) {
+        // The account may be re-linked with the missing scopes, so ask Spotify again next time
+        spotifyAccessTokenCache.invalidate(targetAccount.spotifyUserId());
       }
 
-      // Persist the (potentially rotated) token and refresh the 'updatedAt' timestamp
-      spotifyAccountService.updateRefreshToken(targetAccount.spotifyUserId(), latestRefreshToken);
-
       return authorizationCodeCredentials;
     } catch (RuntimeException e) {
       log.warn("Spotify auth failed: {}", e.getMessage());
@@ -114,10 +97,10 @@ public class SpotifyTokenService {
     }
   }
 
-  private void validateScopes(String actualScope) {
+  private boolean validateScopes(String actualScope) {
     if (actualScope == null || actualScope.isBlank()) {
       log.warn("Spotify token has no scopes");
-      return;
+      return false;
     }
 
     // Split the actual scopes (space-separated)
@@ -134,6 +117,8 @@ public class SpotifyTokenService {
 
     if (!missingScopes.isEmpty()) {
       log.warn("Spotify token is missing required scopes: {}", String.join(", ", missingScopes));
+      return false;
     }
+    return true;
   }
 }
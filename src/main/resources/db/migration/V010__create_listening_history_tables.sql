@@ -0,0 +1,41 @@
+CREATE TABLE IF NOT EXISTS RADIO_SESSION (
+    LISTEN_ID VARCHAR(64) PRIMARY KEY,
+    STATION_ID VARCHAR(255) NOT NULL,
+    STATION_NAME VARCHAR(512),
+    LOGO_URL VARCHAR(1024),
+    DEVICE_ID VARCHAR(255) NOT NULL,
+    STARTED_AT TIMESTAMP WITH TIME ZONE NOT NULL,
+    LISTENED_SECONDS BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS IDX_RADIO_SESSION_STARTED_AT
+    ON RADIO_SESSION(STARTED_AT DESC);
+
+CREATE TABLE IF NOT EXISTS RADIO_REPORT_EVENT (
+    ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    LISTEN_ID VARCHAR(64) NOT NULL,
+    TIME_STAMP TIMESTAMP WITH TIME ZONE NOT NULL,
+    EVENT_TYPE VARCHAR(20),
+    REASON VARCHAR(255),
+    REASON_SUB_CODE VARCHAR(255),
+    TIME_INTO_TRACK INTEGER,
+    PLAYBACK_DELAY INTEGER
+);
+
+CREATE INDEX IF NOT EXISTS IDX_RADIO_REPORT_EVENT_LISTEN_ID
+    ON RADIO_REPORT_EVENT(LISTEN_ID);
+
+-- Aggregates per station and device; DEVICE_ID '*' holds the totals over all devices
+CREATE TABLE IF NOT EXISTS STATION_LISTENING_STATS (
+    STATION_ID VARCHAR(255) NOT NULL,
+    DEVICE_ID VARCHAR(255) NOT NULL,
+    STATION_NAME VARCHAR(512),
+    LOGO_URL VARCHAR(1024),
+    PLAY_COUNT BIGINT NOT NULL,
+    LISTENING_SECONDS BIGINT NOT NULL,
+    LAST_PLAYED_AT TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (STATION_ID, DEVICE_ID)
+);
+
+CREATE INDEX IF NOT EXISTS IDX_STATION_LISTENING_STATS_DEVICE_PLAY_COUNT
+    ON STATION_LISTENING_STATS(DEVICE_ID, PLAY_COUNT DESC);
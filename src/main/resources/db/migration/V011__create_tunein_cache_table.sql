@@ -0,0 +1,6 @@
+-- Last known TuneIn responses, keyed by lookup type and station ID
+CREATE TABLE IF NOT EXISTS TUNEIN_CACHE_ENTRY (
+    CACHE_KEY VARCHAR(512) PRIMARY KEY,
+    CACHE_VALUE VARCHAR(16384) NOT NULL,
+    FETCHED_AT TIMESTAMP WITH TIME ZONE NOT NULL
+);
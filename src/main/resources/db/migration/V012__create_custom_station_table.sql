@@ -0,0 +1,12 @@
+-- Catalog of user-defined radio stations, played by their short station ID
+CREATE TABLE IF NOT EXISTS CUSTOM_STATION (
+    ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    STATION_ID VARCHAR(32) NOT NULL,
+    NAME VARCHAR(512) NOT NULL,
+    STREAM_URL VARCHAR(2048) NOT NULL,
+    IMAGE_URL VARCHAR(2048),
+    CREATED_ON TIMESTAMP WITH TIME ZONE NOT NULL,
+    UPDATED_ON TIMESTAMP WITH TIME ZONE NOT NULL,
+    VERSION BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT UQ_CUSTOM_STATION_STATION_ID UNIQUE (STATION_ID)
+);
@@ -0,0 +1,30 @@
+package com.github.juliusd.ueberboeseapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/** Waits for work done on background threads in tests. */
+public final class Await {
+
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private Await() {}
+
+  /**
+   * Polls a condition until it holds, failing the test if it does not within five seconds.
+   *
+   * @param condition the condition, evaluated once per round since some conditions have side
+   *     effects
+   */
+  public static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT_NANOS;
+    boolean satisfied = condition.getAsBoolean();
+    while (!satisfied && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      satisfied = condition.getAsBoolean();
+    }
+    assertThat(satisfied).isTrue();
+  }
+}
@@ -7,6 +7,9 @@ import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 
+import com.github.juliusd.ueberboeseapi.bmx.NowPlayingAggregator;
+import com.github.juliusd.ueberboeseapi.bmx.TuneInClient;
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPlaylistResolver;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportStorageService;
 import com.github.juliusd.ueberboeseapi.bmx.report.RadioSessionReport;
@@ -26,12 +29,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 class BmxControllerTest extends TestBase {
 
   @Autowired private RadioReportStorageService radioReportStorageService;
+  @Autowired private TuneInClient tuneInClient;
+  @Autowired private TuneInPlaylistResolver tuneInPlaylistResolver;
+  @Autowired private NowPlayingAggregator nowPlayingAggregator;
 
   private static WireMockServer wireMockServer;
 
   @BeforeEach
   void clearReports() {
     radioReportStorageService.clearAll();
+    tuneInClient.clearCache();
+    tuneInPlaylistResolver.clearCache();
+    nowPlayingAggregator.clear();
   }
 
   @BeforeAll
@@ -258,6 +267,97 @@ class BmxControllerTest extends TestBase {
         .body("audio.isRealtime", equalTo(true));
   }
 
+  @Test
+  void testGetTuneInPlaybackResolvesPlaylists() {
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/describe.ashx?id=s12345"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        """
+                        <opml version="1"><body><outline type="object">
+                          <station><name>Playlist Radio</name></station>
+                        </outline></body></opml>""")));
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/Tune.ashx?id=s12345"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        "http://localhost:8889/radio.pls\nhttp://localhost:8889/missing.m3u")));
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/radio.pls"))
+            .willReturn(aResponse().withStatus(302).withHeader("Location", "/moved/radio.pls")));
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/moved/radio.pls"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        """
+                        [playlist]
+                        NumberOfEntries=2
+                        File1=https://stream.example.com/radio.mp3
+                        Title1=Playlist Radio
+                        File2=https://backup.example.com/radio.aac
+                        Version=2
+                        """)));
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/missing.m3u")).willReturn(aResponse().withStatus(404)));
+
+    given()
+        .contentType("application/json")
+        .when()
+        .get("/bmx/tunein/v1/playback/station/s12345")
+        .then()
+        .statusCode(200)
+        .body("audio.streamUrl", equalTo("https://stream.example.com/radio.mp3"))
+        .body("audio.hasPlaylist", equalTo(false))
+        .body(
+            "audio.streams.streamUrl",
+            contains(
+                "https://stream.example.com/radio.mp3",
+                "https://backup.example.com/radio.aac",
+                "http://localhost:8889/missing.m3u"))
+        .body("audio.streams.hasPlaylist", contains(false, false, true));
+  }
+
+  @Test
+  void testGetTuneInNowPlaying() {
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/describe.ashx?id=s24896"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        """
+                        <opml version="1"><body><outline type="object">
+                          <station>
+                            <name>Radio TEDDY</name>
+                            <logo>https://cdn-radiotime-logos.tunein.com/s80044q.png</logo>
+                            <current_song>Das Lied</current_song>
+                            <current_artist>Die Band</current_artist>
+                          </station>
+                        </outline></body></opml>""")));
+
+    for (int i = 0; i < 3; i++) {
+      given()
+          .when()
+          .get("/bmx/tunein/v1/now-playing/station/s24896")
+          .then()
+          .statusCode(200)
+          .contentType("application/json")
+          .body("name", equalTo("Radio TEDDY"))
+          .body("imageUrl", equalTo("https://cdn-radiotime-logos.tunein.com/s80044q.png"))
+          .body("track", equalTo("Das Lied"))
+          .body("artist", equalTo("Die Band"))
+          .body("nextRefresh", greaterThan(0));
+    }
+
+    wireMockServer.verify(1, WireMock.getRequestedFor(urlEqualTo("/describe.ashx?id=s24896")));
+  }
+
   @Test
   void testGetCustomStreamPlayback() {
     // Create base64-encoded JSON
@@ -282,6 +382,57 @@ class BmxControllerTest extends TestBase {
         .body("audio.streams", hasSize(1));
   }
 
+  @Test
+  void testGetCustomStreamPlaybackReturnsNotModifiedForMatchingETag() {
+    String json =
+        """
+        {"streamUrl":"https://example.org/etag-stream","name":"ETag Station"}
+        """;
+    String base64Data = Base64.getEncoder().encodeToString(json.getBytes());
+
+    String eTag =
+        given()
+            .queryParam("data", base64Data)
+            .when()
+            .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+            .then()
+            .statusCode(200)
+            .body("name", equalTo("ETag Station"))
+            .extract()
+            .header("ETag");
+
+    given()
+        .queryParam("data", base64Data)
+        .header("If-None-Match", eTag)
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(eTag));
+  }
+
+  @Test
+  void testGetCustomStreamPlaybackWithInvalidData() {
+    String base64Data = Base64.getEncoder().encodeToString("{\"name\":\"No Stream\"}".getBytes());
+
+    given()
+        .queryParam("data", base64Data)
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void testGetCustomStreamPlaybackWithUnknownStationId() {
+    given()
+        .queryParam("id", "unknown1")
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(404);
+  }
+
   @Test
   void testGetCustomStreamPlaybackWithMissingData() {
     given()
@@ -594,6 +745,7 @@ class BmxControllerTest extends TestBase {
             .jsonPath()
             .getString("_links.bmx_reporting.href");
     OffsetDateTime after = OffsetDateTime.now(ZoneOffset.UTC);
+    assertThat(reportingHref).containsPattern("listen_id=[0-9a-f]{8}-[0-9a-f-]{27}&");
 
     given()
         .auth()
@@ -692,4 +844,65 @@ class BmxControllerTest extends TestBase {
         .body("services[1].canAdd", equalTo(false))
         .body("services[1].canRemove", equalTo(true));
   }
+
+  @Test
+  void testGetBmxServicesAnswersUnchangedRegistryWithNotModified() {
+    String eTag =
+        given()
+            .when()
+            .get("/bmx/registry/v1/services")
+            .then()
+            .statusCode(200)
+            .header("ETag", matchesPattern("\"[0-9a-f]{32}\""))
+            .extract()
+            .header("ETag");
+
+    given()
+        .when()
+        .get("/bmx/registry/v1/services")
+        .then()
+        .statusCode(200)
+        .header("ETag", equalTo(eTag))
+        .body("bmx_services", hasSize(4));
+
+    given()
+        .header("If-None-Match", "W/" + eTag)
+        .when()
+        .get("/bmx/registry/v1/services")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(eTag))
+        .body(emptyString());
+
+    // The registry contains the base URL, so another host gets another registry
+    given()
+        .header("Host", "192.168.1.1:8080")
+        .header("If-None-Match", eTag)
+        .when()
+        .get("/bmx/registry/v1/services")
+        .then()
+        .statusCode(200)
+        .header("ETag", not(equalTo(eTag)))
+        .body("bmx_services[0].baseUrl", equalTo("http://192.168.1.1:8080/bmx/tunein"));
+  }
+
+  @Test
+  void testGetBmxServicesAvailabilityAnswersUnchangedResponseWithNotModified() {
+    String eTag =
+        given()
+            .when()
+            .get("/bmx/registry/v1/servicesAvailability")
+            .then()
+            .statusCode(200)
+            .extract()
+            .header("ETag");
+
+    given()
+        .header("If-None-Match", "\"other\", " + eTag)
+        .when()
+        .get("/bmx/registry/v1/servicesAvailability")
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(eTag));
+  }
 }
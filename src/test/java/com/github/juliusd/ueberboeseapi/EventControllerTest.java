@@ -2,9 +2,12 @@ package com.github.juliusd.ueberboeseapi;
 
 import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 
+import com.github.juliusd.ueberboeseapi.service.EventIngestionService;
 import com.github.juliusd.ueberboeseapi.service.EventStorageService;
 import io.restassured.http.ContentType;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +15,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 class EventControllerTest extends TestBase {
 
   @Autowired private EventStorageService eventStorageService;
+  @Autowired private EventIngestionService eventIngestionService;
 
   @BeforeEach
   void clearEvents() {
+    eventIngestionService.flush(Duration.ofSeconds(5));
     eventStorageService.clearAllEvents();
   }
 
@@ -153,6 +158,7 @@ class EventControllerTest extends TestBase {
         .post("/v1/scmudc/{deviceId}", deviceId);
 
     // Then - retrieve events via management endpoint
+    eventIngestionService.flush(Duration.ofSeconds(5));
     var response =
         given()
             .auth()
@@ -250,6 +256,7 @@ class EventControllerTest extends TestBase {
         .post("/v1/scmudc/{deviceId}", deviceId);
 
     // Then
+    eventIngestionService.flush(Duration.ofSeconds(5));
     var response =
         given()
             .auth()
@@ -332,6 +339,7 @@ class EventControllerTest extends TestBase {
     }
 
     // When: Retrieve events
+    eventIngestionService.flush(Duration.ofSeconds(5));
     var response =
         given()
             .auth()
@@ -369,6 +377,7 @@ class EventControllerTest extends TestBase {
     }
 
     // When: Retrieve events for both devices
+    eventIngestionService.flush(Duration.ofSeconds(5));
     var response1 =
         given()
             .auth()
@@ -401,7 +410,130 @@ class EventControllerTest extends TestBase {
     assertThat(response2.jsonPath().getInt("events[0].monoTime")).isEqualTo(100);
   }
 
+  @Test
+  void getDeviceEvents_shouldPageThroughEventsWithCursor() {
+    // Given
+    String deviceId = "DEVICE003";
+    for (int i = 0; i < 5; i++) {
+      submitEventWithMonoTime(deviceId, i);
+    }
+
+    // When: Fetch the first page from the beginning of the journal
+    eventIngestionService.flush(Duration.ofSeconds(5));
+    var firstPage =
+        given()
+            .auth()
+            .basic("admin", "test-password-123")
+            .accept(ContentType.JSON)
+            .queryParam("from", "2026-01-01T00:00:00Z")
+            .queryParam("limit", 3)
+            .when()
+            .get("/mgmt/devices/{deviceId}/events", deviceId)
+            .then()
+            .statusCode(200)
+            .extract()
+            .response();
+
+    // Then
+    assertThat(firstPage.jsonPath().getList("events.monoTime")).containsExactly(0, 1, 2);
+    String nextCursor = firstPage.jsonPath().getString("nextCursor");
+    assertThat(nextCursor).isNotNull();
+
+    // When: Fetch the next page with the returned cursor
+    var secondPage =
+        given()
+            .auth()
+            .basic("admin", "test-password-123")
+            .accept(ContentType.JSON)
+            .queryParam("cursor", nextCursor)
+            .queryParam("limit", 3)
+            .when()
+            .get("/mgmt/devices/{deviceId}/events", deviceId)
+            .then()
+            .statusCode(200)
+            .extract()
+            .response();
+
+    // Then: The remaining events without a further cursor
+    assertThat(secondPage.jsonPath().getList("events.monoTime")).containsExactly(3, 4);
+    assertThat(secondPage.jsonPath().getString("nextCursor")).isNull();
+  }
+
+  @Test
+  void getDeviceEvents_shouldFilterByTimeRange() {
+    // Given
+    String deviceId = "DEVICE004";
+    submitEvent(deviceId, 1, "2026-01-09T08:00:00+00:00");
+    submitEvent(deviceId, 2, "2026-01-09T09:00:00+00:00");
+    submitEvent(deviceId, 3, "2026-01-09T10:00:00+00:00");
+
+    // When
+    eventIngestionService.flush(Duration.ofSeconds(5));
+    var response =
+        given()
+            .auth()
+            .basic("admin", "test-password-123")
+            .accept(ContentType.JSON)
+            .queryParam("from", "2026-01-09T08:30:00Z")
+            .queryParam("to", "2026-01-09T10:00:00Z")
+            .when()
+            .get("/mgmt/devices/{deviceId}/events", deviceId)
+            .then()
+            .statusCode(200)
+            .extract()
+            .response();
+
+    // Then: Only the event inside the half-open range
+    assertThat(response.jsonPath().getList("events.monoTime")).containsExactly(2);
+  }
+
+  @Test
+  void getDeviceEvents_shouldRejectInvalidCursor() {
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .accept(ContentType.JSON)
+        .queryParam("cursor", "abc")
+        .when()
+        .get("/mgmt/devices/{deviceId}/events", "DEVICE005")
+        .then()
+        .statusCode(400)
+        .body("message", equalTo("Invalid cursor: abc"));
+  }
+
+  @Test
+  void getDeviceEventStats_shouldAggregateReceivedEvents() {
+    // Given
+    String deviceId = "DEVICE006";
+    submitEvent(deviceId, 1000, "2026-01-09T08:00:00+00:00");
+    submitEvent(deviceId, 3000, "2026-01-09T08:00:02+00:00");
+    eventIngestionService.flush(Duration.ofSeconds(5));
+
+    // When / Then
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .accept(ContentType.JSON)
+        .when()
+        .get("/mgmt/devices/{deviceId}/events/stats", deviceId)
+        .then()
+        .statusCode(200)
+        .body("deviceId", equalTo(deviceId))
+        .body("totalEvents", equalTo(2))
+        .body("types[0].type", equalTo("test-event"))
+        .body("types[0].count", equalTo(2))
+        .body("types[0].eventsLastHour", equalTo(2))
+        .body("types[0].lastMonoTimeDelta", equalTo(2000))
+        .body("ingestion.acceptedEvents", equalTo(2))
+        .body("ingestion.rejectedSubmissions", equalTo(0))
+        .body("ingestion.eventsLastMinute", equalTo(2));
+  }
+
   private void submitEventWithMonoTime(String deviceId, int monoTime) {
+    submitEvent(deviceId, monoTime, "2026-01-09T08:02:32.873379+00:00");
+  }
+
+  private void submitEvent(String deviceId, int monoTime, String time) {
     String requestJson =
         """
         {
@@ -428,14 +560,14 @@ class EventControllerTest extends TestBase {
                   "test": "data"
                 },
                 "monoTime": %d,
-                "time": "2026-01-09T08:02:32.873379+00:00",
+                "time": "%s",
                 "type": "test-event"
               }
             ]
           }
         }
         """
-            .formatted(monoTime, deviceId, deviceId, monoTime);
+            .formatted(monoTime, deviceId, deviceId, monoTime, time);
 
     given()
         .header("Authorization", "Bearer mockAuthToken123")
@@ -0,0 +1,131 @@
+package com.github.juliusd.ueberboeseapi;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Load test for proxied calls to a slow upstream. Tomcat is limited to a handful of worker threads;
+ * on platform threads at most that many calls could wait on the upstream at the same time, on
+ * virtual threads they all do.
+ */
+@TestPropertySource(properties = {"server.tomcat.threads.max=4", "proxy.cache.enabled=false"})
+class ProxyConcurrencyTest extends TestBase {
+
+  private static final int TOMCAT_THREADS = 4;
+  private static final int CONCURRENT_CALLS = 20;
+  // More than the Tomcat threads, but within the WebClient connection pool (at least 16)
+  private static final int REQUIRED_OVERLAP = 12;
+
+  @LocalServerPort private int port;
+
+  private final InFlightCounter inFlightCounter = new InFlightCounter();
+  private WireMockServer wireMockServer;
+
+  @BeforeEach
+  void setUpWireMock() {
+    wireMockServer =
+        new WireMockServer(
+            options()
+                .port(8089)
+                .containerThreads(CONCURRENT_CALLS * 2)
+                .extensions(inFlightCounter));
+    wireMockServer.start();
+    wireMockServer.stubFor(
+        get(urlEqualTo("/api/slow"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody("slow response")
+                    .withTransformers(InFlightCounter.NAME)));
+  }
+
+  @AfterEach
+  void tearDownWireMock() {
+    wireMockServer.stop();
+  }
+
+  @Test
+  void shouldHoldConcurrentSlowUpstreamCallsBeyondTomcatThreadLimit() {
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/slow"))
+            .timeout(Duration.ofSeconds(30))
+            .build();
+
+    List<CompletableFuture<HttpResponse<String>>> responses =
+        IntStream.range(0, CONCURRENT_CALLS)
+            .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+            .toList();
+    CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+
+    assertThat(responses)
+        .allSatisfy(
+            response -> {
+              assertThat(response.join().statusCode()).isEqualTo(200);
+              assertThat(response.join().body()).isEqualTo("slow response");
+            });
+    // Upstream calls are held until REQUIRED_OVERLAP of them wait at the same time, which is
+    // impossible if every call occupies one of the Tomcat threads
+    assertThat(inFlightCounter.maxInFlight.get())
+        .isGreaterThan(TOMCAT_THREADS)
+        .isGreaterThanOrEqualTo(REQUIRED_OVERLAP);
+  }
+
+  /** Holds upstream calls until enough of them are in flight at once and records the maximum. */
+  private static final class InFlightCounter implements ResponseDefinitionTransformerV2 {
+
+    static final String NAME = "in-flight-counter";
+
+    private final CountDownLatch overlapReached = new CountDownLatch(REQUIRED_OVERLAP);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        overlapReached.countDown();
+        overlapReached.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+      return serveEvent.getResponseDefinition();
+    }
+
+    @Override
+    public boolean applyGlobally() {
+      return false;
+    }
+
+    @Override
+    public String getName() {
+      return NAME;
+    }
+  }
+}
@@ -18,6 +18,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.github.juliusd.ueberboeseapi.proxy.ProxyResponseCache;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import org.junit.jupiter.api.AfterEach;
@@ -30,6 +31,7 @@ import org.springframework.test.web.servlet.MockMvc;
 class ProxyControllerTest extends TestBase {
 
   @Autowired private MockMvc mockMvc;
+  @Autowired private ProxyResponseCache proxyResponseCache;
 
   private WireMockServer wireMockServer;
   private WireMockServer authWireMockServer;
@@ -39,6 +41,8 @@ class ProxyControllerTest extends TestBase {
 
   @BeforeEach
   void setUp() {
+    proxyResponseCache.clear();
+
     // Set up main target host mock server
     wireMockServer = new WireMockServer(options().port(8089));
     wireMockServer.start();
@@ -675,6 +679,42 @@ class ProxyControllerTest extends TestBase {
             .withHeader("X-Custom", equalTo("value2")));
   }
 
+  @Test
+  void shouldNotForwardHopByHopHeaders() throws Exception {
+    // Given
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/api/hop-by-hop"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Keep-Alive", "timeout=5")
+                    .withHeader("X-Upstream", "kept")
+                    .withBody("ok")));
+
+    // When & Then - hop-by-hop response headers are not passed on to the client
+    mockMvc
+        .perform(
+            get("/api/hop-by-hop")
+                .header("keep-alive", "timeout=10")
+                .header("UPGRADE", "websocket")
+                .header("Connection", "X-Hop, Upgrade")
+                .header("X-Hop", "connection-specific")
+                .header("x-forwarded-for", "192.168.178.2")
+                .header("X-Custom", "forwarded"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Upstream", "kept"))
+        .andExpect(header().doesNotExist("Keep-Alive"));
+
+    // Verify hop-by-hop headers and headers named in Connection were dropped, case-insensitively
+    wireMockServer.verify(
+        getRequestedFor(urlEqualTo("/api/hop-by-hop"))
+            .withoutHeader("Keep-Alive")
+            .withoutHeader("Upgrade")
+            .withoutHeader("X-Hop")
+            .withoutHeader("X-Forwarded-For")
+            .withHeader("X-Custom", equalTo("forwarded")));
+  }
+
   @Test
   void shouldForwardAuthorizationHeader() throws Exception {
     // Given
@@ -1127,4 +1167,50 @@ class ProxyControllerTest extends TestBase {
     // Verify request went to auth server
     authWireMockServer.verify(getRequestedFor(urlEqualTo("/oauth/authorize")));
   }
+
+  @Test
+  void shouldServeFreshCachedGetResponseWithoutContactingUpstream() throws Exception {
+    // Given - upstream marks the response as cacheable for 60 seconds
+    bmxRegistryWireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/bmx/registry/v1/cached"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withHeader("Cache-Control", "max-age=60")
+                    .withBody("{\"services\": []}")));
+
+    // When & Then - both requests return the same body
+    for (int i = 0; i < 2; i++) {
+      mockMvc
+          .perform(get("/bmx/registry/v1/cached").header("Host", "bmx.example.com"))
+          .andExpect(status().isOk())
+          .andExpect(content().json("{\"services\": []}"));
+    }
+
+    // Verify only the first request reached the upstream
+    bmxRegistryWireMockServer.verify(1, getRequestedFor(urlEqualTo("/bmx/registry/v1/cached")));
+  }
+
+  @Test
+  void shouldServeLastKnownGoodResponseWhenUpstreamIsUnreachable() throws Exception {
+    // Given - a response without freshness information was proxied once
+    wireMockServer.stubFor(
+        WireMock.get(urlEqualTo("/api/last-known-good"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("{\"status\": \"ok\"}")));
+    mockMvc.perform(get("/api/last-known-good")).andExpect(status().isOk());
+
+    // When - the upstream goes away
+    wireMockServer.stop();
+
+    // Then - the cached response is served instead of a 502
+    mockMvc
+        .perform(get("/api/last-known-good"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"status\": \"ok\"}"));
+  }
 }
@@ -0,0 +1,81 @@
+package com.github.juliusd.ueberboeseapi;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.github.juliusd.ueberboeseapi.proxy.ProxyCaptureProperties;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyCaptureStore;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyCaptureStoreProperties;
+import com.github.juliusd.ueberboeseapi.proxy.ProxyTrafficCapture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/** Runs the proxy against a capture store instead of upstream hosts; no WireMock is started. */
+@TestPropertySource(
+    properties = {
+      "proxy.capture-store.directory=" + ProxyReplayTest.STORE_DIRECTORY,
+      "proxy.capture-store.replay=true"
+    })
+class ProxyReplayTest extends TestBase {
+
+  static final String STORE_DIRECTORY = "target/test-data/proxy-replay";
+
+  @Autowired private MockMvc mockMvc;
+
+  @BeforeAll
+  static void recordTraffic() throws Exception {
+    Path directory = Path.of(STORE_DIRECTORY);
+    if (Files.exists(directory)) {
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(file);
+        }
+      }
+    }
+
+    ProxyCaptureStore store =
+        new ProxyCaptureStore(
+            new ProxyCaptureStoreProperties(true, STORE_DIRECTORY, 1024 * 1024, 1024 * 1024, false),
+            new DataDirectoryProperties(STORE_DIRECTORY));
+    ProxyTrafficCapture capture =
+        new ProxyTrafficCapture(
+            new ProxyCaptureProperties(true, 1.0, 1024, 16), store, new SimpleMeterRegistry());
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recorded");
+    var exchange =
+        capture.begin(1, request, HttpMethod.GET, "http://localhost:8089/api/recorded", null);
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.CONTENT_TYPE, "application/json");
+    capture.complete(exchange, HttpStatus.OK, headers, "{\"recorded\": true}".getBytes());
+    capture.destroy();
+    store.destroy();
+  }
+
+  @Test
+  void shouldReplayCapturedResponseWithoutUpstream() throws Exception {
+    mockMvc
+        .perform(get("/api/recorded"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", "application/json"))
+        .andExpect(content().json("{\"recorded\": true}"));
+  }
+
+  @Test
+  void shouldReturnBadGatewayForRequestsThatWereNeverCaptured() throws Exception {
+    mockMvc.perform(get("/api/never-recorded")).andExpect(status().isBadGateway());
+  }
+}
@@ -5,6 +5,7 @@ import com.github.juliusd.ueberboeseapi.group.DeviceGroupRepository;
 import com.github.juliusd.ueberboeseapi.preset.PresetRepository;
 import com.github.juliusd.ueberboeseapi.recent.Recent;
 import com.github.juliusd.ueberboeseapi.recent.RecentRepository;
+import com.github.juliusd.ueberboeseapi.spotify.SpotifyAccessTokenCache;
 import com.github.juliusd.ueberboeseapi.spotify.SpotifyAccount;
 import com.github.juliusd.ueberboeseapi.spotify.SpotifyAccountRepository;
 import io.restassured.RestAssured;
@@ -30,6 +31,11 @@ import org.springframework.test.context.TestPropertySource;
       "proxy.software-update-target-host=http://localhost:8091",
       "proxy.stats-target-host=http://localhost:8092",
       "proxy.bmx-registry-host=http://localhost:8093",
+      "proxy.cache.directory=target/test-data/proxy-cache",
+      "proxy.capture-store.directory=target/test-data/proxy-capture",
+      "ueberboese.events.journal.directory=target/test-data/event-journal",
+      "tunein.prefetch.enabled=false",
+      "tunein.stream-health.enabled=false",
       "spotify.auth.client-id=test-client-id",
       "spotify.auth.client-secret=test-client-secret",
       "spotify.mgmt.redirect-uri=ueberboese-login://spotify",
@@ -48,6 +54,7 @@ public class TestBase {
   @Autowired protected RecentRepository recentRepository;
   @Autowired protected PresetRepository presetRepository;
   @Autowired protected DeviceGroupRepository deviceGroupRepository;
+  @Autowired protected SpotifyAccessTokenCache spotifyAccessTokenCache;
 
   @BeforeEach
   void setUp() {
@@ -58,6 +65,7 @@ public class TestBase {
     recentRepository.deleteAll();
     presetRepository.deleteAll();
     deviceGroupRepository.deleteAll();
+    spotifyAccessTokenCache.clear();
   }
 
   protected void givenRecentsInDB() {
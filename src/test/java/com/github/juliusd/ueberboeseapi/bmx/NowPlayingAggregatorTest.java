@@ -0,0 +1,180 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.juliusd.ueberboeseapi.Await.waitUntil;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class NowPlayingAggregatorTest {
+
+  private final TuneInClient tuneInClient = mock(TuneInClient.class);
+  private NowPlayingAggregator aggregator;
+
+  @AfterEach
+  void stopAggregator() throws InterruptedException {
+    if (aggregator != null) {
+      aggregator.destroy();
+    }
+  }
+
+  @Test
+  void nowPlaying_shouldShareOnePollBetweenConcurrentListeners() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    when(tuneInClient.currentStationMetadata("s1"))
+        .thenReturn(
+            Mono.delay(Duration.ofMillis(200))
+                .map(tick -> metadata("Song " + polls.incrementAndGet())));
+    aggregator = createAggregator(Duration.ofHours(1), Duration.ofHours(1), 100);
+
+    List<CompletableFuture<NowPlayingAggregator.NowPlaying>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 50; i++) {
+        results.add(CompletableFuture.supplyAsync(() -> aggregator.nowPlaying("s1"), executor));
+      }
+      CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get();
+    }
+
+    assertThat(results)
+        .allSatisfy(result -> assertThat(result.get().currentSong()).isEqualTo("Song 1"));
+    assertThat(polls).hasValue(1);
+  }
+
+  @Test
+  void nowPlaying_shouldServeTheLatestPollOfTheBackgroundThread() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    when(tuneInClient.currentStationMetadata("s1"))
+        .thenReturn(Mono.fromCallable(() -> metadata("Song " + polls.incrementAndGet())));
+    aggregator = createAggregator(Duration.ofMillis(100), Duration.ofHours(1), 100);
+
+    assertThat(aggregator.nowPlaying("s1").currentSong()).isEqualTo("Song 1");
+
+    waitUntil(() -> polls.get() >= 3);
+    assertThat(aggregator.nowPlaying("s1").currentSong()).isNotEqualTo("Song 1");
+  }
+
+  @Test
+  void nowPlaying_shouldKeepThePreviousResultWhenAPollFails() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    when(tuneInClient.currentStationMetadata("s1"))
+        .thenReturn(
+            Mono.fromCallable(
+                () -> {
+                  if (polls.incrementAndGet() > 1) {
+                    throw new RuntimeException("TuneIn down");
+                  }
+                  return metadata("Song 1");
+                }));
+    aggregator = createAggregator(Duration.ofMillis(100), Duration.ofHours(1), 100);
+
+    aggregator.nowPlaying("s1");
+    waitUntil(() -> polls.get() >= 3);
+
+    assertThat(aggregator.nowPlaying("s1").currentSong()).isEqualTo("Song 1");
+  }
+
+  @Test
+  void nowPlaying_shouldFailFastUntilTheNextPollWhenTheFirstPollFailed() {
+    when(tuneInClient.currentStationMetadata("s1"))
+        .thenReturn(Mono.error(new RuntimeException("TuneIn down")));
+    aggregator = createAggregator(Duration.ofHours(1), Duration.ofHours(1), 100);
+
+    assertThatThrownBy(() -> aggregator.nowPlaying("s1")).hasMessage("TuneIn down");
+    assertThatThrownBy(() -> aggregator.nowPlaying("s1")).hasMessageContaining("failed recently");
+    verify(tuneInClient, times(1)).currentStationMetadata("s1");
+  }
+
+  @Test
+  void nowPlaying_shouldStopPollingIdleStations() throws Exception {
+    when(tuneInClient.currentStationMetadata("s1")).thenReturn(Mono.just(metadata("Song")));
+    aggregator = createAggregator(Duration.ofMillis(50), Duration.ofMillis(300), 100);
+
+    aggregator.nowPlaying("s1");
+    assertThat(aggregator.getStationCount()).isEqualTo(1);
+
+    waitUntil(() -> aggregator.getStationCount() == 0);
+    long polled = aggregator.getPolledCount();
+    Thread.sleep(200);
+    assertThat(aggregator.getPolledCount()).isEqualTo(polled);
+  }
+
+  @Test
+  void nowPlaying_shouldFetchDirectlyBeyondMaxStations() {
+    when(tuneInClient.currentStationMetadata("s1")).thenReturn(Mono.just(metadata("Song 1")));
+    when(tuneInClient.currentStationMetadata("s2")).thenReturn(Mono.just(metadata("Song 2")));
+    aggregator = createAggregator(Duration.ofHours(1), Duration.ofHours(1), 1);
+
+    aggregator.nowPlaying("s1");
+    aggregator.nowPlaying("s2");
+    aggregator.nowPlaying("s2");
+
+    assertThat(aggregator.getStationCount()).isEqualTo(1);
+    verify(tuneInClient, times(2)).currentStationMetadata("s2");
+  }
+
+  @Test
+  void nowPlaying_shouldLimitConcurrentBackgroundPolls() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger polls = new AtomicInteger();
+    when(tuneInClient.currentStationMetadata(anyString()))
+        .thenAnswer(
+            invocation ->
+                Mono.fromRunnable(
+                        () -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                    .then(Mono.delay(Duration.ofMillis(30)))
+                    .doOnTerminate(
+                        () -> {
+                          running.decrementAndGet();
+                          polls.incrementAndGet();
+                        })
+                    .thenReturn(metadata("Song")));
+    aggregator = createAggregator(Duration.ofMillis(100), Duration.ofHours(1), 100, 2);
+
+    for (int i = 0; i < 10; i++) {
+      aggregator.nowPlaying("s" + i);
+    }
+    maxRunning.set(0);
+
+    // All ten stations become due in the same tick
+    waitUntil(() -> polls.get() >= 30);
+    assertThat(maxRunning.get()).isBetween(1, 2);
+  }
+
+  private NowPlayingAggregator createAggregator(
+      Duration pollInterval, Duration idleTimeout, int maxStations) {
+    return createAggregator(pollInterval, idleTimeout, maxStations, 4);
+  }
+
+  private NowPlayingAggregator createAggregator(
+      Duration pollInterval, Duration idleTimeout, int maxStations, int maxConcurrency) {
+    return new NowPlayingAggregator(
+        tuneInClient,
+        new NowPlayingProperties(pollInterval, idleTimeout, maxStations, maxConcurrency),
+        new SimpleMeterRegistry());
+  }
+
+  private static TuneInClient.StationMetadata metadata(String currentSong) {
+    var metadata = new TuneInClient.StationMetadata();
+    metadata.setName("Radio");
+    metadata.setLogo("https://logo/radio.png");
+    metadata.setCurrentSong(currentSong);
+    metadata.setCurrentArtist("Artist");
+    return metadata;
+  }
+}
@@ -0,0 +1,134 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+
+class OpmlStationParserTest {
+
+  private static final String DESCRIBE_RESPONSE =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <opml version="1">
+        <head>
+          <title>Radio TEDDY</title>
+          <status>200</status>
+        </head>
+        <body>
+          <outline type="object" text="Radio TEDDY">
+            <station>
+              <guide_id>s80044</guide_id>
+              <preset_id>s80044</preset_id>
+              <name>Radio TEDDY</name>
+              <call_sign>Radio TEDDY</call_sign>
+              <slogan>Have fun</slogan>
+              <frequency>90.2</frequency>
+              <band>FM</band>
+              <current_song><![CDATA[Rock & Roll]]></current_song>
+              <current_artist>Die &amp; Band</current_artist>
+              <logo>https://cdn-radiotime-logos.tunein.com/s80044q.png</logo>
+              <location>Berlin</location>
+              <description>Das Radio.</description>
+              <genre_name>Children's Music</genre_name>
+              <tz>GMT + 1 (CEST)</tz>
+            </station>
+          </outline>
+        </body>
+      </opml>""";
+
+  @Test
+  void parse_shouldReadStationFields() throws XMLStreamException {
+    var metadata = OpmlStationParser.parse(DESCRIBE_RESPONSE);
+
+    assertThat(metadata.getName()).isEqualTo("Radio TEDDY");
+    assertThat(metadata.getLogo()).isEqualTo("https://cdn-radiotime-logos.tunein.com/s80044q.png");
+    assertThat(metadata.getCurrentSong()).isEqualTo("Rock & Roll");
+    assertThat(metadata.getCurrentArtist()).isEqualTo("Die & Band");
+  }
+
+  @Test
+  void parse_shouldOnlyReadFieldsInsideTheFirstStation() throws XMLStreamException {
+    var metadata =
+        OpmlStationParser.parse(
+            """
+            <opml version="1">
+              <head><name>Not a station</name></head>
+              <body>
+                <outline type="object">
+                  <station><name>First</name></station>
+                  <station><name>Second</name><logo>second.png</logo></station>
+                </outline>
+              </body>
+            </opml>""");
+
+    assertThat(metadata.getName()).isEqualTo("First");
+    assertThat(metadata.getLogo()).isEmpty();
+    assertThat(metadata.getCurrentSong()).isEmpty();
+  }
+
+  @Test
+  void parse_shouldStopAtTheEndOfTheStation() throws XMLStreamException {
+    // Everything after the station is never read, so the broken remainder does not matter
+    var metadata =
+        OpmlStationParser.parse(
+            "<opml><body><outline><station><name>Radio</name></station></outline><broken");
+
+    assertThat(metadata.getName()).isEqualTo("Radio");
+  }
+
+  @Test
+  void parse_shouldRejectResponsesWithoutStation() {
+    assertThatThrownBy(() -> OpmlStationParser.parse("<opml><head/></opml>"))
+        .isInstanceOf(XMLStreamException.class)
+        .hasMessageContaining("No body element");
+    assertThatThrownBy(() -> OpmlStationParser.parse("<opml><body/></opml>"))
+        .isInstanceOf(XMLStreamException.class)
+        .hasMessageContaining("No outline element");
+    assertThatThrownBy(
+            () -> OpmlStationParser.parse("<opml><body><outline text=\"x\"/></body></opml>"))
+        .isInstanceOf(XMLStreamException.class)
+        .hasMessageContaining("No station element");
+    assertThatThrownBy(() -> OpmlStationParser.parse("not xml"))
+        .isInstanceOf(XMLStreamException.class);
+  }
+
+  @Test
+  void parse_shouldNotResolveExternalEntities() {
+    String xxe =
+        """
+        <?xml version="1.0"?>
+        <!DOCTYPE opml [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+        <opml><body><outline><station><name>&xxe;</name></station></outline></body></opml>""";
+
+    assertThatThrownBy(() -> OpmlStationParser.parse(xxe)).isInstanceOf(XMLStreamException.class);
+  }
+
+  @Test
+  void parse_shouldBeUsableFromManyThreads() throws Exception {
+    List<CompletableFuture<String>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 2_000; i++) {
+        results.add(
+            CompletableFuture.supplyAsync(
+                () -> {
+                  try {
+                    return OpmlStationParser.parse(DESCRIBE_RESPONSE).getName();
+                  } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                  }
+                },
+                executor));
+      }
+      CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get();
+    }
+
+    assertThat(results).allSatisfy(result -> assertThat(result.get()).isEqualTo("Radio TEDDY"));
+  }
+}
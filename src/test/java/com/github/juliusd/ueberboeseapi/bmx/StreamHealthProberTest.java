@@ -0,0 +1,136 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.juliusd.ueberboeseapi.Await.waitUntil;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPlaylistResolver.ResolvedStream;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StreamHealthProberTest {
+
+  private WireMockServer wireMockServer;
+  private StreamHealthProber prober;
+
+  private ResolvedStream slow;
+  private ResolvedStream fast;
+  private ResolvedStream error;
+  private ResolvedStream refused;
+
+  @BeforeEach
+  void startWireMock() {
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+    wireMockServer.start();
+    wireMockServer.stubFor(
+        get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(300)));
+    wireMockServer.stubFor(get(urlEqualTo("/fast")).willReturn(aResponse().withStatus(200)));
+    wireMockServer.stubFor(get(urlEqualTo("/error")).willReturn(aResponse().withStatus(500)));
+
+    String baseUrl = "http://localhost:" + wireMockServer.port();
+    slow = ResolvedStream.direct(baseUrl + "/slow");
+    fast = ResolvedStream.direct(baseUrl + "/fast");
+    error = ResolvedStream.unresolved(baseUrl + "/error");
+    refused = ResolvedStream.direct("http://localhost:1/refused");
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    if (prober != null) {
+      prober.destroy();
+    }
+    wireMockServer.stop();
+  }
+
+  @Test
+  void rank_shouldOrderHealthyStreamsByLatencyAndDropDeadOnes() throws Exception {
+    prober = createProber(true, 1);
+    List<ResolvedStream> streams = List.of(error, slow, refused, fast);
+
+    // Not probed yet, so the order is kept
+    assertThat(prober.rank(streams)).isEqualTo(streams);
+
+    waitUntil(() -> prober.getProbedCount() == 4);
+    assertThat(prober.getFailedCount()).isEqualTo(2);
+    assertThat(prober.rank(streams)).containsExactly(fast, slow);
+  }
+
+  @Test
+  void rank_shouldKeepStreamsUntilTheFailureThresholdIsReached() throws Exception {
+    prober = createProber(true, 2);
+
+    prober.rank(List.of(error, fast));
+    waitUntil(() -> prober.getProbedCount() == 2);
+
+    assertThat(prober.rank(List.of(error, fast))).containsExactly(fast, error);
+  }
+
+  @Test
+  void rank_shouldKeepAllStreamsWhenAllAreDead() throws Exception {
+    prober = createProber(true, 1);
+    List<ResolvedStream> streams = List.of(error, refused);
+
+    prober.rank(streams);
+    waitUntil(() -> prober.getFailedCount() == 2);
+
+    assertThat(prober.rank(streams)).isEqualTo(streams);
+  }
+
+  @Test
+  void rank_shouldNotProbeWhenDisabled() throws Exception {
+    prober = createProber(false, 1);
+    List<ResolvedStream> streams = List.of(error, fast);
+
+    assertThat(prober.rank(streams)).isEqualTo(streams);
+    Thread.sleep(200);
+    assertThat(prober.getProbedCount()).isZero();
+  }
+
+  @Test
+  void rank_shouldStopProbingStreamsThatAreNoLongerPlayed() throws Exception {
+    prober =
+        new StreamHealthProber(
+            new StreamHealthProperties(
+                true,
+                Duration.ofMillis(50),
+                Duration.ofSeconds(2),
+                1,
+                4,
+                100,
+                Duration.ofMillis(200)),
+            new SimpleMeterRegistry());
+
+    prober.rank(List.of(fast));
+    waitUntil(() -> prober.getProbedCount() >= 2);
+    // Re-probed every 50 ms until the stream has not been ranked for 200 ms
+    Thread.sleep(800);
+    long probedWhileIdle = prober.getProbedCount();
+    Thread.sleep(300);
+    assertThat(prober.getProbedCount()).isEqualTo(probedWhileIdle);
+
+    // Playing the stream again tracks it from scratch
+    prober.rank(List.of(fast));
+    waitUntil(() -> prober.getProbedCount() > probedWhileIdle);
+  }
+
+  private StreamHealthProber createProber(boolean enabled, int failureThreshold) {
+    return new StreamHealthProber(
+        new StreamHealthProperties(
+            enabled,
+            Duration.ofHours(1),
+            Duration.ofSeconds(2),
+            failureThreshold,
+            4,
+            100,
+            Duration.ofHours(1)),
+        new SimpleMeterRegistry());
+  }
+}
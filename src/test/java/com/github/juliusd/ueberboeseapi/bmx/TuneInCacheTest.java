@@ -0,0 +1,175 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.juliusd.ueberboeseapi.Await.waitUntil;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TuneInCacheTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void getAsync_shouldServeFreshValueWithoutLoadingAgain() {
+    var cache = createCache(properties(100), null);
+
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+    now.addAndGet(Duration.ofMinutes(59).toMillis());
+
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void getAsync_shouldServeStaleValueAndRefreshInBackground() throws InterruptedException {
+    var cache = createCache(properties(100), null);
+    cache.getAsync("s1", this::load).join();
+    now.addAndGet(Duration.ofHours(2).toMillis());
+
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+
+    waitForLoads(2);
+    waitUntil(() -> cache.getAsync("s1", this::load).join().equals("s1#2"));
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void getAsync_shouldKeepStaleValueWhenBackgroundRefreshFails() throws InterruptedException {
+    var cache = createCache(properties(100), null);
+    cache.getAsync("s1", this::load).join();
+    now.addAndGet(Duration.ofHours(2).toMillis());
+    CountDownLatch refreshed = new CountDownLatch(1);
+
+    assertThat(
+            cache
+                .getAsync(
+                    "s1",
+                    key -> {
+                      refreshed.countDown();
+                      throw new RuntimeException("TuneIn down");
+                    })
+                .join())
+        .isEqualTo("s1#1");
+    assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // The failed refresh is retried only after the negative TTL
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void getAsync_shouldLoadAgainWhenValueIsTooOld() {
+    var cache = createCache(properties(100), null);
+    cache.getAsync("s1", this::load).join();
+    now.addAndGet(Duration.ofDays(8).toMillis());
+
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#2");
+  }
+
+  @Test
+  void getAsync_shouldRememberFailuresForNegativeTtl() {
+    var cache = createCache(properties(100), null);
+    AtomicInteger attempts = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(
+              () ->
+                  cache
+                      .getAsync(
+                          "s1",
+                          key -> {
+                            attempts.incrementAndGet();
+                            return CompletableFuture.failedFuture(
+                                new RuntimeException("TuneIn down"));
+                          })
+                      .join())
+          .isInstanceOf(CompletionException.class)
+          .hasRootCauseMessage("TuneIn down");
+    }
+    assertThat(attempts).hasValue(1);
+
+    now.addAndGet(Duration.ofSeconds(31).toMillis());
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+  }
+
+  @Test
+  void getAsync_shouldEvictLeastRecentlyUsedStations() {
+    var cache = createCache(properties(2), null);
+    cache.getAsync("s1", this::load).join();
+    cache.getAsync("s2", this::load).join();
+    cache.getAsync("s1", this::load).join();
+    cache.getAsync("s3", this::load).join();
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+    assertThat(cache.getAsync("s2", this::load).join()).isEqualTo("s2#4");
+  }
+
+  @Test
+  void getAsync_shouldRestorePersistedValuesAfterRestart() {
+    Map<String, TuneInCache.Persisted<String>> stored = new HashMap<>();
+    TuneInCache.Persistence<String> persistence =
+        new TuneInCache.Persistence<>() {
+          @Override
+          public Optional<TuneInCache.Persisted<String>> find(String key) {
+            return Optional.ofNullable(stored.get(key));
+          }
+
+          @Override
+          public void save(String key, String value, Instant fetchedAt) {
+            stored.put(key, new TuneInCache.Persisted<>(value, fetchedAt));
+          }
+        };
+    createCache(properties(100), persistence).getAsync("s1", this::load).join();
+
+    var restarted = createCache(properties(100), persistence);
+
+    assertThat(restarted.getAsync("s1", this::load).join()).isEqualTo("s1#1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void getAsync_shouldBypassCacheWhenDisabled() {
+    var cache =
+        createCache(
+            new TuneInCacheProperties(
+                false, 100, Duration.ofHours(1), Duration.ofDays(7), Duration.ofSeconds(30), false),
+            null);
+
+    cache.getAsync("s1", this::load).join();
+    cache.getAsync("s1", this::load).join();
+
+    assertThat(loads).hasValue(2);
+  }
+
+  private TuneInCache<String> createCache(
+      TuneInCacheProperties properties, TuneInCache.Persistence<String> persistence) {
+    return new TuneInCache<>("test", properties, persistence, now::get);
+  }
+
+  private static TuneInCacheProperties properties(int maxEntries) {
+    return new TuneInCacheProperties(
+        true, maxEntries, Duration.ofHours(1), Duration.ofDays(7), Duration.ofSeconds(30), false);
+  }
+
+  private CompletableFuture<String> load(String key) {
+    return CompletableFuture.completedFuture(key + "#" + loads.incrementAndGet());
+  }
+
+  private void waitForLoads(int expected) throws InterruptedException {
+    waitUntil(() -> loads.get() >= expected);
+  }
+}
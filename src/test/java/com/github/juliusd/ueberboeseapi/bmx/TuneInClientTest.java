@@ -0,0 +1,123 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+class TuneInClientTest {
+
+  private static final int DESCRIBE_DELAY_MILLIS = 800;
+  private static final int TUNE_DELAY_MILLIS = 700;
+
+  private WireMockServer wireMockServer;
+
+  @BeforeEach
+  void startWireMock() {
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+    wireMockServer.start();
+    stubStation("s1", DESCRIBE_DELAY_MILLIS, TUNE_DELAY_MILLIS);
+    stubStation("warmup", 0, 0);
+  }
+
+  @AfterEach
+  void stopWireMock() {
+    wireMockServer.stop();
+  }
+
+  @Test
+  void station_shouldFetchMetadataAndStreamUrlsConcurrently() {
+    TuneInClient client = createClient(Duration.ofSeconds(5), cacheProperties(false));
+    // The first request pays for setting up the HTTP client
+    client.station("warmup").block();
+
+    long started = System.nanoTime();
+    TuneInClient.Station station = client.station("s1").block();
+    long elapsedMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+    assertThat(station.metadata().getName()).isEqualTo("Station s1");
+    assertThat(station.streamUrls()).containsExactly("https://stream.example.com/s1");
+    // max(a, b) rather than a + b
+    assertThat(elapsedMillis)
+        .isGreaterThanOrEqualTo(DESCRIBE_DELAY_MILLIS)
+        .isLessThan(DESCRIBE_DELAY_MILLIS + TUNE_DELAY_MILLIS);
+  }
+
+  @Test
+  void station_shouldFailWhenARequestTimesOut() {
+    TuneInClient client = createClient(Duration.ofMillis(300), cacheProperties(false));
+
+    assertThatThrownBy(() -> client.station("s1").block())
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Failed to fetch TuneIn");
+  }
+
+  @Test
+  void station_shouldServeCachedStationWithoutAskingTuneInAgain() {
+    TuneInClient client = createClient(Duration.ofSeconds(5), cacheProperties(true));
+
+    client.station("s1").block();
+    TuneInClient.Station station = client.station("s1").block();
+
+    assertThat(station.metadata().getName()).isEqualTo("Station s1");
+    wireMockServer.verify(1, getRequestedFor(urlEqualTo("/describe.ashx?id=s1")));
+    wireMockServer.verify(1, getRequestedFor(urlEqualTo("/Tune.ashx?id=s1")));
+  }
+
+  private TuneInClient createClient(Duration timeout, TuneInCacheProperties cacheProperties) {
+    String baseUrl = "http://localhost:" + wireMockServer.port();
+    return new TuneInClient(
+        new TuneInApiUrlProperties(
+            baseUrl + "/describe.ashx?id=%s", baseUrl + "/Tune.ashx?id=%s", timeout, timeout),
+        cacheProperties,
+        hedgingProperties(false),
+        null,
+        JsonMapper.builder().build(),
+        new SimpleMeterRegistry());
+  }
+
+  private static TuneInHedgingProperties hedgingProperties(boolean enabled) {
+    return new TuneInHedgingProperties(enabled, 100, 20, 3, Duration.ofSeconds(1), 0.1, 10);
+  }
+
+  private static TuneInCacheProperties cacheProperties(boolean enabled) {
+    return new TuneInCacheProperties(
+        enabled, 100, Duration.ofHours(1), Duration.ofDays(7), Duration.ofSeconds(30), false);
+  }
+
+  private void stubStation(String stationId, int describeDelayMillis, int tuneDelayMillis) {
+    wireMockServer.stubFor(
+        get(urlEqualTo("/describe.ashx?id=" + stationId))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withFixedDelay(describeDelayMillis)
+                    .withBody(
+                        """
+                        <?xml version="1.0" encoding="UTF-8"?>
+                        <opml version="1"><head><status>200</status></head>
+                          <body><outline type="object">
+                            <station><name>Station %s</name><logo>https://logo/%s.png</logo></station>
+                          </outline></body>
+                        </opml>"""
+                            .formatted(stationId, stationId))));
+    wireMockServer.stubFor(
+        get(urlEqualTo("/Tune.ashx?id=" + stationId))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withFixedDelay(tuneDelayMillis)
+                    .withBody("https://stream.example.com/" + stationId)));
+  }
+}
@@ -0,0 +1,133 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class TuneInHedgerTest {
+
+  private static final int MIN_SAMPLES = 5;
+
+  @Test
+  void execute_shouldNotHedgeBeforeEnoughLatenciesAreKnown() {
+    TuneInHedger hedger = createHedger(Duration.ofSeconds(5), 1, 10);
+    AtomicInteger requests = new AtomicInteger();
+
+    String result = hedger.execute(() -> respond(requests, Duration.ofMillis(200))).block();
+
+    assertThat(result).isEqualTo("response 1");
+    assertThat(requests).hasValue(1);
+    assertThat(hedger.timeout()).isEqualTo(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void execute_shouldUseTheHedgeWhenItAnswersFirst() {
+    TuneInHedger hedger = createHedger(Duration.ofSeconds(5), 1, 10);
+    warmUp(hedger, Duration.ofMillis(20));
+
+    // The first request hangs, its hedge answers right away
+    AtomicInteger requests = new AtomicInteger();
+    long started = System.nanoTime();
+    String result =
+        hedger
+            .execute(
+                () ->
+                    requests.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(3)).map(tick -> "primary")
+                        : Mono.just("hedge"))
+            .block();
+
+    assertThat(result).isEqualTo("hedge");
+    assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+    assertThat(hedger.getHedgesFired()).isEqualTo(1);
+    assertThat(hedger.getHedgesWon()).isEqualTo(1);
+  }
+
+  @Test
+  void execute_shouldAdaptTheTimeoutToRecentLatencies() {
+    TuneInHedger hedger = createHedger(Duration.ofSeconds(5), 0, 0);
+    warmUp(hedger, Duration.ofMillis(20));
+
+    assertThat(hedger.timeout()).isEqualTo(Duration.ofMillis(100));
+    assertThatThrownBy(
+            () -> hedger.execute(() -> Mono.delay(Duration.ofSeconds(3)).map(tick -> "")).block())
+        .hasCauseInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  void execute_shouldNotHedgeBeyondTheBudget() {
+    TuneInHedger hedger = createHedger(Duration.ofSeconds(5), 0.1, 1);
+    warmUp(hedger, Duration.ofMillis(1), 100);
+
+    // Every first request is slow and its hedge fast, but only one hedge is saved up
+    AtomicInteger hedged = new AtomicInteger();
+    for (int i = 0; i < 3; i++) {
+      AtomicInteger requests = new AtomicInteger();
+      String result =
+          hedger
+              .execute(
+                  () ->
+                      requests.incrementAndGet() == 1
+                          ? Mono.delay(Duration.ofMillis(50)).map(tick -> "primary")
+                          : Mono.just("hedge"))
+              .block();
+      if (result.equals("hedge")) {
+        hedged.incrementAndGet();
+      }
+    }
+
+    assertThat(hedged).hasValue(1);
+    assertThat(hedger.getHedgesFired()).isEqualTo(1);
+  }
+
+  @Test
+  void execute_shouldNotHedgeAFailedRequest() {
+    TuneInHedger hedger = createHedger(Duration.ofSeconds(5), 1, 10);
+    warmUp(hedger, Duration.ofMillis(20));
+    AtomicInteger requests = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                hedger
+                    .execute(
+                        () -> {
+                          requests.incrementAndGet();
+                          return Mono.error(new IllegalStateException("TuneIn down"));
+                        })
+                    .block())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("TuneIn down");
+    assertThat(requests).hasValue(1);
+    assertThat(hedger.getHedgesFired()).isZero();
+  }
+
+  private static TuneInHedger createHedger(
+      Duration maxTimeout, double budgetRatio, int budgetBurst) {
+    return new TuneInHedger(
+        "test",
+        new TuneInHedgingProperties(
+            true, 100, MIN_SAMPLES, 3, Duration.ofMillis(100), budgetRatio, budgetBurst),
+        maxTimeout,
+        new SimpleMeterRegistry());
+  }
+
+  private static void warmUp(TuneInHedger hedger, Duration latency) {
+    warmUp(hedger, latency, MIN_SAMPLES);
+  }
+
+  private static void warmUp(TuneInHedger hedger, Duration latency, int requests) {
+    for (int i = 0; i < requests; i++) {
+      hedger.execute(() -> Mono.delay(latency).map(tick -> "warm-up")).block();
+    }
+  }
+
+  private static Mono<String> respond(AtomicInteger requests, Duration latency) {
+    return Mono.delay(latency).map(tick -> "response " + requests.incrementAndGet());
+  }
+}
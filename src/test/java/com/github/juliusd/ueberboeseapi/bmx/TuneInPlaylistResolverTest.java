@@ -0,0 +1,137 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPlaylistResolver.ResolvedStream;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TuneInPlaylistResolverTest {
+
+  private WireMockServer wireMockServer;
+  private String baseUrl;
+
+  @BeforeEach
+  void startWireMock() {
+    wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+    wireMockServer.start();
+    baseUrl = "http://localhost:" + wireMockServer.port();
+  }
+
+  @AfterEach
+  void stopWireMock() {
+    wireMockServer.stop();
+  }
+
+  @Test
+  void parsePlaylist_shouldReadPlsFileEntries() {
+    var entries =
+        TuneInPlaylistResolver.parsePlaylist(
+            """
+            [Playlist]
+            NumberOfEntries=3
+            File1=http://stream.example.com/a.mp3
+            Title1=A
+            file2 = http://stream.example.com/b.mp3
+            File3=http://stream.example.com/a.mp3
+            Version=2
+            """,
+            "http://example.com/radio.pls");
+
+    assertThat(entries)
+        .containsExactly("http://stream.example.com/a.mp3", "http://stream.example.com/b.mp3");
+  }
+
+  @Test
+  void parsePlaylist_shouldReadM3uEntriesAndResolveRelativeUrls() {
+    var entries =
+        TuneInPlaylistResolver.parsePlaylist(
+            "#EXTM3U\r\n#EXTINF:-1,Radio\r\nlive.mp3\r\n\r\nrtsp://example.com/x\r\n"
+                + "https://cdn.example.com/live.aac\r\n",
+            "http://example.com/lists/radio.m3u");
+
+    assertThat(entries)
+        .containsExactly("http://example.com/lists/live.mp3", "https://cdn.example.com/live.aac");
+  }
+
+  @Test
+  void resolve_shouldFlattenNestedPlaylistsInOrder() {
+    stubPlaylist("/outer.m3u", baseUrl + "/inner.pls\nhttps://stream.example.com/outer.mp3");
+    stubPlaylist("/inner.pls", "[playlist]\nFile1=https://stream.example.com/inner.mp3");
+
+    var streams =
+        createResolver(true)
+            .resolve(
+                List.of(
+                    "https://stream.example.com/direct",
+                    baseUrl + "/outer.m3u",
+                    "https://stream.example.com/live.m3u8"))
+            .block();
+
+    assertThat(streams)
+        .containsExactly(
+            new ResolvedStream("https://stream.example.com/direct", true),
+            new ResolvedStream("https://stream.example.com/inner.mp3", false),
+            new ResolvedStream("https://stream.example.com/outer.mp3", false),
+            new ResolvedStream("https://stream.example.com/live.m3u8", true));
+  }
+
+  @Test
+  void resolve_shouldPassOnPlaylistsThatCannotBeFetched() {
+    wireMockServer.stubFor(get(urlEqualTo("/gone.pls")).willReturn(aResponse().withStatus(404)));
+    stubPlaylist("/empty.m3u", "#EXTM3U\n");
+
+    var streams =
+        createResolver(true)
+            .resolve(List.of(baseUrl + "/gone.pls", baseUrl + "/empty.m3u"))
+            .block();
+
+    assertThat(streams)
+        .containsExactly(
+            new ResolvedStream(baseUrl + "/gone.pls", true),
+            new ResolvedStream(baseUrl + "/empty.m3u", true));
+  }
+
+  @Test
+  void resolve_shouldServeCachedPlaylists() {
+    stubPlaylist("/radio.pls", "[playlist]\nFile1=https://stream.example.com/radio.mp3");
+    TuneInPlaylistResolver resolver = createResolver(true);
+
+    resolver.resolve(List.of(baseUrl + "/radio.pls")).block();
+    var streams = resolver.resolve(List.of(baseUrl + "/radio.pls")).block();
+
+    assertThat(streams)
+        .containsExactly(ResolvedStream.direct("https://stream.example.com/radio.mp3"));
+    wireMockServer.verify(1, getRequestedFor(urlEqualTo("/radio.pls")));
+  }
+
+  @Test
+  void resolve_shouldPassOnAllUrlsWhenDisabled() {
+    var streams = createResolver(false).resolve(List.of(baseUrl + "/radio.pls")).block();
+
+    assertThat(streams).containsExactly(ResolvedStream.unresolved(baseUrl + "/radio.pls"));
+    wireMockServer.verify(0, getRequestedFor(urlEqualTo("/radio.pls")));
+  }
+
+  private TuneInPlaylistResolver createResolver(boolean enabled) {
+    return new TuneInPlaylistResolver(
+        new TuneInPlaylistProperties(
+            enabled, Duration.ofSeconds(2), Duration.ofMinutes(10), Duration.ofDays(1), 100),
+        new TuneInCacheProperties(
+            true, 100, Duration.ofHours(1), Duration.ofDays(7), Duration.ofSeconds(30), false));
+  }
+
+  private void stubPlaylist(String path, String body) {
+    wireMockServer.stubFor(
+        get(urlEqualTo(path)).willReturn(aResponse().withStatus(200).withBody(body)));
+  }
+}
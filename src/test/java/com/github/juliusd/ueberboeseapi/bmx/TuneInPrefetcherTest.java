@@ -0,0 +1,148 @@
+package com.github.juliusd.ueberboeseapi.bmx;
+
+import static com.github.juliusd.ueberboeseapi.Await.waitUntil;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class TuneInPrefetcherTest {
+
+  private final TuneInClient tuneInClient = mock(TuneInClient.class);
+  private final TuneInPlaylistResolver playlistResolver = mock(TuneInPlaylistResolver.class);
+  private TuneInPrefetcher prefetcher;
+
+  @BeforeEach
+  void resolvePlaylists() {
+    when(playlistResolver.resolve(anyList())).thenReturn(Mono.just(List.of()));
+  }
+
+  @AfterEach
+  void stopPrefetcher() throws InterruptedException {
+    if (prefetcher != null) {
+      prefetcher.destroy();
+    }
+  }
+
+  @Test
+  void stationIdOf_shouldOnlyAcceptTuneInStationLocations() {
+    assertThat(TuneInPrefetcher.stationIdOf("/v1/playback/station/s80044")).isEqualTo("s80044");
+    assertThat(TuneInPrefetcher.stationIdOf("/playback/container/abc123")).isNull();
+    assertThat(TuneInPrefetcher.stationIdOf("/v1/playback/station/s1/../x")).isNull();
+    assertThat(TuneInPrefetcher.stationIdOf(null)).isNull();
+  }
+
+  @Test
+  void prefetchLocations_shouldFetchEveryStationWithBoundedConcurrency() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    when(tuneInClient.station(anyString()))
+        .thenAnswer(
+            invocation ->
+                Mono.fromRunnable(
+                        () -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                    .then(Mono.delay(Duration.ofMillis(50)))
+                    .doOnTerminate(running::decrementAndGet)
+                    .thenReturn(station(invocation.getArgument(0))));
+    prefetcher = createPrefetcher(3, 100);
+
+    List<String> locations = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      locations.add("/v1/playback/station/s" + i);
+    }
+    locations.add("/playback/container/abc123");
+
+    assertThat(prefetcher.prefetchLocations(locations)).isEqualTo(20);
+
+    waitUntil(() -> prefetcher.getPrefetchedCount() == 20);
+    assertThat(maxRunning.get()).isBetween(1, 3);
+  }
+
+  @Test
+  void prefetchLocations_shouldSkipStationsThatAreAlreadyQueued() throws Exception {
+    when(tuneInClient.station(anyString()))
+        .thenAnswer(
+            invocation ->
+                Mono.delay(Duration.ofMillis(200)).thenReturn(station(invocation.getArgument(0))));
+    prefetcher = createPrefetcher(1, 100);
+
+    int queued =
+        prefetcher.prefetchLocations(List.of("/v1/playback/station/s1", "/v1/playback/station/s2"));
+    int queuedAgain = prefetcher.prefetchLocations(List.of("/v1/playback/station/s1"));
+
+    assertThat(queued).isEqualTo(2);
+    assertThat(queuedAgain).isZero();
+    waitUntil(() -> prefetcher.getPrefetchedCount() == 2);
+  }
+
+  @Test
+  void prefetchLocations_shouldCountFailures() throws Exception {
+    when(tuneInClient.station(anyString()))
+        .thenReturn(Mono.error(new RuntimeException("TuneIn down")));
+    prefetcher = createPrefetcher(2, 100);
+
+    prefetcher.prefetchLocations(List.of("/v1/playback/station/s1"));
+
+    waitUntil(() -> prefetcher.getFailedCount() == 1);
+    // Failed stations can be queued again
+    AtomicInteger requeued = new AtomicInteger();
+    waitUntil(
+        () ->
+            requeued.addAndGet(prefetcher.prefetchLocations(List.of("/v1/playback/station/s1")))
+                == 1);
+  }
+
+  @Test
+  void prefetchLocations_shouldFetchStationsServedFromCacheWithoutWaiting() {
+    when(tuneInClient.station(anyString()))
+        .thenAnswer(invocation -> Mono.just(station(invocation.getArgument(0))));
+    prefetcher = createPrefetcher(1, 1000);
+
+    List<String> locations = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      locations.add("/v1/playback/station/s" + i);
+    }
+
+    // Cached lookups complete synchronously, so everything is fetched before the call returns
+    assertThat(prefetcher.prefetchLocations(locations)).isEqualTo(1000);
+    assertThat(prefetcher.getPrefetchedCount()).isEqualTo(1000);
+  }
+
+  @Test
+  void prefetchLocations_shouldResolvePlaylistsOfPrefetchedStations() throws Exception {
+    when(tuneInClient.station(anyString()))
+        .thenAnswer(invocation -> Mono.just(station(invocation.getArgument(0))));
+    prefetcher = createPrefetcher(1, 100);
+
+    prefetcher.prefetchLocations(List.of("/v1/playback/station/s1"));
+
+    waitUntil(() -> prefetcher.getPrefetchedCount() == 1);
+    verify(playlistResolver).resolve(List.of("https://stream.example.com/s1"));
+  }
+
+  private TuneInPrefetcher createPrefetcher(int maxConcurrency, int queueCapacity) {
+    return new TuneInPrefetcher(
+        tuneInClient,
+        playlistResolver,
+        new TuneInPrefetchProperties(true, maxConcurrency, queueCapacity),
+        new SimpleMeterRegistry());
+  }
+
+  private static TuneInClient.Station station(String stationId) {
+    var metadata = new TuneInClient.StationMetadata();
+    metadata.setName(stationId);
+    return new TuneInClient.Station(metadata, List.of("https://stream.example.com/" + stationId));
+  }
+}
@@ -0,0 +1,164 @@
+package com.github.juliusd.ueberboeseapi.bmx.history;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+import com.github.juliusd.ueberboeseapi.TestBase;
+import com.github.juliusd.ueberboeseapi.bmx.report.RadioReportEvent;
+import com.github.juliusd.ueberboeseapi.device.Device;
+import io.restassured.http.ContentType;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ListeningHistoryServiceTest extends TestBase {
+
+  private static final OffsetDateTime STARTED_AT =
+      OffsetDateTime.of(2026, 5, 16, 10, 16, 15, 0, ZoneOffset.UTC);
+
+  @Autowired private ListeningHistoryService listeningHistoryService;
+  @Autowired private ListeningHistoryRepository listeningHistoryRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void clearHistory() {
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+    listeningHistoryRepository.deleteAll();
+    deviceRepository.save(
+        Device.builder()
+            .deviceId("587A628A4042")
+            .ipAddress("192.168.1.100")
+            .firstSeen(STARTED_AT)
+            .lastSeen(STARTED_AT)
+            .build());
+  }
+
+  @Test
+  void getMostPlayedStations_shouldAggregatePlaysPerStationAndDevice() {
+    listeningHistoryService.recordSessionStart(
+        "1001", "s80044", "Radio TEDDY", null, STARTED_AT, "192.168.1.100");
+    listeningHistoryService.recordSessionStart(
+        "1002", "s80044", "Radio TEDDY", null, STARTED_AT.plusHours(1), "192.168.1.200");
+    listeningHistoryService.recordSessionStart(
+        "1003", "s24896", "SWR3", null, STARTED_AT.plusHours(2), "192.168.1.100");
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+
+    var allDevices = listeningHistoryService.getMostPlayedStations(null, 10);
+    assertThat(allDevices)
+        .extracting(StationListeningStats::stationId)
+        .containsExactly("s80044", "s24896");
+    assertThat(allDevices.getFirst().playCount()).isEqualTo(2);
+    assertThat(allDevices.getFirst().lastPlayedAt()).isEqualTo(STARTED_AT.plusHours(1));
+
+    var device = listeningHistoryService.getMostPlayedStations("587A628A4042", 10);
+    assertThat(device).extracting(StationListeningStats::playCount).containsExactly(1L, 1L);
+    assertThat(listeningHistoryService.getMostPlayedStations("unknown", 10))
+        .extracting(StationListeningStats::stationId)
+        .containsExactly("s80044");
+  }
+
+  @Test
+  void recordReport_shouldAddListeningTimeIncrementally() {
+    listeningHistoryService.recordSessionStart(
+        "2001", "s80044", "Radio TEDDY", null, STARTED_AT, "192.168.1.100");
+    listeningHistoryService.recordReport("2001", report(RadioReportEvent.EventType.START, 0));
+    listeningHistoryService.recordReport("2001", report(RadioReportEvent.EventType.TIMED, 60));
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+    listeningHistoryService.recordReport("2001", report(RadioReportEvent.EventType.TIMED, 150));
+    // An older report arriving late does not reduce or double count the listening time
+    listeningHistoryService.recordReport("2001", report(RadioReportEvent.EventType.TIMED, 90));
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+
+    assertThat(
+            listeningHistoryService.getMostPlayedStations(null, 10).getFirst().listeningSeconds())
+        .isEqualTo(150);
+    assertThat(
+            listeningHistoryService
+                .getMostPlayedStations("587A628A4042", 10)
+                .getFirst()
+                .listeningSeconds())
+        .isEqualTo(150);
+    assertThat(countReports("2001")).isEqualTo(4);
+  }
+
+  @Test
+  void recordReport_shouldDropReportsOfUnknownSessions() {
+    listeningHistoryService.recordSessionStart(
+        "2101", "s80044", "Radio TEDDY", null, STARTED_AT, "192.168.1.100");
+    listeningHistoryService.recordReport("2101", report(RadioReportEvent.EventType.START, 0));
+    listeningHistoryService.recordReport("9999", report(RadioReportEvent.EventType.START, 0));
+    listeningHistoryService.recordReport("9999", report(RadioReportEvent.EventType.TIMED, 60));
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+
+    assertThat(countReports("2101")).isEqualTo(1);
+    assertThat(countReports("9999")).isZero();
+  }
+
+  @Test
+  void recordReport_shouldTruncateOversizedReasonsInsteadOfFailingTheBatch() {
+    listeningHistoryService.recordSessionStart(
+        "2201", "s80044", "Radio TEDDY", null, STARTED_AT, "192.168.1.100");
+    listeningHistoryService.recordReport(
+        "2201",
+        report(RadioReportEvent.EventType.START, 0).toBuilder()
+            .reason("R".repeat(1000))
+            .reasonSubCode("S".repeat(1000))
+            .build());
+    listeningHistoryService.recordReport(
+        "x".repeat(1000), report(RadioReportEvent.EventType.START, 0));
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+
+    assertThat(listeningHistoryService.getMostPlayedStations(null, 10)).hasSize(1);
+    assertThat(countReports("2201")).isEqualTo(1);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT LENGTH(REASON) FROM RADIO_REPORT_EVENT WHERE LISTEN_ID = ?",
+                Integer.class,
+                "2201"))
+        .isEqualTo(255);
+  }
+
+  @Test
+  void getTopStations_shouldReturnMostPlayedStations() {
+    listeningHistoryService.recordSessionStart(
+        "3001", "s24896", "SWR3", "https://example.com/swr3.png", STARTED_AT, "192.168.1.100");
+    listeningHistoryService.flush(Duration.ofSeconds(5));
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .accept(ContentType.JSON)
+        .queryParam("deviceId", "587A628A4042")
+        .when()
+        .get("/mgmt/radio-reports/top-stations")
+        .then()
+        .statusCode(200)
+        .body("stations", hasSize(1))
+        .body("stations[0].stationId", equalTo("s24896"))
+        .body("stations[0].stationName", equalTo("SWR3"))
+        .body("stations[0].playCount", equalTo(1));
+  }
+
+  private static RadioReportEvent report(RadioReportEvent.EventType eventType, int timeIntoTrack) {
+    return RadioReportEvent.builder()
+        .timeStamp(STARTED_AT.plusSeconds(timeIntoTrack))
+        .eventType(eventType)
+        .reason("USER_SELECT_PLAYABLE")
+        .timeIntoTrack(timeIntoTrack)
+        .playbackDelay(0)
+        .build();
+  }
+
+  private int countReports(String listenId) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM RADIO_REPORT_EVENT WHERE LISTEN_ID = ?", Integer.class, listenId);
+    return count != null ? count : 0;
+  }
+}
@@ -0,0 +1,121 @@
+package com.github.juliusd.ueberboeseapi.bmx.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class RadioReportBufferTest {
+
+  private static final OffsetDateTime TIME_STAMP =
+      OffsetDateTime.of(2026, 5, 13, 11, 1, 19, 0, ZoneOffset.ofHours(2));
+
+  @Test
+  void read_shouldReturnAppendedReport() {
+    var buffer = new RadioReportBuffer(4);
+    var event =
+        RadioReportEvent.builder()
+            .timeStamp(TIME_STAMP)
+            .eventType(RadioReportEvent.EventType.STOP)
+            .reason("USER_STOP")
+            .reasonSubCode("SUB")
+            .timeIntoTrack(120)
+            .playbackDelay(3)
+            .build();
+
+    long sequence = buffer.append("listen-1", event);
+
+    assertThat(buffer.read(sequence)).isEqualTo(event);
+    assertThat(buffer.format(sequence))
+        .isEqualTo(
+            "listenId=listen-1 eventType=STOP epochSecond=1778662879 offset=7200"
+                + " reason=USER_STOP reasonSubCode=SUB timeIntoTrack=120 playbackDelay=3");
+  }
+
+  @Test
+  void read_shouldReturnNullForOverwrittenReports() {
+    var buffer = new RadioReportBuffer(3);
+    long first = buffer.append("listen-1", event(0));
+    for (int i = 1; i < 5; i++) {
+      buffer.append("listen-1", event(i));
+    }
+
+    assertThat(buffer.read(first)).isNull();
+    assertThat(buffer.format(first)).isNull();
+    assertThat(buffer.read(first + 1)).isNull();
+    assertThat(buffer.read(first + 2).timeIntoTrack()).isEqualTo(2);
+    assertThat(buffer.read(first + 4).timeIntoTrack()).isEqualTo(4);
+    assertThat(buffer.read(first + 5)).isNull();
+  }
+
+  @Test
+  void clear_shouldForgetAllReports() {
+    var buffer = new RadioReportBuffer(3);
+    long sequence = buffer.append("listen-1", event(0));
+
+    buffer.clear();
+
+    assertThat(buffer.read(sequence)).isNull();
+    assertThat(buffer.read(buffer.append("listen-1", event(1))).timeIntoTrack()).isEqualTo(1);
+  }
+
+  @Test
+  void read_shouldNeverReturnTornReportsWhileWritersAppendConcurrently()
+      throws InterruptedException {
+    var buffer = new RadioReportBuffer(16);
+    AtomicLong lastSequence = new AtomicLong(-1);
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicReference<RadioReportEvent> torn = new AtomicReference<>();
+
+    Thread reader =
+        Thread.ofPlatform()
+            .start(
+                () -> {
+                  while (running.get()) {
+                    long last = lastSequence.get();
+                    for (long sequence = Math.max(0, last - 16); sequence <= last; sequence++) {
+                      RadioReportEvent event = buffer.read(sequence);
+                      if (event != null && !event.timeIntoTrack().equals(event.playbackDelay())) {
+                        torn.set(event);
+                      }
+                    }
+                  }
+                });
+    List<Thread> writers = new ArrayList<>();
+    for (int w = 0; w < 2; w++) {
+      writers.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    for (int i = 0; i < 20_000; i++) {
+                      var event = event(i).toBuilder().playbackDelay(i).build();
+                      lastSequence.accumulateAndGet(buffer.append("listen-1", event), Math::max);
+                    }
+                  }));
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    running.set(false);
+    reader.join();
+
+    assertThat(torn.get()).isNull();
+    assertThat(buffer.read(lastSequence.get())).isNotNull();
+  }
+
+  private static RadioReportEvent event(int timeIntoTrack) {
+    return RadioReportEvent.builder()
+        .timeStamp(TIME_STAMP)
+        .eventType(RadioReportEvent.EventType.TIMED)
+        .reason("TIMED_REPORT")
+        .timeIntoTrack(timeIntoTrack)
+        .playbackDelay(0)
+        .build();
+  }
+}
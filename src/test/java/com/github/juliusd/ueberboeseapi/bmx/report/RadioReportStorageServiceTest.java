@@ -0,0 +1,164 @@
+package com.github.juliusd.ueberboeseapi.bmx.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.bmx.BmxProperties;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class RadioReportStorageServiceTest {
+
+  private static final OffsetDateTime STARTED_AT = OffsetDateTime.parse("2026-05-16T10:16:15Z");
+
+  @Test
+  void getSessionReports_shouldReturnSessionsInStartOrderWithTheirReports() {
+    var service = new RadioReportStorageService(new BmxProperties(10, 4096));
+    startSession(service, "listen-1");
+    startSession(service, "listen-2");
+    service.store("listen-2", event(RadioReportEvent.EventType.START));
+    service.store("listen-1", event(RadioReportEvent.EventType.START));
+    service.store("listen-1", event(RadioReportEvent.EventType.STOP));
+    // Reports without a session are dropped
+    service.store("unknown", event(RadioReportEvent.EventType.START));
+
+    var reports = service.getSessionReports();
+
+    assertThat(reports)
+        .extracting(RadioSessionReport::listenId)
+        .containsExactly("listen-1", "listen-2");
+    assertThat(reports.getFirst().events())
+        .extracting(RadioReportEvent::eventType)
+        .containsExactly(RadioReportEvent.EventType.START, RadioReportEvent.EventType.STOP);
+    assertThat(service.getSession("listen-2")).isPresent();
+    assertThat(service.getSession("unknown")).isEmpty();
+  }
+
+  @Test
+  void startSession_shouldKeepPositionAndReportsWhenSessionIsRestarted() {
+    var service = new RadioReportStorageService(new BmxProperties(10, 4096));
+    startSession(service, "listen-1");
+    startSession(service, "listen-2");
+    service.store("listen-1", event(RadioReportEvent.EventType.START));
+
+    service.startSession("listen-1", "s2", "Other Station", null, STARTED_AT.plusMinutes(1));
+
+    var reports = service.getSessionReports();
+    assertThat(reports)
+        .extracting(RadioSessionReport::listenId)
+        .containsExactly("listen-1", "listen-2");
+    assertThat(reports.getFirst().session().stationName()).isEqualTo("Other Station");
+    assertThat(reports.getFirst().events()).hasSize(1);
+  }
+
+  @Test
+  void startSession_shouldEvictOldestSessionsBeyondThousandsOfReports() {
+    int maxReports = 5_000;
+    var service = new RadioReportStorageService(new BmxProperties(maxReports, 100_000));
+
+    for (int i = 0; i < 50_000; i++) {
+      startSession(service, "listen-" + i);
+      service.store("listen-" + i, event(RadioReportEvent.EventType.START));
+    }
+
+    var reports = service.getSessionReports();
+    assertThat(reports).hasSize(maxReports);
+    assertThat(reports.getFirst().listenId()).isEqualTo("listen-45000");
+    assertThat(reports.getLast().listenId()).isEqualTo("listen-49999");
+    assertThat(service.getSession("listen-44999")).isEmpty();
+    service.store("listen-0", event(RadioReportEvent.EventType.STOP));
+    assertThat(service.getSession("listen-0")).isEmpty();
+  }
+
+  @Test
+  void store_shouldStayBoundedUnderConcurrentWritersAndReaders() throws Exception {
+    int maxReports = 2_000;
+    var service = new RadioReportStorageService(new BmxProperties(maxReports, 100_000));
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int writer = 0; writer < 6; writer++) {
+        int offset = writer * 10_000;
+        tasks.add(
+            CompletableFuture.runAsync(
+                () -> {
+                  for (int i = 0; i < 10_000; i++) {
+                    String listenId = "listen-" + (offset + i);
+                    startSession(service, listenId);
+                    service.store(listenId, event(RadioReportEvent.EventType.START));
+                    service.store(listenId, event(RadioReportEvent.EventType.STOP));
+                  }
+                },
+                executor));
+      }
+      for (int reader = 0; reader < 2; reader++) {
+        tasks.add(
+            CompletableFuture.runAsync(
+                () -> {
+                  for (int i = 0; i < 200; i++) {
+                    // Readers never block writers and see consistent reports
+                    assertThat(service.getSessionReports())
+                        .allSatisfy(
+                            report -> assertThat(report.events().size()).isLessThanOrEqualTo(2));
+                  }
+                },
+                executor));
+      }
+      CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get();
+    }
+
+    var reports = service.getSessionReports();
+    assertThat(reports).hasSize(maxReports);
+    assertThat(reports).allSatisfy(report -> assertThat(report.events()).hasSize(2));
+  }
+
+  @Test
+  void getSessionReports_shouldOmitReportsOverwrittenInTheReportBuffer() {
+    var service = new RadioReportStorageService(new BmxProperties(10, 8));
+    startSession(service, "listen-1");
+    startSession(service, "listen-2");
+    service.store("listen-1", event(RadioReportEvent.EventType.START));
+    for (int i = 0; i < 100; i++) {
+      service.store("listen-2", event(RadioReportEvent.EventType.TIMED));
+    }
+
+    var reports = service.getSessionReports();
+
+    assertThat(reports.getFirst().events()).isEmpty();
+    assertThat(reports.getLast().events()).hasSize(8);
+  }
+
+  @Test
+  void store_shouldNotLetReportsOfUnknownSessionsOverwriteStoredReports() {
+    var service = new RadioReportStorageService(new BmxProperties(10, 8));
+    startSession(service, "listen-1");
+    service.store("listen-1", event(RadioReportEvent.EventType.START));
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(service.store("unknown-" + i, event(RadioReportEvent.EventType.START)))
+          .isEqualTo(RadioReportStorageService.NOT_STORED);
+    }
+
+    assertThat(service.getSessionReports().getFirst().events()).hasSize(1);
+    assertThat(service.formatReport("unknown-1", event(RadioReportEvent.EventType.START)))
+        .startsWith("listenId=unknown-1 eventType=START epochSecond=");
+  }
+
+  private static void startSession(RadioReportStorageService service, String listenId) {
+    service.startSession(listenId, "s80044", "Radio TEDDY", null, STARTED_AT);
+  }
+
+  private static RadioReportEvent event(RadioReportEvent.EventType eventType) {
+    return RadioReportEvent.builder()
+        .timeStamp(STARTED_AT)
+        .eventType(eventType)
+        .reason("USER_SELECT_PLAYABLE")
+        .timeIntoTrack(0)
+        .playbackDelay(0)
+        .build();
+  }
+}
@@ -0,0 +1,47 @@
+package com.github.juliusd.ueberboeseapi.bmx.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import org.junit.jupiter.api.Test;
+
+class ReportTimestampsTest {
+
+  @Test
+  void parse_shouldParseReportTimestamps() {
+    assertThat(ReportTimestamps.parse("2026-05-13T09:01:19+0000"))
+        .isEqualTo(OffsetDateTime.of(2026, 5, 13, 9, 1, 19, 0, ZoneOffset.UTC));
+    assertThat(ReportTimestamps.parse("2026-05-13T11:01:19+0200"))
+        .isEqualTo(OffsetDateTime.of(2026, 5, 13, 11, 1, 19, 0, ZoneOffset.ofHours(2)));
+    assertThat(ReportTimestamps.parse("2026-05-13T03:31:19-0530"))
+        .isEqualTo(
+            OffsetDateTime.of(2026, 5, 13, 3, 31, 19, 0, ZoneOffset.ofHoursMinutes(-5, -30)));
+  }
+
+  @Test
+  void parse_shouldFallBackToFormatterForOtherShapes() {
+    assertThat(ReportTimestamps.parse("2026-05-13T09:01:19.250+0000"))
+        .isEqualTo(OffsetDateTime.of(2026, 5, 13, 9, 1, 19, 250_000_000, ZoneOffset.UTC));
+    assertThat(ReportTimestamps.parse("2026-05-13T09:01:19+0007"))
+        .isEqualTo(OffsetDateTime.of(2026, 5, 13, 9, 1, 19, 0, ZoneOffset.ofHoursMinutes(0, 7)));
+  }
+
+  @Test
+  void parse_shouldRejectInvalidTimestamps() {
+    assertThatThrownBy(() -> ReportTimestamps.parse("2026-13-13T09:01:19+0000"))
+        .isInstanceOf(DateTimeParseException.class);
+    assertThatThrownBy(() -> ReportTimestamps.parse("2026-05-13 09:01:19+0000"))
+        .isInstanceOf(DateTimeParseException.class);
+    assertThatThrownBy(() -> ReportTimestamps.parse("2026-05-13T09:01:1x+0000"))
+        .isInstanceOf(DateTimeParseException.class);
+  }
+
+  @Test
+  void parse_shouldRejectOutOfRangeDayWithParseException() {
+    assertThatThrownBy(() -> ReportTimestamps.parse("2024-02-30T10:00:00+0000"))
+        .isInstanceOf(DateTimeParseException.class);
+  }
+}
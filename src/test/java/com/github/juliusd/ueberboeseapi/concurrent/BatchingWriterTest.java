@@ -0,0 +1,157 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BatchingWriterTest {
+
+  private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+  private BatchingWriter<Integer> writer;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (writer != null) {
+      writer.close(Duration.ofSeconds(5));
+    }
+  }
+
+  @Test
+  void flush_shouldWaitUntilOfferedElementsAreWritten() {
+    writer = new BatchingWriter<>("test-writer", 100, 10, batch -> batches.add(List.copyOf(batch)));
+    writer.start();
+
+    for (int i = 0; i < 25; i++) {
+      assertThat(writer.offer(i)).isTrue();
+    }
+
+    assertThat(writer.flush(Duration.ofSeconds(5))).isTrue();
+    assertThat(batches.stream().flatMap(List::stream).toList())
+        .containsExactlyElementsOf(range(25));
+    assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+  }
+
+  @Test
+  void offer_shouldWriteElementsQueuedWhileTheSinkIsBusyAsOneBatch() throws Exception {
+    CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    CountDownLatch releaseSink = new CountDownLatch(1);
+    writer =
+        new BatchingWriter<>(
+            "test-writer",
+            100,
+            10,
+            batch -> {
+              batches.add(List.copyOf(batch));
+              firstBatchStarted.countDown();
+              awaitQuietly(releaseSink);
+            });
+    writer.start();
+
+    writer.offer(0);
+    firstBatchStarted.await();
+    writer.offer(1);
+    writer.offer(2);
+    writer.offer(3);
+    releaseSink.countDown();
+
+    assertThat(writer.flush(Duration.ofSeconds(5))).isTrue();
+    assertThat(batches).containsExactly(List.of(0), List.of(1, 2, 3));
+  }
+
+  @Test
+  void offer_shouldRejectElementsBeyondCapacity() {
+    writer = new BatchingWriter<>("test-writer", 2, 10, batches::add);
+
+    assertThat(writer.offer(1)).isTrue();
+    assertThat(writer.offer(2)).isTrue();
+    assertThat(writer.offer(3)).isFalse();
+    assertThat(writer.size()).isEqualTo(2);
+  }
+
+  @Test
+  void flush_shouldTimeOutWhileTheSinkIsBlocked() {
+    CountDownLatch releaseSink = new CountDownLatch(1);
+    writer = new BatchingWriter<>("test-writer", 10, 10, batch -> awaitQuietly(releaseSink));
+    writer.start();
+    writer.offer(1);
+
+    assertThat(writer.flush(Duration.ofMillis(50))).isFalse();
+
+    releaseSink.countDown();
+    assertThat(writer.flush(Duration.ofSeconds(5))).isTrue();
+  }
+
+  @Test
+  void flush_shouldCountBatchesThatFailedToWrite() {
+    writer =
+        new BatchingWriter<>(
+            "test-writer",
+            10,
+            1,
+            batch -> {
+              if (batch.getFirst() == 1) {
+                throw new IllegalStateException("boom");
+              }
+              batches.add(List.copyOf(batch));
+            });
+    writer.start();
+    writer.offer(1);
+    writer.offer(2);
+
+    assertThat(writer.flush(Duration.ofSeconds(5))).isTrue();
+    assertThat(batches).containsExactly(List.of(2));
+  }
+
+  @Test
+  void close_shouldWriteQueuedElementsAndRejectNewOnes() throws InterruptedException {
+    CountDownLatch releaseSink = new CountDownLatch(1);
+    writer =
+        new BatchingWriter<>(
+            "test-writer",
+            100,
+            10,
+            batch -> {
+              awaitQuietly(releaseSink);
+              batches.add(List.copyOf(batch));
+            });
+    writer.start();
+    for (int i = 0; i < 5; i++) {
+      writer.offer(i);
+    }
+
+    releaseSink.countDown();
+    writer.close(Duration.ofSeconds(5));
+
+    assertThat(writer.offer(99)).isFalse();
+    assertThat(batches.stream().flatMap(List::stream).toList()).containsExactlyElementsOf(range(5));
+  }
+
+  @Test
+  void constructor_shouldRejectNonPositiveCapacity() {
+    assertThatThrownBy(() -> new BatchingWriter<Integer>("test-writer", 0, 1, batches::add))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<Integer> range(int count) {
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      values.add(i);
+    }
+    return values;
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
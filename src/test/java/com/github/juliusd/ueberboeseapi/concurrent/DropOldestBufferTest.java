@@ -0,0 +1,72 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DropOldestBufferTest {
+
+  @Test
+  void offer_shouldDropOldestElementsWhenFull() throws InterruptedException {
+    DropOldestBuffer<Integer> buffer = new DropOldestBuffer<>(3);
+    for (int i = 1; i <= 5; i++) {
+      buffer.offer(i);
+    }
+
+    assertThat(buffer.size()).isEqualTo(3);
+    assertThat(buffer.takeDropped()).isEqualTo(2);
+    assertThat(buffer.takeDropped()).isZero();
+    assertThat(buffer.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(3);
+    assertThat(buffer.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(4);
+    assertThat(buffer.poll(0, TimeUnit.MILLISECONDS)).isEqualTo(5);
+    assertThat(buffer.poll(0, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void poll_shouldWaitForElement() throws Exception {
+    DropOldestBuffer<String> buffer = new DropOldestBuffer<>(2);
+    CompletableFuture<String> result =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return buffer.poll(5, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+
+    buffer.offer("event");
+
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("event");
+  }
+
+  @Test
+  void close_shouldWakeUpConsumerAndIgnoreFurtherElements() throws Exception {
+    DropOldestBuffer<String> buffer = new DropOldestBuffer<>(2);
+    CompletableFuture<String> result =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return buffer.poll(30, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+
+    buffer.close();
+    buffer.offer("late");
+
+    assertThat(result.get(5, TimeUnit.SECONDS)).isNull();
+    assertThat(buffer.isClosed()).isTrue();
+    assertThat(buffer.size()).isZero();
+  }
+
+  @Test
+  void constructor_shouldRejectNonPositiveCapacity() {
+    assertThatThrownBy(() -> new DropOldestBuffer<>(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
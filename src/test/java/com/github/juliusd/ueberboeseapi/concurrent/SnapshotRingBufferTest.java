@@ -0,0 +1,75 @@
+package com.github.juliusd.ueberboeseapi.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class SnapshotRingBufferTest {
+
+  @Test
+  void snapshot_shouldReturnElementsOldestFirst() {
+    SnapshotRingBuffer<Integer> buffer = new SnapshotRingBuffer<>(5);
+
+    buffer.addAll(List.of(1, 2, 3));
+
+    assertThat(buffer.snapshot()).containsExactly(1, 2, 3);
+    assertThat(buffer.size()).isEqualTo(3);
+  }
+
+  @Test
+  void addAll_shouldOverwriteOldestElementsWhenFull() {
+    SnapshotRingBuffer<Integer> buffer = new SnapshotRingBuffer<>(3);
+
+    buffer.addAll(List.of(1, 2));
+    buffer.addAll(List.of(3, 4, 5, 6));
+
+    assertThat(buffer.snapshot()).containsExactly(4, 5, 6);
+    assertThat(buffer.size()).isEqualTo(3);
+  }
+
+  @Test
+  void snapshot_shouldStayOrderedWhileWritersAppendConcurrently() throws InterruptedException {
+    SnapshotRingBuffer<Integer> buffer = new SnapshotRingBuffer<>(50);
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicReference<List<Integer>> broken = new AtomicReference<>();
+
+    Thread reader =
+        Thread.ofPlatform()
+            .start(
+                () -> {
+                  while (running.get()) {
+                    List<Integer> snapshot = buffer.snapshot();
+                    for (int i = 1; i < snapshot.size(); i++) {
+                      if (snapshot.get(i) <= snapshot.get(i - 1)) {
+                        broken.set(snapshot);
+                      }
+                    }
+                  }
+                });
+    Thread writer =
+        Thread.ofPlatform()
+            .start(
+                () -> {
+                  for (int i = 0; i < 20_000; i += 10) {
+                    buffer.addAll(IntStream.range(i, i + 10).boxed().toList());
+                  }
+                });
+    writer.join();
+    running.set(false);
+    reader.join();
+
+    assertThat(broken.get()).isNull();
+    assertThat(buffer.snapshot()).isEqualTo(IntStream.range(19_950, 20_000).boxed().toList());
+  }
+
+  @Test
+  void constructor_shouldRejectNonPositiveCapacity() {
+    assertThatThrownBy(() -> new SnapshotRingBuffer<>(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
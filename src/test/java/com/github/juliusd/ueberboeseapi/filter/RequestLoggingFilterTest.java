@@ -0,0 +1,107 @@
+package com.github.juliusd.ueberboeseapi.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.github.juliusd.ueberboeseapi.filter.RequestLoggingProperties.CaptureMode;
+import com.github.juliusd.ueberboeseapi.filter.RequestLoggingProperties.CapturePolicy;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+class RequestLoggingFilterTest {
+
+  private final Logger eventLog =
+      (Logger) LoggerFactory.getLogger("com.github.juliusd.ueberboeseapi.EventLog");
+  private Level originalLevel;
+
+  @BeforeEach
+  void setUp() {
+    originalLevel = eventLog.getLevel();
+    eventLog.setLevel(Level.DEBUG);
+  }
+
+  @AfterEach
+  void tearDown() {
+    eventLog.setLevel(originalLevel);
+  }
+
+  @Test
+  void shouldCaptureEventReportBodyWhenPolicyIsAlways() throws Exception {
+    MockFilterChain chain = filter(CaptureMode.ALWAYS, 1.0, 1024);
+
+    assertThat(chain.getRequest()).isInstanceOf(ContentCachingRequestWrapper.class);
+  }
+
+  @Test
+  void shouldNotCaptureBodyWhenPolicyIsOff() throws Exception {
+    MockFilterChain chain = filter(CaptureMode.OFF, 1.0, 1024);
+
+    assertThat(chain.getRequest()).isNotInstanceOf(ContentCachingRequestWrapper.class);
+  }
+
+  @Test
+  void shouldNotCaptureBodyWhenSampledOut() throws Exception {
+    MockFilterChain chain = filter(CaptureMode.SAMPLED, 0.0, 1024);
+
+    assertThat(chain.getRequest()).isNotInstanceOf(ContentCachingRequestWrapper.class);
+  }
+
+  @Test
+  void shouldNotCaptureBodyWhenTargetLoggerIsDisabled() throws Exception {
+    eventLog.setLevel(Level.INFO);
+
+    MockFilterChain chain = filter(CaptureMode.ALWAYS, 1.0, 1024);
+
+    assertThat(chain.getRequest()).isNotInstanceOf(ContentCachingRequestWrapper.class);
+  }
+
+  @Test
+  void shouldCapBufferedBodyAtConfiguredSize() throws Exception {
+    MockFilterChain chain =
+        new MockFilterChain() {
+          @Override
+          public void doFilter(ServletRequest request, ServletResponse response)
+              throws IOException, ServletException {
+            super.doFilter(request, response);
+            request.getInputStream().readAllBytes();
+          }
+        };
+    newFilter(CaptureMode.ALWAYS, 1.0, 4)
+        .doFilter(eventReport(), new MockHttpServletResponse(), chain);
+
+    ContentCachingRequestWrapper wrapper = (ContentCachingRequestWrapper) chain.getRequest();
+    assertThat(wrapper.getContentAsByteArray()).hasSize(4);
+  }
+
+  private MockFilterChain filter(CaptureMode mode, double sampleRate, int maxBodyBytes)
+      throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+    newFilter(mode, sampleRate, maxBodyBytes)
+        .doFilter(eventReport(), new MockHttpServletResponse(), chain);
+    return chain;
+  }
+
+  private static RequestLoggingFilter newFilter(
+      CaptureMode mode, double sampleRate, int maxBodyBytes) {
+    CapturePolicy policy = new CapturePolicy(mode, sampleRate, maxBodyBytes);
+    CapturePolicy always = new CapturePolicy(CaptureMode.ALWAYS, 1.0, 1024);
+    return new RequestLoggingFilter(new RequestLoggingProperties(policy, always, always, always));
+  }
+
+  private static MockHttpServletRequest eventReport() {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/scmudc/587A628A4042");
+    request.setContent("{\"envelope\": {}}".getBytes());
+    return request;
+  }
+}
@@ -0,0 +1,45 @@
+package com.github.juliusd.ueberboeseapi.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.filter.RequestPathClassifier.Category;
+import org.junit.jupiter.api.Test;
+
+class RequestPathClassifierTest {
+
+  @Test
+  void classify_shouldDetectEventReports() {
+    assertThat(RequestPathClassifier.classify("POST", "/v1/scmudc/587A628A4042"))
+        .isEqualTo(Category.EVENT_REPORT);
+    assertThat(RequestPathClassifier.classify("POST", "/v1/scmudc/")).isEqualTo(Category.POST);
+  }
+
+  @Test
+  void classify_shouldDetectBmxReports() {
+    assertThat(RequestPathClassifier.classify("POST", "/bmx/tunein/v1/report"))
+        .isEqualTo(Category.BMX_REPORT);
+    assertThat(RequestPathClassifier.classify("POST", "/bmx/tunein/v1/report/session"))
+        .isEqualTo(Category.BMX_REPORT);
+    assertThat(RequestPathClassifier.classify("GET", "/bmx/registry/v1/services"))
+        .isEqualTo(Category.OTHER);
+  }
+
+  @Test
+  void classify_shouldDetectOAuthRequestsRegardlessOfMethod() {
+    assertThat(
+            RequestPathClassifier.classify(
+                "POST", "/oauth/device/587A628A4042/music/musicprovider/15/token/cs3"))
+        .isEqualTo(Category.OAUTH);
+    assertThat(RequestPathClassifier.classify("GET", "/oauth/token")).isEqualTo(Category.OAUTH);
+  }
+
+  @Test
+  void classify_shouldFallBackToMethod() {
+    assertThat(RequestPathClassifier.classify("POST", "/streaming/account/6921042/device/"))
+        .isEqualTo(Category.POST);
+    assertThat(RequestPathClassifier.classify("post", "/streaming/account/6921042/device/"))
+        .isEqualTo(Category.POST);
+    assertThat(RequestPathClassifier.classify("GET", "/streaming/account/6921042/full"))
+        .isEqualTo(Category.OTHER);
+  }
+}
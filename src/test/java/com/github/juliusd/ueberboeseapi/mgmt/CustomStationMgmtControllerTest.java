@@ -0,0 +1,219 @@
+package com.github.juliusd.ueberboeseapi.mgmt;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import com.github.juliusd.ueberboeseapi.TestBase;
+import com.github.juliusd.ueberboeseapi.bmx.station.CustomStation;
+import com.github.juliusd.ueberboeseapi.bmx.station.CustomStationCatalog;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class CustomStationMgmtControllerTest extends TestBase {
+
+  @Autowired private CustomStationCatalog customStationCatalog;
+
+  @BeforeEach
+  void removeCustomStations() {
+    // Removed through the catalog, so its in-memory index stays in sync with the table
+    customStationCatalog.getStations().stream()
+        .map(CustomStation::stationId)
+        .forEach(customStationCatalog::delete);
+  }
+
+  @Test
+  void createCustomStation_shouldAssignShortIdAndBePlayable() {
+    String stationId =
+        given()
+            .auth()
+            .basic("admin", "test-password-123")
+            .contentType(ContentType.JSON)
+            .body(
+                """
+                {"name":"My Radio","streamUrl":"https://stream.example.com/live.mp3","imageUrl":"https://example.com/logo.png"}
+                """)
+            .when()
+            .post("/mgmt/custom-stations")
+            .then()
+            .statusCode(201)
+            .contentType("application/json")
+            .body("stationId", matchesPattern("[0-9a-z]{8}"))
+            .body("name", equalTo("My Radio"))
+            .body("streamUrl", equalTo("https://stream.example.com/live.mp3"))
+            .body("imageUrl", equalTo("https://example.com/logo.png"))
+            .body("createdOn", notNullValue())
+            .extract()
+            .path("stationId");
+
+    assertThat(customStationCatalog.getStations())
+        .extracting(CustomStation::stationId)
+        .containsExactly(stationId);
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .when()
+        .get("/mgmt/custom-stations")
+        .then()
+        .statusCode(200)
+        .body("stations", hasSize(1))
+        .body("stations[0].stationId", equalTo(stationId))
+        .body(
+            "stations[0].location",
+            equalTo("/core02/svc-bmx-adapter-orion/prod/orion/station?id=" + stationId));
+
+    given()
+        .queryParam("id", stationId)
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(200)
+        .contentType("application/json")
+        .header("ETag", notNullValue())
+        .body("name", equalTo("My Radio"))
+        .body("imageUrl", equalTo("https://example.com/logo.png"))
+        .body("streamType", equalTo("liveRadio"))
+        .body("audio.streamUrl", equalTo("https://stream.example.com/live.mp3"))
+        .body("audio.streams", hasSize(1));
+  }
+
+  @Test
+  void createCustomStation_shouldRejectValuesLongerThanTheirColumns() {
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .contentType(ContentType.JSON)
+        .body(
+            """
+            {"name":"%s","streamUrl":"https://stream.example.com/live.mp3"}
+            """
+                .formatted("N".repeat(513)))
+        .when()
+        .post("/mgmt/custom-stations")
+        .then()
+        .statusCode(400)
+        .body("error", equalTo("Invalid station"))
+        .body("message", containsString("name must not be longer than 512 characters"));
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .contentType(ContentType.JSON)
+        .body(
+            """
+            {"name":"My Radio","streamUrl":"https://stream.example.com/%s"}
+            """
+                .formatted("a".repeat(2048)))
+        .when()
+        .post("/mgmt/custom-stations")
+        .then()
+        .statusCode(400)
+        .body("message", containsString("streamUrl must not be longer than 2048 characters"));
+
+    assertThat(customStationCatalog.getStations()).isEmpty();
+  }
+
+  @Test
+  void createCustomStation_shouldRejectNonHttpStreamUrl() {
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .contentType(ContentType.JSON)
+        .body(
+            """
+            {"name":"My Radio","streamUrl":"file:///etc/passwd"}
+            """)
+        .when()
+        .post("/mgmt/custom-stations")
+        .then()
+        .statusCode(400)
+        .body("error", equalTo("Invalid station"))
+        .body("message", containsString("HTTP or HTTPS"));
+
+    assertThat(customStationCatalog.getStations()).isEmpty();
+  }
+
+  @Test
+  void updateCustomStation_shouldServeTheNewPlayback() {
+    CustomStation station =
+        customStationCatalog.create("Old Name", "https://stream.example.com/old.mp3", null);
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .contentType(ContentType.JSON)
+        .body(
+            """
+            {"name":"New Name","streamUrl":"https://stream.example.com/new.mp3"}
+            """)
+        .when()
+        .put("/mgmt/custom-stations/" + station.stationId())
+        .then()
+        .statusCode(200)
+        .body("stationId", equalTo(station.stationId()))
+        .body("name", equalTo("New Name"));
+
+    given()
+        .queryParam("id", station.stationId())
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("New Name"))
+        .body("audio.streamUrl", equalTo("https://stream.example.com/new.mp3"));
+  }
+
+  @Test
+  void updateCustomStation_shouldReturn404ForUnknownStation() {
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .contentType(ContentType.JSON)
+        .body(
+            """
+            {"name":"New Name","streamUrl":"https://stream.example.com/new.mp3"}
+            """)
+        .when()
+        .put("/mgmt/custom-stations/unknown1")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  void deleteCustomStation_shouldStopServingTheStation() {
+    CustomStation station =
+        customStationCatalog.create("My Radio", "https://stream.example.com/live.mp3", null);
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .when()
+        .delete("/mgmt/custom-stations/" + station.stationId())
+        .then()
+        .statusCode(204);
+
+    assertThat(customStationCatalog.getStations()).isEmpty();
+    given()
+        .queryParam("id", station.stationId())
+        .when()
+        .get("/core02/svc-bmx-adapter-orion/prod/orion/station")
+        .then()
+        .statusCode(404);
+
+    given()
+        .auth()
+        .basic("admin", "test-password-123")
+        .when()
+        .delete("/mgmt/custom-stations/" + station.stationId())
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  void listCustomStations_shouldRequireAuthentication() {
+    given().when().get("/mgmt/custom-stations").then().statusCode(401);
+  }
+}
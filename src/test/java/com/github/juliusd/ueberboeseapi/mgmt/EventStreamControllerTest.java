@@ -0,0 +1,110 @@
+package com.github.juliusd.ueberboeseapi.mgmt;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.TestBase;
+import com.github.juliusd.ueberboeseapi.service.EventBroadcaster;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+class EventStreamControllerTest extends TestBase {
+
+  @LocalServerPort private int port;
+  @Autowired private EventBroadcaster eventBroadcaster;
+
+  @Test
+  void streamEvents_shouldStreamNewEventsOfTheRequestedDevice() throws Exception {
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    String credentials =
+        Base64.getEncoder()
+            .encodeToString("admin:test-password-123".getBytes(StandardCharsets.UTF_8));
+    HttpRequest request =
+        HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/mgmt/events/stream?deviceId=STREAM001"))
+            .header("Authorization", "Basic " + credentials)
+            .header("Accept", "text/event-stream")
+            .build();
+
+    HttpResponse<Stream<String>> response =
+        client.send(request, HttpResponse.BodyHandlers.ofLines());
+    assertThat(response.statusCode()).isEqualTo(200);
+    CompletableFuture<String> firstData =
+        CompletableFuture.supplyAsync(
+            () ->
+                response.body().filter(line -> line.startsWith("data:")).findFirst().orElse(null));
+    try {
+      long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (eventBroadcaster.getSubscriberCount() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+
+      submitEvent("OTHER001", "volume-changed");
+      submitEvent("STREAM001", "play-state-changed");
+
+      String data = firstData.get(10, TimeUnit.SECONDS);
+      assertThat(data).contains("\"deviceId\":\"STREAM001\"").contains("play-state-changed");
+    } finally {
+      response.body().close();
+    }
+  }
+
+  @Test
+  void streamEvents_shouldRequireAuthentication() {
+    given().when().get("/mgmt/events/stream").then().statusCode(401);
+  }
+
+  private static void submitEvent(String deviceId, String type) {
+    String requestJson =
+        """
+        {
+          "envelope": {
+            "monoTime": 1,
+            "payloadProtocolVersion": "3.1",
+            "payloadType": "scmudc",
+            "protocolVersion": "1.0",
+            "time": "2026-01-09T08:02:32.874426+00:00",
+            "uniqueId": "%s"
+          },
+          "payload": {
+            "deviceInfo": {
+              "boseID": "6921042",
+              "deviceID": "%s",
+              "deviceType": "SoundTouch 20",
+              "serialNumber": "P123456789101123456789",
+              "softwareVersion": "27.0.6.46330.5043500",
+              "systemSerialNumber": "069236P81556160AE"
+            },
+            "events": [
+              {
+                "data": {},
+                "monoTime": 1,
+                "time": "2026-01-09T08:02:32.873379+00:00",
+                "type": "%s"
+              }
+            ]
+          }
+        }
+        """
+            .formatted(deviceId, deviceId, type);
+
+    given()
+        .header("Authorization", "Bearer mockAuthToken123")
+        .header("Content-Type", "text/json; charset=utf-8")
+        .body(requestJson)
+        .post("/v1/scmudc/{deviceId}", deviceId)
+        .then()
+        .statusCode(200);
+  }
+}
@@ -0,0 +1,186 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+class ProxyCaptureStoreTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void append_shouldStoreExchangeThatCanBeReadBack() {
+    ProxyCaptureStore store = createStore(1024 * 1024, 1024 * 1024, false);
+    String largeBody = "<account>" + "x".repeat(10_000) + "</account>";
+
+    store.append(
+        exchange(1000, "GET", "https://streaming.example/marge/accounts/1?full=true", largeBody));
+
+    List<ProxyCaptureStore.IndexEntry> entries =
+        store.find("streaming.example", "/marge/accounts/1", null, null);
+    assertThat(entries).hasSize(1);
+    assertThat(entries.getFirst().query()).isEqualTo("full=true");
+    assertThat(entries.getFirst().status()).isEqualTo(200);
+    // The repetitive body is compressed on disk
+    assertThat(entries.getFirst().length()).isLessThan(largeBody.length());
+
+    var stored = store.read(entries.getFirst());
+    assertThat(stored).isPresent();
+    assertThat(new String(stored.get().responseBody(), StandardCharsets.UTF_8))
+        .isEqualTo(largeBody);
+    assertThat(stored.get().responseHeaders().getFirst(HttpHeaders.CONTENT_TYPE))
+        .isEqualTo("application/xml");
+    assertThat(stored.get().requestHeaders().getFirst("Accept")).isEqualTo("*/*");
+    assertThat(new String(stored.get().requestBody(), StandardCharsets.UTF_8)).isEqualTo("request");
+  }
+
+  @Test
+  void findBetween_shouldReturnExchangesWithinTimeRangeInTimeOrder() {
+    ProxyCaptureStore store = createStore(1024 * 1024, 1024 * 1024, false);
+    store.append(exchange(3000, "GET", "http://host/c", "c"));
+    store.append(exchange(1000, "GET", "http://host/a", "a"));
+    store.append(exchange(2000, "GET", "http://host/b", "b"));
+
+    var entries = store.findBetween(Instant.ofEpochMilli(1500), Instant.ofEpochMilli(3000));
+
+    assertThat(entries).extracting(ProxyCaptureStore.IndexEntry::path).containsExactly("/b");
+    assertThat(store.findBetween(null, null))
+        .extracting(ProxyCaptureStore.IndexEntry::path)
+        .containsExactly("/a", "/b", "/c");
+  }
+
+  @Test
+  void constructor_shouldRebuildIndexFromSegments() {
+    createStore(1024 * 1024, 1024 * 1024, false)
+        .append(exchange(1000, "GET", "http://host/kept", "kept"));
+
+    ProxyCaptureStore reopened = createStore(1024 * 1024, 1024 * 1024, false);
+
+    var entries = reopened.find("host", "/kept", null, null);
+    assertThat(entries).hasSize(1);
+    assertThat(reopened.read(entries.getFirst()))
+        .hasValueSatisfying(
+            stored ->
+                assertThat(new String(stored.responseBody(), StandardCharsets.UTF_8))
+                    .isEqualTo("kept"));
+  }
+
+  @Test
+  void constructor_shouldCutOffTornRecordAtEndOfNewestSegment() throws IOException {
+    ProxyCaptureStore store = createStore(1024 * 1024, 1024 * 1024, false);
+    store.append(exchange(1000, "GET", "http://host/first", "first"));
+    store.append(exchange(2000, "GET", "http://host/second", "second"));
+    store.destroy();
+    Path segment = segments().getFirst();
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    ProxyCaptureStore reopened = createStore(1024 * 1024, 1024 * 1024, false);
+
+    assertThat(reopened.findBetween(null, null))
+        .extracting(ProxyCaptureStore.IndexEntry::path)
+        .containsExactly("/first");
+    reopened.append(exchange(3000, "GET", "http://host/third", "third"));
+    assertThat(createStore(1024 * 1024, 1024 * 1024, false).findBetween(null, null))
+        .extracting(ProxyCaptureStore.IndexEntry::path)
+        .containsExactly("/first", "/third");
+  }
+
+  @Test
+  void append_shouldDeleteOldestSegmentsWhenSizeIsExceeded() throws IOException {
+    ProxyCaptureStore store = createStore(400, 1000, false);
+
+    for (int i = 0; i < 10; i++) {
+      store.append(exchange(1000 + i, "GET", "http://host/item/" + i, "body " + i));
+    }
+
+    var remaining = store.findBetween(null, null);
+    assertThat(remaining).isNotEmpty().hasSizeLessThan(10);
+    assertThat(remaining.getLast().path()).isEqualTo("/item/9");
+    assertThat(store.find("host", "/item/0", null, null)).isEmpty();
+    long totalSize = 0;
+    for (Path segment : segments()) {
+      totalSize += Files.size(segment);
+    }
+    assertThat(totalSize).isLessThanOrEqualTo(1000);
+  }
+
+  @Test
+  void replay_shouldPreferExactQueryAndFallBackToLatestForPath() {
+    ProxyCaptureStore writer = createStore(1024 * 1024, 1024 * 1024, false);
+    writer.append(exchange(1000, "GET", "http://host/search?q=a", "result a"));
+    writer.append(exchange(2000, "GET", "http://host/search?q=b", "result b"));
+    writer.append(exchange(3000, "POST", "http://host/search?q=c", "posted"));
+    writer.destroy();
+
+    ProxyCaptureStore replaying = createStore(1024 * 1024, 1024 * 1024, true);
+
+    assertThat(body(replaying.replay(HttpMethod.GET, "http://host/search?q=a")))
+        .isEqualTo("result a");
+    assertThat(body(replaying.replay(HttpMethod.GET, "http://host/search?q=z")))
+        .isEqualTo("result b");
+    assertThat(replaying.replay(HttpMethod.GET, "http://host/other")).isEmpty();
+  }
+
+  @Test
+  void append_shouldNotStoreAnythingInReplayMode() {
+    ProxyCaptureStore store = createStore(1024 * 1024, 1024 * 1024, true);
+
+    store.append(exchange(1000, "GET", "http://host/a", "a"));
+
+    assertThat(store.findBetween(null, null)).isEmpty();
+  }
+
+  private ProxyCaptureStore createStore(long segmentSize, long maxSize, boolean replay) {
+    return new ProxyCaptureStore(
+        new ProxyCaptureStoreProperties(true, tempDir.toString(), segmentSize, maxSize, replay),
+        new DataDirectoryProperties(tempDir.toString()));
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(tempDir)) {
+      return files.filter(file -> file.toString().endsWith(".pcs")).sorted().toList();
+    }
+  }
+
+  private static String body(Optional<ProxyCaptureStore.StoredExchange> stored) {
+    assertThat(stored).isPresent();
+    return new String(stored.get().responseBody(), StandardCharsets.UTF_8);
+  }
+
+  private static ProxyTrafficCapture.CapturedExchange exchange(
+      long startedAt, String method, String targetUrl, String responseBody) {
+    var exchange =
+        new ProxyTrafficCapture.CapturedExchange(
+            startedAt,
+            startedAt,
+            method,
+            "http://localhost:8080/original",
+            targetUrl,
+            "text/plain",
+            7,
+            List.of("Accept", "*/*"),
+            "request");
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.CONTENT_TYPE, "application/xml");
+    exchange.status = 200;
+    exchange.responseHeaders = headers;
+    exchange.responseBody = responseBody.getBytes(StandardCharsets.UTF_8);
+    return exchange;
+  }
+}
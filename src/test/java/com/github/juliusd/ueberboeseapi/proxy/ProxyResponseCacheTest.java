@@ -0,0 +1,197 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ProxyResponseCacheTest {
+
+  private static final String URL = "http://upstream.example/bmx/registry/v1/services";
+
+  @TempDir Path tempDir;
+
+  @Test
+  void store_shouldServeFreshResponseWithinMaxAge() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bmx/registry/v1/services");
+
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, headers("max-age=60"), body("one"));
+
+    var cached = cache.lookup(HttpMethod.GET, URL, request);
+    assertThat(cached).isPresent();
+    assertThat(cached.get().fresh()).isTrue();
+    assertThat(cached.get().statusCode().value()).isEqualTo(200);
+    assertThat(new String(cached.get().body(), StandardCharsets.UTF_8)).isEqualTo("one");
+    assertThat(cached.get().headers().getFirst(HttpHeaders.AGE)).isEqualTo("0");
+  }
+
+  @Test
+  void store_shouldKeepResponseWithoutFreshnessAsLastKnownGood() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/updates");
+
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, new HttpHeaders(), body("probe"));
+
+    var cached = cache.lookup(HttpMethod.GET, URL, request);
+    assertThat(cached).isPresent();
+    assertThat(cached.get().fresh()).isFalse();
+    assertThat(cached.get().usableOnError()).isTrue();
+    assertThat(cached.get().usableWhenUnreachable()).isTrue();
+  }
+
+  @Test
+  void store_shouldNotCacheResponsesWithoutFreshnessAndStaleIfErrorWindow() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/probe");
+
+    cache.store(
+        HttpMethod.GET,
+        URL,
+        request,
+        HttpStatus.OK,
+        headers("max-age=0, stale-if-error=0"),
+        body("probe"));
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, request)).isEmpty();
+  }
+
+  @Test
+  void store_shouldNotCacheNoStoreOrPrivateResponses() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/private");
+
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, headers("no-store"), body("a"));
+    cache.store(HttpMethod.GET, URL + "?p", request, HttpStatus.OK, headers("private"), body("b"));
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, request)).isEmpty();
+    assertThat(cache.lookup(HttpMethod.GET, URL + "?p", request)).isEmpty();
+  }
+
+  @Test
+  void store_shouldNotCacheNonGetRequests() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/post");
+
+    cache.store(HttpMethod.POST, URL, request, HttpStatus.OK, headers("max-age=60"), body("a"));
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, request)).isEmpty();
+  }
+
+  @Test
+  void lookup_shouldSeparateEntriesByVaryHeaders() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest german = new MockHttpServletRequest("GET", "/");
+    german.addHeader("Accept-Language", "de");
+    MockHttpServletRequest english = new MockHttpServletRequest("GET", "/");
+    english.addHeader("Accept-Language", "en");
+
+    HttpHeaders responseHeaders = headers("max-age=60");
+    responseHeaders.add(HttpHeaders.VARY, "Accept-Language");
+    cache.store(HttpMethod.GET, URL, german, HttpStatus.OK, responseHeaders, body("hallo"));
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, english)).isEmpty();
+    assertThat(cache.lookup(HttpMethod.GET, URL, german))
+        .hasValueSatisfying(
+            cached ->
+                assertThat(new String(cached.body(), StandardCharsets.UTF_8)).isEqualTo("hallo"));
+  }
+
+  @Test
+  void lookup_shouldNotReportFreshWhenRequestDemandsRevalidation() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, headers("max-age=60"), body("a"));
+
+    MockHttpServletRequest noCache = new MockHttpServletRequest("GET", "/");
+    noCache.addHeader("Cache-Control", "no-cache");
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, noCache))
+        .hasValueSatisfying(cached -> assertThat(cached.fresh()).isFalse());
+  }
+
+  @Test
+  void store_shouldEvictLeastRecentlyUsedEntriesWhenSizeIsExceeded() {
+    ProxyResponseCache cache = createCache(2500);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+
+    cache.store(
+        HttpMethod.GET, URL + "/1", request, HttpStatus.OK, headers("max-age=60"), new byte[1000]);
+    cache.store(
+        HttpMethod.GET, URL + "/2", request, HttpStatus.OK, headers("max-age=60"), new byte[1000]);
+    // Touch the first entry so the second one becomes the eldest
+    assertThat(cache.lookup(HttpMethod.GET, URL + "/1", request)).isPresent();
+    cache.store(
+        HttpMethod.GET, URL + "/3", request, HttpStatus.OK, headers("max-age=60"), new byte[1000]);
+
+    assertThat(cache.lookup(HttpMethod.GET, URL + "/1", request)).isPresent();
+    assertThat(cache.lookup(HttpMethod.GET, URL + "/2", request)).isEmpty();
+    assertThat(cache.lookup(HttpMethod.GET, URL + "/3", request)).isPresent();
+  }
+
+  @Test
+  void store_shouldNotStoreHopByHopHeaders() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    HttpHeaders responseHeaders = headers("max-age=60");
+    responseHeaders.add(HttpHeaders.TRANSFER_ENCODING, "chunked");
+    responseHeaders.add("Keep-Alive", "timeout=5");
+
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, responseHeaders, body("a"));
+
+    var cached = cache.lookup(HttpMethod.GET, URL, request);
+    assertThat(cached).isPresent();
+    assertThat(cached.get().headers().containsHeader(HttpHeaders.TRANSFER_ENCODING)).isFalse();
+    assertThat(cached.get().headers().containsHeader("Keep-Alive")).isFalse();
+    assertThat(cached.get().headers().getFirst(HttpHeaders.CONTENT_TYPE))
+        .isEqualTo("application/json");
+  }
+
+  @Test
+  void constructor_shouldReloadEntriesFromDisk() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    createCache(1024 * 1024)
+        .store(HttpMethod.GET, URL, request, HttpStatus.OK, headers("max-age=60"), body("kept"));
+
+    var cached = createCache(1024 * 1024).lookup(HttpMethod.GET, URL, request);
+
+    assertThat(cached).isPresent();
+    assertThat(new String(cached.get().body(), StandardCharsets.UTF_8)).isEqualTo("kept");
+  }
+
+  @Test
+  void clear_shouldRemoveAllEntries() {
+    ProxyResponseCache cache = createCache(1024 * 1024);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    cache.store(HttpMethod.GET, URL, request, HttpStatus.OK, headers("max-age=60"), body("a"));
+
+    cache.clear();
+
+    assertThat(cache.lookup(HttpMethod.GET, URL, request)).isEmpty();
+    assertThat(createCache(1024 * 1024).lookup(HttpMethod.GET, URL, request)).isEmpty();
+  }
+
+  private ProxyResponseCache createCache(long maxSizeBytes) {
+    return new ProxyResponseCache(
+        new ProxyCacheProperties(true, tempDir.toString(), maxSizeBytes, 86400, true),
+        new DataDirectoryProperties(tempDir.toString()));
+  }
+
+  private static HttpHeaders headers(String cacheControl) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.CACHE_CONTROL, cacheControl);
+    headers.add(HttpHeaders.CONTENT_TYPE, "application/json");
+    return headers;
+  }
+
+  private static byte[] body(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,142 @@
+package com.github.juliusd.ueberboeseapi.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ProxyTrafficCaptureTest {
+
+  @TempDir Path tempDir;
+
+  private ProxyTrafficCapture capture;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (capture != null) {
+      capture.destroy();
+    }
+  }
+
+  @Test
+  void begin_shouldCaptureNothingWhenDisabled() {
+    capture =
+        new ProxyTrafficCapture(
+            properties(false, 1.0, 100), disabledStore(), new SimpleMeterRegistry());
+
+    assertThat(capture.begin(1, request(), HttpMethod.GET, "http://target/x", null)).isNull();
+  }
+
+  @Test
+  void begin_shouldCaptureNothingWhenSampledOut() {
+    capture =
+        new ProxyTrafficCapture(
+            properties(true, 0.0, 100), disabledStore(), new SimpleMeterRegistry());
+
+    assertThat(capture.begin(1, request(), HttpMethod.GET, "http://target/x", null)).isNull();
+  }
+
+  @Test
+  void format_shouldTruncateBodiesToConfiguredSize() {
+    capture =
+        new ProxyTrafficCapture(
+            properties(true, 1.0, 4), disabledStore(), new SimpleMeterRegistry());
+    var exchange = capture.begin(7, request(), HttpMethod.POST, "http://target/x", "abcdefgh");
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.add("Content-Type", "text/plain");
+
+    capture.complete(
+        exchange, HttpStatus.OK, responseHeaders, "0123456789".getBytes(StandardCharsets.UTF_8));
+    String formatted = ProxyTrafficCapture.format(exchange, 4);
+
+    assertThat(formatted)
+        .contains("requestId: 7")
+        .contains("Target URL: http://target/x")
+        .contains("X-Test: one")
+        .contains("Request Body: abcd [truncated, 8 bytes in total]")
+        .contains("Status: 200")
+        .contains("Content-Type: text/plain")
+        .contains("Response Body: 0123 [truncated, 10 bytes in total]");
+  }
+
+  @Test
+  void format_shouldTruncateBodiesOnCharacterBoundaries() {
+    capture =
+        new ProxyTrafficCapture(
+            properties(true, 1.0, 4), disabledStore(), new SimpleMeterRegistry());
+    // "ä" and "€" take two and three bytes in UTF-8
+    var exchange = capture.begin(7, request(), HttpMethod.POST, "http://target/x", "aäää");
+
+    capture.complete(
+        exchange, HttpStatus.OK, new HttpHeaders(), "ab€c".getBytes(StandardCharsets.UTF_8));
+    String formatted = ProxyTrafficCapture.format(exchange, 4);
+
+    assertThat(formatted)
+        .contains("Request Body: aä [truncated, 7 bytes in total]")
+        .contains("Response Body: ab [truncated, 6 bytes in total]");
+  }
+
+  @Test
+  void complete_shouldWriteOrCountEveryCapturedExchange() throws InterruptedException {
+    capture =
+        new ProxyTrafficCapture(
+            properties(true, 1.0, 100), disabledStore(), new SimpleMeterRegistry());
+
+    for (int i = 0; i < 50; i++) {
+      var exchange = capture.begin(i, request(), HttpMethod.GET, "http://target/x", null);
+      capture.complete(exchange, HttpStatus.OK, new HttpHeaders(), new byte[0]);
+    }
+    capture.destroy();
+
+    assertThat(capture.getWrittenCount() + capture.getDroppedCount()).isEqualTo(50);
+  }
+
+  @Test
+  void complete_shouldAppendUntruncatedExchangeToStore() throws InterruptedException {
+    ProxyCaptureStore store =
+        new ProxyCaptureStore(
+            new ProxyCaptureStoreProperties(
+                true, tempDir.toString(), 1024 * 1024, 1024 * 1024, false),
+            new DataDirectoryProperties(tempDir.toString()));
+    capture = new ProxyTrafficCapture(properties(true, 1.0, 4), store, new SimpleMeterRegistry());
+
+    var exchange = capture.begin(1, request(), HttpMethod.GET, "http://target/x?y=1", null);
+    capture.complete(
+        exchange, HttpStatus.OK, new HttpHeaders(), "0123456789".getBytes(StandardCharsets.UTF_8));
+    capture.destroy();
+
+    var entries = store.find("target", "/x", null, null);
+    assertThat(entries).hasSize(1);
+    assertThat(store.read(entries.getFirst()))
+        .hasValueSatisfying(
+            stored ->
+                assertThat(new String(stored.responseBody(), StandardCharsets.UTF_8))
+                    .isEqualTo("0123456789"));
+  }
+
+  private static ProxyCaptureProperties properties(
+      boolean enabled, double sampleRate, int maxBodyBytes) {
+    return new ProxyCaptureProperties(enabled, sampleRate, maxBodyBytes, 16);
+  }
+
+  private ProxyCaptureStore disabledStore() {
+    return new ProxyCaptureStore(
+        new ProxyCaptureStoreProperties(false, tempDir.toString(), 1024, 1024, false),
+        new DataDirectoryProperties(tempDir.toString()));
+  }
+
+  private static MockHttpServletRequest request() {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/x");
+    request.addHeader("X-Test", "one");
+    return request;
+  }
+}
@@ -0,0 +1,51 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class EventBroadcasterTest {
+
+  private final EventBroadcaster broadcaster =
+      new EventBroadcaster(new EventStreamProperties(2, 2, Duration.ofSeconds(15)));
+
+  @Test
+  void publish_shouldDeliverMatchingEventsOnly() throws InterruptedException {
+    var all = broadcaster.subscribe(null, null);
+    var device = broadcaster.subscribe("DEVICE1", "volume-changed");
+
+    broadcaster.publish("DEVICE1", List.of(event("play-state-changed"), event("volume-changed")));
+    broadcaster.publish("DEVICE2", List.of(event("volume-changed")));
+
+    var delivered = device.buffer().poll(0, TimeUnit.MILLISECONDS);
+    assertThat(delivered.deviceId()).isEqualTo("DEVICE1");
+    assertThat(delivered.event().getType()).isEqualTo("volume-changed");
+    assertThat(device.buffer().poll(0, TimeUnit.MILLISECONDS)).isNull();
+    // The unfiltered subscriber keeps the two newest of three events
+    assertThat(all.buffer().size()).isEqualTo(2);
+    assertThat(all.buffer().takeDropped()).isEqualTo(1);
+  }
+
+  @Test
+  void subscribe_shouldLimitNumberOfSubscribers() {
+    var first = broadcaster.subscribe(null, null);
+    broadcaster.subscribe(null, null);
+
+    assertThat(broadcaster.subscribe(null, null)).isNull();
+
+    first.close();
+    assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    assertThat(broadcaster.subscribe(null, null)).isNotNull();
+  }
+
+  private static DeviceEventApiDto event(String type) {
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setType(type);
+    event.setMonoTime(1);
+    return event;
+  }
+}
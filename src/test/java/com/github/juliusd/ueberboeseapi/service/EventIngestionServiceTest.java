@@ -0,0 +1,118 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EventIngestionServiceTest {
+
+  private final EventStorageService eventStorageService = mock(EventStorageService.class);
+  private EventIngestionService service;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    service.destroy();
+  }
+
+  @Test
+  void submit_shouldStoreEventsOfADeviceInOrder() {
+    List<Integer> stored = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<DeviceEventApiDto> events = invocation.getArgument(1);
+              events.forEach(event -> stored.add(event.getMonoTime()));
+              return null;
+            })
+        .when(eventStorageService)
+        .storeEvents(anyString(), anyList());
+    service = createService(100);
+
+    for (int i = 0; i < 50; i++) {
+      assertThat(service.submit("DEVICE1", List.of(event(2 * i), event(2 * i + 1)))).isTrue();
+    }
+
+    assertThat(service.flush(Duration.ofSeconds(5))).isTrue();
+    assertThat(stored).hasSize(100);
+    assertThat(stored).isSorted();
+    assertThat(service.getStats("DEVICE1"))
+        .isEqualTo(new EventIngestionService.DeviceIngestionStats(100, 0, 100));
+  }
+
+  @Test
+  void submit_shouldRejectWhenQueueIsFull() throws InterruptedException {
+    CountDownLatch storing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              storing.countDown();
+              release.await();
+              return null;
+            })
+        .when(eventStorageService)
+        .storeEvents(anyString(), anyList());
+    service = createService(2);
+
+    // The writer takes the first submission and blocks while storing it
+    assertThat(service.submit("DEVICE1", List.of(event(1)))).isTrue();
+    assertThat(storing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(service.submit("DEVICE1", List.of(event(2)))).isTrue();
+    assertThat(service.submit("DEVICE1", List.of(event(3)))).isTrue();
+
+    assertThat(service.submit("DEVICE1", List.of(event(4)))).isFalse();
+    assertThat(service.getStats("DEVICE1").rejectedSubmissions()).isEqualTo(1);
+    assertThat(service.getStats("DEVICE2").acceptedEvents()).isZero();
+
+    release.countDown();
+    assertThat(service.flush(Duration.ofSeconds(5))).isTrue();
+    verify(eventStorageService).storeEvents("DEVICE1", List.of(event(2), event(3)));
+  }
+
+  @Test
+  void submit_shouldStopTrackingLeastRecentlyActiveDevicesBeyondLimit()
+      throws InterruptedException {
+    service = createService(100, 2);
+
+    service.submit("DEVICE1", List.of(event(1)));
+    Thread.sleep(5);
+    service.submit("DEVICE2", List.of(event(2)));
+    Thread.sleep(5);
+    service.submit("DEVICE1", List.of(event(3)));
+    Thread.sleep(5);
+    service.submit("DEVICE3", List.of(event(4)));
+
+    assertThat(service.getStats("DEVICE1").acceptedEvents()).isEqualTo(2);
+    assertThat(service.getStats("DEVICE2").acceptedEvents()).isZero();
+    assertThat(service.getStats("DEVICE3").acceptedEvents()).isEqualTo(1);
+  }
+
+  private EventIngestionService createService(int queueCapacity) {
+    return createService(queueCapacity, 1000);
+  }
+
+  private EventIngestionService createService(int queueCapacity, int maxTrackedDevices) {
+    return new EventIngestionService(
+        new EventIngestionProperties(queueCapacity, 256, 1, maxTrackedDevices),
+        eventStorageService,
+        new SimpleMeterRegistry());
+  }
+
+  private static DeviceEventApiDto event(int monoTime) {
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setMonoTime(monoTime);
+    event.setType("test-event");
+    return event;
+  }
+}
@@ -0,0 +1,262 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+class EventJournalTest {
+
+  private static final Instant BASE = Instant.now().minus(Duration.ofDays(1));
+
+  @TempDir Path tempDir;
+
+  @Test
+  void read_shouldReturnLatestEventsAfterReopen() {
+    EventJournal journal = createJournal(1024 * 1024, Long.MAX_VALUE, Duration.ofDays(30));
+    journal.append("DEVICE1", List.of(event(0), event(1), event(2)));
+
+    EventJournal reopened = createJournal(1024 * 1024, Long.MAX_VALUE, Duration.ofDays(30));
+    reopened.append("DEVICE1", List.of(event(3)));
+
+    EventJournal.EventPage page = reopened.read("DEVICE1", null, null, null, 2);
+    assertThat(monoTimes(page)).containsExactly(2, 3);
+    assertThat(page.nextCursor()).isNull();
+    assertThat(reopened.read("UNKNOWN", null, null, null, 10).events()).isEmpty();
+  }
+
+  @Test
+  void read_shouldFilterByTimeRangeAcrossSegments() {
+    // Small segments so that the events are spread over many files
+    EventJournal journal = createJournal(512, Long.MAX_VALUE, Duration.ofDays(30));
+    for (int i = 0; i < 100; i++) {
+      journal.append("DEVICE1", List.of(event(i)));
+    }
+
+    EventJournal.EventPage page =
+        journal.read("DEVICE1", BASE.plusSeconds(40), BASE.plusSeconds(45), null, 100);
+
+    assertThat(monoTimes(page)).containsExactly(40, 41, 42, 43, 44);
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  void read_shouldPageWithCursor() {
+    EventJournal journal = createJournal(1024, Long.MAX_VALUE, Duration.ofDays(30));
+    for (int i = 0; i < 70; i++) {
+      journal.append("DEVICE1", List.of(event(i)));
+    }
+
+    EventJournal.EventPage first = journal.read("DEVICE1", BASE, null, null, 30);
+    EventJournal.EventPage second = journal.read("DEVICE1", BASE, null, first.nextCursor(), 30);
+    EventJournal.EventPage third = journal.read("DEVICE1", BASE, null, second.nextCursor(), 30);
+
+    assertThat(monoTimes(first)).hasSize(30).startsWith(0).endsWith(29);
+    assertThat(monoTimes(second)).hasSize(30).startsWith(30).endsWith(59);
+    assertThat(monoTimes(third)).hasSize(10).startsWith(60).endsWith(69);
+    assertThat(third.nextCursor()).isNull();
+  }
+
+  @Test
+  void append_shouldDeleteExpiredEvents() {
+    EventJournal journal = createJournal(512, Long.MAX_VALUE, Duration.ofDays(7));
+    Instant old = Instant.now().minus(Duration.ofDays(10));
+    for (int i = 0; i < 20; i++) {
+      journal.append("DEVICE1", List.of(event(i, old.plusSeconds(i))));
+    }
+    for (int i = 20; i < 40; i++) {
+      journal.append("DEVICE1", List.of(event(i)));
+    }
+
+    List<Integer> remaining = monoTimes(journal.read("DEVICE1", null, null, null, 1000));
+    assertThat(remaining).hasSize(20).startsWith(20).endsWith(39);
+  }
+
+  @Test
+  void open_shouldCompactPartiallyExpiredSegment() {
+    EventJournal journal = createJournal(512, Long.MAX_VALUE, Duration.ofDays(30));
+    Instant old = Instant.now().minus(Duration.ofDays(10));
+    journal.append("DEVICE1", List.of(event(0, old), event(1, old.plusSeconds(1))));
+    for (int i = 2; i < 10; i++) {
+      journal.append("DEVICE1", List.of(event(i)));
+    }
+
+    EventJournal reopened = createJournal(512, Long.MAX_VALUE, Duration.ofDays(7));
+
+    assertThat(monoTimes(reopened.read("DEVICE1", null, null, null, 1000)))
+        .containsExactly(2, 3, 4, 5, 6, 7, 8, 9);
+  }
+
+  @Test
+  void append_shouldDeleteOldestSegmentsWhenSizeBoundIsExceeded() throws IOException {
+    EventJournal journal = createJournal(512, 2048, Duration.ofDays(30));
+    for (int i = 0; i < 100; i++) {
+      journal.append("DEVICE1", List.of(event(i)));
+    }
+
+    List<Integer> remaining = monoTimes(journal.read("DEVICE1", null, null, null, 1000));
+    assertThat(remaining).isNotEmpty().doesNotContain(0).endsWith(99);
+    assertThat(journalSize("DEVICE1")).isLessThanOrEqualTo(2048 + 512);
+  }
+
+  @Test
+  void open_shouldIgnoreTornRecordAtTheEnd() throws IOException {
+    EventJournal journal = createJournal(1024 * 1024, Long.MAX_VALUE, Duration.ofDays(30));
+    journal.append("DEVICE1", List.of(event(0), event(1)));
+
+    // Simulate a crash while writing a third record: the length points beyond the segment
+    Path segment = segments("DEVICE1").getLast();
+    long end = usedBytes(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), end);
+    }
+
+    EventJournal reopened = createJournal(1024 * 1024, Long.MAX_VALUE, Duration.ofDays(30));
+    reopened.append("DEVICE1", List.of(event(2)));
+
+    assertThat(monoTimes(reopened.read("DEVICE1", null, null, null, 10))).containsExactly(0, 1, 2);
+  }
+
+  @Test
+  void read_shouldKeepDevicesSeparateAndEncodeUnusualDeviceIds() throws IOException {
+    EventJournal journal = createJournal(1024 * 1024, Long.MAX_VALUE, Duration.ofDays(30));
+    journal.append("DEVICE1", List.of(event(1)));
+    journal.append("../evil", List.of(event(2)));
+
+    assertThat(monoTimes(journal.read("DEVICE1", null, null, null, 10))).containsExactly(1);
+    assertThat(monoTimes(journal.read("../evil", null, null, null, 10))).containsExactly(2);
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files.map(file -> file.getFileName().toString()))
+          .containsExactlyInAnyOrder("DEVICE1", "x2e2e2f6576696c");
+    }
+
+    journal.clear();
+    assertThat(journal.read("DEVICE1", null, null, null, 10).events()).isEmpty();
+  }
+
+  @Test
+  void append_shouldDeleteJournalOfLeastRecentlyActiveDeviceBeyondMaxDevices() throws Exception {
+    EventJournal journal =
+        createJournal(1024, Long.MAX_VALUE, Duration.ofDays(30), 2, Duration.ofMinutes(10));
+    journal.append("DEVICE1", List.of(event(1)));
+    Thread.sleep(5);
+    journal.append("DEVICE2", List.of(event(2)));
+    Thread.sleep(5);
+    journal.append("DEVICE1", List.of(event(3)));
+    Thread.sleep(5);
+
+    journal.append("DEVICE3", List.of(event(4)));
+
+    assertThat(journal.read("DEVICE2", null, null, null, 10).events()).isEmpty();
+    assertThat(monoTimes(journal.read("DEVICE1", null, null, null, 10))).containsExactly(1, 3);
+    assertThat(monoTimes(journal.read("DEVICE3", null, null, null, 10))).containsExactly(4);
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files.map(file -> file.getFileName().toString()))
+          .containsExactlyInAnyOrder("DEVICE1", "DEVICE3");
+    }
+  }
+
+  @Test
+  void append_shouldTellTheListenerWhichDeviceWasEvicted() throws Exception {
+    EventJournal journal =
+        createJournal(1024, Long.MAX_VALUE, Duration.ofDays(30), 2, Duration.ofMinutes(10));
+    List<String> evicted = new ArrayList<>();
+    journal.onEviction(evicted::add);
+    journal.append("../evil", List.of(event(1)));
+    Thread.sleep(5);
+    journal.append("DEVICE1", List.of(event(2)));
+    Thread.sleep(5);
+
+    journal.append("DEVICE2", List.of(event(3)));
+    Thread.sleep(5);
+    journal.append("DEVICE3", List.of(event(4)));
+
+    assertThat(evicted).containsExactly("../evil", "DEVICE1");
+  }
+
+  @Test
+  void append_shouldReopenJournalsClosedWhileIdle() {
+    EventJournal journal =
+        createJournal(1024, Long.MAX_VALUE, Duration.ofDays(30), 1000, Duration.ZERO);
+    journal.append("DEVICE1", List.of(event(1)));
+    // Opening another device closes the idle journal of DEVICE1
+    journal.append("DEVICE2", List.of(event(2)));
+
+    journal.append("DEVICE1", List.of(event(3)));
+
+    assertThat(monoTimes(journal.read("DEVICE1", null, null, null, 10))).containsExactly(1, 3);
+    assertThat(monoTimes(journal.read("DEVICE2", null, null, null, 10))).containsExactly(2);
+  }
+
+  private EventJournal createJournal(int segmentSize, long maxBytes, Duration maxAge) {
+    return createJournal(segmentSize, maxBytes, maxAge, 1000, Duration.ofMinutes(10));
+  }
+
+  private EventJournal createJournal(
+      int segmentSize, long maxBytes, Duration maxAge, int maxDevices, Duration idleTimeout) {
+    return new EventJournal(
+        new EventJournalProperties(
+            tempDir.toString(), segmentSize, maxBytes, maxAge, maxDevices, idleTimeout),
+        new DataDirectoryProperties(tempDir.toString()),
+        JsonMapper.builder().build());
+  }
+
+  private static DeviceEventApiDto event(int monoTime) {
+    return event(monoTime, BASE.plusSeconds(monoTime));
+  }
+
+  private static DeviceEventApiDto event(int monoTime, Instant time) {
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setMonoTime(monoTime);
+    event.setTime(OffsetDateTime.ofInstant(time, ZoneOffset.UTC));
+    event.setType("test-event");
+    event.setData(Map.of("number", monoTime));
+    return event;
+  }
+
+  private static List<Integer> monoTimes(EventJournal.EventPage page) {
+    return page.events().stream().map(DeviceEventApiDto::getMonoTime).toList();
+  }
+
+  private List<Path> segments(String deviceId) throws IOException {
+    try (Stream<Path> files = Files.list(tempDir.resolve(deviceId))) {
+      return files.filter(file -> file.toString().endsWith(".evj")).sorted().toList();
+    }
+  }
+
+  private long journalSize(String deviceId) throws IOException {
+    long size = 0;
+    for (Path segment : segments(deviceId)) {
+      size += Files.size(segment);
+    }
+    return size;
+  }
+
+  private static long usedBytes(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int position = 16;
+      while (buffer.getInt(position) > 0) {
+        position += 20 + buffer.getInt(position);
+      }
+      return position;
+    }
+  }
+}
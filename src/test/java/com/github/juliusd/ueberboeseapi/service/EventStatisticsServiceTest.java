@@ -0,0 +1,145 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class EventStatisticsServiceTest {
+
+  private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+  private static final long NOW = 1_000 * MINUTE;
+
+  private final EventStatisticsService service =
+      new EventStatisticsService(new EventStatisticsProperties(1000, 64));
+
+  @Test
+  void getStatistics_shouldAggregateCountsAndMonoTimeDeltasPerType() {
+    service.record(
+        "DEVICE1",
+        List.of(
+            event("play-state-changed", 1000, "2026-01-09T08:00:00Z"),
+            event("volume-changed", 1100, "2026-01-09T08:00:01Z"),
+            event("play-state-changed", 1500, "2026-01-09T08:00:02Z"),
+            event("play-state-changed", 3500, "2026-01-09T08:00:04Z")),
+        NOW);
+
+    var statistics = service.getStatistics("DEVICE1", NOW);
+
+    assertThat(statistics.totalEvents()).isEqualTo(4);
+    assertThat(statistics.types())
+        .extracting(EventStatisticsService.EventTypeStatistics::type)
+        .containsExactly("play-state-changed", "volume-changed");
+    var playState = statistics.types().getFirst();
+    assertThat(playState.count()).isEqualTo(3);
+    assertThat(playState.lastSeen()).isEqualTo(Instant.parse("2026-01-09T08:00:04Z"));
+    assertThat(playState.lastMonoTimeDelta()).isEqualTo(2000);
+    assertThat(playState.minMonoTimeDelta()).isEqualTo(500);
+    assertThat(playState.maxMonoTimeDelta()).isEqualTo(2000);
+    assertThat(playState.averageMonoTimeDelta()).isEqualTo(1250.0);
+    var volume = statistics.types().getLast();
+    assertThat(volume.lastMonoTimeDelta()).isNull();
+    assertThat(volume.averageMonoTimeDelta()).isNull();
+  }
+
+  @Test
+  void getStatistics_shouldCountEventsInRollingWindows() {
+    service.record("DEVICE1", List.of(event("a", 1, null)), NOW - 90 * MINUTE);
+    service.record("DEVICE1", List.of(event("a", 2, null)), NOW - 30 * MINUTE);
+    service.record("DEVICE1", List.of(event("a", 3, null), event("a", 4, null)), NOW - 10 * MINUTE);
+    service.record("DEVICE1", List.of(event("a", 5, null)), NOW);
+
+    var type = service.getStatistics("DEVICE1", NOW).types().getFirst();
+
+    assertThat(type.count()).isEqualTo(5);
+    assertThat(type.eventsLastMinute()).isEqualTo(1);
+    assertThat(type.eventsLast15Minutes()).isEqualTo(3);
+    assertThat(type.eventsLastHour()).isEqualTo(4);
+    // An hour later all buckets have expired
+    assertThat(service.getStatistics("DEVICE1", NOW + 60 * MINUTE).types().getFirst())
+        .extracting(EventStatisticsService.EventTypeStatistics::eventsLastHour)
+        .isEqualTo(0L);
+  }
+
+  @Test
+  void record_shouldIgnoreMonoTimeResetAfterRestart() {
+    service.record(
+        "DEVICE1",
+        List.of(event("a", 5000, null), event("a", 100, null), event("a", 400, null)),
+        NOW);
+
+    var type = service.getStatistics("DEVICE1", NOW).types().getFirst();
+
+    assertThat(type.minMonoTimeDelta()).isEqualTo(300);
+    assertThat(type.maxMonoTimeDelta()).isEqualTo(300);
+  }
+
+  @Test
+  void record_shouldHandleManyEventTypes() {
+    List<DeviceEventApiDto> events = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      for (int j = 0; j <= i % 3; j++) {
+        events.add(event("type-" + i, i * 10 + j, null));
+      }
+    }
+    service.record("DEVICE1", events, NOW);
+
+    var statistics = service.getStatistics("DEVICE1", NOW);
+
+    assertThat(statistics.types()).hasSize(50);
+    assertThat(statistics.totalEvents()).isEqualTo(events.size());
+    assertThat(statistics.types().getFirst().count()).isEqualTo(3);
+    assertThat(service.getStatistics("UNKNOWN", NOW).types()).isEmpty();
+  }
+
+  @Test
+  void record_shouldCountTypesBeyondTheLimitAsOther() {
+    var limited = new EventStatisticsService(new EventStatisticsProperties(1000, 3));
+
+    limited.record(
+        "DEVICE1",
+        List.of(event("a", 1, null), event("b", 2, null), event("c", 3, null), event("d", 4, null)),
+        NOW);
+    limited.record("DEVICE1", List.of(event("a", 5, null)), NOW);
+
+    var statistics = limited.getStatistics("DEVICE1", NOW);
+    assertThat(statistics.totalEvents()).isEqualTo(5);
+    assertThat(statistics.types())
+        .extracting(
+            EventStatisticsService.EventTypeStatistics::type,
+            EventStatisticsService.EventTypeStatistics::count)
+        .containsExactly(
+            tuple("a", 2L), tuple(EventStatisticsService.OTHER_TYPE, 2L), tuple("b", 1L));
+  }
+
+  @Test
+  void record_shouldDropLeastRecentlyActiveDeviceBeyondMaxTrackedDevices() {
+    var limited = new EventStatisticsService(new EventStatisticsProperties(2, 32));
+
+    limited.record("DEVICE1", List.of(event("a", 1, null)), NOW);
+    limited.record("DEVICE2", List.of(event("a", 1, null)), NOW + 1);
+    limited.record("DEVICE1", List.of(event("a", 2, null)), NOW + 2);
+    limited.record("DEVICE3", List.of(event("a", 1, null)), NOW + 3);
+
+    assertThat(limited.getStatistics("DEVICE1", NOW).totalEvents()).isEqualTo(2);
+    assertThat(limited.getStatistics("DEVICE2", NOW).types()).isEmpty();
+    assertThat(limited.getStatistics("DEVICE3", NOW).totalEvents()).isEqualTo(1);
+  }
+
+  private static DeviceEventApiDto event(String type, int monoTime, String time) {
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setType(type);
+    event.setMonoTime(monoTime);
+    if (time != null) {
+      event.setTime(OffsetDateTime.ofInstant(Instant.parse(time), ZoneOffset.UTC));
+    }
+    return event;
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.juliusd.ueberboeseapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.juliusd.ueberboeseapi.DataDirectoryProperties;
+import com.github.juliusd.ueberboeseapi.generated.dtos.DeviceEventApiDto;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+class EventStorageServiceTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void findEvents_shouldReturnLatestEventsAfterRestart() {
+    createService(1000).storeEvents("DEVICE1", List.of(event(1), event(2)));
+
+    EventStorageService restarted = createService(1000);
+    restarted.storeEvents("DEVICE1", List.of(event(3)));
+
+    assertThat(monoTimes(restarted.findEvents("DEVICE1", null, null, null, 2)))
+        .containsExactly(2, 3);
+  }
+
+  @Test
+  void findEvents_shouldNotServeEventsOfDevicesWhoseJournalWasDeleted() throws Exception {
+    EventStorageService service = createService(2);
+    service.storeEvents("DEVICE1", List.of(event(1)));
+    Thread.sleep(5);
+    service.storeEvents("DEVICE2", List.of(event(2)));
+    Thread.sleep(5);
+
+    service.storeEvents("DEVICE3", List.of(event(3)));
+
+    assertThat(service.findEvents("DEVICE1", null, null, null, 10).events()).isEmpty();
+    assertThat(monoTimes(service.findEvents("DEVICE2", null, null, null, 10))).containsExactly(2);
+    assertThat(monoTimes(service.findEvents("DEVICE3", null, null, null, 10))).containsExactly(3);
+  }
+
+  private EventStorageService createService(int maxDevices) {
+    var journalProperties =
+        new EventJournalProperties(
+            tempDir.toString(),
+            1024 * 1024,
+            Long.MAX_VALUE,
+            Duration.ofDays(30),
+            maxDevices,
+            Duration.ofMinutes(10));
+    return new EventStorageService(
+        new EventsProperties(10),
+        journalProperties,
+        new EventJournal(
+            journalProperties,
+            new DataDirectoryProperties(tempDir.toString()),
+            JsonMapper.builder().build()),
+        new EventStatisticsService(new EventStatisticsProperties(1000, 64)),
+        new EventBroadcaster(new EventStreamProperties(2, 2, Duration.ofSeconds(15))));
+  }
+
+  private static List<Integer> monoTimes(EventJournal.EventPage page) {
+    return page.events().stream().map(DeviceEventApiDto::getMonoTime).toList();
+  }
+
+  private static DeviceEventApiDto event(int monoTime) {
+    DeviceEventApiDto event = new DeviceEventApiDto();
+    event.setMonoTime(monoTime);
+    event.setTime(OffsetDateTime.now());
+    event.setType("test-event");
+    return event;
+  }
+}
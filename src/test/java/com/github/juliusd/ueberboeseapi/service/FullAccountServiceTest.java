@@ -8,6 +8,7 @@ import static org.mockito.Mockito.*;
 
 import com.github.juliusd.ueberboeseapi.ProxyService;
 import com.github.juliusd.ueberboeseapi.XmlMessageConverterConfig;
+import com.github.juliusd.ueberboeseapi.bmx.TuneInPrefetcher;
 import com.github.juliusd.ueberboeseapi.device.Device;
 import com.github.juliusd.ueberboeseapi.device.DeviceRepository;
 import com.github.juliusd.ueberboeseapi.generated.dtos.CredentialApiDto;
@@ -32,12 +33,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.jspecify.annotations.NonNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -56,6 +59,7 @@ class FullAccountServiceTest {
   @Mock private RecentService recentService;
   @Mock private PresetService presetService;
   @Mock private DeviceRepository deviceRepository;
+  @Mock private TuneInPrefetcher tuneInPrefetcher;
   @Mock private HttpServletRequest request;
 
   private FullAccountService fullAccountService;
@@ -76,7 +80,8 @@ class FullAccountServiceTest {
             recentMapper,
             presetService,
             presetMapper,
-            deviceRepository);
+            deviceRepository,
+            tuneInPrefetcher);
 
     ReflectionTestUtils.setField(fullAccountService, "isProxyEnabled", true);
     ReflectionTestUtils.setField(fullAccountService, "isolateMatchingIp", false);
@@ -329,6 +334,13 @@ class FullAccountServiceTest {
     assertThat(presets).hasSize(1);
     assertThat(presets.getFirst().getName()).isEqualTo("My Playlist");
     assertThat(presets.getFirst().getButtonNumber()).isEqualTo(1);
+
+    // The locations of presets and recents are handed to the TuneIn prefetcher
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> locations = ArgumentCaptor.forClass(Collection.class);
+    verify(tuneInPrefetcher).prefetchLocations(locations.capture());
+    assertThat(locations.getValue())
+        .containsExactlyInAnyOrder("/v1/playback/station/s12345", "/playback/container/abc123");
   }
 
   @Test
@@ -0,0 +1,154 @@
+package com.github.juliusd.ueberboeseapi.spotify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient;
+import com.github.juliusd.ueberboeseapi.spotify.dto.AuthorizationCodeCredentialsDto;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SpotifyAccessTokenCacheTest {
+
+  private static final SpotifyAccount ACCOUNT =
+      new SpotifyAccount(
+          "user1", "User 1", "refresh_token_1", OffsetDateTime.now(), OffsetDateTime.now(), 0L);
+
+  private final SpotifyAccountService accountService = mock(SpotifyAccountService.class);
+  private final SpotifyOAuthClient oauthClient = mock(SpotifyOAuthClient.class);
+
+  @Test
+  void getCredentials_shouldReuseTheTokenUntilItIsAboutToExpire() {
+    when(oauthClient.refreshAccessToken(any())).thenReturn(credentials("token1", 3600, null));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    AuthorizationCodeCredentialsDto first = cache.getCredentials(ACCOUNT);
+    AuthorizationCodeCredentialsDto second = cache.getCredentials(ACCOUNT);
+
+    assertThat(first.accessToken()).isEqualTo("token1");
+    assertThat(second.accessToken()).isEqualTo("token1");
+    assertThat(second.expiresIn()).isBetween(3590, 3600);
+    verify(oauthClient, times(1)).refreshAccessToken(any());
+  }
+
+  @Test
+  void getCredentials_shouldRefreshATokenWithinTheRefreshMargin() {
+    // Valid for 4 minutes, but tokens are refreshed 5 minutes before they expire
+    when(oauthClient.refreshAccessToken(any()))
+        .thenReturn(credentials("token1", 240, null), credentials("token2", 240, null));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    cache.getCredentials(ACCOUNT);
+    AuthorizationCodeCredentialsDto second = cache.getCredentials(ACCOUNT);
+
+    assertThat(second.accessToken()).isEqualTo("token2");
+    verify(oauthClient, times(2)).refreshAccessToken(any());
+  }
+
+  @Test
+  void getCredentials_shouldShareOneRefreshBetweenConcurrentCallers() throws Exception {
+    AtomicInteger refreshes = new AtomicInteger();
+    when(oauthClient.refreshAccessToken(any()))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(100);
+              return credentials("token" + refreshes.incrementAndGet(), 3600, null);
+            });
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    List<CompletableFuture<AuthorizationCodeCredentialsDto>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 20; i++) {
+        results.add(CompletableFuture.supplyAsync(() -> cache.getCredentials(ACCOUNT), executor));
+      }
+      CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get();
+    }
+
+    assertThat(results).allSatisfy(r -> assertThat(r.get().accessToken()).isEqualTo("token1"));
+    assertThat(refreshes).hasValue(1);
+  }
+
+  @Test
+  void getCredentials_shouldStoreARotatedRefreshToken() {
+    when(oauthClient.refreshAccessToken(any()))
+        .thenReturn(credentials("token1", 3600, "refresh_token_2"));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    cache.getCredentials(ACCOUNT);
+
+    verify(accountService).updateRefreshToken("user1", "refresh_token_2");
+  }
+
+  @Test
+  void getCredentials_shouldStoreTheCurrentRefreshTokenOnlyWhenRefreshing() {
+    when(oauthClient.refreshAccessToken(any())).thenReturn(credentials("token1", 3600, null));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    cache.getCredentials(ACCOUNT);
+    cache.getCredentials(ACCOUNT);
+
+    verify(accountService, times(1)).updateRefreshToken("user1", "refresh_token_1");
+  }
+
+  @Test
+  void getCredentials_shouldNotCacheAFailedRefresh() {
+    when(oauthClient.refreshAccessToken(any()))
+        .thenThrow(new SpotifyException("Spotify API error: 400"))
+        .thenReturn(credentials("token1", 3600, null));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    assertThatThrownBy(() -> cache.getCredentials(ACCOUNT)).isInstanceOf(SpotifyException.class);
+    assertThat(cache.getCredentials(ACCOUNT).accessToken()).isEqualTo("token1");
+    // Only the successful refresh stores the token
+    verify(accountService, times(1)).updateRefreshToken(any(), any());
+  }
+
+  @Test
+  void invalidate_shouldRefreshOnTheNextLookup() {
+    when(oauthClient.refreshAccessToken(any()))
+        .thenReturn(credentials("token1", 3600, null), credentials("token2", 3600, null));
+    SpotifyAccessTokenCache cache = createCache(true);
+
+    cache.getCredentials(ACCOUNT);
+    cache.invalidate("user1");
+
+    assertThat(cache.getCredentials(ACCOUNT).accessToken()).isEqualTo("token2");
+  }
+
+  @Test
+  void getCredentials_shouldRefreshEveryTimeWhenDisabled() {
+    when(oauthClient.refreshAccessToken(any()))
+        .thenReturn(credentials("token1", 3600, null), credentials("token2", 3600, null));
+    SpotifyAccessTokenCache cache = createCache(false);
+
+    cache.getCredentials(ACCOUNT);
+
+    assertThat(cache.getCredentials(ACCOUNT).accessToken()).isEqualTo("token2");
+  }
+
+  private SpotifyAccessTokenCache createCache(boolean enabled) {
+    return new SpotifyAccessTokenCache(
+        new SpotifyAuthProperties("test-client-id", "test-client-secret"),
+        new SpotifyTokenCacheProperties(enabled, Duration.ofMinutes(5)),
+        accountService,
+        oauthClient);
+  }
+
+  private static AuthorizationCodeCredentialsDto credentials(
+      String accessToken, int expiresIn, String refreshToken) {
+    return new AuthorizationCodeCredentialsDto(
+        accessToken, "Bearer", expiresIn, refreshToken, "streaming");
+  }
+}
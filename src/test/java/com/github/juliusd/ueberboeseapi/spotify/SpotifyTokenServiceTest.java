@@ -1,10 +1,16 @@
 package com.github.juliusd.ueberboeseapi.spotify;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.github.juliusd.ueberboeseapi.generated.dtos.OAuthTokenRequestApiDto;
+import com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient;
+import com.github.juliusd.ueberboeseapi.spotify.dto.AuthorizationCodeCredentialsDto;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,15 +25,21 @@ class SpotifyTokenServiceTest {
 
   private SpotifyTokenService spotifyTokenService;
   private SpotifyAccountService mockAccountService;
+  private SpotifyOAuthClient mockOAuthClient;
 
   @BeforeEach
   void setUp() {
     mockAccountService = mock(SpotifyAccountService.class);
     var spotifyAuthProperties = new SpotifyAuthProperties("test-client-id", "test-client-secret");
-    var mockOAuthClient =
-        mock(com.github.juliusd.ueberboeseapi.spotify.client.SpotifyOAuthClient.class);
+    mockOAuthClient = mock(SpotifyOAuthClient.class);
+    var accessTokenCache =
+        new SpotifyAccessTokenCache(
+            spotifyAuthProperties,
+            new SpotifyTokenCacheProperties(true, Duration.ofMinutes(5)),
+            mockAccountService,
+            mockOAuthClient);
     spotifyTokenService =
-        new SpotifyTokenService(spotifyAuthProperties, mockAccountService, mockOAuthClient);
+        new SpotifyTokenService(spotifyAuthProperties, mockAccountService, accessTokenCache);
   }
 
   @Test
@@ -115,4 +127,25 @@ class SpotifyTokenServiceTest {
     assertThatThrownBy(() -> spotifyTokenService.loadSpotifyAuth(request))
         .isInstanceOf(SpotifyException.class);
   }
+
+  @Test
+  void loadSpotifyAuth_shouldAskSpotifyAgainWhenScopesAreMissing() {
+    OffsetDateTime now = OffsetDateTime.now().minusDays(1);
+    SpotifyAccount account =
+        new SpotifyAccount("user_single", "Single User", "refresh_token_single", now, now, 0L);
+    when(mockAccountService.listAllAccounts()).thenReturn(List.of(account));
+    when(mockOAuthClient.refreshAccessToken(any()))
+        .thenReturn(
+            new AuthorizationCodeCredentialsDto(
+                "token", "Bearer", 3600, null, "streaming user-read-email"));
+
+    OAuthTokenRequestApiDto request = new OAuthTokenRequestApiDto();
+    request.setGrantType("refresh_token");
+    request.setRefreshToken("refresh_token_single");
+    spotifyTokenService.loadSpotifyAuth(request);
+    spotifyTokenService.loadSpotifyAuth(request);
+
+    // The token lacking scopes is not cached, so a re-linked account is picked up right away
+    verify(mockOAuthClient, times(2)).refreshAccessToken(any());
+  }
 }